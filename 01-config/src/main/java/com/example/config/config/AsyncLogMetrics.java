@@ -0,0 +1,35 @@
+package com.example.config.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * 异步日志指标
+ * 激活logging-async环境后, 通过/actuator/metrics查看:
+ * logback.async.queue.depth:     队列中等待写入的日志数量
+ * logback.async.queue.remaining: 队列剩余容量
+ * logback.async.dropped:         因队列满而丢弃的日志数量
+ *
+ * @author luminion
+ */
+@Component
+public class AsyncLogMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (MeteredAsyncAppender appender : MeteredAsyncAppender.appenders()) {
+            Gauge.builder("logback.async.queue.depth", appender, MeteredAsyncAppender::getNumberOfElementsInQueue)
+                    .tag("appender", appender.getName())
+                    .register(registry);
+            Gauge.builder("logback.async.queue.remaining", appender, MeteredAsyncAppender::getRemainingCapacity)
+                    .tag("appender", appender.getName())
+                    .register(registry);
+            FunctionCounter.builder("logback.async.dropped", appender, MeteredAsyncAppender::getDropped)
+                    .tag("appender", appender.getName())
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.config.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.util.CollectionUtils;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.condition.ProducesRequestCondition;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带路由缓存的RequestMappingHandlerMapping
+ * 精确路径(不带通配符/路径变量)spring已按路径哈希查找, 不需要缓存;
+ * 带路径变量/通配符的路径(如/emp/{id}, /emp/{p1:[a-f]+}/info)默认每次请求都要逐个匹配所有模式映射, 再排序选出最佳匹配,
+ * 此类将 请求方式+请求路径 -> 匹配结果(映射, 最佳匹配模式, 路径变量) 缓存起来, 命中后不再匹配路径模式
+ *
+ * 说明:
+ * 1.只有路径+请求方式唯一对应一个映射时才缓存(检查全部映射, 只在未命中时执行),
+ *   避免不同参数/请求头(Accept等)本应匹配到其他映射, 或多个模式都能匹配的情况
+ * 2.命中缓存后仍会校验该映射路径以外的条件(请求方式,参数,请求头,consumes,produces,自定义条件), 不满足时走默认的匹配流程
+ * 3.路径模式(包括{p1:[a-f]+}这类正则路径变量)在启动注册映射时已由PathPatternParser解析, 不会每次请求重新编译
+ * 4.缓存分为新旧两代(ConcurrentHashMap, 读取不加锁), 新一代满(maxSize/2)后整体变为旧一代,
+ *   旧一代中再次命中的条目移回新一代, 总数不超过maxSize, 近似LRU; 注册/注销映射时清空
+ * 5.带矩阵变量(;a=1)的路径不缓存
+ * 6.命中率及匹配耗时通过micrometer暴露(http.route.cache.*)
+ *
+ * 配置方式: luminion.route-cache.enabled=true (默认关闭, 见MyMVCConfig)
+ *
+ * @author luminion
+ */
+public class CachingRequestMappingHandlerMapping extends RequestMappingHandlerMapping {
+
+    /**
+     * 请求属性: 本次请求匹配到的映射信息
+     */
+    private static final String MATCHED_INFO_ATTRIBUTE = CachingRequestMappingHandlerMapping.class.getName() + ".matchedInfo";
+
+    /**
+     * 每一代的最大条目数
+     */
+    private final int generationSize;
+
+    private volatile Map<String, Route> current = new ConcurrentHashMap<>();
+
+    private volatile Map<String, Route> previous = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder matchCount = new LongAdder();
+
+    private final LongAdder matchNanos = new LongAdder();
+
+    public CachingRequestMappingHandlerMapping(int maxSize) {
+        this.generationSize = Math.max(1, maxSize / 2);
+    }
+
+    @Override
+    protected HandlerMethod lookupHandlerMethod(String lookupPath, HttpServletRequest request) throws Exception {
+        long start = System.nanoTime();
+        try {
+            if (CorsUtils.isPreFlightRequest(request)) {
+                return super.lookupHandlerMethod(lookupPath, request);
+            }
+            String key = request.getMethod() + " " + lookupPath;
+            Route route = get(key);
+            if (route != null) {
+                ProducesRequestCondition produces = route.matchOtherConditions(request);
+                if (produces != null) {
+                    hits.increment();
+                    route.expose(lookupPath, produces, request);
+                    return route.handlerMethod();
+                }
+            }
+            misses.increment();
+            request.removeAttribute(MATCHED_INFO_ATTRIBUTE);
+            HandlerMethod handlerMethod = super.lookupHandlerMethod(lookupPath, request);
+            RequestMappingInfo info = (RequestMappingInfo) request.getAttribute(MATCHED_INFO_ATTRIBUTE);
+            if (handlerMethod != null && info != null && !info.getDirectPaths().contains(lookupPath)) {
+                Route resolved = Route.of(handlerMethod, info, request);
+                if (resolved != null && isExclusive(request)) {
+                    put(key, resolved);
+                }
+            }
+            return handlerMethod;
+        } finally {
+            matchCount.increment();
+            matchNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    protected void handleMatch(RequestMappingInfo info, String lookupPath, HttpServletRequest request) {
+        request.setAttribute(MATCHED_INFO_ATTRIBUTE, info);
+        super.handleMatch(info, lookupPath, request);
+    }
+
+    @Override
+    protected void registerHandlerMethod(Object handler, Method method, RequestMappingInfo mapping) {
+        super.registerHandlerMethod(handler, method, mapping);
+        invalidate();
+    }
+
+    @Override
+    public void registerMapping(RequestMappingInfo mapping, Object handler, Method method) {
+        super.registerMapping(mapping, handler, method);
+        invalidate();
+    }
+
+    @Override
+    public void unregisterMapping(RequestMappingInfo mapping) {
+        super.unregisterMapping(mapping);
+        invalidate();
+    }
+
+    private Route get(String key) {
+        Route route = current.get(key);
+        if (route != null) {
+            return route;
+        }
+        Map<String, Route> old = previous;
+        route = old.get(key);
+        if (route != null) {
+            // 旧一代中命中, 移回新一代
+            old.remove(key, route);
+            put(key, route);
+        }
+        return route;
+    }
+
+    private void put(String key, Route route) {
+        Map<String, Route> generation = current;
+        if (generation.size() >= generationSize) {
+            synchronized (this) {
+                if (current == generation) {
+                    previous = generation;
+                    current = generation = new ConcurrentHashMap<>();
+                } else {
+                    generation = current;
+                }
+            }
+        }
+        generation.put(key, route);
+    }
+
+    /**
+     * 判断当前请求的路径+请求方式是否只对应一个映射(不考虑参数,请求头等条件)
+     */
+    private boolean isExclusive(HttpServletRequest request) {
+        int count = 0;
+        for (RequestMappingInfo info : getHandlerMethods().keySet()) {
+            if (info.getMethodsCondition().getMatchingCondition(request) != null
+                    && info.getActivePatternsCondition().getMatchingCondition(request) != null
+                    && ++count > 1) {
+                return false;
+            }
+        }
+        return count == 1;
+    }
+
+    private synchronized void invalidate() {
+        current = new ConcurrentHashMap<>();
+        previous = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * 注册缓存指标
+     *
+     * @param registry 指标注册中心
+     * @author luminion
+     */
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("http.route.cache.hits", hits, LongAdder::sum).register(registry);
+        FunctionCounter.builder("http.route.cache.misses", misses, LongAdder::sum).register(registry);
+        Gauge.builder("http.route.cache.size", this, CachingRequestMappingHandlerMapping::size).register(registry);
+        Gauge.builder("http.route.cache.hit.ratio", this, CachingRequestMappingHandlerMapping::hitRatio).register(registry);
+        FunctionTimer.builder("http.route.match", this, m -> m.matchCount.sum(), m -> m.matchNanos.sum(), TimeUnit.NANOSECONDS)
+                .register(registry);
+    }
+
+    /**
+     * 缓存的路由数量
+     */
+    public int size() {
+        return current.size() + previous.size();
+    }
+
+    /**
+     * 缓存命中率
+     */
+    public double hitRatio() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    /**
+     * 缓存的匹配结果
+     *
+     * @param handlerMethod 处理方法
+     * @param info          匹配到的映射信息(只包含匹配到的路径模式)
+     * @param pattern       最佳匹配模式
+     * @param uriVariables  路径变量(不可修改)
+     */
+    private record Route(HandlerMethod handlerMethod, RequestMappingInfo info, String pattern, Map<String, String> uriVariables) {
+
+        /**
+         * 从默认匹配流程设置的请求属性中取出匹配结果, 带矩阵变量时返回null(不缓存)
+         */
+        @SuppressWarnings("unchecked")
+        static Route of(HandlerMethod handlerMethod, RequestMappingInfo info, HttpServletRequest request) {
+            Object pattern = request.getAttribute(BEST_MATCHING_PATTERN_ATTRIBUTE);
+            Map<String, String> uriVariables = (Map<String, String>) request.getAttribute(URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+            Map<String, ?> matrixVariables = (Map<String, ?>) request.getAttribute(MATRIX_VARIABLES_ATTRIBUTE);
+            if (pattern == null || uriVariables == null || !CollectionUtils.isEmpty(matrixVariables)) {
+                return null;
+            }
+            return new Route(handlerMethod, info, pattern.toString(), Collections.unmodifiableMap(new LinkedHashMap<>(uriVariables)));
+        }
+
+        /**
+         * 校验路径以外的条件
+         *
+         * @return 匹配的produces条件, 不满足时为null
+         */
+        ProducesRequestCondition matchOtherConditions(HttpServletRequest request) {
+            if (info.getMethodsCondition().getMatchingCondition(request) == null
+                    || info.getParamsCondition().getMatchingCondition(request) == null
+                    || info.getHeadersCondition().getMatchingCondition(request) == null
+                    || info.getConsumesCondition().getMatchingCondition(request) == null
+                    || info.getCustomCondition().getMatchingCondition(request) == null) {
+                return null;
+            }
+            return info.getProducesCondition().getMatchingCondition(request);
+        }
+
+        /**
+         * 设置与RequestMappingInfoHandlerMapping.handleMatch相同的请求属性
+         */
+        void expose(String lookupPath, ProducesRequestCondition produces, HttpServletRequest request) {
+            request.setAttribute(BEST_MATCHING_HANDLER_ATTRIBUTE, handlerMethod);
+            request.setAttribute(PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, lookupPath);
+            request.setAttribute(BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+            request.setAttribute(URI_TEMPLATE_VARIABLES_ATTRIBUTE, uriVariables);
+            request.setAttribute(MATRIX_VARIABLES_ATTRIBUTE, Map.of());
+            if (!produces.isEmpty()) {
+                Set<MediaType> mediaTypes = produces.getProducibleMediaTypes();
+                if (!mediaTypes.isEmpty()) {
+                    request.setAttribute(PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE, mediaTypes);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.config.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.resource.AbstractResourceResolver;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 带内容指纹的资源使用永久缓存
+ * 请求路径包含内容hash指纹(VersionResourceResolver的内容版本, 例如/static/app-{md5}.css)时,
+ * 响应头Cache-Control改为永久缓存(1年, immutable); 内容变化后路径也会变化, 客户端不会用到旧内容
+ * 不带指纹的路径仍使用资源处理器配置的缓存策略(例如no-cache, 通过ETag/Last-Modified协商, 未变化时返回304)
+ *
+ * 需要放在EncodedResourceResolver和VersionResourceResolver之前, 以便包装它们返回的资源(保留Content-Encoding等响应头)
+ *
+ * @author luminion
+ */
+public class ImmutableVersionedResourceResolver extends AbstractResourceResolver {
+
+    /**
+     * ContentVersionStrategy的指纹: 文件名中的 -{32位md5}.
+     */
+    private static final Pattern CONTENT_VERSION = Pattern.compile("-[0-9a-f]{32}\\.[^/]*$");
+
+    private final String cacheControl;
+
+    public ImmutableVersionedResourceResolver(CacheControl cacheControl) {
+        this.cacheControl = cacheControl.getHeaderValue();
+    }
+
+    @Override
+    protected Resource resolveResourceInternal(@Nullable HttpServletRequest request, String requestPath,
+                                               List<? extends Resource> locations, ResourceResolverChain chain) {
+        Resource resource = chain.resolveResource(request, requestPath, locations);
+        if (resource == null || !CONTENT_VERSION.matcher(requestPath).find()) {
+            return resource;
+        }
+        return new ImmutableResource(resource, cacheControl);
+    }
+
+    @Override
+    protected String resolveUrlPathInternal(String resourceUrlPath, List<? extends Resource> locations,
+                                            ResourceResolverChain chain) {
+        return chain.resolveUrlPath(resourceUrlPath, locations);
+    }
+
+    /**
+     * 添加Cache-Control响应头的资源, 其他方法委托给原资源
+     */
+    private static final class ImmutableResource extends AbstractResource implements HttpResource {
+
+        private final Resource original;
+
+        private final String cacheControl;
+
+        ImmutableResource(Resource original, String cacheControl) {
+            this.original = original;
+            this.cacheControl = cacheControl;
+        }
+
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            if (original instanceof HttpResource httpResource) {
+                headers.putAll(httpResource.getResponseHeaders());
+            }
+            headers.set(HttpHeaders.CACHE_CONTROL, cacheControl);
+            return headers;
+        }
+
+        @Override
+        public boolean exists() {
+            return original.exists();
+        }
+
+        @Override
+        public boolean isReadable() {
+            return original.isReadable();
+        }
+
+        @Override
+        public boolean isFile() {
+            return original.isFile();
+        }
+
+        @Override
+        public URL getURL() throws IOException {
+            return original.getURL();
+        }
+
+        @Override
+        public URI getURI() throws IOException {
+            return original.getURI();
+        }
+
+        @Override
+        public File getFile() throws IOException {
+            return original.getFile();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return original.getInputStream();
+        }
+
+        @Override
+        public ReadableByteChannel readableChannel() throws IOException {
+            return original.readableChannel();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return original.contentLength();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return original.lastModified();
+        }
+
+        @Override
+        public Resource createRelative(String relativePath) throws IOException {
+            return original.createRelative(relativePath);
+        }
+
+        @Override
+        public String getFilename() {
+            return original.getFilename();
+        }
+
+        @Override
+        public String getDescription() {
+            return original.getDescription();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.config.config;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带丢弃计数的异步日志appender
+ * logback的AsyncAppender在队列快满(剩余容量低于discardingThreshold)时会丢弃WARN以下的日志,
+ * 在neverBlock=true且队列已满时会直接丢弃日志, 但不会记录丢弃了多少条
+ * 此类在丢弃时计数, 并登记自身, 以便AsyncLogMetrics暴露队列长度与丢弃数量
+ *
+ * @author luminion
+ */
+public class MeteredAsyncAppender extends AsyncAppender {
+
+    /**
+     * 已启动的appender, key为appender名称
+     */
+    private static final Map<String, MeteredAsyncAppender> APPENDERS = new ConcurrentHashMap<>();
+
+    private final LongAdder dropped = new LongAdder();
+
+    public static Collection<MeteredAsyncAppender> appenders() {
+        return Collections.unmodifiableCollection(APPENDERS.values());
+    }
+
+    @Override
+    public void start() {
+        super.start();
+        if (isStarted()) {
+            APPENDERS.put(getName(), this);
+        }
+    }
+
+    @Override
+    public void stop() {
+        APPENDERS.remove(getName(), this);
+        super.stop();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        // 与父类的判断逻辑一致, 在父类丢弃之前计数
+        int remaining = getRemainingCapacity();
+        if ((remaining < getDiscardingThreshold() && isDiscardable(event)) || (isNeverBlock() && remaining == 0)) {
+            dropped.increment();
+            return;
+        }
+        super.append(event);
+    }
+
+    /**
+     * 丢弃的日志数量
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+}
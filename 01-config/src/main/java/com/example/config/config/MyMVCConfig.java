@@ -1,11 +1,26 @@
 package com.example.config.config;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.CacheControl;
 import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -14,8 +29,50 @@ import java.util.concurrent.TimeUnit;
  */
 //@EnableWebMvc // 开启全面接管SpringMVC,使用此注解后, 会禁用SpringBoot的默认配置
 @Configuration
-public class MyMVCConfig implements WebMvcConfigurer {
+public class MyMVCConfig implements WebMvcConfigurer, DisposableBean {
 
+    /**
+     * 静态资源预压缩目录, 每次启动时清空后重新生成; 未配置时使用每个实例独立的临时目录, 关闭时删除
+     */
+    @Value("${luminion.static-resource.precompress-directory:}")
+    private String precompressDirectory;
+
+    /**
+     * 本实例创建的临时预压缩目录
+     */
+    private Path temporaryDirectory;
+
+    /**
+     * 使用带路由缓存的RequestMappingHandlerMapping替换默认的映射处理器
+     * 配置luminion.route-cache.enabled=true时生效(默认关闭), 缓存大小通过luminion.route-cache.max-size指定
+     *
+     * @param maxSize 缓存的最大路由数量
+     * @return {@code WebMvcRegistrations }
+     * @author luminion
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "luminion.route-cache", name = "enabled", havingValue = "true")
+    public WebMvcRegistrations routeCacheRegistrations(@Value("${luminion.route-cache.max-size:1024}") int maxSize) {
+        return new WebMvcRegistrations() {
+            @Override
+            public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+                return new CachingRequestMappingHandlerMapping(maxSize);
+            }
+        };
+    }
+
+    /**
+     * 路由缓存指标(命中率, 匹配耗时等), 通过/actuator/metrics查看
+     *
+     * @param mapping 映射处理器
+     * @return {@code MeterBinder }
+     * @author luminion
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "luminion.route-cache", name = "enabled", havingValue = "true")
+    public MeterBinder routeCacheMetrics(@Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping mapping) {
+        return registry -> ((CachingRequestMappingHandlerMapping) mapping).bindTo(registry);
+    }
 
 
     @Override
@@ -33,15 +90,39 @@ public class MyMVCConfig implements WebMvcConfigurer {
 //        WebMvcConfigurer.super.addResourceHandlers(registry);
 
         // 自定义规则
+        String[] locations = {"classpath:/static/a/", "classpath:/static/b/"};
+        // 启动时将静态资源预压缩到本地目录(见StaticResourcePrecompressor), 未指定目录时每个实例使用独立的临时目录
+        Path directory;
+        if (StringUtils.hasText(precompressDirectory)) {
+            directory = Path.of(precompressDirectory);
+        } else {
+            directory = temporaryDirectory = StaticResourcePrecompressor.createTempDirectory();
+        }
+        Path precompressed = new StaticResourcePrecompressor(locations).precompress(directory);
         registry
                 // 设置访问路径
                 .addResourceHandler("/static/**")
+                // 预压缩目录放在最前面, 优先从该目录查找(其中包含原文件及.gz文件)
+                .addResourceLocations(precompressed.toUri().toString())
                 // 设置静态资源路径(例如,访问路径为/static/a/1.jpg,则会去classpath:/static/a/1.jpg查找)
-                .addResourceLocations("classpath:/static/a/")
-                .addResourceLocations("classpath:/static/b/")
-                // 设置缓存时间为30分钟
-                .setCacheControl(CacheControl.maxAge(1800, TimeUnit.SECONDS))
+                .addResourceLocations(locations)
+                // 不带指纹的路径每次都向服务端确认(ETag/Last-Modified协商, 未变化时返回304), 内容变化后客户端能立即获取
+                .setCacheControl(CacheControl.noCache().cachePublic())
+                // 开启资源链并缓存解析结果
+                .resourceChain(true)
+                // 带内容hash指纹的路径, 内容变化后路径也会变化, 所以可以设置为永久缓存(1年, immutable)
+                .addResolver(new ImmutableVersionedResourceResolver(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()))
+                // 请求头Accept-Encoding允许时, 返回预压缩的.br/.gz文件
+                .addResolver(new EncodedResourceResolver())
+                // 内容hash指纹, 例如: /static/错误处理机制.svg -> /static/错误处理机制-{md5}.svg
+                // 页面中的资源路径可通过ResourceUrlProvider.getForLookupPath()获取带指纹的路径
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"))
         ;
+        /*
+        资源处理器(ResourceHttpRequestHandler)本身已支持:
+          ○ Range请求头(分段下载/断点续传), 返回206状态码
+          ○ Last-Modified/ETag协商缓存, 返回304状态码
+         */
 
     }
 
@@ -63,5 +144,29 @@ public class MyMVCConfig implements WebMvcConfigurer {
         // 添加自定义的消息转换器
         converters.add(new YamlMessageConverter());
 
+        /*
+        添加二进制格式的消息转换器(需要在pom中引入jackson-dataformat-smile/jackson-dataformat-cbor依赖)
+        适用于服务间调用, 请求头Accept为对应媒体类型(或?format=smile/cbor)时返回二进制数据
+          ○ application/x-jackson-smile: jackson的二进制json格式
+          ○ application/cbor: RFC 8949标准的二进制json格式
+        引入依赖后springboot的默认转换器中可能已包含, 此处判断后再添加, 避免重复
+         */
+        if (converters.stream().noneMatch(MappingJackson2SmileHttpMessageConverter.class::isInstance)) {
+            converters.add(new MappingJackson2SmileHttpMessageConverter(Jackson2ObjectMapperBuilder.smile().build()));
+        }
+        if (converters.stream().noneMatch(MappingJackson2CborHttpMessageConverter.class::isInstance)) {
+            converters.add(new MappingJackson2CborHttpMessageConverter(Jackson2ObjectMapperBuilder.cbor().build()));
+        }
+
+    }
+
+    /**
+     * 删除本实例创建的临时预压缩目录
+     */
+    @Override
+    public void destroy() {
+        if (temporaryDirectory != null) {
+            StaticResourcePrecompressor.delete(temporaryDirectory);
+        }
     }
 }
@@ -0,0 +1,90 @@
+package com.example.config.config;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyCaching;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Environment;
+
+/**
+ * 配置属性绑定的启动优化
+ * 配置luminion.lazy-properties.enabled=true时生效
+ *
+ * 1.延迟绑定: 将所有类上标注了@ConfigurationProperties的bean设置为懒加载, 首次获取(或被注入)时才创建并绑定
+ * 2.缓存属性源查找: 启动期间开启ConfigurationPropertyCaching, 绑定时不再反复遍历所有属性源的属性名;
+ *   启动完成(ApplicationReadyEvent)后关闭, 避免之后变化的属性源(例如配置中心刷新)一直读取旧的缓存
+ * 3.绑定耗时报告: 记录每个属性bean的绑定耗时及其属性来源(见PropertiesBindingReport)
+ *
+ * 注意: 被其他bean直接注入的属性bean(例如TestController中的Person), 在注入时就会绑定, 懒加载对其无效
+ *
+ * @author luminion
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "luminion.lazy-properties", name = "enabled", havingValue = "true")
+public class PropertiesBindingConfig {
+
+    /**
+     * 将@ConfigurationProperties bean设置为懒加载, 并开启属性源缓存
+     * BeanFactoryPostProcessor需要声明为static, 避免提前创建配置类
+     *
+     * @param environment 环境
+     * @return {@code BeanFactoryPostProcessor }
+     * @author luminion
+     */
+    @Bean
+    public static BeanFactoryPostProcessor lazyPropertiesPostProcessor(Environment environment) {
+        return beanFactory -> {
+            ConfigurationPropertyCaching.get(environment).enable();
+            for (String beanName : beanFactory.getBeanDefinitionNames()) {
+                Class<?> type = beanFactory.getType(beanName, false);
+                if (type != null && AnnotatedElementUtils.hasAnnotation(type, ConfigurationProperties.class)) {
+                    BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    /**
+     * 启动完成后关闭属性源缓存
+     *
+     * @param environment 环境
+     * @return {@code ApplicationListener<ApplicationReadyEvent> }
+     * @author luminion
+     */
+    @Bean
+    public static ApplicationListener<ApplicationReadyEvent> propertyCachingDisabler(Environment environment) {
+        return event -> ConfigurationPropertyCaching.get(environment).disable();
+    }
+
+    /**
+     * 绑定耗时报告
+     *
+     * @param environment 环境
+     * @return {@code PropertiesBindingReport }
+     * @author luminion
+     */
+    @Bean
+    public static PropertiesBindingReport propertiesBindingReport(ConfigurableEnvironment environment) {
+        return new PropertiesBindingReport(environment);
+    }
+
+    /**
+     * 绑定耗时报告的结束计时
+     *
+     * @param report 绑定耗时报告
+     * @return {@code PropertiesBindingReport.Finish }
+     * @author luminion
+     */
+    @Bean
+    public static PropertiesBindingReport.Finish propertiesBindingReportFinish(PropertiesBindingReport report) {
+        return report.new Finish();
+    }
+}
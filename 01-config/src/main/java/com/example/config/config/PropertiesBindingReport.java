@@ -0,0 +1,159 @@
+package com.example.config.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyName;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySource;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyState;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.PropertySource;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 配置属性绑定耗时报告
+ * ConfigurationPropertiesBindingPostProcessor(order为HIGHEST_PRECEDENCE + 1)在bean初始化前完成属性绑定,
+ * 此类在其之前(HIGHEST_PRECEDENCE)开始计时, 在其之后(Finish, HIGHEST_PRECEDENCE + 2)结束计时,
+ * 并记录该前缀下的属性来自哪些属性源(按优先级排列, 第一个为生效的属性源)
+ * 应用就绪后按耗时倒序打印报告, 之后懒加载绑定的bean在绑定时单独打印
+ *
+ * @author luminion
+ */
+@Slf4j
+public class PropertiesBindingReport implements BeanPostProcessor, PriorityOrdered, ApplicationListener<ApplicationReadyEvent> {
+
+    private final ConfigurableEnvironment environment;
+
+    /**
+     * 正在绑定的bean, key为beanName, value为开始时间
+     */
+    private final Map<String, Long> binding = new ConcurrentHashMap<>();
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    private volatile boolean ready;
+
+    public PropertiesBindingReport(ConfigurableEnvironment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public int getOrder() {
+        return HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        if (AnnotatedElementUtils.hasAnnotation(ClassUtils.getUserClass(bean), ConfigurationProperties.class)) {
+            binding.put(beanName, System.nanoTime());
+        }
+        return bean;
+    }
+
+    private void finish(Object bean, String beanName) {
+        Long start = binding.remove(beanName);
+        if (start == null) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        ConfigurationProperties annotation = AnnotatedElementUtils.findMergedAnnotation(ClassUtils.getUserClass(bean), ConfigurationProperties.class);
+        String prefix = annotation == null ? "" : annotation.prefix();
+        Entry entry = new Entry(beanName, prefix, nanos, sources(prefix));
+        synchronized (entries) {
+            entries.add(entry);
+        }
+        if (ready) {
+            log.info("懒加载绑定: {}", entry);
+        }
+    }
+
+    /**
+     * 包含该前缀下属性的属性源名称(按优先级排列)
+     */
+    private List<String> sources(String prefix) {
+        List<String> sources = new ArrayList<>();
+        if (!ConfigurationPropertyName.isValid(prefix)) {
+            return sources;
+        }
+        ConfigurationPropertyName name = ConfigurationPropertyName.of(prefix);
+        for (ConfigurationPropertySource source : ConfigurationPropertySources.get(environment)) {
+            if (source.containsDescendantOf(name) == ConfigurationPropertyState.PRESENT
+                    && source.getUnderlyingSource() instanceof PropertySource<?> propertySource) {
+                sources.add(propertySource.getName());
+            }
+        }
+        return sources;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        ready = true;
+        List<Entry> report;
+        synchronized (entries) {
+            report = new ArrayList<>(entries);
+        }
+        report.sort(Comparator.comparingLong(Entry::nanos).reversed());
+        StringBuilder sb = new StringBuilder("配置属性绑定耗时报告(共").append(report.size()).append("个):");
+        for (Entry entry : report) {
+            sb.append(System.lineSeparator()).append("  ").append(entry);
+        }
+        log.info(sb.toString());
+    }
+
+    /**
+     * 获取已绑定的记录
+     *
+     * @return {@code List<Entry> }
+     * @author luminion
+     */
+    public List<Entry> getEntries() {
+        synchronized (entries) {
+            return List.copyOf(entries);
+        }
+    }
+
+    /**
+     * 绑定记录
+     *
+     * @param beanName bean名称
+     * @param prefix   属性前缀
+     * @param nanos    绑定耗时(纳秒)
+     * @param sources  属性来源
+     */
+    public record Entry(String beanName, String prefix, long nanos, List<String> sources) {
+        @Override
+        public String toString() {
+            return String.format("%-40s prefix=%-20s %8d us  sources=%s", beanName, prefix, TimeUnit.NANOSECONDS.toMicros(nanos), sources);
+        }
+    }
+
+    /**
+     * 在ConfigurationPropertiesBindingPostProcessor之后结束计时
+     */
+    public class Finish implements BeanPostProcessor, PriorityOrdered {
+
+        @Override
+        public int getOrder() {
+            return HIGHEST_PRECEDENCE + 2;
+        }
+
+        @Override
+        public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+            finish(bean, beanName);
+            return bean;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.config.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 静态资源预压缩
+ * 启动时扫描指定的静态资源路径, 将资源复制到本地目录, 并为可压缩的文本类资源(svg,css,js等)生成.gz文件
+ * 将该目录作为第一个资源路径配合EncodedResourceResolver使用,
+ * 请求头Accept-Encoding包含gzip时, 直接返回预压缩的文件, 无需每次请求都压缩
+ *
+ * 说明:
+ * 1.png,jpg等图片本身已经是压缩格式, 再次gzip几乎没有收益, 只复制不压缩
+ * 2.jdk没有内置brotli编码器, 此处只生成.gz; 若目录中存在.br文件, EncodedResourceResolver同样会优先使用
+ * 3.多个路径中存在同名资源时, 以先配置的路径为准(与资源路径的查找顺序一致)
+ * 4.目标目录中写入标记文件(.static-precompressed), 资源生成在其中的static子目录;
+ *   预压缩前只清空带有标记文件(此类生成)的目录, 非空且没有标记的目录(例如误配置的用户目录)直接报错, 不会删除其中的文件
+ * 5.多个实例不能共用同一目录(会互相删除文件), 未指定目录时应使用每个实例独立的临时目录(见createTempDirectory)
+ *
+ * @author luminion
+ */
+@Slf4j
+public class StaticResourcePrecompressor {
+
+    /**
+     * 需要压缩的文件扩展名
+     */
+    private static final Set<String> COMPRESSIBLE = Set.of("svg", "css", "js", "html", "json", "txt", "xml", "map");
+
+    /**
+     * 标记文件, 存在时表示目录由此类生成, 可以清空
+     */
+    private static final String MARKER = ".static-precompressed";
+
+    /**
+     * 资源所在的子目录
+     */
+    private static final String RESOURCES = "static";
+
+    private final ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+
+    private final String[] locations;
+
+    public StaticResourcePrecompressor(String... locations) {
+        this.locations = locations;
+    }
+
+    /**
+     * 创建临时目录(每次调用都不同), 用于每个实例独立的预压缩目录
+     *
+     * @return {@code Path } 临时目录
+     * @author luminion
+     */
+    public static Path createTempDirectory() {
+        try {
+            return Files.createTempDirectory("static-precompressed-");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 预压缩到指定目录, 目录中已有的文件(上次启动生成的)先删除
+     *
+     * @param directory 目标目录, 必须为空目录, 不存在的目录, 或之前由此类生成的目录
+     * @return {@code Path } 资源所在的目录(directory下的static子目录)
+     * @author luminion
+     */
+    public Path precompress(Path directory) {
+        directory = directory.toAbsolutePath().normalize();
+        Path target = directory.resolve(RESOURCES);
+        int files = 0;
+        long originalBytes = 0;
+        long gzipBytes = 0;
+        try {
+            clean(directory);
+            Files.createFile(directory.resolve(MARKER));
+            Files.createDirectories(target);
+            for (String location : locations) {
+                Resource root = resolver.getResource(location);
+                if (!root.exists()) {
+                    continue;
+                }
+                String rootUrl = decode(root.getURL().toString());
+                for (Resource resource : resolver.getResources(location + "**")) {
+                    String url = decode(resource.getURL().toString());
+                    if (!url.startsWith(rootUrl) || url.endsWith("/") || !resource.isReadable()) {
+                        continue;
+                    }
+                    Path file = target.resolve(url.substring(rootUrl.length())).normalize();
+                    if (!file.startsWith(target) || Files.exists(file)) {
+                        continue;
+                    }
+                    Files.createDirectories(file.getParent());
+                    try (InputStream is = resource.getInputStream()) {
+                        Files.copy(is, file);
+                    }
+                    files++;
+                    originalBytes += Files.size(file);
+                    if (isCompressible(file)) {
+                        gzipBytes += gzip(file);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("静态资源预压缩完成, 目录: {}, 文件数: {}, 原始字节: {}, gzip字节: {}", target, files, originalBytes, gzipBytes);
+        return target;
+    }
+
+    /**
+     * 删除由此类生成的目录(例如关闭时删除临时目录), 目录不存在或没有标记文件时不删除
+     *
+     * @param directory 目录
+     * @author luminion
+     */
+    public static void delete(Path directory) {
+        directory = directory.toAbsolutePath().normalize();
+        if (!Files.exists(directory.resolve(MARKER))) {
+            return;
+        }
+        try {
+            deleteContents(directory);
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            log.warn("删除静态资源预压缩目录失败: {}", directory, e);
+        }
+    }
+
+    /**
+     * 清空目录, 目录不存在时创建; 非空且没有标记文件的目录不清空
+     */
+    private static void clean(Path directory) throws IOException {
+        if (Files.isDirectory(directory)) {
+            if (!Files.exists(directory.resolve(MARKER)) && !isEmpty(directory)) {
+                throw new IllegalStateException("静态资源预压缩目录不为空且不是预压缩生成的目录(缺少" + MARKER + "), 不会清空: " + directory);
+            }
+            deleteContents(directory);
+        }
+        Files.createDirectories(directory);
+    }
+
+    private static boolean isEmpty(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.findAny().isEmpty();
+        }
+    }
+
+    /**
+     * 删除目录中的所有文件和子目录(不跟随符号链接)
+     */
+    private static void deleteContents(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                if (!path.equals(directory)) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    private static long gzip(Path file) throws IOException {
+        Path gz = file.resolveSibling(file.getFileName() + ".gz");
+        try (OutputStream os = new GZIPOutputStream(Files.newOutputStream(gz))) {
+            Files.copy(file, os);
+        }
+        // 压缩后没有变小则不保留
+        if (Files.size(gz) >= Files.size(file)) {
+            Files.delete(gz);
+            return 0;
+        }
+        return Files.size(gz);
+    }
+
+    private static boolean isCompressible(Path file) {
+        String name = file.getFileName().toString();
+        int index = name.lastIndexOf('.');
+        return index > 0 && COMPRESSIBLE.contains(name.substring(index + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private static String decode(String url) {
+        return UriUtils.decode(url, StandardCharsets.UTF_8);
+    }
+}
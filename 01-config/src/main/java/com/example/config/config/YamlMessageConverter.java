@@ -1,8 +1,12 @@
 package com.example.config.config;
 
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpInputMessage;
 import org.springframework.http.HttpOutputMessage;
 import org.springframework.http.MediaType;
@@ -12,16 +16,40 @@ import org.springframework.http.converter.HttpMessageNotWritableException;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
-import java.nio.charset.Charset;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
+ * yaml格式的消息转换器
+ *
+ * 性能相关:
+ * 1.ObjectReader/ObjectWriter是线程安全且不可变的, 按类型缓存后, 每次请求无需重新查找反序列化器/序列化器
+ * 2.jackson本身基于token流解析, 直接读取请求体的InputStream, 不会把整个请求体先读入内存
+ * 3.jackson内部通过BufferRecycler复用读写缓冲区, 直接写入响应体的OutputStream即可, 无需再额外创建字节数组
+ * 4.多文档(---分隔)的yaml可通过{@link #readValues(Class, HttpInputMessage)}逐个流式读取
+ *
  * @author luminion
  */
+@Slf4j
 public class YamlMessageConverter extends AbstractHttpMessageConverter<Object> {
 
-    private ObjectMapper objectMapper = null; //把对象转成yaml
+    private final ObjectMapper objectMapper; //把对象转成yaml
+
+    /**
+     * 按类型缓存的reader, 避免每次请求都重新构建
+     */
+    private final Map<Class<?>, ObjectReader> readerCache = new ConcurrentHashMap<>();
+
+    /**
+     * 按类型缓存的writer, 避免每次请求都重新构建
+     */
+    private final Map<Class<?>, ObjectWriter> writerCache = new ConcurrentHashMap<>();
 
     public YamlMessageConverter(){
 
@@ -57,14 +85,37 @@ public class YamlMessageConverter extends AbstractHttpMessageConverter<Object> {
      */
     @Override
     protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException, HttpMessageNotReadableException {
-        System.out.println("自定义YamlMessageConverter读取");
+        log.debug("自定义YamlMessageConverter读取, type: {}", clazz.getName());
         try(InputStream is = inputMessage.getBody()) {
-            return objectMapper.readValue(is,clazz);
+            return reader(clazz).readValue(is);
         } catch (IOException e) {
-            throw new RuntimeException(e);
+            throw new HttpMessageNotReadableException("yaml解析失败: " + e.getMessage(), e, inputMessage);
         }
     }
 
+    /**
+     * 流式读取多文档yaml(使用---分隔的多个文档)
+     * 每次只解析一个文档, 不会将所有文档一次性读入内存
+     * 返回的Stream需要关闭(推荐使用try-with-resources), 关闭时会同时关闭请求体
+     *
+     * @param clazz        每个文档对应的对象类型
+     * @param inputMessage 输入消息
+     * @return {@code Stream<T> }
+     * @author luminion
+     */
+    public <T> Stream<T> readValues(Class<T> clazz, HttpInputMessage inputMessage) throws IOException {
+        MappingIterator<T> iterator = reader(clazz).readValues(inputMessage.getBody());
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false)
+                .onClose(() -> {
+                    try {
+                        iterator.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
     /**
      * 对应@ResponseBody的出参(@RestController内数据也可)
      * 出参对象怎么转为指定格式数据
@@ -75,12 +126,20 @@ public class YamlMessageConverter extends AbstractHttpMessageConverter<Object> {
      */
     @Override
     protected void writeInternal(Object o, HttpOutputMessage outputMessage) throws IOException, HttpMessageNotWritableException {
-        System.out.println("自定义YamlMessageConverter输出");
-        try(OutputStream os = outputMessage.getBody()){
-            this.objectMapper.writeValue(os,o);
-        }catch (IOException e) {
-            throw new RuntimeException(e);
+        log.debug("自定义YamlMessageConverter输出, type: {}", o.getClass().getName());
+        try {
+            // 直接写入响应体, 由jackson内部复用缓冲区
+            writer(o.getClass()).writeValue(outputMessage.getBody(), o);
+        } catch (IOException e) {
+            throw new HttpMessageNotWritableException("yaml输出失败: " + e.getMessage(), e);
         }
+    }
+
+    private ObjectReader reader(Class<?> clazz) {
+        return readerCache.computeIfAbsent(clazz, objectMapper::readerFor);
+    }
 
+    private ObjectWriter writer(Class<?> clazz) {
+        return writerCache.computeIfAbsent(clazz, objectMapper::writerFor);
     }
 }
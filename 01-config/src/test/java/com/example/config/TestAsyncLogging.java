@@ -0,0 +1,81 @@
+package com.example.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同步日志与异步日志(logging-async环境)的压测对比
+ * 分别启动应用, 并发请求/test/test(每次请求打印5个级别的日志), 打印吞吐量与p50/p99延迟
+ *
+ * @author luminion
+ */
+public class TestAsyncLogging {
+
+    private static final int REQUESTS = 20000;
+
+    private static final int CONCURRENCY = 64;
+
+    @Test
+    void compare() throws Exception {
+        System.out.println("同步日志: " + run("group-all"));
+        System.out.println("异步日志: " + run("group-all,logging-async"));
+    }
+
+    private static String run(String profiles) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder()
+                .sources(ConfigApp.class)
+                .bannerMode(Banner.Mode.OFF)
+                .run("--server.port=0", "--spring.profiles.active=" + profiles);
+        try {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            URI uri = URI.create("http://localhost:" + port + "/test/test?name=load-test");
+            HttpClient client = HttpClient.newHttpClient();
+
+            // 预热
+            for (int i = 0; i < 1000; i++) {
+                client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding());
+            }
+
+            long[] latencies = new long[REQUESTS];
+            Semaphore semaphore = new Semaphore(CONCURRENCY);
+            long start = System.nanoTime();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < REQUESTS; i++) {
+                    int index = i;
+                    semaphore.acquire();
+                    executor.submit(() -> {
+                        try {
+                            long begin = System.nanoTime();
+                            client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding());
+                            latencies[index] = System.nanoTime() - begin;
+                        } finally {
+                            semaphore.release();
+                        }
+                        return null;
+                    });
+                }
+            }
+            long cost = System.nanoTime() - start;
+
+            Arrays.sort(latencies);
+            return String.format("吞吐量: %d req/s, p50: %d us, p99: %d us",
+                    REQUESTS * TimeUnit.SECONDS.toNanos(1) / cost,
+                    TimeUnit.NANOSECONDS.toMicros(latencies[REQUESTS / 2]),
+                    TimeUnit.NANOSECONDS.toMicros(latencies[REQUESTS * 99 / 100]));
+        } finally {
+            context.close();
+        }
+    }
+}
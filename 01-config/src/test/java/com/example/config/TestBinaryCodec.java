@@ -0,0 +1,62 @@
+package com.example.config;
+
+import com.example.config.entity.Person;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 各格式编解码对比
+ * 同一个Person/Child/Dog对象图分别以yaml, json, smile, cbor输出,
+ * 打印传输字节数以及序列化/反序列化的平均耗时(ns/op)
+ *
+ * @author luminion
+ */
+public class TestBinaryCodec {
+
+    private static final int LOOP = 20000;
+
+    @Test
+    void compare() throws Exception {
+        Person person = TestYamlConverter.person(20);
+
+        Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+        mappers.put("yaml", new ObjectMapper(new YAMLFactory().disable(YAMLGenerator.Feature.WRITE_DOC_START_MARKER)));
+        mappers.put("json", new ObjectMapper());
+        mappers.put("smile", new SmileMapper());
+        mappers.put("cbor", new CBORMapper());
+
+        System.out.printf("%-6s %10s %14s %14s%n", "格式", "字节数", "序列化ns/op", "反序列化ns/op");
+        for (Map.Entry<String, ObjectMapper> entry : mappers.entrySet()) {
+            ObjectMapper mapper = entry.getValue();
+            byte[] bytes = mapper.writeValueAsBytes(person);
+            Assertions.assertEquals(person, mapper.readValue(bytes, Person.class));
+
+            // 预热
+            for (int i = 0; i < LOOP / 10; i++) {
+                mapper.readValue(mapper.writeValueAsBytes(person), Person.class);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < LOOP; i++) {
+                mapper.writeValueAsBytes(person);
+            }
+            long write = (System.nanoTime() - start) / LOOP;
+
+            start = System.nanoTime();
+            for (int i = 0; i < LOOP; i++) {
+                mapper.readValue(bytes, Person.class);
+            }
+            long read = (System.nanoTime() - start) / LOOP;
+
+            System.out.printf("%-6s %10d %14d %14d%n", entry.getKey(), bytes.length, write, read);
+        }
+    }
+}
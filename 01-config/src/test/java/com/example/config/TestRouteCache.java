@@ -0,0 +1,202 @@
+package com.example.config;
+
+import com.example.config.config.CachingRequestMappingHandlerMapping;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * 路由缓存测试(CachingRequestMappingHandlerMapping)
+ * 1.与默认的RequestMappingHandlerMapping匹配结果一致(处理方法, 最佳匹配模式, 路径变量)
+ * 2.只缓存路径+请求方式唯一对应一个映射的模式路径(带路径变量), 精确路径和多个模式都能匹配的路径不缓存
+ * 3.命中缓存时路径变量与默认匹配结果一致(同一模式不同路径变量分别缓存)
+ * 4.缓存数量不超过maxSize
+ * 5.打印默认映射处理器和带缓存的映射处理器每秒匹配次数
+ *
+ * @author luminion
+ */
+public class TestRouteCache {
+
+    private static final int LOOP = 200000;
+
+    /**
+     * 请求(请求方式, 路径, 查询参数), 前几个为热点路径
+     */
+    private static final List<String[]> REQUESTS = List.of(
+            new String[]{"GET", "/api/users", null},
+            new String[]{"GET", "/api/users/1001", null},
+            new String[]{"GET", "/api/items/abc", null},
+            new String[]{"GET", "/api/users/1002", null},
+            new String[]{"POST", "/api/users", null},
+            new String[]{"GET", "/api/orders", "page"},
+            new String[]{"GET", "/api/orders", null},
+            new String[]{"GET", "/api/products", null},
+            new String[]{"GET", "/api/users/42/orders/7", null},
+            new String[]{"GET", "/api/items/7", null},
+            new String[]{"GET", "/api/users/new", null},
+            new String[]{"DELETE", "/api/users", null},
+            new String[]{"GET", "/missing", null});
+
+    @Test
+    void matchesDefaultMapping() throws Exception {
+        try (StaticWebApplicationContext context = context()) {
+            RequestMappingHandlerMapping standard = mapping(context, new RequestMappingHandlerMapping());
+            CachingRequestMappingHandlerMapping caching = mapping(context, new CachingRequestMappingHandlerMapping(1024));
+            for (int i = 0; i < 3; i++) {
+                for (String[] request : REQUESTS) {
+                    Assertions.assertEquals(lookup(standard, request), lookup(caching, request), String.join(" ", request[0], request[1]));
+                }
+            }
+            // GET /api/users/1001, /api/users/1002, /api/items/abc, /api/users/42/orders/7
+            // 精确路径(/api/users, /api/users/new等)及两个模式都能匹配的/api/items/7不缓存
+            Assertions.assertEquals(4, caching.size());
+            Assertions.assertTrue(caching.hitRatio() > 0);
+
+            CachingRequestMappingHandlerMapping bounded = mapping(context, new CachingRequestMappingHandlerMapping(2));
+            for (int i = 0; i < 3; i++) {
+                for (String[] request : REQUESTS) {
+                    Assertions.assertEquals(lookup(standard, request), lookup(bounded, request));
+                }
+            }
+            Assertions.assertTrue(bounded.size() <= 2);
+
+            String[][] requests = requests();
+            long standardOps = run(standard, requests);
+            long cachingOps = run(caching, requests);
+            System.out.printf("RequestMappingHandlerMapping %,d ops/s, CachingRequestMappingHandlerMapping %,d ops/s, 命中率 %.2f%n",
+                    standardOps, cachingOps, caching.hitRatio());
+        }
+    }
+
+    private static StaticWebApplicationContext context() {
+        StaticWebApplicationContext context = new StaticWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.registerSingleton("routes", Routes.class);
+        context.refresh();
+        return context;
+    }
+
+    private static <T extends RequestMappingHandlerMapping> T mapping(StaticWebApplicationContext context, T mapping) {
+        mapping.setApplicationContext(context);
+        mapping.afterPropertiesSet();
+        return mapping;
+    }
+
+    /**
+     * 匹配结果: 处理方法, 最佳匹配模式, 路径变量
+     */
+    private static List<Object> lookup(RequestMappingHandlerMapping mapping, String[] request) throws Exception {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest(request[0], request[1]);
+        if (request[2] != null) {
+            servletRequest.setParameter(request[2], "1");
+        }
+        ServletRequestPathUtils.parseAndCache(servletRequest);
+        HandlerExecutionChain chain;
+        try {
+            chain = mapping.getHandler(servletRequest);
+        } catch (Exception e) {
+            // 请求方式不支持等, 两者抛出的异常类型一致即可
+            return List.of(e.getClass());
+        }
+        if (chain == null) {
+            return List.of();
+        }
+        return List.of(((HandlerMethod) chain.getHandler()).getMethod(),
+                Objects.toString(servletRequest.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE)),
+                Objects.toString(servletRequest.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE)));
+    }
+
+    private static long run(RequestMappingHandlerMapping mapping, String[][] requests) throws Exception {
+        // 预热
+        for (int i = 0; i < LOOP / 10; i++) {
+            lookup(mapping, requests[i]);
+        }
+        long start = System.nanoTime();
+        for (String[] request : requests) {
+            lookup(mapping, request);
+        }
+        return (long) (LOOP / ((System.nanoTime() - start) / 1e9));
+    }
+
+    /**
+     * 生成请求序列, 越靠前的请求被访问的概率越高
+     */
+    private static String[][] requests() {
+        Random random = new Random(1);
+        String[][] requests = new String[LOOP][];
+        for (int i = 0; i < LOOP; i++) {
+            int index = (int) Math.min(REQUESTS.size() - 1, Math.abs(random.nextGaussian()) * REQUESTS.size() / 3);
+            requests[i] = REQUESTS.get(index);
+        }
+        return requests;
+    }
+
+    @RestController
+    static class Routes {
+
+        @GetMapping("/api/users")
+        public String users() {
+            return "users";
+        }
+
+        @PostMapping("/api/users")
+        public String createUser() {
+            return "created";
+        }
+
+        @GetMapping("/api/users/{id}")
+        public String user(@PathVariable String id) {
+            return id;
+        }
+
+        @GetMapping("/api/users/new")
+        public String newUser() {
+            return "new";
+        }
+
+        @GetMapping("/api/users/{id}/orders/{orderId}")
+        public String userOrder(@PathVariable String id, @PathVariable String orderId) {
+            return id + orderId;
+        }
+
+        @GetMapping("/api/orders")
+        public String orders() {
+            return "orders";
+        }
+
+        @GetMapping(value = "/api/orders", params = "page")
+        public String orderPage() {
+            return "page";
+        }
+
+        @GetMapping("/api/items/{name}")
+        public String item(@PathVariable String name) {
+            return name;
+        }
+
+        @GetMapping("/api/items/{id:\\d+}")
+        public String itemById(@PathVariable String id) {
+            return id;
+        }
+
+        @GetMapping("/api/products")
+        public String products() {
+            return "products";
+        }
+    }
+}
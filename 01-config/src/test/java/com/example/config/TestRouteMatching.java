@@ -0,0 +1,125 @@
+package com.example.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StopWatch;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * 路径匹配策略对比
+ * AntPathMatcher / PathPatternParser
+ * 模拟RequestMappingHandlerMapping的匹配过程: 找出所有匹配的模式 -> 排序选出最佳匹配 -> 提取路径变量
+ * 路由缓存(CachingRequestMappingHandlerMapping)的测试见TestRouteCache
+ *
+ * @author luminion
+ */
+public class TestRouteMatching {
+
+    private static final int LOOP = 200000;
+
+    /**
+     * 路由表
+     */
+    private static final List<String> ROUTES = List.of(
+            "/test/test", "/test/test3", "/test/test4", "/a*/b?/{p1:[a-f]+}",
+            "/api/users", "/api/users/{id}", "/api/users/{id}/orders", "/api/users/{id}/orders/{orderId}",
+            "/api/users/{id}/addresses/{addressId}", "/api/orders", "/api/orders/{id}", "/api/orders/{id}/items/{itemId}",
+            "/api/products", "/api/products/{id}", "/api/products/{id}/reviews", "/api/products/{id}/reviews/{reviewId}",
+            "/api/categories/{category}/products", "/api/search/{keyword:[a-z]+}", "/api/files/{name}.{ext}",
+            "/api/v{version:\\d+}/status", "/emp/{id}", "/empList", "/dept/{id}", "/deptList",
+            "/count", "/num/{num:\\d+}", "/num", "/user/{age:\\d+}", "/user", "/weather", "/express",
+            "/static/**", "/actuator/{name}", "/actuator/metrics/{name}", "/admin/*/settings", "/admin/**");
+
+    /**
+     * 请求路径(前几个为热点路径)
+     */
+    private static final List<String> PATHS = List.of(
+            "/api/users/1001", "/aaa/bc/abcdef", "/api/orders/42/items/7", "/api/products/9/reviews",
+            "/api/search/spring", "/api/files/report.pdf", "/api/v2/status", "/num/123", "/user/18",
+            "/static/a/logo.png", "/actuator/metrics/jvm.memory.used", "/admin/x/settings", "/admin/a/b/c");
+
+    @Test
+    void compare() {
+        AntPathMatcher antMatcher = new AntPathMatcher();
+        Function<String, Map<String, String>> ant = path -> {
+            List<String> matches = new ArrayList<>();
+            for (String route : ROUTES) {
+                if (antMatcher.match(route, path)) {
+                    matches.add(route);
+                }
+            }
+            if (matches.isEmpty()) {
+                return null;
+            }
+            matches.sort(antMatcher.getPatternComparator(path));
+            return antMatcher.extractUriTemplateVariables(matches.get(0), path);
+        };
+
+        // 路径模式只解析一次
+        PathPatternParser parser = new PathPatternParser();
+        List<PathPattern> patterns = ROUTES.stream().map(parser::parse).toList();
+        Function<String, Map<String, String>> pathPattern = path -> {
+            PathContainer container = PathContainer.parsePath(path);
+            List<PathPattern> matches = new ArrayList<>();
+            for (PathPattern pattern : patterns) {
+                if (pattern.matches(container)) {
+                    matches.add(pattern);
+                }
+            }
+            if (matches.isEmpty()) {
+                return null;
+            }
+            matches.sort(PathPattern.SPECIFICITY_COMPARATOR);
+            return matches.get(0).matchAndExtract(container).getUriVariables();
+        };
+
+        // 两种方式的匹配结果一致
+        for (String path : PATHS) {
+            Assertions.assertEquals(pathPattern.apply(path), ant.apply(path), path);
+        }
+
+        String[] requests = requests();
+        StopWatch watch = new StopWatch("路径匹配");
+        run(watch, "AntPathMatcher", ant, requests);
+        run(watch, "PathPatternParser", pathPattern, requests);
+        System.out.println(watch.prettyPrint());
+        for (StopWatch.TaskInfo task : watch.getTaskInfo()) {
+            System.out.printf("%-26s %,12d ops/s%n", task.getTaskName(), (long) (LOOP / task.getTimeSeconds()));
+        }
+    }
+
+    private static void run(StopWatch watch, String name, Function<String, Map<String, String>> matcher, String[] requests) {
+        // 预热
+        for (int i = 0; i < LOOP / 10; i++) {
+            matcher.apply(requests[i]);
+        }
+        watch.start(name);
+        for (String request : requests) {
+            matcher.apply(request);
+        }
+        watch.stop();
+    }
+
+    /**
+     * 生成请求序列, 越靠前的路径被访问的概率越高
+     */
+    private static String[] requests() {
+        Random random = new Random(1);
+        String[] requests = new String[LOOP];
+        for (int i = 0; i < LOOP; i++) {
+            int index = (int) Math.min(PATHS.size() - 1, Math.abs(random.nextGaussian()) * PATHS.size() / 3);
+            requests[i] = PATHS.get(index);
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.config;
+
+import lombok.Data;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动耗时对比
+ * 分别以1k/10k个合成属性启动应用, 对比开启/关闭luminion.lazy-properties时的启动耗时(到ApplicationReadyEvent)
+ * 启动完成后属性源的变化可以读取到(属性源缓存只在启动期间开启)
+ *
+ * @author luminion
+ */
+public class TestStartupBinding {
+
+    @Test
+    void compare() {
+        for (int size : new int[]{1000, 10000}) {
+            // 第一次启动包含类加载等开销, 不计入结果
+            start(size, false);
+            long eager = start(size, false);
+            long lazy = start(size, true);
+            System.out.printf("属性数量: %6d, 默认绑定: %5d ms, 懒加载+缓存: %5d ms%n", size, eager, lazy);
+        }
+    }
+
+    private static long start(int size, boolean lazy) {
+        Map<String, Object> properties = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            properties.put("synthetic.values.key" + i, "value" + i);
+        }
+        long start = System.nanoTime();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder()
+                .sources(ConfigApp.class, SyntheticConfig.class)
+                .bannerMode(Banner.Mode.OFF)
+                .initializers(ctx -> ctx.getEnvironment().getPropertySources().addLast(new MapPropertySource("synthetic", properties)))
+                .run("--server.port=0", "--luminion.lazy-properties.enabled=" + lazy);
+        long cost = System.nanoTime() - start;
+        // 启动完成后属性源缓存已关闭, 之后加入的属性可以读取到
+        properties.put("synthetic.values.late", "late");
+        Assertions.assertEquals("late", Binder.get(context.getEnvironment()).bind("synthetic.values.late", String.class).orElse(null));
+        context.close();
+        return TimeUnit.NANOSECONDS.toMillis(cost);
+    }
+
+    /**
+     * 合成属性的绑定类(未标注@Configuration, 不会被其他测试扫描到)
+     */
+    @EnableConfigurationProperties(SyntheticProperties.class)
+    static class SyntheticConfig {
+    }
+
+    @Data
+    @ConfigurationProperties(prefix = "synthetic")
+    static class SyntheticProperties {
+        private Map<String, String> values = new HashMap<>();
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.config;
+
+import com.example.config.config.MyMVCConfig;
+import com.example.config.config.StaticResourcePrecompressor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 静态资源处理测试(通过MyMVCConfig注册的/static/**资源处理器, 资源见src/test/resources/static/a)
+ * 1.带内容指纹的路径: 永久缓存(immutable), 返回预压缩的.gz文件
+ * 2.不带指纹的路径: no-cache, 通过Last-Modified协商, 未变化时返回304
+ * 3.预压缩目录固定, 重新生成时清空旧文件; 不是预压缩生成的非空目录不会被清空; 未配置目录时使用临时目录, 关闭时删除
+ * 4.打印原始/预压缩的响应字节数和每秒请求数
+ *
+ * @author luminion
+ */
+public class TestStaticResource {
+
+    private static final int LOOP = 5000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void myMvcConfig() throws Exception {
+        try (AnnotationConfigWebApplicationContext context = context()) {
+            MockMvc mvc = MockMvcBuilders.webAppContextSetup(context).build();
+            String versioned = context.getBean(ResourceUrlProvider.class).getForLookupPath("/static/app.css");
+            Assertions.assertNotNull(versioned);
+            Assertions.assertTrue(versioned.matches("/static/app-[0-9a-f]{32}\\.css"), versioned);
+
+            MockHttpServletResponse immutable = get(mvc, versioned, null);
+            Assertions.assertEquals(200, immutable.getStatus());
+            Assertions.assertEquals("max-age=31536000, public, immutable", immutable.getHeader("Cache-Control"));
+            Assertions.assertEquals("gzip", immutable.getHeader("Content-Encoding"));
+
+            MockHttpServletResponse plain = get(mvc, "/static/app.css", null);
+            Assertions.assertEquals(200, plain.getStatus());
+            Assertions.assertEquals("no-cache, public", plain.getHeader("Cache-Control"));
+            String lastModified = plain.getHeader("Last-Modified");
+            Assertions.assertNotNull(lastModified);
+            Assertions.assertEquals(304, get(mvc, "/static/app.css", lastModified).getStatus());
+
+            long[] original = run(mvc, "/static/app.css", false);
+            long[] compressed = run(mvc, versioned, true);
+            System.out.printf("原路径: %d 字节, %d req/s; 带指纹+gzip: %d 字节, %d req/s%n",
+                    original[0], original[1], compressed[0], compressed[1]);
+        }
+
+        // 预压缩目录重复使用, 重新生成时清空旧文件
+        Path resources = dir.resolve("static");
+        Assertions.assertTrue(Files.exists(resources.resolve("app.css.gz")));
+        Files.writeString(resources.resolve("stale.css"), "旧版本");
+        Assertions.assertEquals(resources, new StaticResourcePrecompressor("classpath:/static/a/").precompress(dir));
+        Assertions.assertFalse(Files.exists(resources.resolve("stale.css")));
+        Assertions.assertTrue(Files.exists(resources.resolve("app.css.gz")));
+    }
+
+    @Test
+    void foreignDirectory() throws Exception {
+        // 存放其他文件的目录不会被清空
+        Path user = Files.createDirectories(dir.resolve("user"));
+        Files.writeString(user.resolve("notes.txt"), "用户文件");
+        StaticResourcePrecompressor precompressor = new StaticResourcePrecompressor("classpath:/static/a/");
+        Assertions.assertThrows(IllegalStateException.class, () -> precompressor.precompress(user));
+        Assertions.assertTrue(Files.exists(user.resolve("notes.txt")));
+        StaticResourcePrecompressor.delete(user);
+        Assertions.assertTrue(Files.exists(user.resolve("notes.txt")));
+
+        // 每个实例的临时目录不同, 删除后不再存在
+        Path first = StaticResourcePrecompressor.createTempDirectory();
+        Path second = StaticResourcePrecompressor.createTempDirectory();
+        Assertions.assertNotEquals(first, second);
+        precompressor.precompress(first);
+        precompressor.precompress(second);
+        StaticResourcePrecompressor.delete(first);
+        Assertions.assertFalse(Files.exists(first));
+        Assertions.assertTrue(Files.exists(second.resolve("static/app.css.gz")));
+        StaticResourcePrecompressor.delete(second);
+    }
+
+    private AnnotationConfigWebApplicationContext context() {
+        AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test",
+                Map.of("luminion.static-resource.precompress-directory", dir.toString())));
+        context.register(WebConfig.class);
+        context.refresh();
+        return context;
+    }
+
+    /**
+     * 循环请求
+     *
+     * @return {@code long[] } [单次响应字节数, 每秒请求数]
+     */
+    private static long[] run(MockMvc mvc, String path, boolean gzip) throws Exception {
+        for (int i = 0; i < LOOP / 10; i++) {
+            request(mvc, path, gzip);
+        }
+        int bytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOP; i++) {
+            bytes = request(mvc, path, gzip).getContentAsByteArray().length;
+        }
+        long cost = System.nanoTime() - start;
+        return new long[]{bytes, LOOP * TimeUnit.SECONDS.toNanos(1) / cost};
+    }
+
+    private static MockHttpServletResponse request(MockMvc mvc, String path, boolean gzip) throws Exception {
+        return mvc.perform(MockMvcRequestBuilders.get(path).header("Accept-Encoding", gzip ? "gzip, deflate, br" : "identity"))
+                .andReturn().getResponse();
+    }
+
+    private static MockHttpServletResponse get(MockMvc mvc, String path, String ifModifiedSince) throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(path).header("Accept-Encoding", "gzip, deflate, br");
+        if (ifModifiedSince != null) {
+            request.header("If-Modified-Since", ifModifiedSince);
+        }
+        return mvc.perform(request).andReturn().getResponse();
+    }
+
+    @Configuration
+    @EnableWebMvc
+    @Import(MyMVCConfig.class)
+    static class WebConfig {
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.config;
+
+import com.example.config.config.YamlMessageConverter;
+import com.example.config.entity.Cat;
+import com.example.config.entity.Child;
+import com.example.config.entity.Dog;
+import com.example.config.entity.Person;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.util.StopWatch;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * YamlMessageConverter基准测试
+ * 对比: 原始写法(每次通过ObjectMapper读写Object) / 缓存reader,writer的转换器 / jackson json
+ * 测试数据为com.example.config.entity下的Person对象图
+ *
+ * @author luminion
+ */
+public class TestYamlConverter {
+
+    private static final int LOOP = 20000;
+
+    private static final MediaType YAML = new MediaType("application", "yaml", StandardCharsets.UTF_8);
+
+    @Test
+    void readMultiDocument() throws Exception {
+        YamlMessageConverter converter = new YamlMessageConverter();
+        String body = """
+                name: 张三
+                age: 18
+                ---
+                name: 李四
+                age: 20
+                """;
+        MockHttpInputMessage input = new MockHttpInputMessage(body.getBytes(StandardCharsets.UTF_8));
+        try (Stream<Person> persons = converter.readValues(Person.class, input)) {
+            List<String> names = persons.map(Person::getName).toList();
+            Assertions.assertEquals(List.of("张三", "李四"), names);
+        }
+    }
+
+    @Test
+    void benchmark() throws Exception {
+        Person person = person(20);
+        YamlMessageConverter converter = new YamlMessageConverter();
+        ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory().disable(YAMLGenerator.Feature.WRITE_DOC_START_MARKER));
+        ObjectMapper jsonMapper = new ObjectMapper();
+
+        byte[] yaml = yamlMapper.writeValueAsBytes(person);
+        byte[] json = jsonMapper.writeValueAsBytes(person);
+
+        // 预热
+        for (int i = 0; i < LOOP / 10; i++) {
+            yamlMapper.readValue(yaml, Object.class);
+            converter.read(Person.class, new MockHttpInputMessage(yaml));
+            jsonMapper.readValue(json, Person.class);
+        }
+
+        StopWatch watch = new StopWatch("YamlMessageConverter");
+        watch.start("原始写法-写");
+        for (int i = 0; i < LOOP; i++) {
+            yamlMapper.writeValue(new ByteArrayOutputStream(), person);
+        }
+        watch.stop();
+        watch.start("原始写法-读");
+        for (int i = 0; i < LOOP; i++) {
+            yamlMapper.readValue(yaml, Person.class);
+        }
+        watch.stop();
+
+        watch.start("缓存转换器-写");
+        for (int i = 0; i < LOOP; i++) {
+            converter.write(person, YAML, new MockHttpOutputMessage());
+        }
+        watch.stop();
+        watch.start("缓存转换器-读");
+        for (int i = 0; i < LOOP; i++) {
+            converter.read(Person.class, new MockHttpInputMessage(yaml));
+        }
+        watch.stop();
+
+        watch.start("json-写");
+        for (int i = 0; i < LOOP; i++) {
+            jsonMapper.writeValue(new ByteArrayOutputStream(), person);
+        }
+        watch.stop();
+        watch.start("json-读");
+        for (int i = 0; i < LOOP; i++) {
+            jsonMapper.readValue(json, Person.class);
+        }
+        watch.stop();
+
+        System.out.println(watch.prettyPrint());
+        System.out.println("yaml字节数: " + yaml.length + ", json字节数: " + json.length);
+    }
+
+    static Person person(int size) {
+        Child child = new Child();
+        child.setName("李四");
+        child.setAge(20);
+        child.setBirthDay(new Date());
+        child.setText(List.of("abc", "def"));
+
+        List<Dog> dogs = new ArrayList<>();
+        Map<String, Cat> cats = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            Dog dog = new Dog();
+            dog.setName("小黑" + i);
+            dog.setAge(i);
+            dogs.add(dog);
+            Cat cat = new Cat();
+            cat.setName("小蓝" + i);
+            cat.setAge(i);
+            cats.put("c" + i, cat);
+        }
+
+        Person person = new Person();
+        person.setName("张三");
+        person.setAge(18);
+        person.setBirthDay(new Date());
+        person.setLike(true);
+        person.setChild(child);
+        person.setDogs(dogs);
+        person.setCats(cats);
+        return person;
+    }
+}
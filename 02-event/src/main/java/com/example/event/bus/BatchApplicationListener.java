@@ -0,0 +1,54 @@
+package com.example.event.bus;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 批量事件监听器
+ * 开启事件总线后, 事件总线会为该监听器合并事件, 满足以下任一条件时批量调用onApplicationEvents:
+ * 1.合并的事件数达到maxBatchSize
+ * 2.第一个事件入队后已等待maxLinger
+ * 适用于批量处理更划算的场景(例如批量写日志, 批量更新积分)
+ *
+ * 未开启事件总线时, 每个事件单独调用一次onApplicationEvents
+ *
+ * @author luminion
+ */
+public interface BatchApplicationListener<E extends ApplicationEvent> extends ApplicationListener<E> {
+
+    /**
+     * 批量处理事件
+     *
+     * @param events 事件(按发布顺序)
+     * @author luminion
+     */
+    void onApplicationEvents(List<E> events);
+
+    /**
+     * 单批最多合并的事件数
+     *
+     * @return int
+     * @author luminion
+     */
+    default int maxBatchSize() {
+        return 100;
+    }
+
+    /**
+     * 第一个事件入队后最多等待的时间
+     *
+     * @return {@code Duration }
+     * @author luminion
+     */
+    default Duration maxLinger() {
+        return Duration.ofMillis(50);
+    }
+
+    @Override
+    default void onApplicationEvent(E event) {
+        onApplicationEvents(List.of(event));
+    }
+}
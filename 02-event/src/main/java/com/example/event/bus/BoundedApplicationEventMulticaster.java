@@ -0,0 +1,222 @@
+package com.example.event.bus;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.SimpleApplicationEventMulticaster;
+import org.springframework.context.event.SmartApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.OrderUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ErrorHandler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 有界, 带背压的事件广播器
+ * spring发布事件时, 实际是由ApplicationEventMulticaster(默认为SimpleApplicationEventMulticaster)找到所有监听器并逐个调用,
+ * 默认在发布事件的线程中同步执行, 若使用@Async, 则提交到默认线程池的无界队列中
+ *
+ * 此广播器对指定包下的事件(luminion.event-bus.packages):
+ * 1.每个监听器一个有界队列(ListenerDispatcher), 慢监听器不会拖慢发布线程和其他监听器
+ * 2.监听器在虚拟线程或平台线程池中执行(luminion.event-bus.executor)
+ * 3.队列满时按策略处理: 阻塞/丢弃/发布线程按顺序处理队列中的事件(luminion.event-bus.overflow)
+ * 4.每个监听器内部按发布顺序处理; 指定了顺序(@Order/Ordered)的监听器组成流水线, 同一事件按顺序依次经过,
+ *   前一个监听器处理完成(或丢弃)后才进入下一个监听器的队列; 未指定顺序的监听器之间并行执行
+ * 5.BatchApplicationListener按批量大小/等待时间合并事件后批量调用
+ * 6.supportsAsyncExecution()返回false的监听器仍在发布线程中同步执行
+ * 其他事件(容器生命周期事件等)仍由父类同步分发
+ *
+ * 容器关闭时(ContextClosedEvent)会先等待队列中的事件处理完成
+ *
+ * @author luminion
+ */
+@Slf4j
+public class BoundedApplicationEventMulticaster extends SimpleApplicationEventMulticaster implements DisposableBean {
+
+    private final EventBusProperties properties;
+
+    private final ExecutorService executor;
+
+    private final Map<ApplicationListener<?>, ListenerDispatcher> dispatchers = new ConcurrentHashMap<>();
+
+    @Nullable
+    private BeanFactory beanFactory;
+
+    private volatile boolean closed;
+
+    public BoundedApplicationEventMulticaster(EventBusProperties properties) {
+        this.properties = properties;
+        this.executor = switch (properties.getExecutor()) {
+            case VIRTUAL -> Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("event-bus-", 0).factory());
+            case PLATFORM -> Executors.newFixedThreadPool(properties.getPlatformThreads(), new CustomizableThreadFactory("event-bus-"));
+        };
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        super.setBeanFactory(beanFactory);
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void multicastEvent(ApplicationEvent event, @Nullable ResolvableType eventType) {
+        if (event instanceof ContextClosedEvent) {
+            shutdown();
+        }
+        if (closed || !isBusEvent(event)) {
+            super.multicastEvent(event, eventType);
+            return;
+        }
+        ResolvableType type = eventType != null ? eventType : ResolvableType.forInstance(event);
+        // 监听器已按@Order排序
+        List<ApplicationListener<?>> ordered = new ArrayList<>();
+        for (ApplicationListener<?> listener : getApplicationListeners(event, type)) {
+            if (!listener.supportsAsyncExecution()) {
+                // 不支持异步执行的监听器(例如发件箱, @TransactionalEventListener)仍在发布线程中执行
+                invokeListener(listener, event);
+            } else if (hasOrder(listener)) {
+                ordered.add(listener);
+            } else {
+                dispatcher(listener).dispatch(event);
+            }
+        }
+        dispatchInOrder(ordered, 0, event);
+    }
+
+    /**
+     * 将事件交给第index个指定了顺序的监听器, 处理完成后交给下一个
+     */
+    private void dispatchInOrder(List<ApplicationListener<?>> listeners, int index, ApplicationEvent event) {
+        if (index >= listeners.size()) {
+            return;
+        }
+        Consumer<ApplicationEvent> next = index + 1 < listeners.size() ? e -> dispatchInOrder(listeners, index + 1, e) : null;
+        dispatcher(listeners.get(index)).dispatch(event, next);
+    }
+
+    /**
+     * 是否指定了顺序(@Order注解或实现Ordered), 未指定时为最低优先级
+     */
+    private static boolean hasOrder(ApplicationListener<?> listener) {
+        Integer order = listener instanceof Ordered ordered ? Integer.valueOf(ordered.getOrder())
+                : OrderUtils.getOrder(ClassUtils.getUserClass(listener));
+        return order != null && order != Ordered.LOWEST_PRECEDENCE;
+    }
+
+    /**
+     * 是否由事件总线分发
+     */
+    private boolean isBusEvent(ApplicationEvent event) {
+        Object target = event instanceof PayloadApplicationEvent<?> payload ? payload.getPayload() : event;
+        String packageName = ClassUtils.getPackageName(target.getClass());
+        for (String prefix : properties.getPackages()) {
+            if (packageName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ListenerDispatcher dispatcher(ApplicationListener<?> listener) {
+        return dispatchers.computeIfAbsent(listener, l -> {
+            String name = listenerName(l);
+            EventBusProperties.Listener config = properties.getListeners().get(name);
+            int capacity = config != null && config.getQueueCapacity() != null ? config.getQueueCapacity() : properties.getQueueCapacity();
+            OverflowPolicy overflow = config != null && config.getOverflow() != null ? config.getOverflow() : properties.getOverflow();
+            if (l instanceof BatchApplicationListener<?> batch) {
+                int maxBatchSize = config != null && config.getMaxBatchSize() != null ? config.getMaxBatchSize() : batch.maxBatchSize();
+                Duration maxLinger = config != null && config.getMaxLinger() != null ? config.getMaxLinger() : batch.maxLinger();
+                log.debug("创建监听器[{}]的批量分发队列, 容量: {}, 策略: {}, 批量: {}, 等待: {}", name, capacity, overflow, maxBatchSize, maxLinger);
+                return new ListenerDispatcher(name, capacity, overflow, maxBatchSize, maxLinger, executor, meterRegistry(),
+                        events -> invokeBatchListener(batch, events));
+            }
+            log.debug("创建监听器[{}]的分发队列, 容量: {}, 策略: {}", name, capacity, overflow);
+            return new ListenerDispatcher(name, capacity, overflow, 1, Duration.ZERO, executor, meterRegistry(),
+                    events -> events.forEach(event -> invokeListener(l, event)));
+        });
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private void invokeBatchListener(BatchApplicationListener listener, List<ApplicationEvent> events) {
+        ErrorHandler errorHandler = getErrorHandler();
+        try {
+            listener.onApplicationEvents(events);
+        } catch (RuntimeException e) {
+            if (errorHandler == null) {
+                throw e;
+            }
+            errorHandler.handleError(e);
+        }
+    }
+
+    /**
+     * 监听器名称: 类名, 注解方法监听器为 类名.方法名
+     */
+    public static String listenerName(ApplicationListener<?> listener) {
+        if (listener instanceof SmartApplicationListener smart && !smart.getListenerId().isEmpty()) {
+            // 格式: 包名.类名.方法名(参数类型)
+            String id = smart.getListenerId();
+            int paren = id.indexOf('(');
+            String method = paren > 0 ? id.substring(0, paren) : id;
+            int dot = method.lastIndexOf('.', method.lastIndexOf('.') - 1);
+            return method.substring(dot + 1);
+        }
+        return ClassUtils.getUserClass(listener).getSimpleName();
+    }
+
+    private MeterRegistry meterRegistry() {
+        if (beanFactory == null) {
+            return Metrics.globalRegistry;
+        }
+        return beanFactory.getBeanProvider(MeterRegistry.class).getIfAvailable(() -> Metrics.globalRegistry);
+    }
+
+    /**
+     * 停止接收新事件, 并等待队列中的事件处理完成
+     */
+    private void shutdown() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        long deadline = System.nanoTime() + properties.getShutdownTimeout().toNanos();
+        // 流水线中的事件处理完成后会进入下一个监听器的队列, 需要等待所有队列同时为空
+        while (!dispatchers.values().stream().allMatch(ListenerDispatcher::isIdle) && System.nanoTime() < deadline) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (ListenerDispatcher dispatcher : dispatchers.values()) {
+            if (!dispatcher.isIdle()) {
+                log.warn("监听器[{}]的事件在关闭前未处理完成", dispatcher.getName());
+            }
+        }
+        executor.shutdown();
+    }
+
+    @Override
+    public void destroy() {
+        shutdown();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.event.bus;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ApplicationEventMulticaster;
+import org.springframework.context.support.AbstractApplicationContext;
+
+/**
+ * 事件总线配置
+ * 容器刷新时会查找名称为applicationEventMulticaster的bean作为事件广播器, 找不到时才创建默认的SimpleApplicationEventMulticaster
+ * 所以只需注入同名的bean即可替换
+ *
+ * @author luminion
+ */
+@Configuration
+@EnableConfigurationProperties(EventBusProperties.class)
+@ConditionalOnProperty(prefix = "luminion.event-bus", name = "enabled", havingValue = "true")
+public class EventBusConfig {
+
+    @Bean(name = AbstractApplicationContext.APPLICATION_EVENT_MULTICASTER_BEAN_NAME)
+    public ApplicationEventMulticaster applicationEventMulticaster(EventBusProperties properties) {
+        return new BoundedApplicationEventMulticaster(properties);
+    }
+}
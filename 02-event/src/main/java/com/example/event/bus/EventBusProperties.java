@@ -0,0 +1,96 @@
+package com.example.event.bus;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 事件总线配置
+ *
+ * @author luminion
+ */
+@Data
+@ConfigurationProperties(prefix = "luminion.event-bus")
+public class EventBusProperties {
+
+    /**
+     * 是否启用事件总线(替换默认的事件广播器)
+     */
+    private boolean enabled = false;
+
+    /**
+     * 交由事件总线异步分发的事件所在的包, 其他事件(例如容器生命周期事件)仍在发布线程中同步执行
+     */
+    private List<String> packages = List.of("com.example.event.event");
+
+    /**
+     * 执行监听器的线程类型
+     */
+    private ExecutorType executor = ExecutorType.VIRTUAL;
+
+    /**
+     * 平台线程池的线程数(executor为PLATFORM时生效)
+     */
+    private int platformThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 每个监听器的队列容量
+     */
+    private int queueCapacity = 1024;
+
+    /**
+     * 队列已满时的处理策略
+     */
+    private OverflowPolicy overflow = OverflowPolicy.BLOCK;
+
+    /**
+     * 应用关闭时等待队列中事件处理完成的最长时间
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+
+    /**
+     * 按监听器单独配置, key为监听器名称(类名, 或注解方法监听器的类名.方法名)
+     */
+    private Map<String, Listener> listeners = new HashMap<>();
+
+    @Data
+    public static class Listener {
+
+        /**
+         * 队列容量, 不配置时使用全局配置
+         */
+        private Integer queueCapacity;
+
+        /**
+         * 队列已满时的处理策略, 不配置时使用全局配置
+         */
+        private OverflowPolicy overflow;
+
+        /**
+         * 单批最多合并的事件数(仅BatchApplicationListener生效), 不配置时使用监听器自身声明的值
+         */
+        private Integer maxBatchSize;
+
+        /**
+         * 第一个事件入队后最多等待的时间(仅BatchApplicationListener生效), 不配置时使用监听器自身声明的值
+         */
+        private Duration maxLinger;
+    }
+
+    public enum ExecutorType {
+
+        /**
+         * 虚拟线程(JDK21), 每个任务一个虚拟线程
+         */
+        VIRTUAL,
+
+        /**
+         * 固定大小的平台线程池
+         */
+        PLATFORM
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.event.bus;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 单个监听器的事件分发器
+ * 每个监听器拥有独立的有界队列, 同一时刻最多只有一个线程在处理该队列, 所以同一监听器收到事件的顺序与发布顺序一致
+ * 队列有事件时才向线程池提交处理任务, 处理完毕后归还线程, 不会长期占用线程
+ * 批量监听器(maxBatchSize > 1)会合并事件, 达到maxBatchSize或第一个事件等待超过maxLinger时批量处理
+ * 事件可以带有后续处理(next), 监听器处理完成(或事件被丢弃)后调用, 用于将事件按@Order交给下一个监听器
+ *
+ * 指标(tag: listener):
+ * event.bus.queue.depth:  队列中等待处理的事件数
+ * event.bus.lag:          事件从入队到开始处理的等待时间
+ * event.bus.handler:      监听器单次调用耗时
+ * event.bus.batch.size:   单次调用处理的事件数
+ * event.bus.dropped:      因队列满而丢弃的事件数
+ * event.bus.caller.runs:  因队列满而由发布线程处理的次数
+ *
+ * @author luminion
+ */
+@Slf4j
+class ListenerDispatcher {
+
+    /**
+     * 单次最多连续处理的批次数, 处理完后重新提交任务, 避免长期占用线程
+     */
+    private static final int DRAIN_LIMIT = 256;
+
+    private final String name;
+
+    private final BlockingQueue<Task> queue;
+
+    private final OverflowPolicy overflow;
+
+    private final int maxBatchSize;
+
+    private final long lingerNanos;
+
+    private final Executor executor;
+
+    private final Consumer<List<ApplicationEvent>> invoker;
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private final Timer lag;
+
+    private final Timer handler;
+
+    private final DistributionSummary batchSize;
+
+    private final Counter dropped;
+
+    private final Counter callerRuns;
+
+    ListenerDispatcher(String name, int capacity, OverflowPolicy overflow, int maxBatchSize, Duration maxLinger,
+                       Executor executor, MeterRegistry registry, Consumer<List<ApplicationEvent>> invoker) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.overflow = overflow;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.lingerNanos = maxLinger.toNanos();
+        this.executor = executor;
+        this.invoker = invoker;
+        Gauge.builder("event.bus.queue.depth", queue, Collection::size).tag("listener", name).register(registry);
+        this.lag = Timer.builder("event.bus.lag").tag("listener", name).register(registry);
+        this.handler = Timer.builder("event.bus.handler").tag("listener", name).register(registry);
+        this.batchSize = DistributionSummary.builder("event.bus.batch.size").tag("listener", name).register(registry);
+        this.dropped = Counter.builder("event.bus.dropped").tag("listener", name).register(registry);
+        this.callerRuns = Counter.builder("event.bus.caller.runs").tag("listener", name).register(registry);
+    }
+
+    /**
+     * 分发事件
+     *
+     * @param event 事件
+     * @author luminion
+     */
+    void dispatch(ApplicationEvent event) {
+        dispatch(event, null);
+    }
+
+    /**
+     * 分发事件, 监听器处理完成后调用next
+     *
+     * @param event 事件
+     * @param next  后续处理, 事件被丢弃时也会调用(跳过本监听器)
+     * @author luminion
+     */
+    void dispatch(ApplicationEvent event, @Nullable Consumer<ApplicationEvent> next) {
+        Task task = new Task(event, System.nanoTime(), next);
+        switch (overflow) {
+            case BLOCK -> {
+                try {
+                    queue.put(task);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.increment();
+                    task.proceed();
+                    return;
+                }
+            }
+            case DROP -> {
+                if (!queue.offer(task)) {
+                    dropped.increment();
+                    log.debug("监听器[{}]队列已满, 丢弃事件: {}", name, event);
+                    task.proceed();
+                    return;
+                }
+            }
+            case CALLER_RUNS -> {
+                if (!queue.offer(task)) {
+                    callerRuns.increment();
+                    runInCaller(task);
+                    return;
+                }
+            }
+        }
+        schedule();
+    }
+
+    /**
+     * 队列已满时由发布线程处理, 不越过已入队的事件:
+     * 没有线程在处理该队列时, 发布线程取得处理权, 先按顺序处理队列中已有的事件, 再处理本事件;
+     * 否则等待队列有空位后入队(阻塞背压), 由正在处理的线程按顺序处理
+     */
+    private void runInCaller(Task task) {
+        while (true) {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    for (int pending = queue.size(); pending > 0; ) {
+                        List<Task> batch = nextBatch();
+                        if (batch.isEmpty()) {
+                            break;
+                        }
+                        pending -= batch.size();
+                        invoke(batch);
+                    }
+                    invoke(List.of(task));
+                } finally {
+                    scheduled.set(false);
+                    if (!queue.isEmpty()) {
+                        schedule();
+                    }
+                }
+                return;
+            }
+            try {
+                if (queue.offer(task, 10, TimeUnit.MILLISECONDS)) {
+                    schedule();
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dropped.increment();
+                task.proceed();
+                return;
+            }
+        }
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            for (int i = 0; i < DRAIN_LIMIT; i++) {
+                List<Task> batch = nextBatch();
+                if (batch.isEmpty()) {
+                    break;
+                }
+                invoke(batch);
+            }
+        } finally {
+            scheduled.set(false);
+            // 释放标记后仍有事件(处理期间新入队), 重新提交
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * 取出下一批事件, 非批量监听器每批只有一个事件
+     */
+    private List<Task> nextBatch() {
+        Task first = queue.poll();
+        if (first == null) {
+            return List.of();
+        }
+        if (maxBatchSize == 1) {
+            return List.of(first);
+        }
+        List<Task> batch = new ArrayList<>(Math.min(maxBatchSize, 1024));
+        batch.add(first);
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        long deadline = first.enqueued() + lingerNanos;
+        try {
+            while (batch.size() < maxBatchSize) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                Task next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return batch;
+    }
+
+    private void invoke(List<Task> batch) {
+        long start = System.nanoTime();
+        List<ApplicationEvent> events = new ArrayList<>(batch.size());
+        for (Task task : batch) {
+            lag.record(start - task.enqueued(), TimeUnit.NANOSECONDS);
+            events.add(task.event());
+        }
+        try {
+            invoker.accept(events);
+        } catch (Throwable e) {
+            log.error("监听器[{}]处理事件失败, 事件数: {}", name, events.size(), e);
+        } finally {
+            handler.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSize.record(events.size());
+        }
+        for (Task task : batch) {
+            task.proceed();
+        }
+    }
+
+    /**
+     * 队列为空且没有正在处理的事件
+     */
+    boolean isIdle() {
+        return queue.isEmpty() && !scheduled.get();
+    }
+
+    String getName() {
+        return name;
+    }
+
+    private record Task(ApplicationEvent event, long enqueued, @Nullable Consumer<ApplicationEvent> next) {
+
+        void proceed() {
+            if (next != null) {
+                next.accept(event);
+            }
+        }
+    }
+}
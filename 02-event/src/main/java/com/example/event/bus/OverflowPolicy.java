@@ -0,0 +1,25 @@
+package com.example.event.bus;
+
+/**
+ * 监听器队列已满时的处理策略
+ *
+ * @author luminion
+ */
+public enum OverflowPolicy {
+
+    /**
+     * 阻塞发布事件的线程, 直到队列有空位
+     */
+    BLOCK,
+
+    /**
+     * 丢弃该事件(记录丢弃数量)
+     */
+    DROP,
+
+    /**
+     * 由发布事件的线程执行监听器: 先处理该监听器队列中已有的事件, 再处理本事件, 不打乱顺序;
+     * 其他线程正在处理该队列时, 等待队列有空位后入队
+     */
+    CALLER_RUNS
+}
@@ -2,8 +2,8 @@ package com.example.event.controller;
 
 import com.example.event.entity.User;
 import com.example.event.event.LoginEvent;
+import com.example.event.event.LoginEventPublisher;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationContext;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -16,7 +16,7 @@ public class TestController {
 
 
     @Autowired
-    private ApplicationContext context;
+    private LoginEventPublisher loginEventPublisher;
 
 
     @RequestMapping("/test")
@@ -34,8 +34,8 @@ public class TestController {
         // 1、创建事件
         User user = new User().setUsername(username).setPassword(password);
         LoginEvent loginEvent = new LoginEvent(user);
-        // 2、发布事件
-        context.publishEvent(loginEvent);
+        // 2、发布事件(开启事件日志时先写入日志)
+        loginEventPublisher.publishEvent(loginEvent);
         return "test";
     }
 
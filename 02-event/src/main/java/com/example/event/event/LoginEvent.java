@@ -3,6 +3,8 @@ package com.example.event.event;
 import com.example.event.entity.User;
 import org.springframework.context.ApplicationEvent;
 
+import java.time.Clock;
+
 /**
  * 自定义登录事件
  *
@@ -24,6 +26,16 @@ public class LoginEvent extends ApplicationEvent {
         super(user);
     }
 
+    /**
+     * 指定事件时间, 用于从事件日志/发件箱中恢复事件
+     *
+     * @param user  用户信息
+     * @param clock 事件时间
+     */
+    public LoginEvent(User user, Clock clock) {
+        super(user, clock);
+    }
+
 
 
 }
@@ -0,0 +1,79 @@
+package com.example.event.event;
+
+import com.example.event.entity.User;
+import com.example.event.journal.EventCodec;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+/**
+ * 登录事件编解码器, 用于写入事件日志(EventJournal)和发件箱(Outbox)
+ * 格式: 版本号(1字节) + 用户名(标记字节(是否为null) + writeUTF) + 事件时间(毫秒)
+ * 日志文件和发件箱会落盘并发送到kafka, 密码等敏感字段不写入
+ * 旧版本格式(用户名 + 密码, 没有版本号)仍可读取, 读取时丢弃密码
+ *
+ * @author luminion
+ */
+@Component
+public class LoginEventCodec implements EventCodec<LoginEvent> {
+
+    /**
+     * 当前格式的版本号, 旧格式的第一个字节为用户名的标记字节(0或1)
+     */
+    private static final int VERSION = 2;
+
+    @Override
+    public Class<LoginEvent> eventType() {
+        return LoginEvent.class;
+    }
+
+    @Override
+    public byte[] encode(LoginEvent event) {
+        User user = (User) event.getSource();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            writeString(out, user.getUsername());
+            out.writeLong(event.getTimestamp());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public LoginEvent decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                // 旧格式: 第一个字节是用户名的标记字节, 之后是密码(丢弃)
+                String username = version == 1 ? in.readUTF() : null;
+                readString(in);
+                return new LoginEvent(new User().setUsername(username));
+            }
+            User user = new User().setUsername(readString(in));
+            return new LoginEvent(user, Clock.fixed(Instant.ofEpochMilli(in.readLong()), ZoneOffset.UTC));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
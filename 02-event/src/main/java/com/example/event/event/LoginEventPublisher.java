@@ -1,5 +1,7 @@
 package com.example.event.event;
 
+import com.example.event.journal.EventJournal;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.stereotype.Component;
@@ -10,18 +12,33 @@ import org.springframework.stereotype.Component;
  * 实际上, ApplicationContext实现了ApplicationEventPublisher接口,
  * 所以实际编码时, 可以直接注入ApplicationEventPublisher或ApplicationContext, 并使用publishEvent方法发布事件
  *
+ * 开启事件日志(luminion.event-journal.enabled=true)后, 配置的事件类型改为写入事件日志(EventJournal),
+ * 由各监听器从日志中读取处理, 重启后未处理的事件不会丢失
+ *
  * @author luminion
  */
 @Component
 public class LoginEventPublisher implements ApplicationEventPublisherAware {
 
     private ApplicationEventPublisher applicationEventPublisher;
+
+    private EventJournal eventJournal;
+
     @Override
     public void setApplicationEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
         this.applicationEventPublisher=applicationEventPublisher;
     }
 
+    @Autowired(required = false)
+    public void setEventJournal(EventJournal eventJournal) {
+        this.eventJournal = eventJournal;
+    }
+
     public void publishEvent(LoginEvent loginEvent){
+        if (eventJournal != null && eventJournal.isJournaled(loginEvent)) {
+            eventJournal.append(loginEvent);
+            return;
+        }
         applicationEventPublisher.publishEvent(loginEvent);
     }
 
@@ -0,0 +1,38 @@
+package com.example.event.journal;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 事件编解码器
+ * 写入事件日志的事件类型必须有对应的编解码器(注册为bean即可)
+ *
+ * @author luminion
+ */
+public interface EventCodec<E extends ApplicationEvent> {
+
+    /**
+     * 支持的事件类型
+     *
+     * @return {@code Class<E> }
+     * @author luminion
+     */
+    Class<E> eventType();
+
+    /**
+     * 编码
+     *
+     * @param event 事件
+     * @return {@code byte[] }
+     * @author luminion
+     */
+    byte[] encode(E event);
+
+    /**
+     * 解码
+     *
+     * @param data 编码后的数据
+     * @return {@code E }
+     * @author luminion
+     */
+    E decode(byte[] data);
+}
@@ -0,0 +1,268 @@
+package com.example.event.journal;
+
+import com.example.event.bus.BoundedApplicationEventMulticaster;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.GenericApplicationListener;
+import org.springframework.context.event.GenericApplicationListenerAdapter;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 持久化, 可重放的事件日志
+ * 指定类型的事件(luminion.event-journal.event-types)不在内存中直接分发, 而是先追加到本地的分段日志(SegmentedLog)中,
+ * 再由每个监听器各自的消费者(JournalCursor)从已保存的偏移量开始读取并调用监听器:
+ * 1.节点重启后, 未处理完的事件从偏移量继续处理, 不会丢失
+ * 2.慢监听器只会落后, 不会阻塞发布者和其他监听器
+ * 3.可通过seek从指定偏移量重放
+ *
+ * 刷盘由单独的线程按flush-interval进行(组提交), sync=true时发布线程等待本次写入刷盘后返回
+ * 过期的段按retention-size/retention-age删除, 尚未被所有消费者处理(保存偏移量)的段默认保留
+ *
+ * 日志记录内容: 事件类型名长度(2) + 事件类型名 + 编解码器编码的事件
+ *
+ * 指标:
+ * event.journal.append:      发布一个事件的耗时(sync=true时包含等待刷盘)
+ * event.journal.fsync:       单次刷盘耗时
+ * event.journal.fsync.bytes: 单次刷盘的字节数
+ * event.journal.segments:    段文件数
+ *
+ * @author luminion
+ */
+@Slf4j
+public class EventJournal implements SmartLifecycle, ApplicationContextAware, DisposableBean {
+
+    /**
+     * 同步发布时等待刷盘的最长时间
+     */
+    private static final Duration SYNC_TIMEOUT = Duration.ofSeconds(10);
+
+    private final JournalProperties properties;
+
+    private final SegmentedLog store;
+
+    private final MeterRegistry registry;
+
+    private final Map<Class<?>, EventCodec<?>> codecs = new HashMap<>();
+
+    private final Map<String, EventCodec<?>> codecsByName = new HashMap<>();
+
+    private final List<JournalCursor> cursors = new CopyOnWriteArrayList<>();
+
+    private final Timer appendTimer;
+
+    private final GroupCommitFlusher flusher;
+
+    private ApplicationContext applicationContext;
+
+    private volatile boolean running;
+
+    public EventJournal(JournalProperties properties, Collection<? extends EventCodec<?>> codecs, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+        for (EventCodec<?> codec : codecs) {
+            if (properties.getEventTypes().contains(codec.eventType().getName())) {
+                this.codecs.put(codec.eventType(), codec);
+                this.codecsByName.put(codec.eventType().getName(), codec);
+            }
+        }
+        for (String type : properties.getEventTypes()) {
+            if (!codecsByName.containsKey(type)) {
+                log.warn("事件类型[{}]没有对应的编解码器(EventCodec), 仍在内存中发布", type);
+            }
+        }
+        this.store = new SegmentedLog(Path.of(properties.getDirectory()), (int) properties.getSegmentSize().toBytes());
+        this.appendTimer = Timer.builder("event.journal.append").publishPercentiles(0.5, 0.99).register(registry);
+        this.flusher = new GroupCommitFlusher(store, "event-journal-flusher", properties.getFlushInterval(),
+                properties.getRetentionSize().toBytes(), properties.getRetentionAge(), this::retentionFloor,
+                Timer.builder("event.journal.fsync").register(registry),
+                DistributionSummary.builder("event.journal.fsync.bytes").baseUnit("bytes").register(registry));
+        Gauge.builder("event.journal.segments", store, SegmentedLog::segmentCount).register(registry);
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    /**
+     * 事件是否写入事件日志
+     *
+     * @param event 事件
+     * @return boolean
+     * @author luminion
+     */
+    public boolean isJournaled(ApplicationEvent event) {
+        return codecs.containsKey(event.getClass());
+    }
+
+    /**
+     * 追加事件到事件日志, sync=true时等待刷盘完成
+     *
+     * @param event 事件
+     * @return long 事件的偏移量
+     * @author luminion
+     */
+    public long append(ApplicationEvent event) {
+        long start = System.nanoTime();
+        long offset = store.append(encode(event));
+        if (properties.isSync() && running) {
+            try {
+                if (!store.awaitDurable(offset, SYNC_TIMEOUT)) {
+                    throw new IllegalStateException("等待事件日志刷盘超时, 偏移量: " + offset);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("等待事件日志刷盘被中断, 偏移量: " + offset, e);
+            }
+        }
+        appendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return offset;
+    }
+
+    /**
+     * 重放: 将指定监听器的消费位置移动到offset
+     *
+     * @param listener 监听器名称(类名, 或注解方法监听器的类名.方法名)
+     * @param offset   偏移量, 0表示从最早的事件开始
+     * @author luminion
+     */
+    public void seek(String listener, long offset) {
+        cursors.stream()
+                .filter(c -> c.getName().equals(listener))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("未找到监听器[" + listener + "]的事件日志消费者"))
+                .seek(offset);
+    }
+
+    /**
+     * 各监听器当前的消费偏移量
+     *
+     * @return {@code Map<String, Long> }
+     * @author luminion
+     */
+    public Map<String, Long> getOffsets() {
+        return cursors.stream().collect(Collectors.toMap(JournalCursor::getName, JournalCursor::getOffset, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    /**
+     * 需要保留的最小偏移量: 所有消费者已保存的最小偏移量, drop-unconsumed=true时不限制
+     */
+    private long retentionFloor() {
+        if (!running) {
+            return -1;
+        }
+        if (properties.isDropUnconsumed()) {
+            return Long.MAX_VALUE;
+        }
+        return cursors.stream().mapToLong(JournalCursor::getCommittedOffset).min().orElse(Long.MAX_VALUE);
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private byte[] encode(ApplicationEvent event) {
+        EventCodec codec = codecs.get(event.getClass());
+        if (codec == null) {
+            throw new IllegalArgumentException("事件类型[" + event.getClass().getName() + "]未配置写入事件日志");
+        }
+        byte[] type = codec.eventType().getName().getBytes(StandardCharsets.UTF_8);
+        byte[] body = codec.encode(event);
+        return ByteBuffer.allocate(2 + type.length + body.length)
+                .putShort((short) type.length)
+                .put(type)
+                .put(body)
+                .array();
+    }
+
+    /**
+     * 解码事件, 类型不在accepted中时返回null(不解码事件内容)
+     */
+    ApplicationEvent decode(byte[] payload, Set<Class<?>> accepted) {
+        int length = ((payload[0] & 0xff) << 8) | (payload[1] & 0xff);
+        EventCodec<?> codec = codecsByName.get(new String(payload, 2, length, StandardCharsets.UTF_8));
+        if (codec == null || !accepted.contains(codec.eventType())) {
+            return null;
+        }
+        return codec.decode(Arrays.copyOfRange(payload, 2 + length, payload.length));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        flusher.start();
+        for (ApplicationListener<?> listener : listeners()) {
+            GenericApplicationListener adapter = listener instanceof GenericApplicationListener generic
+                    ? generic : new GenericApplicationListenerAdapter(listener);
+            Set<Class<?>> types = codecs.keySet().stream()
+                    .filter(type -> adapter.supportsEventType(ResolvableType.forClass(type)))
+                    .collect(Collectors.toSet());
+            if (types.isEmpty()) {
+                continue;
+            }
+            String name = BoundedApplicationEventMulticaster.listenerName(listener);
+            JournalCursor cursor = new JournalCursor(name, listener, types, this, store, properties, registry);
+            cursors.add(cursor);
+            cursor.start();
+        }
+    }
+
+    /**
+     * 容器中的所有监听器(包括spring.factories中配置的和@EventListener方法), 按@Order排序
+     */
+    private List<ApplicationListener<?>> listeners() {
+        Set<ApplicationListener<?>> listeners = new LinkedHashSet<>();
+        if (applicationContext instanceof AbstractApplicationContext context) {
+            listeners.addAll(context.getApplicationListeners());
+        }
+        for (ApplicationListener<?> listener : applicationContext.getBeansOfType(ApplicationListener.class).values()) {
+            listeners.add(listener);
+        }
+        List<ApplicationListener<?>> sorted = new ArrayList<>(listeners);
+        AnnotationAwareOrderComparator.sort(sorted);
+        return sorted;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        cursors.forEach(JournalCursor::stop);
+        cursors.clear();
+        flusher.stop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void destroy() {
+        store.close();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.event.journal;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 事件日志配置
+ * 开启后, LoginEventPublisher发布的指定类型事件会先写入事件日志, 再由各监听器的消费者读取处理
+ *
+ * @author luminion
+ */
+@Configuration
+@EnableConfigurationProperties(JournalProperties.class)
+@ConditionalOnProperty(prefix = "luminion.event-journal", name = "enabled", havingValue = "true")
+public class EventJournalConfig {
+
+    @Bean
+    public EventJournal eventJournal(JournalProperties properties, ObjectProvider<EventCodec<?>> codecs,
+                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        return new EventJournal(properties, codecs.orderedStream().toList(), meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.event.journal;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * 组提交刷盘线程
+ * 每隔interval将SegmentedLog中已写入的记录刷盘一次, 一次fsync确认间隔内的所有写入;
+ * 每10秒按保留策略删除过期的段, 但保留retentionFloor之后(尚未消费)的数据
+ *
+ * @author luminion
+ */
+@Slf4j
+public class GroupCommitFlusher {
+
+    private static final long EXPIRE_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    private final SegmentedLog store;
+
+    private final String name;
+
+    private final Duration interval;
+
+    private final long retentionBytes;
+
+    private final Duration retentionAge;
+
+    private final LongSupplier retentionFloor;
+
+    private final Timer fsyncTimer;
+
+    private final DistributionSummary fsyncBytes;
+
+    private volatile boolean running;
+
+    private Thread thread;
+
+    /**
+     * @param store          日志
+     * @param name           线程名
+     * @param interval       刷盘间隔
+     * @param retentionBytes 保留的最大总大小
+     * @param retentionAge   段的最长保留时间
+     * @param retentionFloor 需要保留的最小偏移量(消费者已保存的最小偏移量), 不限制时返回Long.MAX_VALUE
+     * @param fsyncTimer     单次刷盘耗时
+     * @param fsyncBytes     单次刷盘字节数
+     */
+    public GroupCommitFlusher(SegmentedLog store, String name, Duration interval, long retentionBytes, Duration retentionAge,
+                              LongSupplier retentionFloor, Timer fsyncTimer, DistributionSummary fsyncBytes) {
+        this.store = store;
+        this.name = name;
+        this.interval = interval;
+        this.retentionBytes = retentionBytes;
+        this.retentionAge = retentionAge;
+        this.retentionFloor = retentionFloor;
+        this.fsyncTimer = fsyncTimer;
+        this.fsyncBytes = fsyncBytes;
+    }
+
+    public void start() {
+        running = true;
+        thread = Thread.ofPlatform().daemon().name(name).start(this::run);
+    }
+
+    /**
+     * 停止刷盘线程, 并将剩余的记录刷盘
+     */
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(Duration.ofSeconds(1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        long intervalNanos = interval.toNanos();
+        long nextExpire = System.nanoTime() + EXPIRE_INTERVAL;
+        while (running) {
+            LockSupport.parkNanos(intervalNanos);
+            try {
+                flush();
+                if (System.nanoTime() >= nextExpire) {
+                    store.expire(retentionBytes, retentionAge, retentionFloor.getAsLong());
+                    nextExpire = System.nanoTime() + EXPIRE_INTERVAL;
+                }
+            } catch (Throwable e) {
+                log.error("[{}]刷盘失败", name, e);
+            }
+        }
+    }
+
+    private void flush() {
+        long start = System.nanoTime();
+        long bytes = store.flush();
+        if (bytes > 0) {
+            fsyncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            fsyncBytes.record(bytes);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.event.journal;
+
+import com.example.event.bus.BatchApplicationListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 事件日志的消费者, 每个监听器一个
+ * 在独立的虚拟线程中从已保存的偏移量开始读取事件并调用监听器, 定期保存偏移量(至少一次: 宕机后会重复消费最后一次保存之后的事件)
+ * BatchApplicationListener每次最多收到maxBatchSize个事件, 其他监听器逐个调用
+ * 监听器抛出异常时不推进偏移量, 按100ms翻倍(最长max-retry-backoff)重试失败的事件(批量监听器为失败的整批)
+ *
+ * 指标(tag: listener):
+ * event.journal.delivery.lag:      事件从写入日志到交给监听器的时间
+ * event.journal.consumer.lag:      消费者落后于日志结尾的字节数
+ * event.journal.delivery.failures: 监听器处理失败的次数
+ * event.journal.consumer.skipped:  drop-unconsumed=true时, 因段过期而跳过的字节数
+ *
+ * @author luminion
+ */
+@Slf4j
+class JournalCursor {
+
+    /**
+     * 没有新事件时的最长等待时间
+     */
+    private static final Duration IDLE_WAIT = Duration.ofMillis(100);
+
+    private static final Duration MIN_RETRY_BACKOFF = Duration.ofMillis(100);
+
+    private final String name;
+
+    private final ApplicationListener<?> listener;
+
+    private final Set<Class<?>> eventTypes;
+
+    private final EventJournal journal;
+
+    private final SegmentedLog store;
+
+    private final int maxPollRecords;
+
+    /**
+     * 单次调用监听器的最大事件数, 非批量监听器为1
+     */
+    private final int maxBatchSize;
+
+    private final long maxRetryBackoffNanos;
+
+    private final long commitIntervalNanos;
+
+    private final OffsetFile offsetFile;
+
+    private final Timer deliveryLag;
+
+    private final Counter failures;
+
+    private final Counter skipped;
+
+    private volatile long offset;
+
+    private volatile long seekTo = -1;
+
+    private volatile boolean running;
+
+    private Thread thread;
+
+    JournalCursor(String name, ApplicationListener<?> listener, Set<Class<?>> eventTypes, EventJournal journal,
+                  SegmentedLog store, JournalProperties properties, MeterRegistry registry) {
+        this.name = name;
+        this.listener = listener;
+        this.eventTypes = eventTypes;
+        this.journal = journal;
+        this.store = store;
+        this.maxPollRecords = properties.getMaxPollRecords();
+        this.maxBatchSize = listener instanceof BatchApplicationListener<?> batchListener
+                ? Math.max(1, batchListener.maxBatchSize()) : 1;
+        this.maxRetryBackoffNanos = Math.max(MIN_RETRY_BACKOFF.toNanos(), properties.getMaxRetryBackoff().toNanos());
+        this.commitIntervalNanos = properties.getOffsetCommitInterval().toNanos();
+        this.offsetFile = new OffsetFile(store.getDirectory().resolve("offsets").resolve(name.replaceAll("[^A-Za-z0-9._-]", "_") + ".offset"));
+        this.deliveryLag = Timer.builder("event.journal.delivery.lag").tag("listener", name)
+                .publishPercentiles(0.5, 0.99).register(registry);
+        this.failures = Counter.builder("event.journal.delivery.failures").tag("listener", name).register(registry);
+        this.skipped = Counter.builder("event.journal.consumer.skipped").tag("listener", name)
+                .baseUnit("bytes").register(registry);
+        Gauge.builder("event.journal.consumer.lag", this, c -> store.durableOffset() - c.offset)
+                .tag("listener", name).baseUnit("bytes").register(registry);
+    }
+
+    void start() {
+        // 新的消费者从最早的事件开始消费
+        offset = offsetFile.load(store.earliestOffset());
+        // 立即保存, 保留策略按已保存的偏移量保留该消费者尚未处理的段
+        commit();
+        running = true;
+        thread = Thread.ofVirtual().name("event-journal-" + name).start(this::run);
+        log.info("事件日志消费者[{}]从偏移量{}开始消费, 事件类型: {}", name, offset, eventTypes);
+    }
+
+    void stop() {
+        running = false;
+        if (thread != null) {
+            try {
+                thread.join(IDLE_WAIT.multipliedBy(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 重新定位消费位置(重放), 在消费线程的下一次读取前生效
+     *
+     * @param offset 偏移量, 必须是某条记录的起始位置(例如之前保存的偏移量, 或0表示从头重放)
+     * @author luminion
+     */
+    void seek(long offset) {
+        long target = Math.max(offset, store.earliestOffset());
+        if (!store.isRecordBoundary(target)) {
+            throw new IllegalArgumentException("偏移量" + offset + "不是记录的起始位置");
+        }
+        this.seekTo = target;
+    }
+
+    private void run() {
+        List<ApplicationEvent> events = new ArrayList<>();
+        List<Long> offsets = new ArrayList<>();
+        long lastCommit = System.nanoTime();
+        long backoff = MIN_RETRY_BACKOFF.toNanos();
+        while (running) {
+            long target = seekTo;
+            if (target >= 0) {
+                seekTo = -1;
+                log.info("事件日志消费者[{}]从偏移量{}重放", name, target);
+                offset = target;
+            }
+            long earliest = store.earliestOffset();
+            if (offset < earliest) {
+                // 只有drop-unconsumed=true时才会删除未消费的段
+                log.warn("事件日志消费者[{}]的偏移量{}所在的段已过期, 从{}继续消费", name, offset, earliest);
+                skipped.increment(earliest - offset);
+                offset = earliest;
+            }
+            events.clear();
+            offsets.clear();
+            long now = SegmentedLog.now();
+            long next = store.read(offset, maxPollRecords, (recordOffset, timestamp, payload) -> {
+                ApplicationEvent event = journal.decode(payload, eventTypes);
+                if (event != null) {
+                    events.add(event);
+                    offsets.add(recordOffset);
+                    deliveryLag.record(Math.max(0, now - timestamp), TimeUnit.NANOSECONDS);
+                }
+            });
+            if (next == offset) {
+                try {
+                    store.awaitDurable(offset, IDLE_WAIT);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            } else if (deliver(events, offsets, next)) {
+                backoff = MIN_RETRY_BACKOFF.toNanos();
+            } else {
+                log.warn("事件日志消费者[{}]在偏移量{}处理失败, {}ms后重试", name, offset, TimeUnit.NANOSECONDS.toMillis(backoff));
+                if (!sleep(backoff)) {
+                    break;
+                }
+                backoff = Math.min(backoff * 2, maxRetryBackoffNanos);
+            }
+            if (System.nanoTime() - lastCommit >= commitIntervalNanos) {
+                commit();
+                lastCommit = System.nanoTime();
+            }
+        }
+        commit();
+    }
+
+    /**
+     * 按maxBatchSize分批调用监听器, 每批成功后把偏移量推进到下一批的第一个事件(最后一批推进到next)
+     *
+     * @param events  本次读取的事件
+     * @param offsets 每个事件的偏移量
+     * @param next    本次读取结束的偏移量
+     * @return 是否全部处理成功, 失败时偏移量停在失败的那一批
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private boolean deliver(List<ApplicationEvent> events, List<Long> offsets, long next) {
+        for (int from = 0; from < events.size() && running; from += maxBatchSize) {
+            int to = Math.min(events.size(), from + maxBatchSize);
+            try {
+                if (listener instanceof BatchApplicationListener batchListener) {
+                    batchListener.onApplicationEvents(new ArrayList<>(events.subList(from, to)));
+                } else {
+                    ((ApplicationListener) listener).onApplicationEvent(events.get(from));
+                }
+            } catch (Throwable e) {
+                failures.increment();
+                log.error("事件日志消费者[{}]处理事件失败, 偏移量: {}, 事件数: {}", name, offsets.get(from), to - from, e);
+                return false;
+            }
+            offset = to < events.size() ? offsets.get(to) : next;
+        }
+        if (events.isEmpty()) {
+            offset = next;
+        }
+        return true;
+    }
+
+    private boolean sleep(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        try {
+            // 分段等待, 以便停止时及时退出
+            while (running && System.nanoTime() < deadline) {
+                TimeUnit.NANOSECONDS.sleep(Math.min(deadline - System.nanoTime(), IDLE_WAIT.toNanos()));
+            }
+            return running;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void commit() {
+        offsetFile.save(offset);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    /**
+     * 已保存的偏移量(宕机重启后从这里继续), 未保存过时为-1
+     */
+    long getCommittedOffset() {
+        return offsetFile.getSaved();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.event.journal;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 事件日志配置
+ *
+ * @author luminion
+ */
+@Data
+@ConfigurationProperties(prefix = "luminion.event-journal")
+public class JournalProperties {
+
+    /**
+     * 是否启用事件日志
+     */
+    private boolean enabled = false;
+
+    /**
+     * 日志目录, 段文件和消费者偏移量都保存在该目录下
+     */
+    private String directory = "data/event-journal";
+
+    /**
+     * 写入事件日志的事件类型(全类名), 其他事件仍在内存中发布
+     */
+    private List<String> eventTypes = List.of("com.example.event.event.LoginEvent");
+
+    /**
+     * 单个段文件的大小
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 刷盘间隔(组提交窗口), 间隔内写入的事件由一次fsync确认
+     */
+    private Duration flushInterval = Duration.ofMillis(2);
+
+    /**
+     * 发布事件时是否等待刷盘完成, 关闭后发布更快, 但宕机时可能丢失最近一个刷盘间隔内的事件
+     */
+    private boolean sync = true;
+
+    /**
+     * 日志保留的最大总大小, 超过后从最旧的段开始删除(不删除尚未被所有消费者处理的段)
+     */
+    private DataSize retentionSize = DataSize.ofGigabytes(1);
+
+    /**
+     * 段的最长保留时间
+     */
+    private Duration retentionAge = Duration.ofDays(7);
+
+    /**
+     * 超出保留策略时是否删除尚未被所有消费者处理的段
+     * 默认不删除(慢消费者或处理一直失败的监听器会使日志持续增长); 开启后落后的消费者跳过被删除的事件, 计入event.journal.consumer.skipped
+     */
+    private boolean dropUnconsumed = false;
+
+    /**
+     * 消费者单次最多读取的事件数
+     */
+    private int maxPollRecords = 500;
+
+    /**
+     * 监听器处理失败后的最长重试间隔(从100ms开始翻倍), 重试成功前不推进该监听器的偏移量
+     */
+    private Duration maxRetryBackoff = Duration.ofSeconds(10);
+
+    /**
+     * 消费者偏移量的保存间隔, 宕机后最多重复消费该间隔内的事件
+     */
+    private Duration offsetCommitInterval = Duration.ofSeconds(1);
+}
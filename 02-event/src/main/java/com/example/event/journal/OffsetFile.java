@@ -0,0 +1,74 @@
+package com.example.event.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 消费偏移量文件
+ * 先写临时文件再原子替换, 避免宕机时留下写了一半的文件
+ *
+ * @author luminion
+ */
+@Slf4j
+public class OffsetFile {
+
+    private final Path path;
+
+    private volatile long saved = -1;
+
+    public OffsetFile(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * 读取偏移量, 文件不存在或读取失败时返回默认值
+     *
+     * @param defaultValue 默认值
+     * @return long
+     * @author luminion
+     */
+    public long load(long defaultValue) {
+        if (!Files.exists(path)) {
+            return defaultValue;
+        }
+        try {
+            saved = Long.parseLong(Files.readString(path).trim());
+            return saved;
+        } catch (IOException | NumberFormatException e) {
+            log.warn("读取偏移量文件失败: {}", path, e);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * 最后一次成功读取或保存的偏移量, 没有时为-1
+     */
+    public long getSaved() {
+        return saved;
+    }
+
+    /**
+     * 保存偏移量, 与上次保存的相同时跳过
+     *
+     * @param offset 偏移量
+     * @author luminion
+     */
+    public void save(long offset) {
+        if (offset == saved) {
+            return;
+        }
+        try {
+            Files.createDirectories(path.getParent());
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            Files.writeString(tmp, Long.toString(offset));
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            saved = offset;
+        } catch (IOException e) {
+            log.warn("保存偏移量文件失败: {}", path, e);
+        }
+    }
+}
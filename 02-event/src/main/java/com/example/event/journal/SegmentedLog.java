@@ -0,0 +1,450 @@
+package com.example.event.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 分段的内存映射日志
+ * 日志由多个固定大小的段文件组成, 文件名为该段第一条记录的偏移量(字节), 所有段的偏移量连续
+ * 每个段通过mmap映射到内存, 写入即为内存拷贝, 由刷盘线程定期force到磁盘(组提交, 一次fsync确认多条记录)
+ *
+ * 记录格式: length(4) + crc32c(4) + timestamp(8, 纳秒) + payload(length)
+ * crc校验timestamp和payload, 启动时从头扫描每个段, 遇到长度为0或校验失败的位置即为该段的结尾(丢弃未完整写入的记录)
+ *
+ * 读取只能读到已刷盘的位置(durableOffset), 保证消费者收到的事件在重启后仍然存在
+ *
+ * @author luminion
+ */
+@Slf4j
+public class SegmentedLog implements Closeable {
+
+    /**
+     * 记录头长度: length(4) + crc(4) + timestamp(8)
+     */
+    public static final int HEADER = 16;
+
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final ReentrantLock durableLock = new ReentrantLock();
+
+    private final Condition durableChanged = durableLock.newCondition();
+
+    private volatile Segment active;
+
+    private volatile long durableOffset;
+
+    /**
+     * 上次删除过期段时是否因未消费的数据而保留了超出保留策略的段
+     */
+    private boolean retentionBlocked;
+
+    public SegmentedLog(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> list = Files.list(directory)) {
+                files = list.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+            }
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long base = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+                Segment segment = new Segment(file, base, segmentSize);
+                segment.recover();
+                segments.put(base, segment);
+            }
+            if (segments.isEmpty()) {
+                segments.put(0L, new Segment(segmentPath(0), 0, segmentSize));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开事件日志失败: " + directory, e);
+        }
+        this.active = segments.lastEntry().getValue();
+        this.durableOffset = active.base + active.size;
+        log.info("打开事件日志: {}, 段数: {}, 偏移量: [{}, {})", directory, segments.size(), earliestOffset(), durableOffset);
+    }
+
+    /**
+     * 追加一条记录(仅写入内存映射, 由flush刷盘)
+     *
+     * @param payload 记录内容
+     * @return long 记录的偏移量
+     * @author luminion
+     */
+    public long append(byte[] payload) {
+        int total = HEADER + payload.length;
+        if (total > segmentSize) {
+            throw new IllegalArgumentException("记录大小" + total + "超过段大小" + segmentSize);
+        }
+        writeLock.lock();
+        try {
+            Segment segment = active;
+            if (segment.size + total > segment.capacity) {
+                segment = roll(segment);
+            }
+            long offset = segment.base + segment.size;
+            segment.write(payload, now());
+            return offset;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 切换到新段, 旧段立即完整刷盘
+     */
+    private Segment roll(Segment old) {
+        old.force();
+        old.sealedAt = System.currentTimeMillis();
+        long base = old.base + old.size;
+        try {
+            Segment segment = new Segment(segmentPath(base), base, segmentSize);
+            segments.put(base, segment);
+            active = segment;
+            log.debug("事件日志切换到新段: {}", segment.path.getFileName());
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("创建事件日志段失败", e);
+        }
+    }
+
+    /**
+     * 将已写入的记录刷盘, 并推进durableOffset, 唤醒等待刷盘的写入者和消费者
+     *
+     * @return long 本次刷盘的字节数
+     * @author luminion
+     */
+    public long flush() {
+        Segment segment;
+        int end;
+        writeLock.lock();
+        try {
+            segment = active;
+            end = segment.size;
+        } finally {
+            writeLock.unlock();
+        }
+        long target = segment.base + end;
+        long bytes = target - durableOffset;
+        if (bytes <= 0) {
+            return 0;
+        }
+        segment.force(end);
+        durableLock.lock();
+        try {
+            durableOffset = target;
+            durableChanged.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+        return bytes;
+    }
+
+    /**
+     * 等待指定偏移量的记录刷盘
+     *
+     * @param offset  记录偏移量
+     * @param timeout 最长等待时间
+     * @return boolean 是否已刷盘
+     * @author luminion
+     */
+    public boolean awaitDurable(long offset, Duration timeout) throws InterruptedException {
+        if (durableOffset > offset) {
+            return true;
+        }
+        long remaining = timeout.toNanos();
+        durableLock.lock();
+        try {
+            while (durableOffset <= offset) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = durableChanged.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    /**
+     * 从指定偏移量开始读取已刷盘的记录
+     *
+     * @param offset     起始偏移量
+     * @param maxRecords 最多读取的记录数
+     * @param handler    记录处理器
+     * @return long 下一次读取的偏移量
+     * @author luminion
+     */
+    public long read(long offset, int maxRecords, RecordHandler handler) {
+        long limit = durableOffset;
+        int count = 0;
+        while (offset < limit && count < maxRecords) {
+            Map.Entry<Long, Segment> entry = segments.floorEntry(offset);
+            if (entry == null) {
+                // 起始偏移量所在的段已过期
+                offset = earliestOffset();
+                continue;
+            }
+            Segment segment = entry.getValue();
+            int position = (int) (offset - segment.base);
+            if (position >= segment.size) {
+                Long next = segments.higherKey(segment.base);
+                if (next == null) {
+                    break;
+                }
+                offset = next;
+                continue;
+            }
+            MappedByteBuffer buffer = segment.buffer;
+            int length = buffer.getInt(position);
+            long timestamp = buffer.getLong(position + 8);
+            byte[] payload = new byte[length];
+            buffer.get(position + HEADER, payload);
+            handler.handle(offset, timestamp, payload);
+            offset += HEADER + length;
+            count++;
+        }
+        return offset;
+    }
+
+    /**
+     * 删除过期的段(不会删除当前写入的段, 也不会删除包含keepFrom及之后数据的段)
+     * 总大小超过maxBytes时从最旧的段开始删除, 超过maxAge未写入的段也会被删除
+     *
+     * @param maxBytes 保留的最大总大小
+     * @param maxAge   段的最长保留时间
+     * @param keepFrom 需要保留的最小偏移量(例如消费者已保存的最小偏移量), 不限制时为Long.MAX_VALUE
+     * @return int 删除的段数
+     * @author luminion
+     */
+    public int expire(long maxBytes, Duration maxAge, long keepFrom) {
+        long total = segments.values().stream().mapToLong(s -> s.capacity).sum();
+        long expireBefore = System.currentTimeMillis() - maxAge.toMillis();
+        int removed = 0;
+        boolean blocked = false;
+        for (Segment segment : segments.values()) {
+            if (segment == active || (total <= maxBytes && segment.sealedAt >= expireBefore)) {
+                break;
+            }
+            if (segment.base + segment.size > keepFrom) {
+                blocked = true;
+                break;
+            }
+            segments.remove(segment.base);
+            segment.delete();
+            total -= segment.capacity;
+            removed++;
+            log.info("删除过期的事件日志段: {}", segment.path.getFileName());
+        }
+        if (blocked && !retentionBlocked) {
+            log.warn("事件日志{}超出保留策略, 但偏移量{}之后的数据尚未消费, 保留这些段", directory, keepFrom);
+        }
+        retentionBlocked = blocked;
+        return removed;
+    }
+
+    /**
+     * 偏移量是否为一条已刷盘记录的起始位置(或日志结尾)
+     */
+    public boolean isRecordBoundary(long offset) {
+        if (offset == durableOffset) {
+            return true;
+        }
+        Map.Entry<Long, Segment> entry = segments.floorEntry(offset);
+        if (entry == null || offset > durableOffset) {
+            return false;
+        }
+        Segment segment = entry.getValue();
+        int position = (int) (offset - segment.base);
+        if (position == segment.size) {
+            return true;
+        }
+        if (position + HEADER > segment.size) {
+            return false;
+        }
+        int length = segment.buffer.getInt(position);
+        return length > 0 && position + HEADER + length <= segment.size
+                && segment.buffer.getInt(position + 4) == segment.crc(position, length);
+    }
+
+    public long earliestOffset() {
+        return segments.firstKey();
+    }
+
+    public long durableOffset() {
+        return durableOffset;
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void close() {
+        flush();
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+    }
+
+    private Path segmentPath(long base) {
+        return directory.resolve(String.format("%020d%s", base, SUFFIX));
+    }
+
+    /**
+     * 当前时间(纳秒)
+     */
+    public static long now() {
+        Instant now = Instant.now();
+        return TimeUnit.SECONDS.toNanos(now.getEpochSecond()) + now.getNano();
+    }
+
+    /**
+     * 记录处理器
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+
+        void handle(long offset, long timestamp, byte[] payload);
+    }
+
+    /**
+     * 日志段
+     */
+    private static final class Segment {
+
+        private final Path path;
+
+        private final long base;
+
+        private final int capacity;
+
+        private final FileChannel channel;
+
+        private final MappedByteBuffer buffer;
+
+        /**
+         * 已写入的字节数
+         */
+        private volatile int size;
+
+        /**
+         * 已刷盘的字节数
+         */
+        private int flushed;
+
+        /**
+         * 段写满(不再写入)的时间, 当前写入的段为Long.MAX_VALUE
+         */
+        private volatile long sealedAt = Long.MAX_VALUE;
+
+        Segment(Path path, long base, int segmentSize) throws IOException {
+            this.path = path;
+            this.base = base;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.capacity = (int) Math.max(segmentSize, channel.size());
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+
+        /**
+         * 扫描段内的记录, 确定已写入的位置
+         */
+        void recover() throws IOException {
+            int position = 0;
+            while (position + HEADER <= capacity) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || position + HEADER + length > capacity) {
+                    break;
+                }
+                if (buffer.getInt(position + 4) != crc(position, length)) {
+                    log.warn("事件日志段{}在位置{}校验失败, 丢弃之后的记录", path.getFileName(), position);
+                    break;
+                }
+                position += HEADER + length;
+            }
+            size = position;
+            flushed = position;
+            sealedAt = Files.getLastModifiedTime(path).toMillis();
+        }
+
+        void write(byte[] payload, long timestamp) {
+            int position = size;
+            buffer.putLong(position + 8, timestamp);
+            buffer.put(position + HEADER, payload);
+            buffer.putInt(position + 4, crc(position, payload.length));
+            buffer.putInt(position, payload.length);
+            int end = position + HEADER + payload.length;
+            // 写入结束标记, 避免崩溃恢复时把之前残留的数据当作有效记录
+            if (end + 4 <= capacity) {
+                buffer.putInt(end, 0);
+            }
+            size = end;
+        }
+
+        private int crc(int position, int length) {
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(position + 8, 8 + length));
+            return (int) crc.getValue();
+        }
+
+        synchronized void force(int end) {
+            if (end > flushed) {
+                buffer.force(flushed, end - flushed);
+                flushed = end;
+            }
+        }
+
+        void force() {
+            force(size);
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("关闭事件日志段失败: {}", path, e);
+            }
+        }
+
+        void delete() {
+            close();
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("删除事件日志段失败: {}", path, e);
+            }
+        }
+    }
+}
@@ -5,7 +5,6 @@ import org.springframework.context.ApplicationEvent;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.annotation.Order;
-import org.springframework.scheduling.annotation.Async;
 
 
 /**
@@ -78,10 +77,12 @@ public class Listener {
      * 实际触发事件时,调用的的时对应的ApplicationListenerMethodAdapter,然后在ApplicationListenerMethodAdapter里面是执行这个添加了注解的方法
      * 如此该类也能通过注解的方法接收事件
      *
+     * 异步执行由事件总线(BoundedApplicationEventMulticaster)负责: luminion.event-bus.packages下的事件进入每个监听器各自的队列,
+     * 在虚拟线程/线程池中按发布顺序处理; 其他事件(容器生命周期事件等)在发布线程中同步执行
+     *
      * @param event 事件
      * @author luminion
      */
-    @Async  // 异步执行
     @Order(1) // 使用order注解可以指定事件订阅接收的优先级,值越小优先级越高, 默认按照类名的字典顺序(注解方式为匿名类,优先级最低)
     @EventListener
     public void onApplicationEvent(ApplicationEvent event) {
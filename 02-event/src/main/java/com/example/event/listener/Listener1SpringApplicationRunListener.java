@@ -1,11 +1,14 @@
 package com.example.event.listener;
 
+import com.example.event.startup.StartupProfiler;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.ConfigurableBootstrapContext;
+import org.springframework.boot.SpringApplication;
 import org.springframework.boot.SpringApplicationRunListener;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.core.env.ConfigurableEnvironment;
 
+import java.nio.file.Path;
 import java.time.Duration;
 
 /**
@@ -14,58 +17,103 @@ import java.time.Duration;
  * 配置方式:
  * 1.通过META-INF/spring.factories配置
  *
+ * 同时作为启动耗时分析器(StartupProfiler)的入口, 开启luminion.startup-profiler.enabled后:
+ * 1.记录相邻两个回调之间(各阶段)的墙钟时间和CPU时间
+ * 2.环境准备完成后(初始化器执行前)包装所有ApplicationContextInitializer, 记录每个初始化器的耗时, 未开启时不包装
+ * 3.容器刷新前添加BeanPostProcessor, 记录每个bean的创建耗时, 应用就绪后停止记录
+ * 4.就绪(或启动失败)时导出json和火焰图(folded)文件到luminion.startup-profiler.output目录
+ * 实现SpringApplicationRunListener时, 可以声明(SpringApplication, String[])参数的构造器, 获取应用对象和启动参数
  *
  * @author luminion
  */
 @Slf4j
 public class Listener1SpringApplicationRunListener implements SpringApplicationRunListener {
 
+    private final SpringApplication application;
+
+    private final StartupProfiler profiler = new StartupProfiler();
+
+    private boolean profiling;
+
+    private Path output;
+
+    private int top;
+
+    public Listener1SpringApplicationRunListener(SpringApplication application, String[] args) {
+        this.application = application;
+    }
+
     private void print(String event){
         log.debug("=====触发监听器Listener1SpringApplicationRunListener======"+event);
     }
 
+    private void export() {
+        if (profiling) {
+            profiler.log(top);
+            log.info("启动耗时报告已导出: {}", profiler.export(output));
+        }
+    }
+
 
     @Override
     public void starting(ConfigurableBootstrapContext bootstrapContext) {
         // 应用开始，SpringApplication的run方法一调用，只要有了 BootstrapContext 就执行
         print("starting事件, 正在启动");
+        profiler.starting(bootstrapContext);
     }
 
     @Override
     public void environmentPrepared(ConfigurableBootstrapContext bootstrapContext, ConfigurableEnvironment environment) {
         // 环境准备好（把启动参数等绑定到环境变量中），但是ioc还没有创建；【调一次】
         print("environmentPrepared事件, 环境准备完成");
+        profiler.phase("contextPrepare");
+        profiling = environment.getProperty("luminion.startup-profiler.enabled", Boolean.class, false);
+        output = Path.of(environment.getProperty("luminion.startup-profiler.output", "startup-profile"));
+        top = environment.getProperty("luminion.startup-profiler.top", Integer.class, 10);
+        // 初始化器在contextPrepared之前执行, 此时包装仍然生效
+        if (profiling) {
+            profiler.wrapInitializers(application);
+        }
     }
 
     @Override
     public void contextPrepared(ConfigurableApplicationContext context) {
         // ioc容器创建并准备好，但是sources（主配置类）没加载。并关闭引导上下文；组件都没创建  【调一次】
         print("contextPrepared, ioc容器准备完成");
+        profiler.phase("load");
+        if (profiling) {
+            profiler.install(context);
+        }
     }
 
     @Override
     public void contextLoaded(ConfigurableApplicationContext context) {
         // ioc容器加载。主配置类加载进去了。但是ioc容器还没刷新（bean没创建）。
         print("contextLoaded事件, ioc容器加载完成");
+        profiler.phase("refresh");
     }
 
     @Override
     public void started(ConfigurableApplicationContext context, Duration timeTaken) {
         // ioc容器刷新了（所有bean造好了），但是 runner 没调用。
         print("started事件, 启动完成");
+        profiler.phase("runners");
     }
 
     @Override
     public void ready(ConfigurableApplicationContext context, Duration timeTaken) {
         // ioc容器刷新了（所有bean造好了），所有runner调用完了。
         print("ready事件, 应用已经准备就绪");
-
+        profiler.phase("ready");
+        export();
     }
 
     @Override
     public void failed(ConfigurableApplicationContext context, Throwable exception) {
         // 以上任意步骤出错，都会调用,表示启动失败, 之后就不会再调用其他步骤了
         print("failed事件, 应用启动失败");
+        profiler.phase("failed");
+        export();
     }
 
     /*
@@ -0,0 +1,63 @@
+package com.example.event.outbox;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发送到kafka
+ * 每批消息异步发送后flush(不等待linger.ms), 再等待全部确认; 生产者开启幂等(enable.idempotence), 重试不会产生重复消息
+ * 消息key为事件类型(同一类型的事件进入同一分区, 保持顺序), 请求头中带有事件类型和发件箱偏移量
+ *
+ * @author luminion
+ */
+public class KafkaOutboxSender implements OutboxSender, DisposableBean {
+
+    public static final String TYPE_HEADER = "event-type";
+
+    public static final String OFFSET_HEADER = "outbox-offset";
+
+    private final DefaultKafkaProducerFactory<String, byte[]> producerFactory;
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    private final String topic;
+
+    private final Duration timeout;
+
+    public KafkaOutboxSender(DefaultKafkaProducerFactory<String, byte[]> producerFactory, String topic, Duration timeout) {
+        this.producerFactory = producerFactory;
+        this.kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        this.topic = topic;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void send(List<OutboxMessage> messages) throws Exception {
+        CompletableFuture<?>[] futures = new CompletableFuture[messages.size()];
+        for (int i = 0; i < messages.size(); i++) {
+            OutboxMessage message = messages.get(i);
+            ProducerRecord<String, byte[]> record = new ProducerRecord<>(topic, null,
+                    TimeUnit.NANOSECONDS.toMillis(message.timestamp()), message.type(), message.body());
+            record.headers()
+                    .add(TYPE_HEADER, message.type().getBytes(StandardCharsets.UTF_8))
+                    .add(OFFSET_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(message.offset()).array());
+            futures[i] = kafkaTemplate.send(record);
+        }
+        kafkaTemplate.flush();
+        CompletableFuture.allOf(futures).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        producerFactory.destroy();
+    }
+}
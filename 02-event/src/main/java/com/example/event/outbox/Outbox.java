@@ -0,0 +1,278 @@
+package com.example.event.outbox;
+
+import com.example.event.journal.EventCodec;
+import com.example.event.journal.GroupCommitFlusher;
+import com.example.event.journal.OffsetFile;
+import com.example.event.journal.SegmentedLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.SmartLifecycle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发件箱(transactional outbox)
+ * 需要发送到kafka的事件先追加到本地的分段日志(与事件日志相同的SegmentedLog, 组提交刷盘), 发布线程只等待本地刷盘,
+ * 再由转发线程(relay)按批读取已刷盘的事件交给OutboxSender发送, 发送成功后推进并保存偏移量:
+ * 1.kafka不可用时事件保存在本地, 恢复后继续发送, 不会丢失; 保留策略不会删除未发送的段,
+ *   未发送的事件超过retention-size时写入直接失败(由发布者感知), 而不是丢弃事件
+ * 2.一批最多max-batch-size个事件, 一次发送; 积压越多批量越大
+ * 3.发送失败时按100ms翻倍(最长max-retry-backoff)重试同一批, 至少一次; 消费者可按outbox-offset请求头去重
+ *
+ * 指标:
+ * outbox.append:            写入一个事件的耗时(sync=true时包含等待刷盘)
+ * outbox.fsync:             单次刷盘耗时
+ * outbox.fsync.bytes:       单次刷盘的字节数
+ * outbox.relay.lag:         事件从写入发件箱到发送成功的时间
+ * outbox.relay.batch.size:  每批发送的事件数
+ * outbox.relay.sent:        发送成功的事件数
+ * outbox.relay.failures:    发送失败的批次数
+ * outbox.pending:           未发送的字节数
+ * outbox.rejected:          因积压超过retention-size而写入失败的事件数
+ *
+ * @author luminion
+ */
+@Slf4j
+public class Outbox implements SmartLifecycle, DisposableBean {
+
+    /**
+     * 同步写入时等待刷盘的最长时间
+     */
+    private static final Duration SYNC_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * 没有新事件时的最长等待时间
+     */
+    private static final Duration IDLE_WAIT = Duration.ofMillis(100);
+
+    private static final Duration MIN_RETRY_BACKOFF = Duration.ofMillis(100);
+
+    private final OutboxProperties properties;
+
+    private final OutboxSender sender;
+
+    private final SegmentedLog store;
+
+    private final GroupCommitFlusher flusher;
+
+    private final OffsetFile offsetFile;
+
+    private final Map<Class<?>, EventCodec<?>> codecs = new HashMap<>();
+
+    private final Timer appendTimer;
+
+    private final Timer relayLag;
+
+    private final DistributionSummary batchSize;
+
+    private final Counter sent;
+
+    private final Counter failures;
+
+    private final Counter rejected;
+
+    private volatile long offset;
+
+    private volatile boolean running;
+
+    private Thread relay;
+
+    public Outbox(OutboxProperties properties, Collection<? extends EventCodec<?>> codecs, OutboxSender sender, MeterRegistry registry) {
+        this.properties = properties;
+        this.sender = sender;
+        for (EventCodec<?> codec : codecs) {
+            if (properties.getEventTypes().contains(codec.eventType().getName())) {
+                this.codecs.put(codec.eventType(), codec);
+            }
+        }
+        for (String type : properties.getEventTypes()) {
+            if (this.codecs.keySet().stream().noneMatch(c -> c.getName().equals(type))) {
+                log.warn("事件类型[{}]没有对应的编解码器(EventCodec), 不会写入发件箱", type);
+            }
+        }
+        Path directory = Path.of(properties.getDirectory());
+        this.store = new SegmentedLog(directory, (int) properties.getSegmentSize().toBytes());
+        this.offsetFile = new OffsetFile(directory.resolve("relay.offset"));
+        this.flusher = new GroupCommitFlusher(store, "outbox-flusher", properties.getFlushInterval(),
+                properties.getRetentionSize().toBytes(), properties.getRetentionAge(), offsetFile::getSaved,
+                Timer.builder("outbox.fsync").register(registry),
+                DistributionSummary.builder("outbox.fsync.bytes").baseUnit("bytes").register(registry));
+        this.appendTimer = Timer.builder("outbox.append").publishPercentiles(0.5, 0.99).register(registry);
+        this.relayLag = Timer.builder("outbox.relay.lag").publishPercentiles(0.5, 0.99).register(registry);
+        this.batchSize = DistributionSummary.builder("outbox.relay.batch.size").register(registry);
+        this.sent = Counter.builder("outbox.relay.sent").register(registry);
+        this.failures = Counter.builder("outbox.relay.failures").register(registry);
+        this.rejected = Counter.builder("outbox.rejected").register(registry);
+        Gauge.builder("outbox.pending", this, o -> o.store.durableOffset() - o.offset).baseUnit("bytes").register(registry);
+    }
+
+    /**
+     * 事件类型是否写入发件箱
+     *
+     * @param eventType 事件类型
+     * @return boolean
+     * @author luminion
+     */
+    public boolean accepts(Class<?> eventType) {
+        return codecs.containsKey(eventType);
+    }
+
+    /**
+     * 追加事件到发件箱, sync=true时等待刷盘完成
+     * 未发送的事件超过retention-size(例如kafka长时间不可用)时抛出异常, 不写入
+     *
+     * @param event 事件
+     * @return long 事件的偏移量
+     * @author luminion
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public long append(ApplicationEvent event) {
+        EventCodec codec = codecs.get(event.getClass());
+        if (codec == null) {
+            throw new IllegalArgumentException("事件类型[" + event.getClass().getName() + "]未配置写入发件箱");
+        }
+        long pending = store.durableOffset() - offset;
+        if (pending >= properties.getRetentionSize().toBytes()) {
+            rejected.increment();
+            throw new IllegalStateException("发件箱未发送的事件(" + pending + " bytes)超过retention-size, 拒绝写入");
+        }
+        long start = System.nanoTime();
+        long offset = store.append(OutboxMessage.encode(codec.eventType().getName(), codec.encode(event)));
+        if (properties.isSync() && running) {
+            try {
+                if (!store.awaitDurable(offset, SYNC_TIMEOUT)) {
+                    throw new IllegalStateException("等待发件箱刷盘超时, 偏移量: " + offset);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("等待发件箱刷盘被中断, 偏移量: " + offset, e);
+            }
+        }
+        appendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return offset;
+    }
+
+    /**
+     * 已发送成功的偏移量
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * 已刷盘的偏移量
+     */
+    public long getDurableOffset() {
+        return store.durableOffset();
+    }
+
+    private void relay() {
+        List<OutboxMessage> batch = new ArrayList<>(properties.getMaxBatchSize());
+        long backoff = MIN_RETRY_BACKOFF.toNanos();
+        while (running) {
+            long earliest = store.earliestOffset();
+            if (offset < earliest) {
+                // 保留策略不会删除未发送的段, 只有段文件被外部删除时才会出现
+                log.error("发件箱偏移量{}所在的段不存在, 从{}继续发送, 之间的事件已丢失", offset, earliest);
+                offset = earliest;
+            }
+            batch.clear();
+            long next = store.read(offset, properties.getMaxBatchSize(),
+                    (recordOffset, timestamp, payload) -> batch.add(OutboxMessage.decode(recordOffset, timestamp, payload)));
+            if (next == offset) {
+                try {
+                    store.awaitDurable(offset, IDLE_WAIT);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                continue;
+            }
+            try {
+                sender.send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                failures.increment();
+                log.warn("发件箱发送失败, 偏移量: {}, 事件数: {}, {}ms后重试", offset, batch.size(),
+                        TimeUnit.NANOSECONDS.toMillis(backoff), e);
+                if (!sleep(backoff)) {
+                    break;
+                }
+                backoff = Math.min(backoff * 2, properties.getMaxRetryBackoff().toNanos());
+                continue;
+            }
+            backoff = MIN_RETRY_BACKOFF.toNanos();
+            long now = SegmentedLog.now();
+            for (OutboxMessage message : batch) {
+                relayLag.record(Math.max(0, now - message.timestamp()), TimeUnit.NANOSECONDS);
+            }
+            batchSize.record(batch.size());
+            sent.increment(batch.size());
+            offset = next;
+            offsetFile.save(offset);
+        }
+    }
+
+    private boolean sleep(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        try {
+            // 分段等待, 以便停止时及时退出
+            while (running && System.nanoTime() < deadline) {
+                TimeUnit.NANOSECONDS.sleep(Math.min(deadline - System.nanoTime(), IDLE_WAIT.toNanos()));
+            }
+            return running;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void start() {
+        offset = offsetFile.load(store.earliestOffset());
+        // 立即保存, 保留策略按已保存的偏移量保留未发送的段
+        offsetFile.save(offset);
+        running = true;
+        flusher.start();
+        relay = Thread.ofVirtual().name("outbox-relay").start(this::relay);
+        log.info("发件箱从偏移量{}开始转发, 未发送: {} bytes, 事件类型: {}", offset, store.durableOffset() - offset, codecs.keySet());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (relay != null) {
+            try {
+                relay.join(properties.getSendTimeout());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flusher.stop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void destroy() {
+        store.close();
+    }
+}
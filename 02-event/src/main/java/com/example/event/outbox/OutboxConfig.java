@@ -0,0 +1,61 @@
+package com.example.event.outbox;
+
+import com.example.event.journal.EventCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+
+import java.util.Map;
+
+/**
+ * 发件箱配置
+ * 开启后, 指定类型的事件在发布时写入本地发件箱, 再批量发送到kafka(spring.kafka.bootstrap-servers)
+ *
+ * @author luminion
+ */
+@Configuration
+@EnableConfigurationProperties(OutboxProperties.class)
+@ConditionalOnProperty(prefix = "luminion.outbox", name = "enabled", havingValue = "true")
+public class OutboxConfig {
+
+    /**
+     * 幂等生产者: 重试不会重复写入, 且每个分区内保持顺序(max.in.flight不超过5)
+     */
+    @Bean
+    @ConditionalOnMissingBean(OutboxSender.class)
+    public KafkaOutboxSender kafkaOutboxSender(OutboxProperties properties, KafkaProperties kafkaProperties,
+                                               ObjectProvider<SslBundles> sslBundles) {
+        Map<String, Object> config = kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable());
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        config.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, 64 * 1024);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        DefaultKafkaProducerFactory<String, byte[]> producerFactory =
+                new DefaultKafkaProducerFactory<>(config, new StringSerializer(), new ByteArraySerializer());
+        return new KafkaOutboxSender(producerFactory, properties.getTopic(), properties.getSendTimeout());
+    }
+
+    @Bean
+    public Outbox outbox(OutboxProperties properties, ObjectProvider<EventCodec<?>> codecs, OutboxSender sender,
+                         ObjectProvider<MeterRegistry> meterRegistry) {
+        return new Outbox(properties, codecs.orderedStream().toList(), sender, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Bean
+    public OutboxEventCapture outboxEventCapture(Outbox outbox) {
+        return new OutboxEventCapture(outbox);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.event.outbox;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.event.GenericApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.ResolvableType;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 将事件写入发件箱的监听器
+ * 在发布线程中同步执行(不经过事件总线的异步队列), 发布返回时事件已写入发件箱
+ * 发布时存在事务的, 在事务提交后写入(文件发件箱无法加入数据库事务, 回滚的事务不会产生消息); 否则立即写入
+ *
+ * @author luminion
+ */
+public class OutboxEventCapture implements GenericApplicationListener {
+
+    private final Outbox outbox;
+
+    public OutboxEventCapture(Outbox outbox) {
+        this.outbox = outbox;
+    }
+
+    @Override
+    public boolean supportsEventType(ResolvableType eventType) {
+        Class<?> type = eventType.toClass();
+        return outbox.accepts(type);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outbox.append(event);
+                }
+            });
+            return;
+        }
+        outbox.append(event);
+    }
+
+    @Override
+    public boolean supportsAsyncExecution() {
+        return false;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
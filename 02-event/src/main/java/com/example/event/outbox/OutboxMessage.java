@@ -0,0 +1,33 @@
+package com.example.event.outbox;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 发件箱中的消息
+ * 存储格式与事件日志相同: 事件类型名长度(2) + 事件类型名 + 编解码器编码的事件
+ *
+ * @param offset    在发件箱中的偏移量, 同时作为消息的唯一标识(消费者可据此去重)
+ * @param timestamp 写入发件箱的时间(纳秒)
+ * @param type      事件类型名
+ * @param body      编码后的事件
+ * @author luminion
+ */
+public record OutboxMessage(long offset, long timestamp, String type, byte[] body) {
+
+    static byte[] encode(String type, byte[] body) {
+        byte[] name = type.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(2 + name.length + body.length)
+                .putShort((short) name.length)
+                .put(name)
+                .put(body)
+                .array();
+    }
+
+    static OutboxMessage decode(long offset, long timestamp, byte[] payload) {
+        int length = ((payload[0] & 0xff) << 8) | (payload[1] & 0xff);
+        String type = new String(payload, 2, length, StandardCharsets.UTF_8);
+        return new OutboxMessage(offset, timestamp, type, Arrays.copyOfRange(payload, 2 + length, payload.length));
+    }
+}
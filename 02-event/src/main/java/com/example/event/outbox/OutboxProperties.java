@@ -0,0 +1,79 @@
+package com.example.event.outbox;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 发件箱配置
+ *
+ * @author luminion
+ */
+@Data
+@ConfigurationProperties(prefix = "luminion.outbox")
+public class OutboxProperties {
+
+    /**
+     * 是否启用发件箱
+     */
+    private boolean enabled = false;
+
+    /**
+     * 发件箱目录
+     */
+    private String directory = "data/outbox";
+
+    /**
+     * 写入发件箱的事件类型(全类名), 需要有对应的EventCodec
+     */
+    private List<String> eventTypes = List.of("com.example.event.event.LoginEvent");
+
+    /**
+     * 发送到的kafka主题
+     */
+    private String topic = "event-outbox";
+
+    /**
+     * 单批最多发送的事件数
+     */
+    private int maxBatchSize = 500;
+
+    /**
+     * 写入发件箱时是否等待刷盘
+     */
+    private boolean sync = true;
+
+    /**
+     * 刷盘间隔(组提交窗口)
+     */
+    private Duration flushInterval = Duration.ofMillis(2);
+
+    /**
+     * 单个段文件的大小
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(16);
+
+    /**
+     * 保留的最大总大小, 超过后从最旧的已发送段开始删除(不删除未发送的段);
+     * 未发送的事件超过该大小时写入发件箱失败
+     */
+    private DataSize retentionSize = DataSize.ofGigabytes(1);
+
+    /**
+     * 已发送的段的最长保留时间
+     */
+    private Duration retentionAge = Duration.ofDays(7);
+
+    /**
+     * 单批发送的超时时间
+     */
+    private Duration sendTimeout = Duration.ofSeconds(30);
+
+    /**
+     * 发送失败后的最长重试间隔(从100ms开始翻倍)
+     */
+    private Duration maxRetryBackoff = Duration.ofSeconds(10);
+}
@@ -0,0 +1,20 @@
+package com.example.event.outbox;
+
+import java.util.List;
+
+/**
+ * 发件箱消息的发送者
+ *
+ * @author luminion
+ */
+@FunctionalInterface
+public interface OutboxSender {
+
+    /**
+     * 发送一批消息, 正常返回表示全部发送成功; 抛出异常时整批重试(至少一次)
+     *
+     * @param messages 消息(按写入顺序)
+     * @author luminion
+     */
+    void send(List<OutboxMessage> messages) throws Exception;
+}
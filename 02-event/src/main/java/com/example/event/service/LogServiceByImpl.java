@@ -1,22 +1,37 @@
 package com.example.event.service;
 
+import com.example.event.bus.BatchApplicationListener;
 import com.example.event.event.LoginEvent;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.ApplicationListener;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.List;
+
 /**
+ * 实现BatchApplicationListener, 开启事件总线后批量接收登录事件(最多500个或等待100ms), 一次写入多条登录日志
+ *
  * @author luminion
  */
 @Service
 @Slf4j
 @Order(2) //  使用order注解可以指定事件订阅接收的优先级
-public class LogServiceByImpl implements ApplicationListener<LoginEvent> {
+public class LogServiceByImpl implements BatchApplicationListener<LoginEvent> {
+
 
+    @Override
+    public void onApplicationEvents(List<LoginEvent> events) {
+          log.info("日志服务(接口实现)感知到{}个登录事件,批量记录用户登录日志{}", events.size(), events.stream().map(LoginEvent::getSource).toList());
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return 500;
+    }
 
     @Override
-    public void onApplicationEvent(LoginEvent event) {
-          log.info("日志服务(接口实现)感知到登录事件,记录用户登录日志"+event.getSource());
+    public Duration maxLinger() {
+        return Duration.ofMillis(100);
     }
 }
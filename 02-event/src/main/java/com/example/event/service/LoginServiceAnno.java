@@ -4,18 +4,17 @@ import com.example.event.event.LoginEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.annotation.Order;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 /**
  * 通过@EventListener注解实现事件监听
+ * 开启事件总线(luminion.event-bus.enabled=true)后, 由事件总线在独立的有界队列中异步执行, 无需再使用@Async
  * @author luminion
  */
 @Service
 @Slf4j
 public class LoginServiceAnno {
 
-    @Async  // 异步执行
     @Order(1) // 使用order注解可以指定事件订阅接收的优先级,值越小优先级越高, 默认按照类名的字典顺序(注解方式为匿名类,优先级最低)
     @EventListener
     public void login(LoginEvent loginEvent){
@@ -1,22 +1,26 @@
 package com.example.event.service;
 
+import com.example.event.bus.BatchApplicationListener;
 import com.example.event.event.LoginEvent;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.ApplicationListener;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
+ * 实现BatchApplicationListener, 开启事件总线后批量接收登录事件(使用默认的批量大小和等待时间), 一次为多个用户增加积分
+ *
  * @author luminion
  */
 @Service
 @Slf4j
 @Order(3) // 使用order注解可以指定事件订阅接收的优先级
-public class ScoreServiceByImpl implements ApplicationListener<LoginEvent> {
+public class ScoreServiceByImpl implements BatchApplicationListener<LoginEvent> {
 
 
     @Override
-    public void onApplicationEvent(LoginEvent event) {
-          log.info("积分服务(接口实现)感知到登录事件,为用户增加积分"+event.getSource());
+    public void onApplicationEvents(List<LoginEvent> events) {
+          log.info("积分服务(接口实现)感知到{}个登录事件,批量为用户增加积分{}", events.size(), events.stream().map(LoginEvent::getSource).toList());
     }
 }
@@ -0,0 +1,100 @@
+package com.example.event.startup;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 记录每个bean的创建耗时
+ * 实例化前(postProcessBeforeInstantiation)开始计时, 初始化后(postProcessAfterInitialization)结束计时,
+ * 创建过程中触发的依赖bean的创建记录在同一线程的栈中, 用于计算自身耗时和依赖链
+ *
+ * 需要在容器刷新前通过beanFactory.addBeanPostProcessor添加, 才能记录到BeanPostProcessor等提前创建的bean
+ * 应用就绪(ApplicationReadyEvent)后停止记录, 之后创建的原型bean和懒加载bean不再计时, 避免记录无限增长
+ *
+ * @author luminion
+ */
+class BeanTimingPostProcessor implements InstantiationAwareBeanPostProcessor {
+
+    private final StartupProfiler profiler;
+
+    private final ThreadLocal<Deque<Frame>> stack = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private volatile boolean recording = true;
+
+    BeanTimingPostProcessor(StartupProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * 停止记录, 并清理当前线程的调用栈
+     */
+    void stop() {
+        recording = false;
+        stack.remove();
+    }
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) throws BeansException {
+        if (!recording) {
+            return null;
+        }
+        stack.get().push(new Frame(beanName, beanClass.getName(), System.nanoTime(), StartupProfiler.threadCpuTime()));
+        return null;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (!recording) {
+            return bean;
+        }
+        Deque<Frame> frames = stack.get();
+        // FactoryBean创建的对象也会回调此方法, 但没有对应的实例化前回调
+        if (frames.stream().noneMatch(frame -> frame.name.equals(beanName))) {
+            return bean;
+        }
+        Frame frame = frames.pop();
+        // 栈顶不匹配时, 说明之前有bean创建失败(没有回调初始化后), 丢弃
+        while (!frame.name.equals(beanName)) {
+            frame = frames.pop();
+        }
+        long wall = System.nanoTime() - frame.start;
+        long cpu = StartupProfiler.threadCpuTime() - frame.cpuStart;
+        Frame parent = frames.peek();
+        if (parent != null) {
+            parent.children += wall;
+        }
+        List<String> path = new ArrayList<>(frames.size() + 1);
+        for (Iterator<Frame> it = frames.descendingIterator(); it.hasNext(); ) {
+            path.add(it.next().name);
+        }
+        path.add(beanName);
+        profiler.bean(beanName, frame.type, path, wall, wall - frame.children, cpu);
+        return bean;
+    }
+
+    private static final class Frame {
+
+        private final String name;
+
+        private final String type;
+
+        private final long start;
+
+        private final long cpuStart;
+
+        private long children;
+
+        Frame(String name, String type, long start, long cpuStart) {
+            this.name = name;
+            this.type = type;
+            this.start = start;
+            this.cpuStart = cpuStart;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.event.startup;
+
+import org.springframework.boot.BootstrapRegistry;
+import org.springframework.boot.BootstrapRegistryInitializer;
+import org.springframework.core.Ordered;
+
+/**
+ * 记录引导初始化开始的时间点
+ * BootstrapRegistryInitializer在SpringApplicationRunListener创建之前执行, 无法逐个包装计时,
+ * 所以以最高优先级最先执行, 将时间点注册到引导上下文中, 由Listener1SpringApplicationRunListener在starting时读取,
+ * 得到所有引导初始化器的总耗时(bootstrap阶段)
+ *
+ * @author luminion
+ */
+public class BootstrapTimingInitializer implements BootstrapRegistryInitializer, Ordered {
+
+    @Override
+    public void initialize(BootstrapRegistry registry) {
+        StartupProfiler.Mark mark = StartupProfiler.Mark.now();
+        registry.register(StartupProfiler.Mark.class, BootstrapRegistry.InstanceSupplier.of(mark));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
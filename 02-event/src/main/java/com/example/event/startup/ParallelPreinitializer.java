@@ -0,0 +1,100 @@
+package com.example.event.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 并行预初始化
+ * spring6.1中单例bean的创建全程持有单例注册表的全局锁, 多线程创建bean实际上仍是串行的,
+ * 所以这里并行执行的是bean创建中线程安全且耗时的部分: 加载类, 解析反射元数据(方法, 字段, 构造器, 属性描述符, 注解),
+ * 这些结果都有全局缓存, 主线程随后创建bean时直接命中缓存
+ *
+ * 需要的bean类型来自上次启动保存的快照(StartupSnapshot), 按上次的创建顺序提交到ForkJoinPool,
+ * 尽量走在主线程前面; 环境准备完成后开始, 与创建容器, 加载配置类, 刷新容器同时进行
+ *
+ * 只加载不初始化类(不执行静态代码块), 避免多线程初始化类时相互等待造成死锁
+ *
+ * @author luminion
+ */
+@Slf4j
+public class ParallelPreinitializer implements ApplicationListener<ApplicationEnvironmentPreparedEvent>, Ordered {
+
+    public static final String ENABLED = "luminion.startup.parallel.enabled";
+
+    public static final String THREADS = "luminion.startup.parallel.threads";
+
+    @Override
+    public void onApplicationEvent(ApplicationEnvironmentPreparedEvent event) {
+        ConfigurableEnvironment environment = event.getEnvironment();
+        if (!environment.getProperty(ENABLED, Boolean.class, false)) {
+            return;
+        }
+        Optional<StartupSnapshot> snapshot = StartupSnapshot.load(environment);
+        if (snapshot.isEmpty()) {
+            log.info("没有可用的启动快照, 跳过并行预初始化");
+            return;
+        }
+        ClassLoader classLoader = event.getSpringApplication().getClassLoader();
+        List<String> types = snapshot.get().beans().stream().map(StartupSnapshot.BeanEntry::type).distinct().toList();
+        int parallelism = environment.getProperty(THREADS, Integer.class, Runtime.getRuntime().availableProcessors());
+        // asyncMode=true: 任务按提交顺序(先进先出)执行
+        ForkJoinPool pool = new ForkJoinPool(parallelism, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("startup-preinit-" + thread.getPoolIndex());
+            return thread;
+        }, null, true);
+        long start = System.nanoTime();
+        AtomicInteger loaded = new AtomicInteger();
+        CompletableFuture<?>[] futures = types.stream()
+                .map(type -> CompletableFuture.runAsync(() -> {
+                    if (preinitialize(type, classLoader)) {
+                        loaded.incrementAndGet();
+                    }
+                }, pool))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).whenComplete((v, e) -> {
+            log.info("并行预初始化完成, 类: {}/{}, 线程: {}, 耗时: {} ms", loaded.get(), types.size(), parallelism,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            pool.shutdown();
+        });
+    }
+
+    private static boolean preinitialize(String type, ClassLoader classLoader) {
+        try {
+            Class<?> clazz = ClassUtils.forName(type, classLoader);
+            for (Class<?> current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+                ReflectionUtils.getDeclaredMethods(current);
+                current.getDeclaredFields();
+                current.getDeclaredConstructors();
+            }
+            BeanUtils.getPropertyDescriptors(clazz);
+            MergedAnnotations.from(clazz, MergedAnnotations.SearchStrategy.TYPE_HIERARCHY).isPresent(Component.class);
+            return true;
+        } catch (Throwable e) {
+            log.debug("预初始化类{}失败", type, e);
+            return false;
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        // 在配置文件加载(EnvironmentPostProcessorApplicationListener)之后执行
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.event.startup;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.AutoConfigurationImportFilter;
+import org.springframework.boot.autoconfigure.AutoConfigurationMetadata;
+import org.springframework.boot.autoconfigure.condition.ConditionEvaluationReport;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 根据启动快照过滤自动配置
+ * 上次启动时条件不满足的自动配置类, 在指纹一致时直接过滤掉, 不再加载类和评估条件
+ * 被过滤的自动配置同样记录到条件评估报告中, 保证下次保存的快照中仍包含它们
+ *
+ * @author luminion
+ */
+public class SnapshotAutoConfigurationImportFilter implements AutoConfigurationImportFilter, EnvironmentAware, BeanFactoryAware {
+
+    private static final SnapshotCondition CONDITION = new SnapshotCondition();
+
+    private Environment environment;
+
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+    }
+
+    @Override
+    public boolean[] match(String[] autoConfigurationClasses, AutoConfigurationMetadata autoConfigurationMetadata) {
+        boolean[] match = new boolean[autoConfigurationClasses.length];
+        Set<String> unmatched = StartupSnapshot.load(environment)
+                .map(snapshot -> (Set<String>) new HashSet<>(snapshot.unmatchedAutoConfigurations()))
+                .orElse(Set.of());
+        ConditionEvaluationReport report = unmatched.isEmpty() ? null : ConditionEvaluationReport.get(beanFactory);
+        for (int i = 0; i < autoConfigurationClasses.length; i++) {
+            String candidate = autoConfigurationClasses[i];
+            match[i] = candidate == null || !unmatched.contains(candidate);
+            if (!match[i]) {
+                report.recordConditionEvaluation(candidate, CONDITION, ConditionOutcome.noMatch("上次启动时条件不满足(启动快照)"));
+            }
+        }
+        return match;
+    }
+
+    /**
+     * 仅用于在条件评估报告中标识由启动快照过滤
+     */
+    static class SnapshotCondition implements Condition {
+
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return false;
+        }
+    }
+}
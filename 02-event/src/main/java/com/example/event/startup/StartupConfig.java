@@ -0,0 +1,24 @@
+package com.example.event.startup;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 启动快照配置
+ * 开启luminion.startup.snapshot.enabled后, 就绪时保存启动快照, 下次启动时:
+ * 1.SnapshotAutoConfigurationImportFilter跳过上次条件不满足的自动配置
+ * 2.开启luminion.startup.parallel.enabled时, ParallelPreinitializer并行预加载bean的类和反射元数据
+ * 两者都通过META-INF/spring.factories注册, 因为它们在容器创建之前(或刷新过程中)执行
+ *
+ * @author luminion
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "luminion.startup.snapshot", name = "enabled", havingValue = "true")
+public class StartupConfig {
+
+    @Bean
+    public StartupSnapshotWriter startupSnapshotWriter() {
+        return new StartupSnapshotWriter();
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.event.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ConfigurableBootstrapContext;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动耗时分析器
+ * 记录启动各阶段(见Listener1SpringApplicationRunListener)的墙钟时间和CPU时间,
+ * 每个ApplicationContextInitializer的耗时(TimedApplicationContextInitializer), 以及每个bean的创建耗时(BeanTimingPostProcessor)
+ *
+ * 导出两种格式:
+ * 1.json: 阶段, 初始化器, bean(按耗时倒序)的明细
+ * 2.folded: 火焰图格式(每行为 帧1;帧2;帧3 自身耗时微秒), 可直接交给flamegraph.pl或speedscope生成火焰图
+ *   bean的调用栈为依赖链, 例如 startup;refresh;a;b 表示创建a时触发了b的创建
+ *
+ * 时间单位均为微秒, CPU时间为主线程的CPU时间(启动过程主要在主线程中执行), 阶段另外记录整个进程的CPU时间
+ *
+ * @author luminion
+ */
+@Slf4j
+public class StartupProfiler {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static final OperatingSystemMXBean OS = ManagementFactory.getOperatingSystemMXBean();
+
+    private static final String ROOT = "startup";
+
+    private final Instant startedAt = Instant.now();
+
+    private final List<Phase> phases = new ArrayList<>();
+
+    private final List<Timing> initializers = Collections.synchronizedList(new ArrayList<>());
+
+    private final List<BeanTiming> beans = Collections.synchronizedList(new ArrayList<>());
+
+    private Mark last = Mark.now();
+
+    private volatile String currentPhase = "bootstrap";
+
+    /**
+     * 当前时间点
+     *
+     * @param wallNanos       System.nanoTime()
+     * @param cpuNanos        当前线程的CPU时间
+     * @param processCpuNanos 进程的CPU时间, 不支持时为-1
+     */
+    record Mark(long wallNanos, long cpuNanos, long processCpuNanos) {
+
+        static Mark now() {
+            long processCpu = OS instanceof com.sun.management.OperatingSystemMXBean os ? os.getProcessCpuTime() : -1;
+            return new Mark(System.nanoTime(), threadCpuTime(), processCpu);
+        }
+    }
+
+    /**
+     * 阶段耗时
+     */
+    public record Phase(String name, long wallMicros, long cpuMicros, long processCpuMicros) {
+    }
+
+    /**
+     * 初始化器耗时
+     */
+    public record Timing(String name, String phase, long wallMicros, long cpuMicros) {
+    }
+
+    /**
+     * bean创建耗时
+     *
+     * @param name       bean名称
+     * @param type       bean类型
+     * @param phase      创建时所处的阶段
+     * @param path       依赖链(外层bean在前, 最后一个为自身)
+     * @param wallMicros 总耗时(包含创建依赖的bean)
+     * @param selfMicros 自身耗时(不包含创建依赖的bean)
+     * @param cpuMicros  总CPU时间
+     * @param thread     创建bean的线程
+     */
+    public record BeanTiming(String name, String type, String phase, List<String> path,
+                             long wallMicros, long selfMicros, long cpuMicros, String thread) {
+    }
+
+    /**
+     * 启动报告
+     */
+    public record Report(Instant startedAt, long totalMicros, List<Phase> phases, List<Timing> initializers,
+                         List<BeanTiming> beans) {
+    }
+
+    /**
+     * 包装所有ApplicationContextInitializer, 记录每个初始化器的耗时
+     *
+     * @param application 应用
+     * @author luminion
+     */
+    public void wrapInitializers(SpringApplication application) {
+        application.setInitializers(application.getInitializers().stream()
+                .map(initializer -> new TimedApplicationContextInitializer(initializer, this))
+                .toList());
+    }
+
+    /**
+     * 应用开始启动, 若引导上下文中有BootstrapTimingInitializer记录的时间点, 则记录bootstrap阶段
+     *
+     * @param bootstrapContext 引导上下文
+     * @author luminion
+     */
+    public void starting(ConfigurableBootstrapContext bootstrapContext) {
+        if (bootstrapContext.isRegistered(Mark.class)) {
+            last = bootstrapContext.get(Mark.class);
+            phase("environment");
+        } else {
+            last = Mark.now();
+            currentPhase = "environment";
+        }
+    }
+
+    /**
+     * 在容器刷新前添加BeanTimingPostProcessor, 记录每个bean的创建耗时, 应用就绪后停止记录
+     *
+     * @param context 容器
+     * @author luminion
+     */
+    public void install(ConfigurableApplicationContext context) {
+        BeanTimingPostProcessor processor = new BeanTimingPostProcessor(this);
+        context.getBeanFactory().addBeanPostProcessor(processor);
+        context.addApplicationListener(event -> {
+            if (event instanceof ApplicationReadyEvent) {
+                processor.stop();
+            }
+        });
+    }
+
+    /**
+     * 结束当前阶段, 并开始下一阶段
+     *
+     * @param next 下一阶段的名称
+     * @author luminion
+     */
+    public void phase(String next) {
+        Mark now = Mark.now();
+        long processCpu = last.processCpuNanos() < 0 ? -1 : micros(now.processCpuNanos() - last.processCpuNanos());
+        phases.add(new Phase(currentPhase, micros(now.wallNanos() - last.wallNanos()),
+                micros(now.cpuNanos() - last.cpuNanos()), processCpu));
+        last = now;
+        currentPhase = next;
+    }
+
+    void initializer(String name, long wallNanos, long cpuNanos) {
+        initializers.add(new Timing(name, currentPhase, micros(wallNanos), micros(cpuNanos)));
+    }
+
+    void bean(String name, String type, List<String> path, long wallNanos, long selfNanos, long cpuNanos) {
+        beans.add(new BeanTiming(name, type, currentPhase, path, micros(wallNanos), micros(selfNanos), micros(cpuNanos),
+                Thread.currentThread().getName()));
+    }
+
+    /**
+     * 生成报告, bean按总耗时倒序
+     *
+     * @return {@code Report }
+     * @author luminion
+     */
+    public Report report() {
+        List<BeanTiming> sorted = new ArrayList<>(beans);
+        sorted.sort(Comparator.comparingLong(BeanTiming::wallMicros).reversed());
+        long total = phases.stream().mapToLong(Phase::wallMicros).sum();
+        return new Report(startedAt, total, List.copyOf(phases), List.copyOf(initializers), sorted);
+    }
+
+    /**
+     * 生成火焰图格式的调用栈, 每个阶段的自身耗时为阶段耗时减去其中的初始化器和顶层bean的耗时
+     *
+     * @return {@code List<String> }
+     * @author luminion
+     */
+    public List<String> folded() {
+        Map<String, Long> stacks = new LinkedHashMap<>();
+        Map<String, Long> children = new LinkedHashMap<>();
+        for (Timing timing : List.copyOf(initializers)) {
+            stacks.merge(ROOT + ";" + timing.phase() + ";initializer:" + timing.name(), timing.wallMicros(), Long::sum);
+            children.merge(timing.phase(), timing.wallMicros(), Long::sum);
+        }
+        for (BeanTiming bean : List.copyOf(beans)) {
+            stacks.merge(ROOT + ";" + bean.phase() + ";" + String.join(";", bean.path()), bean.selfMicros(), Long::sum);
+            if (bean.path().size() == 1) {
+                children.merge(bean.phase(), bean.wallMicros(), Long::sum);
+            }
+        }
+        List<String> lines = new ArrayList<>();
+        for (Phase phase : phases) {
+            long self = Math.max(0, phase.wallMicros() - children.getOrDefault(phase.name(), 0L));
+            lines.add(ROOT + ";" + phase.name() + " " + self);
+        }
+        stacks.forEach((stack, micros) -> lines.add(stack + " " + micros));
+        return lines;
+    }
+
+    /**
+     * 导出json和folded文件
+     *
+     * @param directory 输出目录
+     * @return {@code Path } json文件路径
+     * @author luminion
+     */
+    public Path export(Path directory) {
+        String name = "startup-" + DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneId.systemDefault()).format(startedAt);
+        Path json = directory.resolve(name + ".json");
+        try {
+            Files.createDirectories(directory);
+            new ObjectMapper()
+                    .registerModule(new JavaTimeModule())
+                    .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                    .writerWithDefaultPrettyPrinter()
+                    .writeValue(json.toFile(), report());
+            Files.write(directory.resolve(name + ".folded"), folded());
+        } catch (IOException e) {
+            throw new UncheckedIOException("导出启动耗时报告失败: " + directory, e);
+        }
+        return json;
+    }
+
+    /**
+     * 打印阶段耗时和最慢的bean
+     *
+     * @param top 打印的bean数量
+     * @author luminion
+     */
+    public void log(int top) {
+        Report report = report();
+        log.info("启动耗时: {} ms", report.totalMicros() / 1000);
+        for (Phase phase : report.phases()) {
+            log.info("  阶段 {}: {} ms (CPU {} ms)", phase.name(), phase.wallMicros() / 1000, phase.cpuMicros() / 1000);
+        }
+        for (Timing timing : report.initializers()) {
+            log.info("  初始化器 {}: {} us", timing.name(), timing.wallMicros());
+        }
+        report.beans().stream().limit(top).forEach(bean ->
+                log.info("  bean {}: {} ms (自身 {} ms), 依赖链: {}", bean.name(), bean.wallMicros() / 1000,
+                        bean.selfMicros() / 1000, String.join(" -> ", bean.path())));
+    }
+
+    static long threadCpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.event.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+/**
+ * 启动快照
+ * 应用就绪后保存(StartupSnapshotWriter), 下次启动时复用:
+ * 1.beans: 按创建顺序记录的bean名称, 类型, 依赖, ParallelPreinitializer据此提前并行加载bean的类和反射元数据
+ * 2.unmatchedAutoConfigurations: 条件不满足的自动配置类, SnapshotAutoConfigurationImportFilter据此直接跳过, 不再加载类和评估条件
+ *
+ * 快照只在指纹一致时使用, 指纹由类路径(及每个jar/目录的大小和修改时间), 激活的profile, 配置文件, 命令行参数,
+ * 系统属性(-D)和环境变量计算, 任一变化后快照失效, 并在就绪后重新生成
+ *
+ * @author luminion
+ */
+@Slf4j
+public record StartupSnapshot(String fingerprint, long createdAt, List<BeanEntry> beans, List<String> unmatchedAutoConfigurations) {
+
+    public static final String ENABLED = "luminion.startup.snapshot.enabled";
+
+    public static final String PATH = "luminion.startup.snapshot.path";
+
+    private static final String PREFIX = "luminion.startup.";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * 每次启动都不同, 且不影响条件评估的系统属性和环境变量
+     * PID: spring boot初始化日志时设置; sun.java.command: 包含命令行参数(已由commandLineArgs计算, 且需要排除luminion.startup.*)
+     */
+    private static final Set<String> VOLATILE_PROPERTIES = Set.of("PID", "sun.java.command", "_", "OLDPWD", "SHLVL");
+
+    /**
+     * 类路径的文件信息, 同一个JVM中不变, 只计算一次
+     */
+    private static volatile String classpathStamp;
+
+    /**
+     * 每个环境的指纹, 启动时(读取快照)第一次计算后复用, 保存快照时不会因为启动过程中新设置的系统属性而不同
+     */
+    private static final Map<Environment, String> FINGERPRINTS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * bean信息
+     *
+     * @param name         bean名称
+     * @param type         bean类型
+     * @param dependencies 依赖的bean名称
+     */
+    public record BeanEntry(String name, String type, List<String> dependencies) {
+    }
+
+    /**
+     * 读取与当前环境指纹一致的快照
+     *
+     * @param environment 环境
+     * @return {@code Optional<StartupSnapshot> }
+     * @author luminion
+     */
+    public static Optional<StartupSnapshot> load(Environment environment) {
+        if (!environment.getProperty(ENABLED, Boolean.class, false)) {
+            return Optional.empty();
+        }
+        Path path = path(environment);
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+        try {
+            StartupSnapshot snapshot = MAPPER.readValue(path.toFile(), StartupSnapshot.class);
+            if (!snapshot.fingerprint().equals(fingerprint(environment))) {
+                log.info("启动快照已失效(类路径或配置已变化): {}", path);
+                return Optional.empty();
+            }
+            return Optional.of(snapshot);
+        } catch (IOException e) {
+            log.warn("读取启动快照失败: {}", path, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 保存快照
+     *
+     * @param environment 环境
+     * @author luminion
+     */
+    public void save(Environment environment) {
+        Path path = path(environment);
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            MAPPER.writeValue(path.toFile(), this);
+        } catch (IOException e) {
+            throw new UncheckedIOException("保存启动快照失败: " + path, e);
+        }
+    }
+
+    static Path path(Environment environment) {
+        return Path.of(environment.getProperty(PATH, "startup-profile/snapshot.json"));
+    }
+
+    /**
+     * 环境指纹: 类路径及其文件信息 + 激活的profile + 配置文件, 命令行参数, 系统属性, 环境变量中的属性(不包括luminion.startup.*)
+     *
+     * @param environment 环境
+     * @return {@code String }
+     * @author luminion
+     */
+    public static String fingerprint(Environment environment) {
+        return FINGERPRINTS.computeIfAbsent(environment, StartupSnapshot::computeFingerprint);
+    }
+
+    private static String computeFingerprint(Environment environment) {
+        TreeMap<String, String> properties = new TreeMap<>();
+        if (environment instanceof ConfigurableEnvironment configurable) {
+            for (PropertySource<?> source : configurable.getPropertySources()) {
+                if (!(source instanceof EnumerablePropertySource<?> enumerable) || !isConfigSource(source)) {
+                    continue;
+                }
+                for (String name : enumerable.getPropertyNames()) {
+                    if (!name.startsWith(PREFIX) && !VOLATILE_PROPERTIES.contains(name)) {
+                        properties.putIfAbsent(name, String.valueOf(enumerable.getProperty(name)));
+                    }
+                }
+            }
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(System.getProperty("java.class.path", "").getBytes(StandardCharsets.UTF_8));
+            digest.update(classpathStamp().getBytes(StandardCharsets.UTF_8));
+            digest.update(Arrays.toString(environment.getActiveProfiles()).getBytes(StandardCharsets.UTF_8));
+            digest.update(properties.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 配置文件(application.yml等), 命令行参数, 系统属性和环境变量
+     */
+    private static boolean isConfigSource(PropertySource<?> source) {
+        String name = source.getName();
+        return name.startsWith("Config resource") || name.equals("commandLineArgs")
+                || name.equals(StandardEnvironment.SYSTEM_PROPERTIES_PROPERTY_SOURCE_NAME)
+                || name.equals(StandardEnvironment.SYSTEM_ENVIRONMENT_PROPERTY_SOURCE_NAME);
+    }
+
+    /**
+     * 类路径中每个jar的大小和修改时间, 目录为其中文件的数量, 总大小和最新的修改时间
+     * 同一路径下重新构建的jar或重新编译的类会使快照失效
+     */
+    private static String classpathStamp() {
+        String stamp = classpathStamp;
+        if (stamp != null) {
+            return stamp;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            if (entry.isEmpty()) {
+                continue;
+            }
+            Path path = Path.of(entry);
+            try {
+                if (Files.isDirectory(path)) {
+                    long[] files = new long[3];
+                    Files.walkFileTree(path, new SimpleFileVisitor<>() {
+                        @Override
+                        public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                            files[0]++;
+                            files[1] += attributes.size();
+                            files[2] = Math.max(files[2], attributes.lastModifiedTime().toMillis());
+                            return FileVisitResult.CONTINUE;
+                        }
+                    });
+                    builder.append(entry).append(':').append(files[0]).append(':').append(files[1]).append(':').append(files[2]).append(';');
+                } else if (Files.exists(path)) {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    builder.append(entry).append(':').append(attributes.size()).append(':')
+                            .append(attributes.lastModifiedTime().toMillis()).append(';');
+                }
+            } catch (IOException e) {
+                // 无法读取时按不同的值计算, 快照不会被错误地复用
+                builder.append(entry).append(":?").append(System.nanoTime()).append(';');
+            }
+        }
+        classpathStamp = builder.toString();
+        return classpathStamp;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.event.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionEvaluationReport;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 应用就绪后保存启动快照(StartupSnapshot)
+ * bean按注册顺序(即创建顺序)保存, 自动配置只保存类级别条件不满足的
+ *
+ * @author luminion
+ */
+@Slf4j
+public class StartupSnapshotWriter implements ApplicationListener<ApplicationReadyEvent> {
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        ConfigurableListableBeanFactory beanFactory = context.getBeanFactory();
+        List<StartupSnapshot.BeanEntry> beans = new ArrayList<>();
+        for (String name : beanFactory.getSingletonNames()) {
+            Class<?> type = beanFactory.getType(name, false);
+            if (type == null) {
+                continue;
+            }
+            beans.add(new StartupSnapshot.BeanEntry(name, ClassUtils.getUserClass(type).getName(),
+                    List.of(beanFactory.getDependenciesForBean(name))));
+        }
+        List<String> unmatched = new ArrayList<>();
+        ConditionEvaluationReport.get(beanFactory).getConditionAndOutcomesBySource().forEach((source, outcomes) -> {
+            // 类级别的条件, 方法(@Bean)级别的为 类名#方法名
+            if (!source.contains("#") && !outcomes.isFullMatch()) {
+                unmatched.add(source);
+            }
+        });
+        StartupSnapshot snapshot = new StartupSnapshot(StartupSnapshot.fingerprint(context.getEnvironment()),
+                System.currentTimeMillis(), beans, unmatched);
+        snapshot.save(context.getEnvironment());
+        log.info("启动快照已保存: {}, bean数: {}, 跳过的自动配置数: {}", StartupSnapshot.path(context.getEnvironment()),
+                beans.size(), unmatched.size());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.event.startup;
+
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.OrderUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * 记录ApplicationContextInitializer耗时的包装器, 排序与被包装的初始化器一致
+ *
+ * @author luminion
+ */
+public class TimedApplicationContextInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext>, Ordered {
+
+    private final ApplicationContextInitializer<?> delegate;
+
+    private final StartupProfiler profiler;
+
+    private final int order;
+
+    public TimedApplicationContextInitializer(ApplicationContextInitializer<?> delegate, StartupProfiler profiler) {
+        this.delegate = delegate;
+        this.profiler = profiler;
+        this.order = delegate instanceof Ordered ordered
+                ? ordered.getOrder() : OrderUtils.getOrder(delegate.getClass(), Ordered.LOWEST_PRECEDENCE);
+    }
+
+    @Override
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public void initialize(ConfigurableApplicationContext applicationContext) {
+        // 与SpringApplication.applyInitializers相同的类型校验
+        Class<?> requiredType = GenericTypeResolver.resolveTypeArgument(delegate.getClass(), ApplicationContextInitializer.class);
+        if (requiredType != null) {
+            Assert.isInstanceOf(requiredType, applicationContext, "Unable to call initializer.");
+        }
+        long start = System.nanoTime();
+        long cpuStart = StartupProfiler.threadCpuTime();
+        ((ApplicationContextInitializer) delegate).initialize(applicationContext);
+        profiler.initializer(ClassUtils.getUserClass(delegate).getSimpleName(), System.nanoTime() - start,
+                StartupProfiler.threadCpuTime() - cpuStart);
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.event;
+
+import com.example.event.bus.BatchApplicationListener;
+import com.example.event.bus.BoundedApplicationEventMulticaster;
+import com.example.event.bus.EventBusProperties;
+import com.example.event.entity.User;
+import com.example.event.event.LoginEvent;
+import com.example.event.event.LoginEventPublisher;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.util.StopWatch;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 批量监听器基准测试
+ * 通过LoginEventPublisher发布100w个登录事件, 对比逐个处理的监听器与BatchApplicationListener的吞吐量
+ * 监听器每次调用模拟一次固定开销(例如一次IO/一次数据库往返)加每个事件的处理开销, 批量处理可以摊薄固定开销
+ *
+ * @author luminion
+ */
+public class TestBatchListener {
+
+    private static final int EVENTS = 1_000_000;
+
+    /**
+     * 每次调用的固定开销(纳秒)
+     */
+    private static final long CALL_COST = 500;
+
+    /**
+     * 每个事件的处理开销(纳秒)
+     */
+    private static final long EVENT_COST = 20;
+
+    private static final LongAdder HANDLED = new LongAdder();
+
+    @Test
+    void perEventVsBatch() {
+        long single = run(SingleListener.class);
+        long batch = run(BatchListener.class);
+        System.out.printf("逐个处理: %d ms, %.0f events/s%n", single, EVENTS * 1000.0 / single);
+        System.out.printf("批量处理: %d ms, %.0f events/s%n", batch, EVENTS * 1000.0 / batch);
+    }
+
+    private static long run(Class<?> listenerClass) {
+        HANDLED.reset();
+        EventBusProperties properties = new EventBusProperties();
+        properties.setQueueCapacity(65536);
+        BoundedApplicationEventMulticaster multicaster = new BoundedApplicationEventMulticaster(properties);
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            multicaster.setBeanFactory(context.getBeanFactory());
+            context.getBeanFactory().registerSingleton(AbstractApplicationContext.APPLICATION_EVENT_MULTICASTER_BEAN_NAME, multicaster);
+            context.register(LoginEventPublisher.class, listenerClass);
+            context.refresh();
+            LoginEventPublisher publisher = context.getBean(LoginEventPublisher.class);
+            User user = new User().setUsername("luminion").setPassword("123456");
+
+            StopWatch watch = new StopWatch();
+            watch.start();
+            for (int i = 0; i < EVENTS; i++) {
+                publisher.publishEvent(new LoginEvent(user));
+            }
+            awaitHandled();
+            watch.stop();
+            Assertions.assertEquals(EVENTS, HANDLED.sum());
+            return watch.getTotalTimeMillis();
+        }
+    }
+
+    private static void awaitHandled() {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (HANDLED.sum() < EVENTS && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void work(int events) {
+        long end = System.nanoTime() + CALL_COST + EVENT_COST * events;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+        HANDLED.add(events);
+    }
+
+    static class SingleListener implements ApplicationListener<LoginEvent> {
+
+        @Override
+        public void onApplicationEvent(LoginEvent event) {
+            work(1);
+        }
+    }
+
+    static class BatchListener implements BatchApplicationListener<LoginEvent> {
+
+        @Override
+        public void onApplicationEvents(List<LoginEvent> events) {
+            work(events.size());
+        }
+
+        @Override
+        public int maxBatchSize() {
+            return 1000;
+        }
+
+        @Override
+        public Duration maxLinger() {
+            return Duration.ofMillis(5);
+        }
+    }
+}
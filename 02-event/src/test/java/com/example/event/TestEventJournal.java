@@ -0,0 +1,240 @@
+package com.example.event;
+
+import com.example.event.entity.User;
+import com.example.event.event.LoginEvent;
+import com.example.event.event.LoginEventCodec;
+import com.example.event.event.LoginEventPublisher;
+import com.example.event.journal.EventJournal;
+import com.example.event.journal.JournalProperties;
+import com.example.event.journal.SegmentedLog;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.util.StopWatch;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 事件日志测试
+ * 1.基准: 对比内存发布 / 事件日志(不等待刷盘) / 事件日志(等待刷盘, 组提交)的发布吞吐量和端到端延迟
+ * 2.重启后从保存的偏移量继续消费, 并可从头重放
+ * 3.监听器处理失败时不推进偏移量, 重试直到成功(至少一次); 超出保留策略时不删除尚未消费的段
+ * 4.登录事件编码不包含密码, 解码后保留用户名和事件时间; 旧格式(含密码)仍可读取
+ * 端到端延迟: 发布时把System.nanoTime()写入用户名, 监听器收到时计算差值
+ *
+ * @author luminion
+ */
+public class TestEventJournal {
+
+    private static final int EVENTS = 200_000;
+
+    /**
+     * 并发发布线程数(等待刷盘时, 单线程发布每个刷盘间隔只能确认一个事件)
+     */
+    private static final int PUBLISHERS = 256;
+
+    private static final LongAdder RECEIVED = new LongAdder();
+
+    private static volatile Timer latency;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void inMemoryVsJournal() {
+        report("内存发布", run(null, 1, EVENTS));
+        report("事件日志(sync=false)", run(properties(dir.resolve("async"), false), 1, EVENTS));
+        report("事件日志(sync=true)", run(properties(dir.resolve("sync"), true), PUBLISHERS, EVENTS));
+    }
+
+    @Test
+    void codecOmitsPassword() throws Exception {
+        LoginEventCodec codec = new LoginEventCodec();
+        LoginEvent event = new LoginEvent(new User().setUsername("luminion").setPassword("123456"));
+        byte[] data = codec.encode(event);
+        Assertions.assertFalse(new String(data, StandardCharsets.ISO_8859_1).contains("123456"));
+        LoginEvent decoded = codec.decode(data);
+        User user = (User) decoded.getSource();
+        Assertions.assertEquals("luminion", user.getUsername());
+        Assertions.assertNull(user.getPassword());
+        Assertions.assertEquals(event.getTimestamp(), decoded.getTimestamp());
+
+        // 旧格式: 用户名 + 密码
+        ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(legacy)) {
+            out.writeBoolean(true);
+            out.writeUTF("luminion");
+            out.writeBoolean(true);
+            out.writeUTF("123456");
+        }
+        User legacyUser = (User) codec.decode(legacy.toByteArray()).getSource();
+        Assertions.assertEquals("luminion", legacyUser.getUsername());
+        Assertions.assertNull(legacyUser.getPassword());
+    }
+
+    @Test
+    void replayAfterRestart() {
+        JournalProperties properties = properties(dir.resolve("replay"), true);
+        run(properties, 8, 1000);
+        // 重启后没有新事件, 偏移量已保存, 不会重复消费全部事件
+        RECEIVED.reset();
+        try (AnnotationConfigApplicationContext context = context(properties, new SimpleMeterRegistry())) {
+            EventJournal journal = context.getBean(EventJournal.class);
+            Assertions.assertTrue(RECEIVED.sum() < 1000);
+            // 从头重放
+            journal.seek(LatencyListener.class.getSimpleName(), 0);
+            await(1000);
+            Assertions.assertTrue(RECEIVED.sum() >= 1000);
+        }
+    }
+
+    @Test
+    void retryFailedDelivery() {
+        JournalProperties properties = properties(dir.resolve("retry"), true);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        FlakyListener.FAILURES.set(3);
+        FlakyListener.RECEIVED.clear();
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.registerBean(EventJournal.class, () -> new EventJournal(properties, List.of(new LoginEventCodec()), registry));
+        context.register(LoginEventPublisher.class, FlakyListener.class);
+        context.refresh();
+        try (context) {
+            LoginEventPublisher publisher = context.getBean(LoginEventPublisher.class);
+            for (int i = 0; i < 100; i++) {
+                publisher.publishEvent(new LoginEvent(new User().setUsername(Integer.toString(i)).setPassword("123456")));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (FlakyListener.RECEIVED.size() < 100 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            Assertions.assertEquals(100, FlakyListener.RECEIVED.size());
+            Assertions.assertEquals(3, registry.get("event.journal.delivery.failures").counter().count());
+        }
+    }
+
+    @Test
+    void retentionKeepsUnconsumedSegments() {
+        try (SegmentedLog log = new SegmentedLog(dir.resolve("retention"), 4096)) {
+            for (int i = 0; i < 100; i++) {
+                log.append(new byte[200]);
+            }
+            log.flush();
+            int segments = log.segmentCount();
+            Assertions.assertTrue(segments > 2);
+            // 消费者还在偏移量0, 即使超出保留策略也不删除
+            Assertions.assertEquals(0, log.expire(0, Duration.ZERO, 0));
+            Assertions.assertEquals(segments, log.segmentCount());
+            // 消费者处理到第二个段的开头, 只删除第一个段
+            long second = 4096 / (SegmentedLog.HEADER + 200) * (SegmentedLog.HEADER + 200);
+            Assertions.assertEquals(1, log.expire(0, Duration.ZERO, second));
+            Assertions.assertEquals(second, log.earliestOffset());
+            // 不限制时删除除当前写入段外的所有段
+            Assertions.assertEquals(segments - 2, log.expire(0, Duration.ZERO, Long.MAX_VALUE));
+        }
+    }
+
+    private static JournalProperties properties(Path directory, boolean sync) {
+        JournalProperties properties = new JournalProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        properties.setSegmentSize(DataSize.ofMegabytes(16));
+        properties.setSync(sync);
+        return properties;
+    }
+
+    private static AnnotationConfigApplicationContext context(JournalProperties properties, SimpleMeterRegistry registry) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        if (properties != null) {
+            context.registerBean(EventJournal.class, () -> new EventJournal(properties, List.of(new LoginEventCodec()), registry));
+        }
+        context.register(LoginEventPublisher.class, LatencyListener.class);
+        context.refresh();
+        return context;
+    }
+
+    private static long[] run(JournalProperties properties, int publishers, int events) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        latency = Timer.builder("test.latency").publishPercentiles(0.5, 0.99).register(registry);
+        RECEIVED.reset();
+        try (AnnotationConfigApplicationContext context = context(properties, registry)) {
+            LoginEventPublisher publisher = context.getBean(LoginEventPublisher.class);
+            StopWatch watch = new StopWatch();
+            watch.start("publish");
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int p = 0; p < publishers; p++) {
+                    executor.execute(() -> {
+                        for (int i = 0; i < events / publishers; i++) {
+                            User user = new User().setUsername(Long.toString(System.nanoTime())).setPassword("123456");
+                            publisher.publishEvent(new LoginEvent(user));
+                        }
+                    });
+                }
+            }
+            watch.stop();
+            watch.start("deliver");
+            await(events / publishers * publishers);
+            watch.stop();
+            ValueAtPercentile[] percentiles = latency.takeSnapshot().percentileValues();
+            return new long[]{watch.getTaskInfo()[0].getTimeMillis(), watch.getTotalTimeMillis(),
+                    (long) percentiles[0].value(TimeUnit.MICROSECONDS), (long) percentiles[1].value(TimeUnit.MICROSECONDS)};
+        }
+    }
+
+    private static void await(long events) {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (RECEIVED.sum() < events && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void report(String name, long[] result) {
+        System.out.printf("%-24s 发布: %6d ms (%.0f events/s), 全部处理: %6d ms, 延迟p50: %6d us, p99: %6d us%n",
+                name, result[0], EVENTS * 1000.0 / Math.max(1, result[0]), result[1], result[2], result[3]);
+    }
+
+    /**
+     * 前FAILURES次调用抛出异常
+     */
+    static class FlakyListener implements ApplicationListener<LoginEvent> {
+
+        static final AtomicInteger FAILURES = new AtomicInteger();
+
+        static final Set<String> RECEIVED = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void onApplicationEvent(LoginEvent event) {
+            if (FAILURES.getAndDecrement() > 0) {
+                throw new IllegalStateException("模拟处理失败");
+            }
+            RECEIVED.add(((User) event.getSource()).getUsername());
+        }
+    }
+
+    static class LatencyListener implements ApplicationListener<LoginEvent> {
+
+        @Override
+        public void onApplicationEvent(LoginEvent event) {
+            long sent = Long.parseLong(((User) event.getSource()).getUsername());
+            latency.record(System.nanoTime() - sent, TimeUnit.NANOSECONDS);
+            RECEIVED.increment();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.event;
+
+import com.example.event.bus.BoundedApplicationEventMulticaster;
+import com.example.event.bus.EventBusProperties;
+import com.example.event.bus.OverflowPolicy;
+import com.example.event.entity.User;
+import com.example.event.event.LoginEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.core.annotation.Order;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * 队列已满时各策略下, 同一监听器收到事件的顺序与发布顺序一致
+ * 队列容量很小, 监听器处理较慢, 发布时队列经常是满的
+ * 指定了@Order的监听器按顺序处理同一事件(前一个处理完成后下一个才开始)
+ *
+ * @author luminion
+ */
+public class TestListenerOrdering {
+
+    private static final int EVENTS = 500;
+
+    private static final List<Integer> RECEIVED = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void callerRuns() {
+        Assertions.assertEquals(IntStream.range(0, EVENTS).boxed().toList(), run(OverflowPolicy.CALLER_RUNS));
+    }
+
+    @Test
+    void block() {
+        Assertions.assertEquals(IntStream.range(0, EVENTS).boxed().toList(), run(OverflowPolicy.BLOCK));
+    }
+
+    @Test
+    void orderedListeners() {
+        run(OverflowPolicy.BLOCK, EVENTS * 3, FirstListener.class, SecondListener.class, ThirdListener.class);
+        List<Integer> received = new ArrayList<>(RECEIVED);
+        Assertions.assertEquals(EVENTS * 3, received.size());
+        for (int order = 1; order <= 3; order++) {
+            int stage = order;
+            // 每个监听器内部按发布顺序处理
+            Assertions.assertEquals(IntStream.range(0, EVENTS).map(i -> stage * EVENTS + i).boxed().toList(),
+                    received.stream().filter(value -> value / EVENTS == stage).toList());
+        }
+        for (int i = 0; i < EVENTS; i++) {
+            // 同一事件按@Order依次经过各监听器
+            int first = received.indexOf(EVENTS + i);
+            int second = received.indexOf(2 * EVENTS + i);
+            int third = received.indexOf(3 * EVENTS + i);
+            Assertions.assertTrue(first < second && second < third, "event " + i);
+        }
+    }
+
+    private static List<Integer> run(OverflowPolicy overflow) {
+        return run(overflow, EVENTS, SlowListener.class);
+    }
+
+    private static List<Integer> run(OverflowPolicy overflow, int expected, Class<?>... listeners) {
+        RECEIVED.clear();
+        EventBusProperties properties = new EventBusProperties();
+        properties.setQueueCapacity(4);
+        properties.setOverflow(overflow);
+        BoundedApplicationEventMulticaster multicaster = new BoundedApplicationEventMulticaster(properties);
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            multicaster.setBeanFactory(context.getBeanFactory());
+            context.getBeanFactory().registerSingleton(AbstractApplicationContext.APPLICATION_EVENT_MULTICASTER_BEAN_NAME, multicaster);
+            context.register(listeners);
+            context.refresh();
+            for (int i = 0; i < EVENTS; i++) {
+                context.publishEvent(new LoginEvent(new User().setUsername(Integer.toString(i))));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (RECEIVED.size() < expected && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            return new ArrayList<>(RECEIVED);
+        }
+    }
+
+    private static void spin(long micros) {
+        long end = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(micros);
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static int index(LoginEvent event) {
+        return Integer.parseInt(((User) event.getSource()).getUsername());
+    }
+
+    static class SlowListener implements ApplicationListener<LoginEvent> {
+
+        @Override
+        public void onApplicationEvent(LoginEvent event) {
+            spin(50);
+            RECEIVED.add(index(event));
+        }
+    }
+
+    @Order(1)
+    static class FirstListener implements ApplicationListener<LoginEvent> {
+
+        @Override
+        public void onApplicationEvent(LoginEvent event) {
+            RECEIVED.add(EVENTS + index(event));
+        }
+    }
+
+    @Order(2)
+    static class SecondListener implements ApplicationListener<LoginEvent> {
+
+        @Override
+        public void onApplicationEvent(LoginEvent event) {
+            // 较慢, 若不按顺序处理, 第三个监听器会先处理
+            spin(50);
+            RECEIVED.add(2 * EVENTS + index(event));
+        }
+    }
+
+    @Order(3)
+    static class ThirdListener implements ApplicationListener<LoginEvent> {
+
+        @Override
+        public void onApplicationEvent(LoginEvent event) {
+            RECEIVED.add(3 * EVENTS + index(event));
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.event;
+
+import com.example.event.entity.User;
+import com.example.event.event.LoginEvent;
+import com.example.event.event.LoginEventCodec;
+import com.example.event.outbox.Outbox;
+import com.example.event.outbox.OutboxProperties;
+import com.example.event.outbox.OutboxSender;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.StopWatch;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 发件箱测试
+ * 1.基准: 并发写入发件箱(等待刷盘)的吞吐量, 转发的批量大小和延迟
+ * 2.发送失败时重试同一批, 所有事件最终都被发送(至少一次)
+ * 3.kafka长时间不可用时, 积压超过retention-size后写入失败, 已写入的事件不会被删除, 恢复后全部发送
+ * 使用内存中的OutboxSender代替kafka, 每批模拟2ms的网络往返
+ *
+ * @author luminion
+ */
+public class TestOutboxRelay {
+
+    private static final int EVENTS = 100_000;
+
+    private static final int PUBLISHERS = 256;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void throughput() throws Exception {
+        Set<Long> delivered = ConcurrentHashMap.newKeySet();
+        OutboxSender sender = messages -> {
+            TimeUnit.MILLISECONDS.sleep(2);
+            messages.forEach(m -> delivered.add(m.offset()));
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Outbox outbox = new Outbox(properties(dir.resolve("throughput")), List.of(new LoginEventCodec()), sender, registry);
+        outbox.start();
+        try {
+            StopWatch watch = new StopWatch();
+            watch.start("append");
+            publish(outbox, EVENTS);
+            watch.stop();
+            watch.start("relay");
+            await(outbox);
+            watch.stop();
+            DistributionSummary batch = registry.get("outbox.relay.batch.size").summary();
+            Timer lag = registry.get("outbox.relay.lag").timer();
+            System.out.printf("写入: %d ms (%.0f events/s), 全部发送: %d ms, 批次: %d, 平均批量: %.1f, 最大批量: %.0f, 延迟p50: %.0f us, p99: %.0f us%n",
+                    watch.getTaskInfo()[0].getTimeMillis(), EVENTS * 1000.0 / Math.max(1, watch.getTaskInfo()[0].getTimeMillis()),
+                    watch.getTotalTimeMillis(), batch.count(), batch.mean(), batch.max(),
+                    lag.takeSnapshot().percentileValues()[0].value(TimeUnit.MICROSECONDS),
+                    lag.takeSnapshot().percentileValues()[1].value(TimeUnit.MICROSECONDS));
+            Assertions.assertEquals(EVENTS, delivered.size());
+        } finally {
+            outbox.stop();
+            outbox.destroy();
+        }
+    }
+
+    @Test
+    void retryUntilDelivered() throws Exception {
+        Set<Long> delivered = ConcurrentHashMap.newKeySet();
+        AtomicInteger calls = new AtomicInteger();
+        OutboxSender sender = messages -> {
+            // 前3次发送失败
+            if (calls.incrementAndGet() <= 3) {
+                throw new IllegalStateException("kafka不可用");
+            }
+            messages.forEach(m -> delivered.add(m.offset()));
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Outbox outbox = new Outbox(properties(dir.resolve("retry")), List.of(new LoginEventCodec()), sender, registry);
+        outbox.start();
+        try {
+            publish(outbox, 1000);
+            await(outbox);
+            Assertions.assertEquals(1000, delivered.size());
+            Assertions.assertEquals(3, registry.get("outbox.relay.failures").counter().count());
+        } finally {
+            outbox.stop();
+            outbox.destroy();
+        }
+    }
+
+    @Test
+    void rejectWhenBacklogExceedsRetention() throws Exception {
+        Set<Long> delivered = ConcurrentHashMap.newKeySet();
+        AtomicBoolean available = new AtomicBoolean();
+        OutboxSender sender = messages -> {
+            if (!available.get()) {
+                throw new IllegalStateException("kafka不可用");
+            }
+            messages.forEach(m -> delivered.add(m.offset()));
+        };
+        OutboxProperties properties = properties(dir.resolve("backlog"));
+        properties.setSegmentSize(DataSize.ofKilobytes(16));
+        properties.setRetentionSize(DataSize.ofKilobytes(64));
+        properties.setMaxRetryBackoff(Duration.ofMillis(200));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Outbox outbox = new Outbox(properties, List.of(new LoginEventCodec()), sender, registry);
+        outbox.start();
+        try {
+            int appended = 0;
+            while (true) {
+                try {
+                    outbox.append(new LoginEvent(new User().setUsername("user" + appended).setPassword("123456")));
+                    appended++;
+                } catch (IllegalStateException e) {
+                    break;
+                }
+            }
+            Assertions.assertTrue(appended > 0);
+            Assertions.assertEquals(1, registry.get("outbox.rejected").counter().count());
+            available.set(true);
+            await(outbox);
+            Assertions.assertEquals(appended, delivered.size());
+        } finally {
+            outbox.stop();
+            outbox.destroy();
+        }
+    }
+
+    private static void publish(Outbox outbox, int events) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int p = 0; p < PUBLISHERS; p++) {
+                int count = events / PUBLISHERS + (p < events % PUBLISHERS ? 1 : 0);
+                executor.execute(() -> {
+                    for (int i = 0; i < count; i++) {
+                        User user = new User().setUsername("user" + i).setPassword("123456");
+                        outbox.append(new LoginEvent(user));
+                    }
+                });
+            }
+        }
+    }
+
+    private static void await(Outbox outbox) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (outbox.getOffset() < outbox.getDurableOffset() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+    }
+
+    private static OutboxProperties properties(Path directory) {
+        OutboxProperties properties = new OutboxProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        return properties;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.event;
+
+import com.example.event.startup.StartupProfiler;
+import com.example.event.startup.TimedApplicationContextInitializer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 启动耗时分析测试
+ * 1.开启luminion.startup-profiler后启动应用, 检查导出的json和火焰图(folded)文件
+ * 2.就绪后创建的原型bean不再记录, 未开启时不包装初始化器
+ * 生成火焰图: flamegraph.pl startup-xxx.folded > startup.svg, 或将folded文件拖入https://www.speedscope.app
+ *
+ * @author luminion
+ */
+public class TestStartupProfiler {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void export() throws IOException {
+        try (ConfigurableApplicationContext context = SpringApplication.run(EventApp.class,
+                "--server.port=0",
+                "--luminion.startup-profiler.enabled=true",
+                "--luminion.startup-profiler.output=" + dir)) {
+            Assertions.assertTrue(context.isActive());
+        }
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list.sorted().toList();
+        }
+        Path json = files.stream().filter(p -> p.toString().endsWith(".json")).findFirst().orElseThrow();
+        Path folded = files.stream().filter(p -> p.toString().endsWith(".folded")).findFirst().orElseThrow();
+        Assertions.assertTrue(Files.readString(json).contains("\"phases\""));
+        List<String> stacks = Files.readAllLines(folded);
+        Assertions.assertTrue(stacks.stream().anyMatch(line -> line.startsWith("startup;bootstrap ")));
+        Assertions.assertTrue(stacks.stream().anyMatch(line -> line.startsWith("startup;contextPrepare;initializer:")));
+        Assertions.assertTrue(stacks.stream().anyMatch(line -> line.startsWith("startup;refresh;")));
+        stacks.forEach(System.out::println);
+    }
+
+    @Test
+    void stopAtReady() {
+        StartupProfiler profiler = new StartupProfiler();
+        try (GenericApplicationContext context = new GenericApplicationContext()) {
+            BeanDefinition prototype = BeanDefinitionBuilder.genericBeanDefinition(ArrayList.class)
+                    .setScope(BeanDefinition.SCOPE_PROTOTYPE).getBeanDefinition();
+            context.registerBeanDefinition("prototype", prototype);
+            profiler.install(context);
+            context.refresh();
+            context.getBean("prototype");
+            Assertions.assertEquals(1, count(profiler, "prototype"));
+
+            context.publishEvent(new ApplicationReadyEvent(new SpringApplication(), new String[0], context, Duration.ZERO));
+            for (int i = 0; i < 100; i++) {
+                context.getBean("prototype");
+            }
+            Assertions.assertEquals(1, count(profiler, "prototype"));
+        }
+    }
+
+    @Test
+    void disabled() {
+        SpringApplication application = new SpringApplication(EventApp.class);
+        try (ConfigurableApplicationContext context = application.run("--server.port=0",
+                "--luminion.startup-profiler.enabled=false")) {
+            Assertions.assertTrue(context.isActive());
+        }
+        Assertions.assertTrue(application.getInitializers().stream()
+                .noneMatch(initializer -> initializer instanceof TimedApplicationContextInitializer));
+    }
+
+    private static long count(StartupProfiler profiler, String name) {
+        return profiler.report().beans().stream().filter(bean -> bean.name().equals(name)).count();
+    }
+}
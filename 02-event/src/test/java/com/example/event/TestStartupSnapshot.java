@@ -0,0 +1,89 @@
+package com.example.event;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动快照 + 并行预初始化基准测试
+ * 每次启动都是一个新的JVM(同一JVM中第二次启动时类已加载, 结果没有参考意义), 记录JVM启动到ApplicationReadyEvent(run方法返回)的时间
+ * 对比: 默认串行启动 / 使用快照跳过自动配置 / 快照 + 并行预初始化
+ *
+ * @author luminion
+ */
+public class TestStartupSnapshot {
+
+    private static final int RUNS = 5;
+
+    @TempDir
+    Path dir;
+
+    /**
+     * 子进程入口: 启动应用, 打印JVM启动到就绪的时间后退出
+     */
+    public static void main(String[] args) {
+        ConfigurableApplicationContext context = SpringApplication.run(EventApp.class, args);
+        System.out.println("READY " + ManagementFactory.getRuntimeMXBean().getUptime());
+        context.close();
+        System.exit(0);
+    }
+
+    @Test
+    void serialVsSnapshotVsParallel() throws Exception {
+        String snapshot = "--luminion.startup.snapshot.path=" + dir.resolve("snapshot.json");
+        long serial = median("--luminion.startup.snapshot.enabled=false");
+        // 第一次开启快照时生成快照
+        start("--luminion.startup.snapshot.enabled=true", snapshot);
+        Assertions.assertTrue(Files.exists(dir.resolve("snapshot.json")));
+        long withSnapshot = median("--luminion.startup.snapshot.enabled=true", snapshot);
+        long parallel = median("--luminion.startup.snapshot.enabled=true", "--luminion.startup.parallel.enabled=true", snapshot);
+        System.out.printf("串行: %d ms, 快照: %d ms, 快照+并行预初始化: %d ms%n", serial, withSnapshot, parallel);
+    }
+
+    private static long median(String... args) throws Exception {
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            times[i] = start(args);
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+
+    private static long start(String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(TestStartupSnapshot.class.getName());
+        command.add("--server.port=0");
+        command.add("--logging.level.root=warn");
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        long ready = -1;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("READY ")) {
+                    ready = Long.parseLong(line.substring(6).trim());
+                }
+            }
+        }
+        Assertions.assertTrue(process.waitFor(1, TimeUnit.MINUTES));
+        Assertions.assertTrue(ready > 0, "应用启动失败");
+        return ready;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.starter.sample;
+
+import com.example.starter.annotation.EnableStarter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 使用@EnableStarter的示例应用, 用于对比JVM / JVM+AOT / native-image三种方式的启动耗时和内存(见startup-benchmark.sh)
+ * 独立的模块, starter本身仍是普通的依赖包
+ * 启动完成后打印当前和峰值RSS, 指定--sample.exit=true时随后退出
+ *
+ * @author luminion
+ */
+@Slf4j
+@EnableStarter
+@SpringBootApplication
+public class StarterSampleApplication {
+
+    public static void main(String[] args) {
+        ConfigurableApplicationContext context = SpringApplication.run(StarterSampleApplication.class, args);
+        log.info("RSS: {}, 峰值RSS: {}", memory("VmRSS"), memory("VmHWM"));
+        if (context.getEnvironment().getProperty("sample.exit", Boolean.class, false)) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    /**
+     * 从/proc/self/status读取内存(仅linux), JVM和native-image都可用
+     */
+    private static String memory(String field) {
+        try {
+            return Files.readAllLines(Path.of("/proc/self/status")).stream()
+                    .filter(line -> line.startsWith(field + ":"))
+                    .map(line -> line.substring(field.length() + 1).trim())
+                    .findFirst()
+                    .orElse("unknown");
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+}
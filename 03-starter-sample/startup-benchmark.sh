@@ -0,0 +1,36 @@
+#!/usr/bin/env bash
+# 对比StarterSampleApplication在 JVM / JVM+AOT / native-image 三种方式下的启动耗时和峰值内存(RSS)
+# 需要GraalVM(JAVA_HOME指向GraalVM JDK 21, 含native-image), 仅支持linux(从/proc读取内存)
+# 用法: ./startup-benchmark.sh [次数, 默认5]
+set -euo pipefail
+cd "$(dirname "$0")"
+RUNS=${1:-5}
+
+# native profile(spring-boot-starter-parent提供)会在打包时执行process-aot, 生成的代码一起打入jar,
+# 不指定-Dspring.aot.enabled=true时仍按普通方式启动
+mvn -B -q -f ../03-starter/pom.xml -DskipTests install
+mvn -B -q -Pnative -DskipTests package
+mvn -B -q -Pnative -DskipTests native:compile
+
+JAR=target/starter-sample-1.jar
+NATIVE=target/starter-sample
+
+run() {
+  local name=$1
+  shift
+  local started=() rss=()
+  for _ in $(seq "$RUNS"); do
+    local output
+    output=$("$@" --sample.exit=true 2>&1)
+    # Started StarterSampleApplication in 0.812 seconds (process running for 1.02)
+    started+=("$(grep -o 'process running for [0-9.]*' <<<"$output" | grep -o '[0-9.]*$')")
+    rss+=("$(grep -o '峰值RSS: [0-9]*' <<<"$output" | grep -o '[0-9]*$')")
+  done
+  printf '%-10s 启动耗时(中位数): %6.3f s   峰值RSS(中位数): %7d kB\n' "$name" \
+    "$(printf '%s\n' "${started[@]}" | sort -n | sed -n "$(((RUNS + 1) / 2))p")" \
+    "$(printf '%s\n' "${rss[@]}" | sort -n | sed -n "$(((RUNS + 1) / 2))p")"
+}
+
+run "JVM" java -jar "$JAR"
+run "JVM+AOT" java -Dspring.aot.enabled=true -jar "$JAR"
+run "native" "$NATIVE"
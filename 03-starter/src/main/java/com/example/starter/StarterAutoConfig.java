@@ -1,15 +1,24 @@
 package com.example.starter;
 
+import com.example.starter.aot.StarterRuntimeHints;
 import com.example.starter.config.Prop;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 /**
+ * 自动配置入口
+ * 与ExecutorsConfig(命名执行器), TieredCacheConfig(多级缓存)一起在AutoConfiguration.imports中注册,
+ * 各自的条件(@ConditionalOnClass等)和顺序由spring-boot-autoconfigure-processor在编译时写入spring-autoconfigure-metadata.properties,
+ * 启动时先按该文件过滤(只包含@ConditionalOnClass等类/bean条件和顺序), 条件不满足的配置类不会被加载;
+ * 属性条件(@ConditionalOnStarterFeature等)不在该文件中, 仍在运行时判断
+ *
  * @author luminion
  */
-@Configuration
+@AutoConfiguration
 @Import(Prop.class) // 导入需要的组件
+@ImportRuntimeHints(StarterRuntimeHints.class) // AOT/native-image所需的反射信息
 public class StarterAutoConfig {
 
 
@@ -0,0 +1,24 @@
+package com.example.starter.annotation;
+
+import org.springframework.context.annotation.Conditional;
+
+import java.lang.annotation.*;
+
+/**
+ * starter功能的开关
+ * 配置了 前缀.enabled 时按配置决定是否启用; 未配置时, 启动类上添加了@EnableStarter则启用, 否则不启用
+ *
+ * @author luminion
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Documented
+@Conditional(OnStarterFeatureCondition.class)
+public @interface ConditionalOnStarterFeature {
+
+    /**
+     * 配置前缀, 例如luminion.executors
+     */
+    String value();
+
+}
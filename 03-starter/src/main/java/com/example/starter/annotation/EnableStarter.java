@@ -1,15 +1,14 @@
 package com.example.starter.annotation;
 
-import com.example.starter.StarterAutoConfig;
 import org.springframework.context.annotation.Import;
 
 import java.lang.annotation.*;
 
 /**
  * 启用starter的注解
- * 在启动类上添加该注解即可启用该starter
- * 若在METE-INF/spring下的org.springframework.boot.autoconfigure.AutoConfiguration.imports文件中指定了Config,
- * 则无需添加该注解也能自动生效
+ * 配置类都在METE-INF/spring下的org.springframework.boot.autoconfigure.AutoConfiguration.imports文件中指定, 由自动配置加载,
+ * 此注解不导入自动配置类(通过@Import导入会作为用户配置处理, 失去before/after顺序), 只注册标记bean(StarterMarker):
+ * 未配置luminion.executors.enabled / luminion.cache.enabled时, 添加了此注解则启用对应功能(见ConditionalOnStarterFeature)
  *
  * 注意:
  * 在springboot3版本低于3时,对应配置文件为METE-INF/spring.factories,
@@ -21,7 +20,7 @@ import java.lang.annotation.*;
 @Retention(RetentionPolicy.RUNTIME)
 @Target({ElementType.TYPE})
 @Documented
-@Import(StarterAutoConfig.class) // 导入需要的组件
+@Import(StarterMarker.class) // 注册标记bean
 public @interface EnableStarter {
 
 
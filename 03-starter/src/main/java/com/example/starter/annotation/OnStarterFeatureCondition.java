@@ -0,0 +1,41 @@
+package com.example.starter.annotation;
+
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.ConfigurationCondition;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+import java.util.Map;
+
+/**
+ * ConditionalOnStarterFeature的条件
+ * 需要判断@EnableStarter注册的标记bean, 所以在注册bean阶段判断(此时用户的配置类已处理完成, 自动配置在其之后)
+ *
+ * @author luminion
+ */
+class OnStarterFeatureCondition extends SpringBootCondition implements ConfigurationCondition {
+
+    @Override
+    public ConfigurationPhase getConfigurationPhase() {
+        return ConfigurationPhase.REGISTER_BEAN;
+    }
+
+    @Override
+    public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        Map<String, Object> attributes = metadata.getAnnotationAttributes(ConditionalOnStarterFeature.class.getName());
+        String property = attributes.get("value") + ".enabled";
+        String value = context.getEnvironment().getProperty(property);
+        if (value != null) {
+            return Boolean.parseBoolean(value.trim())
+                    ? ConditionOutcome.match(property + "=" + value)
+                    : ConditionOutcome.noMatch(property + "=" + value);
+        }
+        ConfigurableListableBeanFactory beanFactory = context.getBeanFactory();
+        if (beanFactory != null && beanFactory.getBeanNamesForType(StarterMarker.class, true, false).length > 0) {
+            return ConditionOutcome.match(property + " not set, @EnableStarter present");
+        }
+        return ConditionOutcome.noMatch(property + " not set, @EnableStarter absent");
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.starter.annotation;
+
+/**
+ * 标记bean, 由@EnableStarter注册, 表示应用通过注解启用了starter
+ * 自动配置通过@ConditionalOnStarterFeature判断该bean是否存在
+ *
+ * @author luminion
+ */
+public class StarterMarker {
+
+}
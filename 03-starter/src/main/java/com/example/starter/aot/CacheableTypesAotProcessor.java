@@ -0,0 +1,65 @@
+package com.example.starter.aot;
+
+import com.example.starter.cache.TieredCacheManager;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotContribution;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * AOT构建时, 为多级缓存中缓存的值类型生成反射信息
+ * 二级缓存使用jackson序列化缓存的值, native-image中需要这些类型的反射信息;
+ * 在构建时找到所有bean中@Cacheable/@CachePut方法的返回值类型, 写入生成的reflect-config.json, 无需手动声明
+ * 只处理bean类型自身声明的public方法(类上标注注解时为其全部public方法), 不包括继承自Object的方法和私有方法
+ *
+ * 通过META-INF/spring/aot.factories注册
+ *
+ * @author luminion
+ */
+public class CacheableTypesAotProcessor implements BeanFactoryInitializationAotProcessor {
+
+    @Override
+    public BeanFactoryInitializationAotContribution processAheadOfTime(ConfigurableListableBeanFactory beanFactory) {
+        if (beanFactory.getBeanNamesForType(TieredCacheManager.class, false, false).length == 0) {
+            return null;
+        }
+        Set<Type> types = new LinkedHashSet<>();
+        for (String name : beanFactory.getBeanDefinitionNames()) {
+            Class<?> beanType = beanFactory.getType(name, false);
+            if (beanType == null) {
+                continue;
+            }
+            Class<?> userType = ClassUtils.getUserClass(beanType);
+            boolean cachedType = isCaching(userType);
+            for (Method method : userType.getDeclaredMethods()) {
+                if (Modifier.isPublic(method.getModifiers()) && !method.isBridge() && !method.isSynthetic()
+                        && method.getReturnType() != void.class && (cachedType || isCaching(method))) {
+                    types.add(method.getGenericReturnType());
+                }
+            }
+        }
+        if (types.isEmpty()) {
+            return null;
+        }
+        return (generationContext, code) -> new BindingReflectionHintsRegistrar()
+                .registerReflectionHints(generationContext.getRuntimeHints().reflection(), types.toArray(Type[]::new));
+    }
+
+    private static boolean isCaching(Class<?> type) {
+        return AnnotatedElementUtils.hasAnnotation(type, Cacheable.class) || AnnotatedElementUtils.hasAnnotation(type, CachePut.class);
+    }
+
+    private static boolean isCaching(Method method) {
+        return AnnotatedElementUtils.hasAnnotation(method, Cacheable.class) || AnnotatedElementUtils.hasAnnotation(method, CachePut.class);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.starter.aot;
+
+import com.example.starter.cache.CacheInvalidation;
+import com.example.starter.cache.TieredCacheProperties;
+import com.example.starter.config.Prop;
+import com.example.starter.executor.ExecutorsProperties;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * native-image运行时需要的反射信息
+ * native-image在编译时静态分析可达的代码, 运行时通过反射访问的类型(配置绑定, json序列化)需要提前声明
+ * 1.配置类: Prop, ExecutorsProperties, TieredCacheProperties(绑定时通过反射调用getter/setter, 包括嵌套的类型)
+ * 2.CacheInvalidation: 失效通知通过jackson序列化
+ *
+ * @author luminion
+ */
+public class StarterRuntimeHints implements RuntimeHintsRegistrar {
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bindingRegistrar.registerReflectionHints(hints.reflection(),
+                Prop.class, ExecutorsProperties.class, TieredCacheProperties.class, CacheInvalidation.class);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.starter.cache;
+
+/**
+ * 缓存失效通知
+ *
+ * @param source 发出通知的节点
+ * @param cache  缓存名称
+ * @param key    失效的键, null表示清空整个缓存
+ * @author luminion
+ */
+public record CacheInvalidation(String source, String cache, String key) {
+}
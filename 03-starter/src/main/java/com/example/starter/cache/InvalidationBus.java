@@ -0,0 +1,27 @@
+package com.example.starter.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * 缓存失效通知的广播, 某个节点写入或删除缓存后通知其他节点删除一级缓存
+ *
+ * @author luminion
+ */
+public interface InvalidationBus {
+
+    /**
+     * 广播失效通知
+     *
+     * @param invalidation 失效通知
+     * @author luminion
+     */
+    void publish(CacheInvalidation invalidation);
+
+    /**
+     * 订阅失效通知(包括本节点发出的)
+     *
+     * @param listener 监听器
+     * @author luminion
+     */
+    void subscribe(Consumer<CacheInvalidation> listener);
+}
@@ -0,0 +1,296 @@
+package com.example.starter.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 进程内的有界缓存(一级缓存)
+ * 按W-TinyLFU的思路淘汰:
+ * 1.新写入的条目先进入容量为1%的窗口(LRU), 吸收突发的新key
+ * 2.窗口满时, 最旧的条目作为候选进入主区(LRU); 主区满时, 候选与主区最旧的条目比较访问频率(FrequencySketch), 频率低的被淘汰
+ * 因此偶尔访问一次的key(如遍历, 爬虫)不会把热点key挤出缓存
+ *
+ * 每个条目有自己的过期时间, 读取时发现过期即删除
+ * 读取不加锁(ConcurrentHashMap), 仅在能立即获得锁时调整访问顺序; 写入和淘汰在锁内进行
+ *
+ * @author luminion
+ */
+public class LocalCache<K, V> {
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+
+    private final FrequencySketch sketch;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final AccessOrder<K, V> window = new AccessOrder<>();
+
+    private final AccessOrder<K, V> main = new AccessOrder<>();
+
+    private final long windowMaximum;
+
+    private final long mainMaximum;
+
+    private final LongAdder sizeEvictions = new LongAdder();
+
+    private final LongAdder expirations = new LongAdder();
+
+    public LocalCache(long maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize必须大于0");
+        }
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.mainMaximum = maximumSize - windowMaximum;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * 读取, 不存在或已过期时返回null
+     *
+     * @param key 键
+     * @return {@code V }
+     * @author luminion
+     */
+    public V get(K key) {
+        sketch.increment(key);
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (node.isExpired(System.nanoTime())) {
+            lock.lock();
+            try {
+                if (data.remove(key, node)) {
+                    unlink(node);
+                    expirations.increment();
+                }
+            } finally {
+                lock.unlock();
+            }
+            return null;
+        }
+        if (lock.tryLock()) {
+            try {
+                if (node.queue != null) {
+                    node.queue.moveToTail(node);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return node.value;
+    }
+
+    /**
+     * 写入
+     *
+     * @param key      键
+     * @param value    值
+     * @param ttlNanos 存活时间(纳秒), 小于等于0表示不过期
+     * @author luminion
+     */
+    public void put(K key, V value, long ttlNanos) {
+        sketch.increment(key);
+        Node<K, V> node = new Node<>(key, value, ttlNanos > 0 ? System.nanoTime() + ttlNanos : Long.MAX_VALUE);
+        lock.lock();
+        try {
+            Node<K, V> old = data.put(key, node);
+            if (old != null) {
+                unlink(old);
+            }
+            window.addTail(node);
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 删除
+     *
+     * @param key 键
+     * @author luminion
+     */
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            Node<K, V> node = data.remove(key);
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 清空
+     */
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            data.clear();
+            window.clear();
+            main.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long size() {
+        return data.size();
+    }
+
+    /**
+     * 因容量淘汰的条目数
+     */
+    public long sizeEvictions() {
+        return sizeEvictions.sum();
+    }
+
+    /**
+     * 因过期删除的条目数
+     */
+    public long expirations() {
+        return expirations.sum();
+    }
+
+    /**
+     * 在锁内调用
+     */
+    private void evict() {
+        long now = System.nanoTime();
+        removeExpiredHead(window, now);
+        removeExpiredHead(main, now);
+        while (window.size > windowMaximum) {
+            Node<K, V> candidate = window.head;
+            window.unlink(candidate);
+            main.addTail(candidate);
+            if (main.size <= mainMaximum) {
+                continue;
+            }
+            Node<K, V> victim = main.head;
+            if (victim == candidate) {
+                // 主区容量为0
+                remove(candidate);
+            } else if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                remove(victim);
+            } else {
+                remove(candidate);
+            }
+        }
+    }
+
+    private void removeExpiredHead(AccessOrder<K, V> order, long now) {
+        while (order.head != null && order.head.isExpired(now)) {
+            Node<K, V> node = order.head;
+            order.unlink(node);
+            if (data.remove(node.key, node)) {
+                expirations.increment();
+            }
+        }
+    }
+
+    private void remove(Node<K, V> node) {
+        unlink(node);
+        data.remove(node.key, node);
+        sizeEvictions.increment();
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (node.queue != null) {
+            node.queue.unlink(node);
+        }
+    }
+
+    private static final class Node<K, V> {
+
+        private final K key;
+
+        private final V value;
+
+        private final long expireAt;
+
+        private Node<K, V> prev;
+
+        private Node<K, V> next;
+
+        /**
+         * 所在的队列, 已删除时为null
+         */
+        private AccessOrder<K, V> queue;
+
+        Node(K key, V value, long expireAt) {
+            this.key = key;
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        boolean isExpired(long now) {
+            return now - expireAt >= 0;
+        }
+    }
+
+    /**
+     * 访问顺序(双向链表, 头部为最久未访问), 在锁内操作
+     */
+    private static final class AccessOrder<K, V> {
+
+        private Node<K, V> head;
+
+        private Node<K, V> tail;
+
+        private long size;
+
+        void addTail(Node<K, V> node) {
+            node.queue = this;
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        void unlink(Node<K, V> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            node.queue = null;
+            size--;
+        }
+
+        void moveToTail(Node<K, V> node) {
+            if (node != tail) {
+                unlink(node);
+                addTail(node);
+            }
+        }
+
+        void clear() {
+            for (Node<K, V> node = head; node != null; ) {
+                Node<K, V> next = node.next;
+                node.prev = null;
+                node.next = null;
+                node.queue = null;
+                node = next;
+            }
+            head = null;
+            tail = null;
+            size = 0;
+        }
+    }
+}
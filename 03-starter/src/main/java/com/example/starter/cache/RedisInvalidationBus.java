@@ -0,0 +1,48 @@
+package com.example.starter.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.function.Consumer;
+
+/**
+ * 基于redis发布订阅的失效通知
+ * 发布订阅不保证送达(订阅断开期间的通知会丢失), 因此一级缓存的存活时间应设置得较短, 作为兜底
+ *
+ * @author luminion
+ */
+@Slf4j
+public class RedisInvalidationBus implements InvalidationBus {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final RedisMessageListenerContainer container;
+
+    private final ChannelTopic topic;
+
+    public RedisInvalidationBus(RedisTemplate<String, Object> redisTemplate, RedisMessageListenerContainer container, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.container = container;
+        this.topic = new ChannelTopic(channel);
+    }
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        redisTemplate.convertAndSend(topic.getTopic(), invalidation);
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> listener) {
+        RedisSerializer<?> serializer = redisTemplate.getValueSerializer();
+        container.addMessageListener((message, pattern) -> {
+            if (serializer.deserialize(message.getBody()) instanceof CacheInvalidation invalidation) {
+                listener.accept(invalidation);
+            } else {
+                log.warn("无法识别的缓存失效通知: {}", new String(message.getBody()));
+            }
+        }, topic);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.starter.cache;
+
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基于redis的远程缓存
+ *
+ * @author luminion
+ */
+public class RedisRemoteCache implements RemoteCache {
+
+    /**
+     * 清空缓存时每批删除的键数
+     */
+    private static final int CLEAR_BATCH = 1000;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    public RedisRemoteCache(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public Object get(String key) {
+        return redisTemplate.opsForValue().get(key);
+    }
+
+    @Override
+    public void put(String key, Object value, Duration ttl) {
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            redisTemplate.opsForValue().set(key, value);
+        } else {
+            redisTemplate.opsForValue().set(key, value, ttl);
+        }
+    }
+
+    @Override
+    public void evict(String key) {
+        redisTemplate.delete(key);
+    }
+
+    /**
+     * 使用SCAN遍历, 避免KEYS阻塞redis
+     */
+    @Override
+    public void clear(String prefix) {
+        ScanOptions options = ScanOptions.scanOptions().match(prefix + "*").count(CLEAR_BATCH).build();
+        List<String> batch = new ArrayList<>(CLEAR_BATCH);
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == CLEAR_BATCH) {
+                    redisTemplate.delete(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            redisTemplate.delete(batch);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.starter.cache;
+
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+
+/**
+ * 远程缓存(二级缓存), 多个节点共享
+ *
+ * @author luminion
+ */
+public interface RemoteCache {
+
+    /**
+     * 读取
+     *
+     * @param key 键
+     * @return {@link Object } 缓存的值(可能为NullValue), 不存在时返回null
+     * @author luminion
+     */
+    @Nullable
+    Object get(String key);
+
+    /**
+     * 写入
+     *
+     * @param key   键
+     * @param value 值
+     * @param ttl   存活时间, null或0表示不过期
+     * @author luminion
+     */
+    void put(String key, Object value, @Nullable Duration ttl);
+
+    /**
+     * 删除
+     *
+     * @param key 键
+     * @author luminion
+     */
+    void evict(String key);
+
+    /**
+     * 删除指定前缀的所有键
+     *
+     * @param prefix 前缀
+     * @author luminion
+     */
+    void clear(String prefix);
+}
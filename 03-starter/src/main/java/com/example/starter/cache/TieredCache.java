@@ -0,0 +1,217 @@
+package com.example.starter.cache;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 多级缓存
+ * 读取: 一级缓存(LocalCache) -> 二级缓存(RemoteCache, redis) -> 加载(@Cacheable方法), 下级命中后回填上级
+ * 写入/删除: 先写二级缓存, 再写本地一级缓存, 最后广播失效通知, 其他节点删除各自的一级缓存
+ *
+ * 合并请求: 同一个键同时只有一个线程访问redis或执行加载, 其他线程等待其结果
+ * (@Cacheable需要指定sync = true才会通过get(key, valueLoader)加载)
+ *
+ * @author luminion
+ */
+public class TieredCache extends AbstractValueAdaptingCache {
+
+    private static final ConversionService CONVERSION_SERVICE = DefaultConversionService.getSharedInstance();
+
+    private final String name;
+
+    private final String remotePrefix;
+
+    private final LocalCache<String, Object> local;
+
+    private final long localTtlNanos;
+
+    private final RemoteCache remote;
+
+    private final Duration remoteTtl;
+
+    private final InvalidationBus bus;
+
+    private final String nodeId;
+
+    private final TieredCacheStats stats = new TieredCacheStats();
+
+    private final Map<String, CompletableFuture<Object>> remoteReads = new ConcurrentHashMap<>();
+
+    private final Map<String, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+
+    /**
+     * 失效次数(本节点的写入/删除/清空, 以及收到的失效通知), 用于判断从redis读取期间是否有失效, 有则不回填一级缓存
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public TieredCache(String name, boolean allowNullValues, LocalCache<String, Object> local, Duration localTtl,
+                       RemoteCache remote, String keyPrefix, Duration remoteTtl, InvalidationBus bus, String nodeId) {
+        super(allowNullValues);
+        this.name = name;
+        this.remotePrefix = keyPrefix + name + "::";
+        this.local = local;
+        this.localTtlNanos = localTtl.toNanos();
+        this.remote = remote;
+        this.remoteTtl = remoteTtl;
+        this.bus = bus;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public LocalCache<String, Object> getNativeCache() {
+        return local;
+    }
+
+    public TieredCacheStats getStats() {
+        return stats;
+    }
+
+    @Override
+    @Nullable
+    protected Object lookup(Object key) {
+        String cacheKey = createKey(key);
+        Object value = local.get(cacheKey);
+        if (value != null) {
+            stats.localHits.increment();
+            return value;
+        }
+        long version = invalidations.get();
+        value = coalesce(remoteReads, cacheKey, () -> remote.get(remotePrefix + cacheKey));
+        if (value == null) {
+            stats.misses.increment();
+            return null;
+        }
+        stats.remoteHits.increment();
+        if (invalidations.get() == version) {
+            local.put(cacheKey, value, localTtlNanos);
+            // 回填期间发生失效时, 回填的可能是旧值, 删除(失效先增加计数再删除一级缓存, 不会两边都错过)
+            if (invalidations.get() != version) {
+                local.invalidate(cacheKey);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        String cacheKey = createKey(key);
+        Object value = coalesce(loads, cacheKey, () -> {
+            // 在获得加载权之前, 其他线程可能刚刚加载完成
+            Object cached = local.get(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+            long start = System.nanoTime();
+            T loaded;
+            try {
+                loaded = valueLoader.call();
+            } catch (Exception e) {
+                stats.recordLoad(System.nanoTime() - start, false);
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            stats.recordLoad(System.nanoTime() - start, true);
+            put(key, loaded);
+            return toStoreValue(loaded);
+        });
+        return (T) fromStoreValue(value);
+    }
+
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        String cacheKey = createKey(key);
+        Object storeValue = toStoreValue(value);
+        invalidations.incrementAndGet();
+        remote.put(remotePrefix + cacheKey, storeValue, remoteTtl);
+        local.put(cacheKey, storeValue, localTtlNanos);
+        stats.puts.increment();
+        bus.publish(new CacheInvalidation(nodeId, name, cacheKey));
+    }
+
+    @Override
+    public void evict(Object key) {
+        String cacheKey = createKey(key);
+        invalidations.incrementAndGet();
+        remote.evict(remotePrefix + cacheKey);
+        local.invalidate(cacheKey);
+        bus.publish(new CacheInvalidation(nodeId, name, cacheKey));
+    }
+
+    @Override
+    public void clear() {
+        invalidations.incrementAndGet();
+        remote.clear(remotePrefix);
+        local.invalidateAll();
+        bus.publish(new CacheInvalidation(nodeId, name, null));
+    }
+
+    /**
+     * 处理其他节点的失效通知
+     */
+    void onInvalidation(CacheInvalidation invalidation) {
+        if (nodeId.equals(invalidation.source())) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        stats.invalidationsReceived.increment();
+        if (invalidation.key() == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(invalidation.key());
+        }
+    }
+
+    private Object coalesce(Map<String, CompletableFuture<Object>> inFlight, String key, Supplier<Object> supplier) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            stats.coalesced.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        try {
+            Object value = supplier.get();
+            future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private static String createKey(Object key) {
+        if (key instanceof String string) {
+            return string;
+        }
+        String converted = CONVERSION_SERVICE.convert(key, String.class);
+        return converted != null ? converted : key.toString();
+    }
+}
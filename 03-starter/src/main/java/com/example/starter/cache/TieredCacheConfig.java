@@ -0,0 +1,88 @@
+package com.example.starter.cache;
+
+import com.example.starter.annotation.ConditionalOnStarterFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+/**
+ * 多级缓存配置
+ * 开启后注册TieredCacheManager作为cacheManager, 配合@EnableCaching使用@Cacheable等注解
+ * 二级缓存和失效通知默认使用redis, 注册自定义的RemoteCache和InvalidationBus可替换(例如测试中使用内存实现)
+ * 需要在springboot的默认缓存配置之前, 否则会注册两个cacheManager
+ *
+ * 配置方式: luminion.cache.enabled=true (默认关闭, 未配置时启动类上添加了@EnableStarter则开启)
+ *
+ * @author luminion
+ */
+@AutoConfiguration(before = CacheAutoConfiguration.class, after = RedisAutoConfiguration.class)
+@ConditionalOnClass(name = "org.springframework.data.redis.core.RedisTemplate")
+@EnableConfigurationProperties(TieredCacheProperties.class)
+@ConditionalOnStarterFeature("luminion.cache")
+public class TieredCacheConfig {
+
+    @Bean
+    public TieredCacheManager cacheManager(TieredCacheProperties properties, RemoteCache remoteCache, InvalidationBus invalidationBus,
+                                           ObjectProvider<TieredCacheCustomizer> customizers) {
+        return new TieredCacheManager(properties, remoteCache, invalidationBus, customizers.orderedStream().toList());
+    }
+
+    @Configuration
+    @ConditionalOnMissingBean({RemoteCache.class, InvalidationBus.class})
+    static class RedisTierConfig {
+
+        /**
+         * 与04-redis的SerializeConfig相同, 值序列化为json(带类型信息), 键使用字符串
+         */
+        @Bean
+        public RedisTemplate<String, Object> tieredCacheRedisTemplate(RedisConnectionFactory redisConnectionFactory) {
+            RedisTemplate<String, Object> template = new RedisTemplate<>();
+            template.setConnectionFactory(redisConnectionFactory);
+            template.setDefaultSerializer(new GenericJackson2JsonRedisSerializer());
+            template.setKeySerializer(StringRedisSerializer.UTF_8);
+            return template;
+        }
+
+        @Bean
+        public RedisRemoteCache redisRemoteCache(@Qualifier("tieredCacheRedisTemplate") RedisTemplate<String, Object> template) {
+            return new RedisRemoteCache(template);
+        }
+
+        @Bean
+        public RedisMessageListenerContainer tieredCacheListenerContainer(RedisConnectionFactory redisConnectionFactory) {
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(redisConnectionFactory);
+            return container;
+        }
+
+        @Bean
+        public RedisInvalidationBus redisInvalidationBus(@Qualifier("tieredCacheRedisTemplate") RedisTemplate<String, Object> template,
+                                                         @Qualifier("tieredCacheListenerContainer") RedisMessageListenerContainer container,
+                                                         TieredCacheProperties properties) {
+            return new RedisInvalidationBus(template, container, properties.getChannel());
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class MetricsConfig {
+
+        @Bean
+        public TieredCacheMetrics tieredCacheMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+            return new TieredCacheMetrics(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.starter.cache;
+
+/**
+ * 多级缓存创建后的回调(例如注册指标), 注册为bean即可生效
+ *
+ * @author luminion
+ */
+@FunctionalInterface
+public interface TieredCacheCustomizer {
+
+    void customize(TieredCache cache);
+}
@@ -0,0 +1,71 @@
+package com.example.starter.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractCacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 多级缓存管理器, @Cacheable等注解使用的缓存由此创建
+ * luminion.cache.caches中配置的缓存在启动时创建, 其他缓存在第一次使用时按默认配置创建
+ *
+ * @author luminion
+ */
+@Slf4j
+public class TieredCacheManager extends AbstractCacheManager {
+
+    /**
+     * 当前节点的标识, 用于忽略自己发出的失效通知
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final TieredCacheProperties properties;
+
+    private final RemoteCache remoteCache;
+
+    private final InvalidationBus invalidationBus;
+
+    private final List<TieredCacheCustomizer> customizers;
+
+    public TieredCacheManager(TieredCacheProperties properties, RemoteCache remoteCache, InvalidationBus invalidationBus,
+                              List<TieredCacheCustomizer> customizers) {
+        this.properties = properties;
+        this.remoteCache = remoteCache;
+        this.invalidationBus = invalidationBus;
+        this.customizers = customizers;
+        invalidationBus.subscribe(this::onInvalidation);
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return properties.getCaches().keySet().stream().map(this::createCache).toList();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return createCache(name);
+    }
+
+    private TieredCache createCache(String name) {
+        TieredCacheProperties.CacheSpec spec = properties.getCaches().get(name);
+        long maximumSize = spec != null && spec.getLocalMaximumSize() != null ? spec.getLocalMaximumSize() : properties.getLocalMaximumSize();
+        Duration localTtl = spec != null && spec.getLocalTtl() != null ? spec.getLocalTtl() : properties.getLocalTtl();
+        Duration remoteTtl = spec != null && spec.getRemoteTtl() != null ? spec.getRemoteTtl() : properties.getRemoteTtl();
+        TieredCache cache = new TieredCache(name, properties.isAllowNullValues(), new LocalCache<>(maximumSize), localTtl,
+                remoteCache, properties.getKeyPrefix(), remoteTtl, invalidationBus, nodeId);
+        customizers.forEach(customizer -> customizer.customize(cache));
+        log.debug("创建多级缓存[{}], 一级缓存容量: {}, 存活时间: {}/{}", name, maximumSize, localTtl, remoteTtl);
+        return cache;
+    }
+
+    private void onInvalidation(CacheInvalidation invalidation) {
+        // 只处理已创建的缓存
+        if (lookupCache(invalidation.cache()) instanceof TieredCache cache) {
+            cache.onInvalidation(invalidation);
+        }
+    }
+}
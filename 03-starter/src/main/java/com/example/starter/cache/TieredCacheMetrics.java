@@ -0,0 +1,64 @@
+package com.example.starter.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 多级缓存指标(tag: cache为缓存名称)
+ *
+ * cache.gets:      读取次数, result=hit时tier为命中的级别(local/remote), result=miss为未命中
+ * cache.puts:      写入次数
+ * cache.evictions: 一级缓存删除的条目数, cause为size(容量淘汰)/expired(过期)/invalidation(其他节点的失效通知)
+ * cache.coalesced: 合并的请求数
+ * cache.load:      加载耗时, result为success/failure
+ * cache.size:      一级缓存的条目数
+ *
+ * @author luminion
+ */
+public class TieredCacheMetrics implements TieredCacheCustomizer {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public TieredCacheMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void customize(TieredCache cache) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return;
+        }
+        Tags tags = Tags.of("cache", cache.getName());
+        TieredCacheStats stats = cache.getStats();
+        LocalCache<String, Object> local = cache.getNativeCache();
+        counter(registry, "cache.gets", tags.and("result", "hit", "tier", "local"), stats.localHits);
+        counter(registry, "cache.gets", tags.and("result", "hit", "tier", "remote"), stats.remoteHits);
+        counter(registry, "cache.gets", tags.and("result", "miss", "tier", "none"), stats.misses);
+        counter(registry, "cache.puts", tags, stats.puts);
+        counter(registry, "cache.coalesced", tags, stats.coalesced);
+        counter(registry, "cache.evictions", tags.and("cause", "invalidation"), stats.invalidationsReceived);
+        counter(registry, "cache.evictions", tags.and("cause", "size"), local, LocalCache::sizeEvictions);
+        counter(registry, "cache.evictions", tags.and("cause", "expired"), local, LocalCache::expirations);
+        Gauge.builder("cache.size", local, LocalCache::size).tags(tags).register(registry);
+        Timer loadSuccess = Timer.builder("cache.load").tags(tags.and("result", "success")).publishPercentiles(0.5, 0.99).register(registry);
+        Timer loadFailure = Timer.builder("cache.load").tags(tags.and("result", "failure")).register(registry);
+        stats.loadRecorder = (nanos, success) -> (success ? loadSuccess : loadFailure).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static void counter(MeterRegistry registry, String name, Tags tags, LongAdder adder) {
+        counter(registry, name, tags, adder, LongAdder::sum);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, Tags tags, T target, ToDoubleFunction<T> function) {
+        FunctionCounter.builder(name, target, function).tags(tags).register(registry);
+    }
+}
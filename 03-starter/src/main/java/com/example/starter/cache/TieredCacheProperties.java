@@ -0,0 +1,69 @@
+package com.example.starter.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 多级缓存配置
+ *
+ * @author luminion
+ */
+@Data
+@ConfigurationProperties(prefix = "luminion.cache")
+public class TieredCacheProperties {
+
+    /**
+     * 是否启用多级缓存(需要redis)
+     * 未配置时, 启动类上添加了@EnableStarter则启用
+     */
+    private boolean enabled = false;
+
+    /**
+     * redis中键的前缀, 完整的键为: 前缀 + 缓存名称 + :: + 键
+     */
+    private String keyPrefix = "cache:";
+
+    /**
+     * 失效通知的发布订阅频道
+     */
+    private String channel = "luminion:cache:invalidation";
+
+    /**
+     * 是否缓存null值(防止缓存穿透)
+     */
+    private boolean allowNullValues = true;
+
+    /**
+     * 一级缓存的最大条目数
+     */
+    private long localMaximumSize = 10_000;
+
+    /**
+     * 一级缓存的存活时间, 失效通知丢失时最多读到这么久之前的旧值
+     */
+    private Duration localTtl = Duration.ofMinutes(1);
+
+    /**
+     * 二级缓存(redis)的存活时间
+     */
+    private Duration remoteTtl = Duration.ofMinutes(30);
+
+    /**
+     * 按缓存名称单独配置, 未配置的项使用上面的默认值
+     */
+    private Map<String, CacheSpec> caches = new LinkedHashMap<>();
+
+    @Data
+    public static class CacheSpec {
+
+        private Long localMaximumSize;
+
+        private Duration localTtl;
+
+        private Duration remoteTtl;
+    }
+}
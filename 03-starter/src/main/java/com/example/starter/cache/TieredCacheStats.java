@@ -0,0 +1,79 @@
+package com.example.starter.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 多级缓存的统计, 由TieredCacheMetrics注册为指标
+ *
+ * @author luminion
+ */
+public class TieredCacheStats {
+
+    final LongAdder localHits = new LongAdder();
+
+    final LongAdder remoteHits = new LongAdder();
+
+    final LongAdder misses = new LongAdder();
+
+    final LongAdder puts = new LongAdder();
+
+    final LongAdder loads = new LongAdder();
+
+    final LongAdder loadFailures = new LongAdder();
+
+    final LongAdder coalesced = new LongAdder();
+
+    final LongAdder invalidationsReceived = new LongAdder();
+
+    /**
+     * 加载耗时的记录器
+     */
+    volatile LoadRecorder loadRecorder = (nanos, success) -> {
+    };
+
+    void recordLoad(long nanos, boolean success) {
+        (success ? loads : loadFailures).increment();
+        loadRecorder.record(nanos, success);
+    }
+
+    public long getLocalHits() {
+        return localHits.sum();
+    }
+
+    public long getRemoteHits() {
+        return remoteHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getPuts() {
+        return puts.sum();
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    public long getLoadFailures() {
+        return loadFailures.sum();
+    }
+
+    /**
+     * 等待其他线程的读取或加载结果(而不是自己访问redis或加载)的次数
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public long getInvalidationsReceived() {
+        return invalidationsReceived.sum();
+    }
+
+    @FunctionalInterface
+    interface LoadRecorder {
+
+        void record(long nanos, boolean success);
+    }
+}
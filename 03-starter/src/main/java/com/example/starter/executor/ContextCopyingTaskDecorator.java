@@ -0,0 +1,46 @@
+package com.example.starter.executor;
+
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.List;
+
+/**
+ * 按ContextPropagator传递上下文的任务装饰器
+ * 提交时捕获所有上下文, 执行前依次恢复, 执行后逆序清理
+ *
+ * @author luminion
+ */
+public class ContextCopyingTaskDecorator implements TaskDecorator {
+
+    private final List<ContextPropagator> propagators;
+
+    public ContextCopyingTaskDecorator(List<ContextPropagator> propagators) {
+        this.propagators = propagators;
+    }
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        if (propagators.isEmpty()) {
+            return runnable;
+        }
+        ContextPropagator.Snapshot[] snapshots = new ContextPropagator.Snapshot[propagators.size()];
+        for (int i = 0; i < snapshots.length; i++) {
+            snapshots[i] = propagators.get(i).capture();
+        }
+        return () -> {
+            Runnable[] resets = new Runnable[snapshots.length];
+            try {
+                for (int i = 0; i < snapshots.length; i++) {
+                    resets[i] = snapshots[i].restore();
+                }
+                runnable.run();
+            } finally {
+                for (int i = resets.length - 1; i >= 0; i--) {
+                    if (resets[i] != null) {
+                        resets[i].run();
+                    }
+                }
+            }
+        };
+    }
+}
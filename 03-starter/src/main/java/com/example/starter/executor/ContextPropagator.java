@@ -0,0 +1,32 @@
+package com.example.starter.executor;
+
+/**
+ * 上下文传递
+ * 提交任务时在提交线程中捕获上下文(ThreadLocal), 执行任务前在执行线程中恢复, 执行完成后清理
+ * 注册为bean即可应用到所有命名执行器
+ *
+ * @author luminion
+ */
+@FunctionalInterface
+public interface ContextPropagator {
+
+    /**
+     * 在提交任务的线程中捕获上下文
+     *
+     * @return {@link Snapshot } 在执行任务的线程中恢复上下文
+     * @author luminion
+     */
+    Snapshot capture();
+
+    @FunctionalInterface
+    interface Snapshot {
+
+        /**
+         * 在执行任务的线程中恢复上下文
+         *
+         * @return {@link Runnable } 任务执行完成后调用, 恢复执行线程原来的上下文
+         * @author luminion
+         */
+        Runnable restore();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.starter.executor;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行器指标(tag: name为执行器名称), 仅在存在micrometer时使用
+ *
+ * luminion.executor.active:          正在执行的任务数
+ * luminion.executor.completed:       已完成的任务数
+ * luminion.executor.rejected:        被拒绝的任务数
+ * luminion.executor.queue.wait:      任务从提交到开始执行的时间(virtual为等待并发许可的时间)
+ * luminion.executor.queued:          队列中的任务数(platform, scheduled)
+ * luminion.executor.queue.remaining: 队列剩余容量(platform)
+ * luminion.executor.pool.size:       线程数(platform, scheduled)
+ *
+ * @author luminion
+ */
+final class ExecutorMetrics {
+
+    private ExecutorMetrics() {
+    }
+
+    static void bind(String name, Object executor, ExecutorStats stats, BeanFactory beanFactory) {
+        MeterRegistry registry = beanFactory.getBeanProvider(MeterRegistry.class).getIfAvailable();
+        if (registry == null) {
+            return;
+        }
+        Tags tags = Tags.of("name", name);
+        Gauge.builder("luminion.executor.active", stats.active, Number::doubleValue).tags(tags).register(registry);
+        FunctionCounter.builder("luminion.executor.completed", stats.completed, Number::doubleValue).tags(tags).register(registry);
+        FunctionCounter.builder("luminion.executor.rejected", stats.rejected, Number::doubleValue).tags(tags).register(registry);
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            Timer queueWait = Timer.builder("luminion.executor.queue.wait").tags(tags).publishPercentiles(0.5, 0.99).register(registry);
+            stats.queueWait = nanos -> queueWait.record(nanos, TimeUnit.NANOSECONDS);
+            Gauge.builder("luminion.executor.queued", pool, ThreadPoolTaskExecutor::getQueueSize).tags(tags).register(registry);
+            Gauge.builder("luminion.executor.queue.remaining", pool, p -> p.getQueueCapacity() - p.getQueueSize()).tags(tags).register(registry);
+            Gauge.builder("luminion.executor.pool.size", pool, ThreadPoolTaskExecutor::getPoolSize).tags(tags).register(registry);
+        } else if (executor instanceof ThreadPoolTaskScheduler scheduler) {
+            Gauge.builder("luminion.executor.queued", scheduler, ExecutorMetrics::scheduledQueueSize).tags(tags).register(registry);
+            Gauge.builder("luminion.executor.pool.size", scheduler, ThreadPoolTaskScheduler::getPoolSize).tags(tags).register(registry);
+        } else {
+            Timer queueWait = Timer.builder("luminion.executor.queue.wait").tags(tags).publishPercentiles(0.5, 0.99).register(registry);
+            stats.queueWait = nanos -> queueWait.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static double scheduledQueueSize(ThreadPoolTaskScheduler scheduler) {
+        try {
+            return scheduler.getScheduledThreadPoolExecutor().getQueue().size();
+        } catch (IllegalStateException e) {
+            // 尚未初始化
+            return 0;
+        }
+    }
+}
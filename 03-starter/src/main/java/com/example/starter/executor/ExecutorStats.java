@@ -0,0 +1,64 @@
+package com.example.starter.executor;
+
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+/**
+ * 执行器的运行统计, 通过任务装饰器和拒绝策略收集, 由ExecutorMetrics注册为指标
+ *
+ * @author luminion
+ */
+final class ExecutorStats implements TaskDecorator {
+
+    /**
+     * 是否记录排队时间(定时任务的排队时间没有意义)
+     */
+    private final boolean recordQueueWait;
+
+    final AtomicInteger active = new AtomicInteger();
+
+    final LongAdder completed = new LongAdder();
+
+    final LongAdder rejected = new LongAdder();
+
+    /**
+     * 任务从提交到开始执行的时间(纳秒)
+     */
+    volatile LongConsumer queueWait = nanos -> {
+    };
+
+    ExecutorStats(boolean recordQueueWait) {
+        this.recordQueueWait = recordQueueWait;
+    }
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        long submitted = System.nanoTime();
+        return () -> {
+            if (recordQueueWait) {
+                queueWait.accept(System.nanoTime() - submitted);
+            }
+            active.incrementAndGet();
+            try {
+                runnable.run();
+            } finally {
+                active.decrementAndGet();
+                completed.increment();
+            }
+        };
+    }
+
+    /**
+     * 统计被拒绝的任务数(包括caller-runs策略下由提交线程执行的任务)
+     */
+    RejectedExecutionHandler counting(RejectedExecutionHandler delegate) {
+        return (runnable, executor) -> {
+            rejected.increment();
+            delegate.rejectedExecution(runnable, executor);
+        };
+    }
+}
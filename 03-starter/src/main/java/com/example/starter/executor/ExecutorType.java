@@ -0,0 +1,38 @@
+package com.example.starter.executor;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * 执行器类型
+ *
+ * @author luminion
+ */
+public enum ExecutorType {
+
+    /**
+     * 每个任务一个虚拟线程(SimpleAsyncTaskExecutor), 适合阻塞IO, 可通过max-concurrency限制并发数
+     */
+    VIRTUAL(SimpleAsyncTaskExecutor.class),
+
+    /**
+     * 有界的平台线程池(ThreadPoolTaskExecutor), 适合CPU密集型任务, 队列满时按rejection策略处理
+     */
+    PLATFORM(ThreadPoolTaskExecutor.class),
+
+    /**
+     * 定时任务线程池(ThreadPoolTaskScheduler)
+     */
+    SCHEDULED(ThreadPoolTaskScheduler.class);
+
+    private final Class<?> executorClass;
+
+    ExecutorType(Class<?> executorClass) {
+        this.executorClass = executorClass;
+    }
+
+    public Class<?> getExecutorClass() {
+        return executorClass;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.starter.executor;
+
+import com.example.starter.annotation.ConditionalOnStarterFeature;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 命名执行器配置
+ * 在luminion.executors.pools下声明执行器后, 各模块按名称使用:
+ * 1.@Async("io") 异步方法
+ * 2.@Qualifier("io") Executor / TaskExecutor 注入
+ * 3.@KafkaListener等需要执行器的组件, 引用bean名称即可
+ *
+ * 提交任务时传递MDC, SecurityContext和Observation, 可注册自定义的ContextPropagator
+ *
+ * 配置方式: luminion.executors.enabled=true (默认关闭, 未配置时启动类上添加了@EnableStarter则开启)
+ * 不影响springboot自动配置的applicationTaskExecutor(未指定名称的@Async, mvc异步请求等使用);
+ * 指定luminion.executors.application-executor时, 由该执行器代替applicationTaskExecutor
+ *
+ * @author luminion
+ */
+@AutoConfiguration(after = TaskExecutionAutoConfiguration.class)
+@EnableConfigurationProperties(ExecutorsProperties.class)
+@ConditionalOnStarterFeature("luminion.executors")
+public class ExecutorsConfig {
+
+    /**
+     * BeanDefinitionRegistryPostProcessor需要使用静态方法声明, 避免提前创建配置类
+     */
+    @Bean
+    public static NamedExecutorRegistrar namedExecutorRegistrar() {
+        return new NamedExecutorRegistrar();
+    }
+
+    @Bean(NamedExecutorRegistrar.FACTORY_BEAN_NAME)
+    public NamedExecutorFactory namedExecutorFactory(ExecutorsProperties properties, BeanFactory beanFactory) {
+        return new NamedExecutorFactory(properties, beanFactory);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "luminion.executors.propagation", name = "mdc", havingValue = "true", matchIfMissing = true)
+    public MdcContextPropagator mdcContextPropagator() {
+        return new MdcContextPropagator();
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.security.core.context.SecurityContextHolder")
+    @ConditionalOnProperty(prefix = "luminion.executors.propagation", name = "security", havingValue = "true", matchIfMissing = true)
+    static class SecurityPropagationConfig {
+
+        @Bean
+        public SecurityContextPropagator securityContextPropagator() {
+            return new SecurityContextPropagator();
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.observation.ObservationRegistry")
+    @ConditionalOnProperty(prefix = "luminion.executors.propagation", name = "observation", havingValue = "true", matchIfMissing = true)
+    static class ObservationPropagationConfig {
+
+        @Bean
+        public ObservationContextPropagator observationContextPropagator(ObjectProvider<ObservationRegistry> registry) {
+            return new ObservationContextPropagator(registry.getIfAvailable(() -> ObservationRegistry.NOOP));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.starter.executor;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 命名执行器配置
+ * 每个luminion.executors.pools下的条目注册为一个同名的bean, 通过@Async("名称")或@Qualifier("名称")使用
+ *
+ * @author luminion
+ */
+@Data
+@ConfigurationProperties(prefix = "luminion.executors")
+public class ExecutorsProperties {
+
+    /**
+     * 是否启用命名执行器
+     * 未配置时, 启动类上添加了@EnableStarter则启用
+     */
+    private boolean enabled = false;
+
+    /**
+     * 作为springboot默认执行器(applicationTaskExecutor, taskExecutor)的执行器名称,
+     * 为空时保留springboot自动配置的applicationTaskExecutor
+     */
+    private String applicationExecutor;
+
+    /**
+     * 关闭时等待已提交任务完成的最长时间(各执行器可单独覆盖)
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+    /**
+     * 是否注册执行器指标(需要micrometer)
+     */
+    private boolean metrics = true;
+
+    /**
+     * 提交任务时传递到执行线程的上下文
+     */
+    private Propagation propagation = new Propagation();
+
+    /**
+     * 执行器, key为bean名称
+     */
+    private Map<String, Pool> pools = new LinkedHashMap<>();
+
+    @Data
+    public static class Propagation {
+
+        /**
+         * 日志MDC
+         */
+        private boolean mdc = true;
+
+        /**
+         * spring security的SecurityContext(需要spring-security)
+         */
+        private boolean security = true;
+
+        /**
+         * micrometer的当前Observation(链路追踪, 需要micrometer-observation)
+         */
+        private boolean observation = true;
+    }
+
+    @Data
+    public static class Pool {
+
+        /**
+         * 执行器类型
+         */
+        private ExecutorType type = ExecutorType.PLATFORM;
+
+        /**
+         * 核心线程数(platform, scheduled), 默认为CPU核数
+         */
+        private Integer coreSize;
+
+        /**
+         * 最大线程数(platform), 默认等于核心线程数
+         */
+        private Integer maxSize;
+
+        /**
+         * 队列容量(platform), 有界队列, 线程数达到核心线程数后任务先进入队列, 队列满后才会创建新线程直到最大线程数
+         */
+        private int queueCapacity = 1000;
+
+        /**
+         * 超出核心线程数的空闲线程存活时间(platform)
+         */
+        private Duration keepAlive = Duration.ofSeconds(60);
+
+        /**
+         * 队列和线程都满时的处理策略(platform)
+         */
+        private RejectionPolicy rejection = RejectionPolicy.CALLER_RUNS;
+
+        /**
+         * 最大并发任务数(virtual), 达到后提交任务的线程阻塞等待, -1表示不限制
+         */
+        private int maxConcurrency = -1;
+
+        /**
+         * 关闭时等待已提交任务完成的最长时间, 默认使用luminion.executors.shutdown-timeout
+         */
+        private Duration shutdownTimeout;
+    }
+
+    /**
+     * 拒绝策略
+     */
+    public enum RejectionPolicy {
+
+        /**
+         * 抛出RejectedExecutionException
+         */
+        ABORT,
+
+        /**
+         * 提交任务的线程直接执行(背压)
+         */
+        CALLER_RUNS,
+
+        /**
+         * 丢弃该任务
+         */
+        DISCARD,
+
+        /**
+         * 丢弃队列中最早的任务
+         */
+        DISCARD_OLDEST
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.starter.executor;
+
+import org.slf4j.MDC;
+
+import java.util.Map;
+
+/**
+ * 传递日志MDC
+ *
+ * @author luminion
+ */
+public class MdcContextPropagator implements ContextPropagator {
+
+    @Override
+    public Snapshot capture() {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            setContext(context);
+            return () -> setContext(previous);
+        };
+    }
+
+    private static void setContext(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+}
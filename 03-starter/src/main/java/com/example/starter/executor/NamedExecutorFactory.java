@@ -0,0 +1,99 @@
+package com.example.starter.executor;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.ClassUtils;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 按配置创建命名执行器, 作为各执行器bean的工厂方法(便于AOT生成代码)
+ * 所有执行器都应用上下文传递(容器中的ContextPropagator)和运行统计, 关闭时等待已提交的任务完成(最长shutdown-timeout)
+ *
+ * @author luminion
+ */
+public class NamedExecutorFactory {
+
+    private static final boolean METRICS_PRESENT = ClassUtils.isPresent("io.micrometer.core.instrument.MeterRegistry",
+            NamedExecutorFactory.class.getClassLoader());
+
+    private final ExecutorsProperties properties;
+
+    private final BeanFactory beanFactory;
+
+    public NamedExecutorFactory(ExecutorsProperties properties, BeanFactory beanFactory) {
+        this.properties = properties;
+        this.beanFactory = beanFactory;
+    }
+
+    /**
+     * 创建执行器
+     *
+     * @param name 执行器名称(luminion.executors.pools中的key)
+     * @return {@link Object } SimpleAsyncTaskExecutor / ThreadPoolTaskExecutor / ThreadPoolTaskScheduler
+     * @author luminion
+     */
+    public Object create(String name) {
+        ExecutorsProperties.Pool pool = properties.getPools().get(name);
+        if (pool == null) {
+            throw new IllegalStateException("未配置执行器[" + name + "]");
+        }
+        ExecutorStats stats = new ExecutorStats(pool.getType() != ExecutorType.SCHEDULED);
+        TaskDecorator context = new ContextCopyingTaskDecorator(
+                beanFactory.getBeanProvider(ContextPropagator.class).orderedStream().toList());
+        TaskDecorator decorator = runnable -> stats.decorate(context.decorate(runnable));
+        Duration shutdownTimeout = pool.getShutdownTimeout() != null ? pool.getShutdownTimeout() : properties.getShutdownTimeout();
+        int coreSize = pool.getCoreSize() != null ? pool.getCoreSize() : Runtime.getRuntime().availableProcessors();
+        Object executor = switch (pool.getType()) {
+            case VIRTUAL -> {
+                SimpleAsyncTaskExecutor virtual = new SimpleAsyncTaskExecutor(name + "-");
+                virtual.setVirtualThreads(true);
+                virtual.setConcurrencyLimit(pool.getMaxConcurrency());
+                virtual.setTaskDecorator(decorator);
+                // close()时等待正在执行的任务完成
+                virtual.setTaskTerminationTimeout(shutdownTimeout.toMillis());
+                yield virtual;
+            }
+            case PLATFORM -> {
+                ThreadPoolTaskExecutor platform = new ThreadPoolTaskExecutor();
+                platform.setThreadNamePrefix(name + "-");
+                platform.setCorePoolSize(coreSize);
+                platform.setMaxPoolSize(Math.max(coreSize, pool.getMaxSize() != null ? pool.getMaxSize() : coreSize));
+                platform.setQueueCapacity(pool.getQueueCapacity());
+                platform.setKeepAliveSeconds((int) pool.getKeepAlive().toSeconds());
+                platform.setRejectedExecutionHandler(stats.counting(rejectionHandler(pool.getRejection())));
+                platform.setTaskDecorator(decorator);
+                platform.setWaitForTasksToCompleteOnShutdown(true);
+                platform.setAwaitTerminationMillis(shutdownTimeout.toMillis());
+                yield platform;
+            }
+            case SCHEDULED -> {
+                ThreadPoolTaskScheduler scheduled = new ThreadPoolTaskScheduler();
+                scheduled.setThreadNamePrefix(name + "-");
+                scheduled.setPoolSize(coreSize);
+                scheduled.setTaskDecorator(decorator);
+                scheduled.setWaitForTasksToCompleteOnShutdown(true);
+                scheduled.setAwaitTerminationMillis(shutdownTimeout.toMillis());
+                yield scheduled;
+            }
+        };
+        if (properties.isMetrics() && METRICS_PRESENT) {
+            ExecutorMetrics.bind(name, executor, stats, beanFactory);
+        }
+        return executor;
+    }
+
+    private static RejectedExecutionHandler rejectionHandler(ExecutorsProperties.RejectionPolicy policy) {
+        return switch (policy) {
+            case ABORT -> new ThreadPoolExecutor.AbortPolicy();
+            case CALLER_RUNS -> new ThreadPoolExecutor.CallerRunsPolicy();
+            case DISCARD -> new ThreadPoolExecutor.DiscardPolicy();
+            case DISCARD_OLDEST -> new ThreadPoolExecutor.DiscardOldestPolicy();
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.starter.executor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.util.StringUtils;
+
+/**
+ * 将luminion.executors.pools中的每个执行器注册为同名的bean
+ * 执行器的数量和名称由配置决定, 无法用@Bean方法声明, 因此在注册bean定义阶段直接从Environment绑定配置
+ * bean定义使用工厂方法(NamedExecutorFactory.create), AOT构建时可以生成对应的代码;
+ * 使用AOT生成的代码启动时, bean定义已经注册, 不再重复注册(执行器的名称在构建时确定)
+ *
+ * 配置了application-executor时, 移除springboot自动配置的applicationTaskExecutor,
+ * 将applicationTaskExecutor和taskExecutor作为该执行器的别名, 按名称查找默认执行器的组件(@Async, mvc异步请求等)继续可用
+ *
+ * @author luminion
+ */
+@Slf4j
+public class NamedExecutorRegistrar implements BeanDefinitionRegistryPostProcessor, EnvironmentAware {
+
+    /**
+     * 执行器工厂的bean名称
+     */
+    static final String FACTORY_BEAN_NAME = "namedExecutorFactory";
+
+    /**
+     * springboot默认执行器的名称及别名(TaskExecutionAutoConfiguration)
+     */
+    private static final String[] APPLICATION_EXECUTOR_NAMES = {
+            TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME};
+
+    private Environment environment;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) throws BeansException {
+        if (AotDetector.useGeneratedArtifacts()) {
+            return;
+        }
+        ExecutorsProperties properties = Binder.get(environment)
+                .bind("luminion.executors", ExecutorsProperties.class)
+                .orElseGet(ExecutorsProperties::new);
+        properties.getPools().forEach((name, pool) -> {
+            if (registry.containsBeanDefinition(name)) {
+                throw new IllegalStateException("执行器[" + name + "]与已有的bean重名");
+            }
+            RootBeanDefinition definition = new RootBeanDefinition();
+            definition.setFactoryBeanName(FACTORY_BEAN_NAME);
+            definition.setFactoryMethodName("create");
+            definition.getConstructorArgumentValues().addIndexedArgumentValue(0, name);
+            // 工厂方法的返回值为Object, 指定实际类型, 使按类型注入(如@Qualifier("io") Executor)在创建前就能匹配
+            definition.setTargetType(pool.getType().getExecutorClass());
+            definition.setDestroyMethodName(AbstractBeanDefinition.INFER_METHOD);
+            registry.registerBeanDefinition(name, definition);
+            log.debug("注册执行器[{}], 类型: {}", name, pool.getType());
+        });
+        String applicationExecutor = properties.getApplicationExecutor();
+        if (StringUtils.hasText(applicationExecutor)) {
+            if (!properties.getPools().containsKey(applicationExecutor)) {
+                throw new IllegalStateException("application-executor[" + applicationExecutor + "]不在luminion.executors.pools中");
+            }
+            for (String name : APPLICATION_EXECUTOR_NAMES) {
+                if (registry.isAlias(name)) {
+                    registry.removeAlias(name);
+                } else if (registry.containsBeanDefinition(name)) {
+                    registry.removeBeanDefinition(name);
+                }
+                registry.registerAlias(applicationExecutor, name);
+            }
+            log.debug("执行器[{}]作为applicationTaskExecutor", applicationExecutor);
+        }
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.starter.executor;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * 传递当前的Observation, 任务中创建的Observation(span)以提交任务时的Observation为父节点
+ *
+ * @author luminion
+ */
+public class ObservationContextPropagator implements ContextPropagator {
+
+    private final ObservationRegistry registry;
+
+    public ObservationContextPropagator(ObservationRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Snapshot capture() {
+        Observation observation = registry.getCurrentObservation();
+        if (observation == null) {
+            return () -> () -> {
+            };
+        }
+        return () -> observation.openScope()::close;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.starter.executor;
+
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * 传递spring security的SecurityContext(与DelegatingSecurityContextRunnable相同)
+ *
+ * @author luminion
+ */
+public class SecurityContextPropagator implements ContextPropagator {
+
+    @Override
+    public Snapshot capture() {
+        SecurityContext context = SecurityContextHolder.getContext();
+        return () -> {
+            SecurityContext previous = SecurityContextHolder.getContext();
+            SecurityContextHolder.setContext(context);
+            return () -> {
+                if (previous.getAuthentication() == null) {
+                    SecurityContextHolder.clearContext();
+                } else {
+                    SecurityContextHolder.setContext(previous);
+                }
+            };
+        };
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.starter;
+
+import com.example.starter.annotation.EnableStarter;
+import com.example.starter.executor.ExecutorsConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 命名执行器测试
+ * 1.按配置注册执行器bean
+ * 2.MDC传递到执行线程, 执行后恢复
+ * 3.队列指标
+ * 4.关闭容器时等待已提交的任务完成
+ * 5.默认关闭; 启用后保留springboot的applicationTaskExecutor, 或由指定的执行器代替
+ * 6.未配置enabled时由@EnableStarter开启, 配置了enabled=false时@EnableStarter也不开启
+ *
+ * @author luminion
+ */
+public class TestNamedExecutors {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(StarterAutoConfig.class, ExecutorsConfig.class, TaskExecutionAutoConfiguration.class))
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withPropertyValues(
+                    "luminion.executors.enabled=true",
+                    "luminion.executors.shutdown-timeout=5s",
+                    "luminion.executors.pools.io.type=virtual",
+                    "luminion.executors.pools.io.max-concurrency=100",
+                    "luminion.executors.pools.cpu.type=platform",
+                    "luminion.executors.pools.cpu.core-size=1",
+                    "luminion.executors.pools.cpu.queue-capacity=10",
+                    "luminion.executors.pools.scheduler.type=scheduled");
+
+    @Test
+    void registersNamedExecutors() {
+        runner.run(context -> {
+            Assertions.assertInstanceOf(SimpleAsyncTaskExecutor.class, context.getBean("io"));
+            Assertions.assertInstanceOf(ThreadPoolTaskExecutor.class, context.getBean("cpu"));
+            Assertions.assertInstanceOf(ThreadPoolTaskScheduler.class, context.getBean("scheduler"));
+        });
+    }
+
+    @Test
+    void keepsApplicationTaskExecutor() {
+        runner.run(context -> {
+            Object application = context.getBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME);
+            Assertions.assertInstanceOf(ThreadPoolTaskExecutor.class, application);
+            Assertions.assertNotSame(context.getBean("cpu"), application);
+            Assertions.assertSame(application, context.getBean(AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME));
+        });
+        runner.withPropertyValues("luminion.executors.application-executor=cpu").run(context -> {
+            Assertions.assertSame(context.getBean("cpu"), context.getBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME));
+            Assertions.assertSame(context.getBean("cpu"), context.getBean(AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME));
+        });
+        runner.withPropertyValues("luminion.executors.enabled=false").run(context -> {
+            Assertions.assertFalse(context.containsBean("io"));
+            Assertions.assertTrue(context.containsBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME));
+        });
+    }
+
+    @Test
+    void enableStarter() {
+        ApplicationContextRunner unset = new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(StarterAutoConfig.class, ExecutorsConfig.class, TaskExecutionAutoConfiguration.class))
+                .withPropertyValues("luminion.executors.pools.io.type=virtual");
+        unset.run(context -> Assertions.assertFalse(context.containsBean("io")));
+        unset.withUserConfiguration(EnabledApp.class).run(context -> Assertions.assertTrue(context.containsBean("io")));
+        unset.withUserConfiguration(EnabledApp.class).withPropertyValues("luminion.executors.enabled=false")
+                .run(context -> Assertions.assertFalse(context.containsBean("io")));
+    }
+
+    @Test
+    void propagatesMdc() {
+        runner.run(context -> {
+            for (String name : new String[]{"io", "cpu", "scheduler"}) {
+                AsyncTaskExecutor executor = context.getBean(name, AsyncTaskExecutor.class);
+                MDC.put("traceId", name);
+                try {
+                    String traceId = CompletableFuture.supplyAsync(() -> MDC.get("traceId"), executor).get(5, TimeUnit.SECONDS);
+                    Assertions.assertEquals(name, traceId);
+                } finally {
+                    MDC.clear();
+                }
+                // 执行线程中的MDC已恢复
+                Assertions.assertNull(CompletableFuture.supplyAsync(() -> MDC.get("traceId"), executor).get(5, TimeUnit.SECONDS));
+            }
+        });
+    }
+
+    @Test
+    void queueMetrics() {
+        runner.run(context -> {
+            ThreadPoolTaskExecutor cpu = context.getBean("cpu", ThreadPoolTaskExecutor.class);
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+            CompletableFuture<Void> gate = new CompletableFuture<>();
+            for (int i = 0; i < 6; i++) {
+                cpu.execute(gate::join);
+            }
+            // 1个线程执行, 5个排队
+            Assertions.assertEquals(5, registry.get("luminion.executor.queued").tag("name", "cpu").gauge().value());
+            Assertions.assertEquals(5, registry.get("luminion.executor.queue.remaining").tag("name", "cpu").gauge().value());
+            gate.complete(null);
+        });
+    }
+
+    @Test
+    void drainsOnShutdown() {
+        AtomicBoolean virtualDone = new AtomicBoolean();
+        AtomicBoolean platformDone = new AtomicBoolean();
+        runner.run(context -> {
+            context.getBean("io", AsyncTaskExecutor.class).execute(() -> sleepThen(virtualDone));
+            context.getBean("cpu", AsyncTaskExecutor.class).execute(() -> sleepThen(platformDone));
+        });
+        Assertions.assertTrue(virtualDone.get());
+        Assertions.assertTrue(platformDone.get());
+    }
+
+    private static void sleepThen(AtomicBoolean done) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(500);
+            done.set(true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @EnableStarter
+    static class EnabledApp {
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.starter;
+
+import com.example.starter.aot.CacheableTypesAotProcessor;
+import com.example.starter.aot.StarterRuntimeHints;
+import com.example.starter.cache.CacheInvalidation;
+import com.example.starter.cache.TieredCacheManager;
+import com.example.starter.config.Prop;
+import com.example.starter.executor.ExecutorsConfig;
+import com.example.starter.executor.ExecutorsProperties;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.generate.ClassNameGenerator;
+import org.springframework.aot.generate.DefaultGenerationContext;
+import org.springframework.aot.generate.InMemoryGeneratedFiles;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.javapoet.ClassName;
+
+import java.util.Properties;
+
+/**
+ * AOT相关测试
+ * 1.编译时生成的自动配置元数据包含各配置类的条件
+ * 2.配置类和失效通知的反射信息
+ * 3.执行器bean使用工厂方法定义(AOT可以为其生成代码, 实例Supplier不行)
+ * 4.缓存值类型的反射信息只来自bean自身声明的public方法
+ *
+ * @author luminion
+ */
+public class TestStarterAot {
+
+    @Test
+    void autoConfigureMetadataGenerated() throws Exception {
+        Properties metadata = PropertiesLoaderUtils.loadProperties(new ClassPathResource("META-INF/spring-autoconfigure-metadata.properties"));
+        Assertions.assertEquals("org.springframework.data.redis.core.RedisTemplate",
+                metadata.getProperty("com.example.starter.cache.TieredCacheConfig.ConditionalOnClass"));
+        Assertions.assertTrue(metadata.getProperty("com.example.starter.cache.TieredCacheConfig.AutoConfigureBefore")
+                .contains("CacheAutoConfiguration"));
+    }
+
+    @Test
+    void registersReflectionHints() {
+        RuntimeHints hints = new RuntimeHints();
+        new StarterRuntimeHints().registerHints(hints, getClass().getClassLoader());
+        Assertions.assertTrue(RuntimeHintsPredicates.reflection().onType(Prop.class).test(hints));
+        Assertions.assertTrue(RuntimeHintsPredicates.reflection().onType(ExecutorsProperties.Pool.class).test(hints));
+        Assertions.assertTrue(RuntimeHintsPredicates.reflection().onType(CacheInvalidation.class).test(hints));
+    }
+
+    @Test
+    void cacheableTypesFromDeclaredPublicMethods() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("cacheManager", new RootBeanDefinition(TieredCacheManager.class));
+        beanFactory.registerBeanDefinition("cachedService", new RootBeanDefinition(CachedService.class));
+        DefaultGenerationContext generationContext = new DefaultGenerationContext(
+                new ClassNameGenerator(ClassName.get(getClass())), new InMemoryGeneratedFiles());
+        new CacheableTypesAotProcessor().processAheadOfTime(beanFactory).applyTo(generationContext, null);
+        RuntimeHints hints = generationContext.getRuntimeHints();
+        Assertions.assertTrue(RuntimeHintsPredicates.reflection().onType(CachedValue.class).test(hints));
+        Assertions.assertFalse(RuntimeHintsPredicates.reflection().onType(InternalValue.class).test(hints));
+    }
+
+    @Test
+    void executorsUseFactoryMethods() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(StarterAutoConfig.class, ExecutorsConfig.class))
+                .withPropertyValues("luminion.executors.enabled=true", "luminion.executors.pools.io.type=virtual")
+                .run(context -> {
+                    BeanDefinition definition = context.getBeanFactory().getBeanDefinition("io");
+                    Assertions.assertEquals("namedExecutorFactory", definition.getFactoryBeanName());
+                    Assertions.assertEquals("create", definition.getFactoryMethodName());
+                });
+    }
+
+    @Cacheable("values")
+    public static class CachedService {
+
+        public CachedValue value() {
+            return new CachedValue("value");
+        }
+
+        private InternalValue internal() {
+            return new InternalValue("internal");
+        }
+    }
+
+    public record CachedValue(String name) {
+    }
+
+    public record InternalValue(String name) {
+    }
+}
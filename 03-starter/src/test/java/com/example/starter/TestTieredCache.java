@@ -0,0 +1,255 @@
+package com.example.starter;
+
+import com.example.starter.cache.CacheInvalidation;
+import com.example.starter.cache.InvalidationBus;
+import com.example.starter.cache.LocalCache;
+import com.example.starter.cache.RemoteCache;
+import com.example.starter.cache.TieredCache;
+import com.example.starter.cache.TieredCacheConfig;
+import com.example.starter.cache.TieredCacheManager;
+import com.example.starter.cache.TieredCacheProperties;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 多级缓存测试
+ * 使用内存中的RemoteCache和InvalidationBus代替redis, 两个TieredCacheManager共享同一个实例, 模拟两个节点
+ *
+ * @author luminion
+ */
+public class TestTieredCache {
+
+    @Test
+    void readsThroughTiers() {
+        InMemoryRedis redis = new InMemoryRedis();
+        TieredCache node1 = (TieredCache) manager(redis).getCache("users");
+        TieredCache node2 = (TieredCache) manager(redis).getCache("users");
+        node1.put(1L, "tom");
+        // 节点2的一级缓存没有, 从二级缓存读取并回填
+        Assertions.assertEquals("tom", node2.get(1L, String.class));
+        Assertions.assertEquals("tom", node2.get(1L, String.class));
+        Assertions.assertEquals(1, node2.getStats().getRemoteHits());
+        Assertions.assertEquals(1, node2.getStats().getLocalHits());
+    }
+
+    @Test
+    void invalidatesOtherNodes() {
+        InMemoryRedis redis = new InMemoryRedis();
+        TieredCache node1 = (TieredCache) manager(redis).getCache("users");
+        TieredCache node2 = (TieredCache) manager(redis).getCache("users");
+        node1.put(1L, "tom");
+        Assertions.assertEquals("tom", node2.get(1L, String.class));
+        // 节点1更新后, 节点2的一级缓存被删除, 读到新值
+        node1.put(1L, "jerry");
+        Assertions.assertEquals("jerry", node2.get(1L, String.class));
+        node1.evict(1L);
+        Assertions.assertNull(node2.get(1L));
+        Assertions.assertEquals(2, node2.getStats().getInvalidationsReceived());
+    }
+
+    /**
+     * 从redis读到旧值后, 回填一级缓存前本节点删除了该键, 旧值不能留在一级缓存中
+     */
+    @Test
+    void localEvictDuringRemoteRead() throws Exception {
+        CountDownLatch read = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        InMemoryRedis redis = new InMemoryRedis() {
+            @Override
+            public Object get(String key) {
+                Object value = super.get(key);
+                read.countDown();
+                try {
+                    evicted.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return value;
+            }
+        };
+        TieredCache cache = (TieredCache) manager(redis).getCache("users");
+        cache.put(1L, "tom");
+        cache.getNativeCache().invalidate("1");
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> stale = executor.submit(() -> cache.get(1L, String.class));
+            read.await();
+            cache.evict(1L);
+            evicted.countDown();
+            Assertions.assertEquals("tom", stale.get());
+        }
+        Assertions.assertNull(cache.getNativeCache().get("1"));
+    }
+
+    @Test
+    void coalescesColdKeyLoads() throws Exception {
+        TieredCache cache = (TieredCache) manager(new InMemoryRedis()).getCache("users");
+        AtomicInteger loads = new AtomicInteger();
+        int threads = 200;
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < threads; i++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    cache.get(1L, () -> {
+                        loads.incrementAndGet();
+                        TimeUnit.MILLISECONDS.sleep(50);
+                        return "tom";
+                    });
+                });
+            }
+            start.countDown();
+        }
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(1, cache.getStats().getLoads());
+    }
+
+    /**
+     * 热点key被反复访问后, 一次性扫描大量新key不会把它们挤出缓存(纯LRU会全部淘汰)
+     */
+    @Test
+    void admissionKeepsHotKeys() {
+        LocalCache<Integer, Integer> cache = new LocalCache<>(1000);
+        for (int round = 0; round < 10; round++) {
+            for (int key = 0; key < 500; key++) {
+                if (cache.get(key) == null) {
+                    cache.put(key, key, 0);
+                }
+            }
+        }
+        for (int key = 10_000; key < 20_000; key++) {
+            cache.put(key, key, 0);
+        }
+        long retained = 0;
+        for (int key = 0; key < 500; key++) {
+            if (cache.get(key) != null) {
+                retained++;
+            }
+        }
+        System.out.printf("扫描10000个新key后, 500个热点key保留: %d, 容量淘汰: %d%n", retained, cache.sizeEvictions());
+        Assertions.assertTrue(retained > 450);
+        Assertions.assertTrue(cache.size() <= 1000);
+    }
+
+    @Test
+    void expiresEntries() throws InterruptedException {
+        LocalCache<String, String> cache = new LocalCache<>(100);
+        cache.put("a", "1", TimeUnit.MILLISECONDS.toNanos(20));
+        Assertions.assertEquals("1", cache.get("a"));
+        TimeUnit.MILLISECONDS.sleep(40);
+        Assertions.assertNull(cache.get("a"));
+        Assertions.assertEquals(1, cache.expirations());
+    }
+
+    @Test
+    void worksWithCacheable() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(StarterAutoConfig.class, TieredCacheConfig.class))
+                .withUserConfiguration(CachingConfig.class)
+                .withPropertyValues("luminion.cache.enabled=true")
+                .run(context -> {
+                    Assertions.assertInstanceOf(TieredCacheManager.class, context.getBean(CacheManager.class));
+                    UserService service = context.getBean(UserService.class);
+                    Assertions.assertEquals("user1", service.find(1L));
+                    Assertions.assertEquals("user1", service.find(1L));
+                    Assertions.assertEquals(1, service.calls.get());
+                });
+    }
+
+    private static TieredCacheManager manager(InMemoryRedis redis) {
+        TieredCacheProperties properties = new TieredCacheProperties();
+        properties.setLocalTtl(Duration.ofMinutes(1));
+        TieredCacheManager manager = new TieredCacheManager(properties, redis, redis, List.of());
+        manager.afterPropertiesSet();
+        return manager;
+    }
+
+    @Configuration
+    @EnableCaching
+    static class CachingConfig {
+
+        @Bean
+        InMemoryRedis inMemoryRedis() {
+            return new InMemoryRedis();
+        }
+
+        @Bean
+        UserService userService() {
+            return new UserService();
+        }
+    }
+
+    static class UserService {
+
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Cacheable(cacheNames = "users", sync = true)
+        public String find(Long id) {
+            calls.incrementAndGet();
+            return "user" + id;
+        }
+    }
+
+    /**
+     * 内存中的redis替身, 同时实现二级缓存和发布订阅
+     */
+    static class InMemoryRedis implements RemoteCache, InvalidationBus {
+
+        private final Map<String, Object> data = new ConcurrentHashMap<>();
+
+        private final List<Consumer<CacheInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Object get(String key) {
+            return data.get(key);
+        }
+
+        @Override
+        public void put(String key, Object value, Duration ttl) {
+            data.put(key, value);
+        }
+
+        @Override
+        public void evict(String key) {
+            data.remove(key);
+        }
+
+        @Override
+        public void clear(String prefix) {
+            data.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+
+        @Override
+        public void publish(CacheInvalidation invalidation) {
+            subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+        }
+
+        @Override
+        public void subscribe(Consumer<CacheInvalidation> listener) {
+            subscribers.add(listener);
+        }
+    }
+}
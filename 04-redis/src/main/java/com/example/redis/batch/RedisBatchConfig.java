@@ -0,0 +1,32 @@
+package com.example.redis.batch;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * 批量/管道访问redis的配置
+ * luminion.redis-batch.enabled=true时启用
+ *
+ * @author luminion
+ */
+@Configuration
+@EnableConfigurationProperties(RedisBatchProperties.class)
+@ConditionalOnProperty(prefix = "luminion.redis-batch", name = "enabled", havingValue = "true")
+public class RedisBatchConfig {
+
+    /**
+     * 使用SerializeConfig中的redisTemplate, 与其共用序列化器
+     *
+     * @param redisTemplate redisTemplate
+     * @param properties    配置
+     * @return {@link RedisBatcher }
+     * @author luminion
+     */
+    @Bean
+    public RedisBatcher redisBatcher(RedisTemplate<Object, Object> redisTemplate, RedisBatchProperties properties) {
+        return new RedisBatcher(redisTemplate, properties);
+    }
+}
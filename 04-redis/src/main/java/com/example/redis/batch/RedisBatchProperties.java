@@ -0,0 +1,36 @@
+package com.example.redis.batch;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 批量/管道访问redis的配置
+ *
+ * @author luminion
+ */
+@Data
+@ConfigurationProperties(prefix = "luminion.redis-batch")
+public class RedisBatchProperties {
+
+    /**
+     * 是否启用RedisBatcher
+     */
+    private boolean enabled = false;
+
+    /**
+     * 收到第一个命令后最多再等待多久以合并更多命令, 0表示不等待(只合并上一批执行期间积累的命令)
+     */
+    private Duration window = Duration.ZERO;
+
+    /**
+     * 一次管道最多发送的命令数
+     */
+    private int maxBatchSize = 512;
+
+    /**
+     * 等待发送的命令队列容量, 满时提交命令的线程阻塞等待
+     */
+    private int queueCapacity = 10_000;
+}
@@ -0,0 +1,292 @@
+package com.example.redis.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 批量访问redis的门面
+ * 每次redisTemplate.opsForValue().get/set都是一次网络往返, 一个页面几十次调用就要付出几十倍的RTT
+ *
+ * 1.自动管道: get/set/increment/delete返回CompletableFuture, 命令先进入队列, 由发送线程合并为一次管道(pipeline)发送;
+ *   上一批执行期间积累的命令自动合并为下一批, 并发越高批量越大; 配置window后还会等待更多命令
+ *   单个发送线程按提交顺序发送, 同一线程先set后get能读到自己写入的值
+ *   管道中某条命令失败时只有该命令的future异常完成, 其他命令正常返回结果
+ * 2.显式批量: multiGet(MGET) / multiSet(MSET, 带过期时间时使用管道)
+ * 3.原子的自增并读取: incrementAndGet使用lua脚本, 自增和首次设置过期时间在一次调用中原子完成(可用于限流计数)
+ *
+ * 键和值使用redisTemplate的序列化器, 与直接使用redisTemplate写入的数据互通
+ *
+ * @author luminion
+ */
+@Slf4j
+public class RedisBatcher implements SmartLifecycle {
+
+    private static final RedisScript<Long> INCREMENT_SCRIPT = RedisScript.of(new ClassPathResource("lua/increment-and-get.lua"), Long.class);
+
+    private final RedisTemplate<Object, Object> redisTemplate;
+
+    private final RedisSerializer<Object> keySerializer;
+
+    private final RedisSerializer<Object> valueSerializer;
+
+    private final BlockingQueue<Command> queue;
+
+    private final int maxBatchSize;
+
+    private final long windowNanos;
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder commands = new LongAdder();
+
+    private volatile boolean running;
+
+    private Thread sender;
+
+    @SuppressWarnings("unchecked")
+    public RedisBatcher(RedisTemplate<Object, Object> redisTemplate, RedisBatchProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.keySerializer = (RedisSerializer<Object>) redisTemplate.getKeySerializer();
+        this.valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.maxBatchSize = properties.getMaxBatchSize();
+        this.windowNanos = properties.getWindow().toNanos();
+    }
+
+    public CompletableFuture<Object> get(Object key) {
+        byte[] rawKey = keySerializer.serialize(key);
+        return submit(connection -> connection.stringCommands().get(rawKey));
+    }
+
+    public CompletableFuture<Boolean> set(Object key, Object value) {
+        byte[] rawKey = keySerializer.serialize(key);
+        byte[] rawValue = valueSerializer.serialize(value);
+        return submit(connection -> connection.stringCommands().set(rawKey, rawValue));
+    }
+
+    public CompletableFuture<Boolean> set(Object key, Object value, Duration ttl) {
+        byte[] rawKey = keySerializer.serialize(key);
+        byte[] rawValue = valueSerializer.serialize(value);
+        return submit(connection -> connection.stringCommands().set(rawKey, rawValue, Expiration.from(ttl), RedisStringCommands.SetOption.upsert()));
+    }
+
+    public CompletableFuture<Long> increment(Object key) {
+        return increment(key, 1);
+    }
+
+    public CompletableFuture<Long> increment(Object key, long delta) {
+        byte[] rawKey = keySerializer.serialize(key);
+        return submit(connection -> connection.stringCommands().incrBy(rawKey, delta));
+    }
+
+    public CompletableFuture<Long> delete(Object key) {
+        byte[] rawKey = keySerializer.serialize(key);
+        return submit(connection -> connection.keyCommands().del(rawKey));
+    }
+
+    /**
+     * 一次读取多个键(MGET), 返回值与keys顺序一致, 不存在的键为null
+     *
+     * @param keys 键
+     * @return {@code List<Object> }
+     * @author luminion
+     */
+    public List<Object> multiGet(Collection<?> keys) {
+        return redisTemplate.opsForValue().multiGet(new ArrayList<>(keys));
+    }
+
+    /**
+     * 一次写入多个键(MSET)
+     *
+     * @param values 键值
+     * @author luminion
+     */
+    public void multiSet(Map<?, ?> values) {
+        redisTemplate.opsForValue().multiSet(values);
+    }
+
+    /**
+     * 一次写入多个键并设置过期时间(MSET不支持过期时间, 使用一次管道发送多个SET PX)
+     *
+     * @param values 键值
+     * @param ttl    过期时间
+     * @author luminion
+     */
+    public void multiSet(Map<?, ?> values, Duration ttl) {
+        Expiration expiration = Expiration.from(ttl);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            values.forEach((key, value) -> connection.stringCommands().set(keySerializer.serialize(key),
+                    valueSerializer.serialize(value), expiration, RedisStringCommands.SetOption.upsert()));
+            return null;
+        });
+    }
+
+    /**
+     * 原子地自增并返回自增后的值, 键第一次创建时设置过期时间
+     * 先INCR再EXPIRE需要两次往返, 且两者之间宕机会留下永不过期的键
+     *
+     * @param key   键
+     * @param delta 增量
+     * @param ttl   键第一次创建时的过期时间, null表示不过期
+     * @return long 自增后的值
+     * @author luminion
+     */
+    public long incrementAndGet(Object key, long delta, Duration ttl) {
+        Long value = redisTemplate.execute(INCREMENT_SCRIPT, RedisSerializer.string(), new GenericToStringSerializer<>(Long.class),
+                List.of(key), Long.toString(delta), Long.toString(ttl == null ? 0 : ttl.toMillis()));
+        return value == null ? 0 : value;
+    }
+
+    /**
+     * 已发送的管道数
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * 已发送的命令数
+     */
+    public long getCommands() {
+        return commands.sum();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> submit(Consumer<RedisConnection> command) {
+        if (!running) {
+            throw new IllegalStateException("RedisBatcher未启动");
+        }
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        Command queued = new Command(command, future);
+        try {
+            queue.put(queued);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+        }
+        // 与stop()并发: 发送线程可能已经退出, 命令仍在队列中时由提交线程取回
+        if (!running && queue.remove(queued)) {
+            future.completeExceptionally(new IllegalStateException("RedisBatcher已停止"));
+        }
+        return (CompletableFuture<T>) future;
+    }
+
+    private void run() {
+        List<Command> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Command first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                if (windowNanos > 0) {
+                    long deadline = System.nanoTime() + windowNanos;
+                    while (batch.size() < maxBatchSize) {
+                        Command next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            send(batch);
+            batch.clear();
+        }
+    }
+
+    private void send(List<Command> batch) {
+        try {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Command command : batch) {
+                    command.command().accept(connection);
+                }
+                return null;
+            });
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future().complete(results.get(i));
+            }
+        } catch (RedisPipelineException e) {
+            // 部分命令失败: 按各自的结果完成, 失败的结果为异常
+            List<Object> results = e.getResults();
+            log.warn("redis管道中有命令执行失败, 命令数: {}", batch.size(), e);
+            for (int i = 0; i < batch.size(); i++) {
+                CompletableFuture<Object> future = batch.get(i).future();
+                Object result = i < results.size() ? results.get(i) : e;
+                if (result instanceof Throwable failure) {
+                    future.completeExceptionally(failure);
+                } else {
+                    future.complete(result instanceof byte[] bytes ? valueSerializer.deserialize(bytes) : result);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("redis管道执行失败, 命令数: {}", batch.size(), e);
+            batch.forEach(command -> command.future().completeExceptionally(e));
+        }
+        batches.increment();
+        commands.add(batch.size());
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        sender = Thread.ofVirtual().name("redis-batcher").start(this::run);
+    }
+
+    /**
+     * 停止接收新命令, 并等待队列中的命令发送完成; 发送线程退出后仍在队列中的命令异常完成
+     */
+    @Override
+    public void stop() {
+        running = false;
+        if (sender != null) {
+            try {
+                sender.join(Duration.ofSeconds(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<Command> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        rest.forEach(command -> command.future().completeExceptionally(new IllegalStateException("RedisBatcher已停止")));
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 每个命令只能执行一条redis命令, 管道返回的结果与命令一一对应
+     */
+    private record Command(Consumer<RedisConnection> command, CompletableFuture<Object> future) {
+    }
+}
@@ -1,16 +1,20 @@
 package com.example.redis.config;
 
+import com.example.redis.serializer.BinaryRedisSerializer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
 /**
  * redis的默认序列化策略为JdkSerializationRedisSerializer,
  * 若需要序列化的类没有实现serializable接口，则会报错
  * 这个序列化策略的缺点是：储存在redis中的数据是乱码的,无法通过可视化工具查看
  * 此处使用json序列化策略
+ * 启用luminion.redis-serializer时使用紧凑的二进制序列化策略(BinaryRedisSerializer)
  * @author luminion
  */
 @Configuration
@@ -23,13 +27,24 @@ public class SerializeConfig {
      * 若未指定泛型, 则在使用时可以指定任意泛型
      *
      * @param redisConnectionFactory redis连接工厂(默认为lettuce,可通过配置文件更改)
+     * @param binaryRedisSerializer  二进制序列化器(luminion.redis-serializer.enabled=true时存在)
      * @return {@link RedisTemplate }<{@link Object }, {@link Object }>
      * @author luminion
      */
     @Bean
-    public RedisTemplate<Object, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory) {
+    public RedisTemplate<Object, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory,
+                                                       ObjectProvider<BinaryRedisSerializer> binaryRedisSerializer) {
         RedisTemplate<Object, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(redisConnectionFactory);
+        BinaryRedisSerializer binary = binaryRedisSerializer.getIfAvailable();
+        if (binary != null) {
+            //键使用字符串, 值使用二进制
+            template.setKeySerializer(RedisSerializer.string());
+            template.setHashKeySerializer(RedisSerializer.string());
+            template.setValueSerializer(binary);
+            template.setHashValueSerializer(binary);
+            return template;
+        }
         //把对象转为json字符串的序列化工具
         template.setDefaultSerializer(new GenericJackson2JsonRedisSerializer());
         return template;
@@ -0,0 +1,84 @@
+package com.example.redis.controller;
+
+import com.example.redis.batch.RedisBatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+/**
+ * 对比逐个访问redis与批量/管道访问
+ * 模拟一个页面需要读取多个键(例如商品列表的每个商品)
+ *
+ * @author luminion
+ */
+@RestController
+@ConditionalOnProperty(prefix = "luminion.redis-batch", name = "enabled", havingValue = "true")
+public class BatchController {
+
+    @Autowired
+    private RedisTemplate<Object, Object> redisTemplate;
+
+    @Autowired
+    private RedisBatcher redisBatcher;
+
+    @GetMapping("/batch/init/{size:\\d+}")
+    public String init(@PathVariable int size) {
+        Map<String, Integer> values = new LinkedHashMap<>();
+        IntStream.range(0, size).forEach(i -> values.put("item:" + i, i));
+        redisBatcher.multiSet(values, Duration.ofHours(1));
+        return "ok";
+    }
+
+    /**
+     * 逐个读取, 每个键一次往返
+     */
+    @GetMapping("/batch/naive")
+    public List<Object> naive(@RequestParam(defaultValue = "20") int size) {
+        List<Object> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(redisTemplate.opsForValue().get("item:" + i));
+        }
+        return items;
+    }
+
+    /**
+     * 自动管道: 先发出所有读取, 再等待结果, 与其他请求的命令合并发送
+     */
+    @GetMapping("/batch/pipelined")
+    public List<Object> pipelined(@RequestParam(defaultValue = "20") int size) {
+        List<CompletableFuture<Object>> futures = IntStream.range(0, size)
+                .mapToObj(i -> redisBatcher.get("item:" + i))
+                .toList();
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    /**
+     * MGET, 一次往返
+     */
+    @GetMapping("/batch/mget")
+    public List<Object> multiGet(@RequestParam(defaultValue = "20") int size) {
+        return redisBatcher.multiGet(IntStream.range(0, size).mapToObj(i -> "item:" + i).toList());
+    }
+
+    /**
+     * 固定窗口限流计数: 自增与首次设置过期时间在一个lua脚本中原子完成
+     */
+    @GetMapping("/batch/count")
+    public String count() {
+        long minute = System.currentTimeMillis() / 60_000;
+        long count = redisBatcher.incrementAndGet("count:" + minute, 1, Duration.ofMinutes(1));
+        return "本分钟访问了【" + count + "】次";
+    }
+}
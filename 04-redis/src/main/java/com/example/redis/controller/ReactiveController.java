@@ -0,0 +1,78 @@
+package com.example.redis.controller;
+
+import com.example.redis.counter.CounterService;
+import com.example.redis.entitiy.User;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 与TestController相同的接口, 使用响应式redis(ReactiveRedisTemplate + lettuce)
+ * 阻塞版本在等待redis响应时占用一个tomcat线程和一个jedis连接; 响应式版本返回Mono, 等待期间不占用线程,
+ * 所有请求的命令在共享的lettuce连接上管道化发送
+ *
+ * @author luminion
+ */
+@RestController
+@RequestMapping("/reactive")
+@ConditionalOnProperty(prefix = "luminion.reactive-redis", name = "enabled", havingValue = "true")
+public class ReactiveController {
+
+    @Autowired
+    private ReactiveRedisTemplate<Object, Object> reactiveRedisTemplate;
+
+    /**
+     * 计数器服务(luminion.counter.enabled=true时存在), 与TestController的/count使用同一组分片键
+     */
+    @Autowired(required = false)
+    private CounterService counterService;
+
+    /**
+     * 与/count计数一致: 启用计数器服务时委托给CounterService(本地累计, 读取时可能访问redis, 在boundedElastic线程执行),
+     * 否则与/count相同, 直接INCR count键
+     */
+    @GetMapping("/count")
+    public Mono<String> count(HttpServletRequest request) {
+        if (counterService != null) {
+            String visitor = request.getRemoteAddr();
+            return Mono.fromCallable(() -> {
+                        counterService.increment("count");
+                        counterService.addVisitor("count", visitor);
+                        return "访问了【" + counterService.get("count") + "】次, 独立访客【" + counterService.uniqueVisitors("count") + "】";
+                    })
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+        return reactiveRedisTemplate.opsForValue().increment("count")
+                .map(count -> "访问了【" + count + "】次");
+    }
+
+    @GetMapping("/num/{num:\\d+}")
+    public Mono<String> saveNum(@PathVariable Integer num) {
+        return reactiveRedisTemplate.opsForValue().set("number", num).thenReturn("ok");
+    }
+
+    @GetMapping("/num")
+    public Mono<Object> getNum() {
+        return reactiveRedisTemplate.opsForValue().get("number");
+    }
+
+    @GetMapping("/user/{age:\\d+}")
+    public Mono<String> saveUser(@PathVariable Integer age) {
+        User user = new User();
+        user.setAge(age);
+        user.setName("张三");
+        return reactiveRedisTemplate.opsForValue().set("user", user).thenReturn("ok");
+    }
+
+    @GetMapping("/user")
+    public Mono<Object> getUser() {
+        return reactiveRedisTemplate.opsForValue().get("user");
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.redis.controller;
 
+import com.example.redis.counter.CounterService;
 import com.example.redis.entitiy.User;
+import com.example.redis.near.NearCache;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,8 +20,25 @@ public class TestController {
     @Autowired
     private RedisTemplate<Object, Object> redisTemplate;
 
+    /**
+     * 近端缓存(luminion.near-cache.enabled=true时存在), 很少修改的键在本地缓存, 不必每次访问redis
+     */
+    @Autowired(required = false)
+    private NearCache nearCache;
+
+    /**
+     * 计数器服务(luminion.counter.enabled=true时存在), 本地累计后批量写入, 避免每次请求INCR同一个键
+     */
+    @Autowired(required = false)
+    private CounterService counterService;
+
     @GetMapping("/count")
-    public String count(){
+    public String count(HttpServletRequest request){
+        if (counterService != null) {
+            counterService.increment("count");
+            counterService.addVisitor("count", request.getRemoteAddr());
+            return "访问了【" + counterService.get("count") + "】次, 独立访客【" + counterService.uniqueVisitors("count") + "】";
+        }
         Long count = redisTemplate.opsForValue().increment("count");
         //常见数据类型  k: v value可以有很多类型
         //string： 普通字符串 ： redisTemplate.opsForValue()
@@ -34,13 +54,13 @@ public class TestController {
     @GetMapping("/num/{num:\\d+}")
     public String saveNum(@PathVariable Integer num){
         //1、序列化： 对象转为字符串方式
-        redisTemplate.opsForValue().set("number",num);
+        set("number",num);
         return "ok";
     }
 
     @GetMapping("/num")
     public Object getNum(){
-        return  redisTemplate.opsForValue().get("number");
+        return get("number");
     }
 
     @GetMapping("/user/{age:\\d+}")
@@ -49,13 +69,25 @@ public class TestController {
         User user = new User();
         user.setAge(age);
         user.setName("张三");
-        redisTemplate.opsForValue().set("user",user);
+        set("user",user);
         return "ok";
     }
 
     @GetMapping("/user")
     public Object getUser(){
-        return  redisTemplate.opsForValue().get("user");
+        return get("user");
+    }
+
+    private Object get(String key) {
+        return nearCache != null ? nearCache.get(key) : redisTemplate.opsForValue().get(key);
+    }
+
+    private void set(String key, Object value) {
+        if (nearCache != null) {
+            nearCache.set(key, value);
+        } else {
+            redisTemplate.opsForValue().set(key, value);
+        }
     }
 
 
@@ -0,0 +1,29 @@
+package com.example.redis.counter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 计数器配置
+ * luminion.counter.enabled=true时启用, TestController的/count改为使用计数器服务
+ * 计数器的值是纯数字, 使用StringRedisTemplate(springboot自动配置), 不受SerializeConfig中序列化器的影响
+ *
+ * @author luminion
+ */
+@Configuration
+@EnableConfigurationProperties(CounterProperties.class)
+@ConditionalOnProperty(prefix = "luminion.counter", name = "enabled", havingValue = "true")
+public class CounterConfig {
+
+    @Bean
+    public CounterService counterService(StringRedisTemplate stringRedisTemplate, CounterProperties properties,
+                                         ObjectProvider<MeterRegistry> registry) {
+        return new CounterService(stringRedisTemplate, properties, registry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.redis.counter;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 计数器配置
+ *
+ * @author luminion
+ */
+@Data
+@ConfigurationProperties(prefix = "luminion.counter")
+public class CounterProperties {
+
+    /**
+     * 是否启用计数器服务
+     */
+    private boolean enabled = false;
+
+    /**
+     * 本地累计的增量定期写入redis的间隔
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * 单个计数器本地累计的增量达到此值时立即写入, 0表示只按间隔写入
+     */
+    private long flushThreshold = 10_000;
+
+    /**
+     * 每个计数器在redis中拆分的子键数, 读取时求和; 1表示不拆分
+     * 多个节点同时写入时分散到不同的子键(集群模式下分布在不同节点), 避免单个热点键
+     */
+    private int shards = 1;
+
+    /**
+     * 读取模式
+     */
+    private ReadMode readMode = ReadMode.APPROXIMATE;
+
+    /**
+     * 计数器键前缀, 键为 前缀+名称[:子键序号]
+     */
+    private String keyPrefix = "counter:";
+
+    /**
+     * 独立访客(HyperLogLog)键前缀
+     */
+    private String uniqueKeyPrefix = "uv:";
+
+    public enum ReadMode {
+
+        /**
+         * 精确: 先写入本节点累计的增量, 再读取redis中所有子键(一次网络往返), 不包含其他节点尚未写入的增量
+         */
+        EXACT,
+
+        /**
+         * 近似: 不访问redis, 返回上次写入时读到的总数 + 本节点尚未写入的增量, 最多落后一个写入间隔
+         */
+        APPROXIMATE
+    }
+}
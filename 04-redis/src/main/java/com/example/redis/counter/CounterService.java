@@ -0,0 +1,440 @@
+package com.example.redis.counter;
+
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 高频计数器服务, 代替每次请求对同一个键INCR
+ * 每次INCR都是一次网络往返, 且所有节点的请求集中在一个键上(集群模式下集中在一个redis节点)
+ *
+ * 1.计数: 增量先累加到本地的LongAdder(多线程分段累加, 无竞争), 由写入线程定期(或单个计数器达到阈值时)写入redis
+ * 2.分片: shards>1时每次写入随机选择一个子键INCRBY, 读取时MGET所有子键求和
+ * 3.读取: EXACT先写入本节点的增量再读取redis; APPROXIMATE返回上次写入时的总数+本节点未写入的增量, 不访问redis
+ * 4.独立访客: 访客id先在本地去重, 写入时批量PFADD到HyperLogLog, 读取PFCOUNT(标准误差0.81%)
+ * 一次写入的所有命令(所有计数器的INCRBY/MGET, 所有访客的PFADD/PFCOUNT)在一次管道中发送
+ *
+ * 宕机时本地尚未写入的增量会丢失(最多一个写入间隔), 写入失败时增量放回本地, 下次重试;
+ * 响应超时时INCRBY可能已经执行, 增量不放回(避免重复计数), 计入总数, 由下次读取的总数校正
+ *
+ * 读取单调不减(计数只增加时): 取出等待写入的增量(in-flight)和写入后更新总数都在计数器的锁内完成,
+ * 读取返回 总数 + 写入中的增量 + 本地未写入的增量; 写入(定时写入, 第一次读取, 精确读取)串行执行, 总数按写入顺序更新
+ *
+ * 指标:
+ * counter.increments:        本地计数次数
+ * counter.redis.commands:    发送的redis命令数
+ * counter.redis.round.trips: 网络往返(管道)次数
+ * counter.flush:             单次写入耗时
+ *
+ * @author luminion
+ */
+@Slf4j
+public class CounterService implements SmartLifecycle {
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final CounterProperties properties;
+
+    private final Map<String, LocalCounter> counters = new ConcurrentHashMap<>();
+
+    private final Map<String, LocalUnique> uniques = new ConcurrentHashMap<>();
+
+    private final LongAdder increments = new LongAdder();
+
+    private final LongAdder commands = new LongAdder();
+
+    private final LongAdder roundTrips = new LongAdder();
+
+    private final Timer flushTimer;
+
+    /**
+     * 写入串行执行, 同一计数器同时只有一批增量在写入, 后一次写入读到的总数不早于前一次
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private volatile boolean running;
+
+    private Thread flusher;
+
+    public CounterService(StringRedisTemplate redisTemplate, CounterProperties properties, MeterRegistry registry) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        FunctionCounter.builder("counter.increments", increments, LongAdder::sum).register(registry);
+        FunctionCounter.builder("counter.redis.commands", commands, LongAdder::sum).register(registry);
+        FunctionCounter.builder("counter.redis.round.trips", roundTrips, LongAdder::sum).register(registry);
+        this.flushTimer = Timer.builder("counter.flush").register(registry);
+    }
+
+    public void increment(String name) {
+        add(name, 1);
+    }
+
+    public void add(String name, long delta) {
+        LocalCounter counter = counters.computeIfAbsent(name, LocalCounter::new);
+        counter.pending.add(delta);
+        increments.increment();
+        if (properties.getFlushThreshold() > 0 && counter.pending.sum() >= properties.getFlushThreshold()) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    /**
+     * 读取计数器的值(按luminion.counter.read-mode)
+     *
+     * @param name 名称
+     * @return long
+     * @author luminion
+     */
+    public long get(String name) {
+        LocalCounter counter = counters.computeIfAbsent(name, LocalCounter::new);
+        if (properties.getReadMode() == CounterProperties.ReadMode.EXACT) {
+            flush(List.of(counter), List.of());
+            return counter.value();
+        }
+        // 下次写入时刷新总数
+        counter.read = true;
+        if (!counter.loaded) {
+            // 第一次读取时从redis加载
+            flush(List.of(counter), List.of());
+        }
+        return counter.value();
+    }
+
+    /**
+     * 记录访客
+     *
+     * @param name    名称
+     * @param visitor 访客id(例如用户id, ip)
+     * @author luminion
+     */
+    public void addVisitor(String name, String visitor) {
+        uniques.computeIfAbsent(name, LocalUnique::new).pending.add(visitor);
+    }
+
+    /**
+     * 独立访客数(HyperLogLog估算), 读取模式同计数器
+     */
+    public long uniqueVisitors(String name) {
+        LocalUnique unique = uniques.computeIfAbsent(name, LocalUnique::new);
+        unique.read = true;
+        if (properties.getReadMode() == CounterProperties.ReadMode.EXACT || !unique.loaded) {
+            flush(List.of(), List.of(unique));
+        }
+        return unique.count;
+    }
+
+    /**
+     * 将所有计数器的增量和访客写入redis, 并刷新读取过的值
+     */
+    public void flush() {
+        List<LocalCounter> dirtyCounters = counters.values().stream()
+                .filter(counter -> counter.read || counter.pending.sum() != 0)
+                .toList();
+        List<LocalUnique> dirtyUniques = uniques.values().stream()
+                .filter(unique -> unique.read || !unique.pending.isEmpty())
+                .toList();
+        if (!dirtyCounters.isEmpty() || !dirtyUniques.isEmpty()) {
+            flush(dirtyCounters, dirtyUniques);
+        }
+    }
+
+    private void flush(Collection<LocalCounter> flushCounters, Collection<LocalUnique> flushUniques) {
+        flushLock.lock();
+        long start = System.nanoTime();
+        // 每条命令的结果处理, 与管道返回的结果一一对应
+        List<Consumer<Object>> handlers = new ArrayList<>();
+        // 写入失败时的处理, 参数为是否响应超时
+        List<Consumer<Boolean>> failures = new ArrayList<>();
+        try {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (LocalCounter counter : flushCounters) {
+                    writeCounter(connection, counter, handlers, failures);
+                }
+                for (LocalUnique unique : flushUniques) {
+                    writeUnique(connection, unique, handlers, failures);
+                }
+                return null;
+            });
+            for (int i = 0; i < handlers.size(); i++) {
+                handlers.get(i).accept(results.get(i));
+            }
+        } catch (Exception e) {
+            boolean timeout = isTimeout(e);
+            failures.forEach(failure -> failure.accept(timeout));
+            log.warn(timeout ? "计数器写入redis响应超时, 增量可能已写入, 不再重试" : "计数器写入redis失败, 增量已放回本地, 下次重试", e);
+        } finally {
+            commands.add(handlers.size());
+            roundTrips.increment();
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            flushLock.unlock();
+        }
+    }
+
+    private void writeCounter(RedisConnection connection, LocalCounter counter, List<Consumer<Object>> handlers, List<Consumer<Boolean>> failures) {
+        long delta = counter.drain();
+        if (delta != 0) {
+            byte[] key = bytes(shardKey(counter.name, ThreadLocalRandom.current().nextInt(properties.getShards())));
+            connection.stringCommands().incrBy(key, delta);
+            handlers.add(result -> {
+            });
+            failures.add(timeout -> counter.fail(delta, timeout));
+        }
+        counter.read = false;
+        if (properties.getShards() == 1) {
+            connection.stringCommands().get(bytes(shardKey(counter.name, 0)));
+            handlers.add(result -> counter.complete(delta, result == null ? 0 : Long.parseLong((String) result)));
+            return;
+        }
+        byte[][] keys = new byte[properties.getShards()][];
+        for (int shard = 0; shard < keys.length; shard++) {
+            keys[shard] = bytes(shardKey(counter.name, shard));
+        }
+        connection.stringCommands().mGet(keys);
+        handlers.add(result -> {
+            long total = 0;
+            for (Object value : (List<?>) result) {
+                total += value == null ? 0 : Long.parseLong((String) value);
+            }
+            counter.complete(delta, total);
+        });
+    }
+
+    private void writeUnique(RedisConnection connection, LocalUnique unique, List<Consumer<Object>> handlers, List<Consumer<Boolean>> failures) {
+        byte[] key = bytes(properties.getUniqueKeyPrefix() + unique.name);
+        // 逐个取出, 取出期间新加入的访客留到下次写入
+        List<byte[]> visitors = new ArrayList<>();
+        List<String> drained = new ArrayList<>();
+        for (Iterator<String> iterator = unique.pending.iterator(); iterator.hasNext(); ) {
+            String visitor = iterator.next();
+            iterator.remove();
+            drained.add(visitor);
+            visitors.add(bytes(visitor));
+        }
+        if (!visitors.isEmpty()) {
+            connection.hyperLogLogCommands().pfAdd(key, visitors.toArray(byte[][]::new));
+            handlers.add(result -> {
+            });
+            // PFADD重复执行不影响结果, 超时也放回
+            failures.add(timeout -> unique.pending.addAll(drained));
+        }
+        unique.read = false;
+        connection.hyperLogLogCommands().pfCount(key);
+        handlers.add(result -> {
+            unique.count = (Long) result;
+            unique.loaded = true;
+        });
+    }
+
+    /**
+     * 是否响应超时(命令可能已经执行)
+     */
+    private static boolean isTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof QueryTimeoutException || cause instanceof SocketTimeoutException
+                    || cause instanceof TimeoutException || cause instanceof RedisCommandTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String shardKey(String name, int shard) {
+        return properties.getShards() == 1 ? properties.getKeyPrefix() + name : properties.getKeyPrefix() + name + ":" + shard;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void run() {
+        long intervalNanos = properties.getFlushInterval().toNanos();
+        while (running) {
+            LockSupport.parkNanos(this, intervalNanos);
+            try {
+                flush();
+            } catch (Exception e) {
+                log.warn("计数器写入失败", e);
+            }
+        }
+    }
+
+    public long getIncrements() {
+        return increments.sum();
+    }
+
+    public long getRedisCommands() {
+        return commands.sum();
+    }
+
+    public long getRoundTrips() {
+        return roundTrips.sum();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        flusher = Thread.ofVirtual().name("counter-flusher").start(this::run);
+    }
+
+    /**
+     * 停止写入线程, 并写入剩余的增量
+     */
+    @Override
+    public void stop() {
+        running = false;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private static final class LocalCounter {
+
+        private final String name;
+
+        /**
+         * 本节点尚未写入redis的增量
+         */
+        private final LongAdder pending = new LongAdder();
+
+        /**
+         * 保护total和inFlight, 读取时使用乐观读
+         */
+        private final StampedLock lock = new StampedLock();
+
+        /**
+         * 上次写入时读到的redis中的总数
+         */
+        private long total;
+
+        /**
+         * 已从pending取出, 正在写入redis的增量
+         */
+        private long inFlight;
+
+        private volatile boolean loaded;
+
+        /**
+         * 是否需要在下次写入时刷新total(近似模式下被读取过)
+         */
+        private volatile boolean read;
+
+        LocalCounter(String name) {
+            this.name = name;
+        }
+
+        /**
+         * 读取: 总数 + 写入中的增量 + 未写入的增量
+         */
+        long value() {
+            long stamp = lock.tryOptimisticRead();
+            long value = total + inFlight + pending.sum();
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    value = total + inFlight + pending.sum();
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return value;
+        }
+
+        /**
+         * 取出未写入的增量, 转为写入中
+         */
+        long drain() {
+            long stamp = lock.writeLock();
+            try {
+                long delta = pending.sumThenReset();
+                inFlight += delta;
+                return delta;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * 写入成功, 读到的总数已包含本次增量
+         */
+        void complete(long delta, long total) {
+            long stamp = lock.writeLock();
+            try {
+                this.total = total;
+                this.inFlight -= delta;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            this.loaded = true;
+        }
+
+        /**
+         * 写入失败: 增量放回本地; 响应超时时INCRBY可能已经执行, 计入总数, 由下次读取的总数校正
+         */
+        void fail(long delta, boolean timeout) {
+            long stamp = lock.writeLock();
+            try {
+                this.inFlight -= delta;
+                if (timeout) {
+                    this.total += delta;
+                } else {
+                    pending.add(delta);
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    private static final class LocalUnique {
+
+        private final String name;
+
+        private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+        private volatile long count;
+
+        private volatile boolean loaded;
+
+        private volatile boolean read;
+
+        LocalUnique(String name) {
+            this.name = name;
+        }
+    }
+}
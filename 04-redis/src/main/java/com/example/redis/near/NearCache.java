@@ -0,0 +1,409 @@
+package com.example.redis.near;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * redis近端缓存: 在本地保存热点键的值, 读取时不访问redis
+ * 一致性由redis的键空间通知(__keyspace@db__:键)保证: 任何客户端修改/删除键, 或键过期/被淘汰时, 各节点收到通知后删除本地的值
+ *
+ * 1.读取: 本地命中直接返回; 未命中时先放入加载标记再读取redis, 读取完成后只有标记仍在(期间没有收到失效通知)才保存,
+ *   避免"读到旧值 -> 收到通知 -> 保存旧值"导致的长期不一致
+ * 2.写入: 写入redis并删除本地的值, 其他节点通过通知删除
+ * 3.容量: 超过maximumSize时按CLOCK(二次机会)淘汰, 最近被读取过的键获得一次保留机会
+ * 4.通知丢失时的兜底: 本地的值最多保留timeToLive; 订阅(重新)建立时清空本地的值, 断开期间错过的通知不会导致长期不一致
+ * 5.只缓存匹配keyPatterns的键(只有这些键会收到失效通知), 其他键直接读取redis
+ * 6.服务端未开启所需的键空间通知时(见NearCacheConfig)设置为旁路, 所有读取直接访问redis
+ *
+ * 本地按redis中实际存储的键(序列化后的字节)保存, 与通知中的键直接对应;
+ * keyPatterns为序列化前的键模式, 通过redisTemplate的键序列化器转换为redis中的键模式(例如json序列化时number -> "number")
+ *
+ * 指标(tag: cache=near):
+ * near.cache.gets(result=hit/miss): 读取次数, near.cache.hit.ratio: 命中率
+ * near.cache.invalidations: 收到的失效通知数, near.cache.evictions: 容量淘汰数, near.cache.size: 本地键数
+ * near.cache.staleness: 本节点写入到收到该键失效通知的时间, 即其他节点可能读到旧值的时间窗口
+ *
+ * @author luminion
+ */
+@Slf4j
+public class NearCache implements MessageListener, SubscriptionListener {
+
+    private final RedisTemplate<Object, Object> redisTemplate;
+
+    private final RedisSerializer<Object> keySerializer;
+
+    private final String channelPrefix;
+
+    private final int maximumSize;
+
+    private final long timeToLiveNanos;
+
+    /**
+     * redis中的键模式(序列化后), 用于订阅
+     */
+    private final List<String> rawPatterns;
+
+    /**
+     * 与rawPatterns对应的正则, 判断键是否会收到失效通知
+     */
+    private final List<Pattern> matchers;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * CLOCK淘汰顺序, 可能包含已失效的键(淘汰时跳过)
+     */
+    private final Queue<String> clock = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger clockSize = new AtomicInteger();
+
+    /**
+     * 本节点写入的键和写入时间, 收到通知时计算staleness
+     */
+    private final Map<String, Long> pendingWrites = new ConcurrentHashMap<>();
+
+    /**
+     * 旁路: 收不到失效通知时不使用本地缓存
+     */
+    private volatile boolean bypass;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final Counter invalidations;
+
+    private final Counter evictions;
+
+    private final Timer staleness;
+
+    /**
+     * @param redisTemplate redisTemplate
+     * @param properties    配置
+     * @param database      redis数据库编号, 用于匹配通知的频道
+     * @param registry      指标
+     */
+    @SuppressWarnings("unchecked")
+    public NearCache(RedisTemplate<Object, Object> redisTemplate, NearCacheProperties properties, int database, MeterRegistry registry) {
+        this.redisTemplate = redisTemplate;
+        this.keySerializer = (RedisSerializer<Object>) redisTemplate.getKeySerializer();
+        this.channelPrefix = "__keyspace@" + database + "__:";
+        this.maximumSize = properties.getMaximumSize();
+        this.timeToLiveNanos = properties.getTimeToLive().toNanos();
+        this.rawPatterns = properties.getKeyPatterns().stream().map(this::rawKey).toList();
+        this.matchers = rawPatterns.stream().map(NearCache::globToRegex).toList();
+        FunctionCounter.builder("near.cache.gets", hits, LongAdder::sum).tag("cache", "near").tag("result", "hit").register(registry);
+        FunctionCounter.builder("near.cache.gets", misses, LongAdder::sum).tag("cache", "near").tag("result", "miss").register(registry);
+        Gauge.builder("near.cache.hit.ratio", this, NearCache::hitRatio).tag("cache", "near").register(registry);
+        Gauge.builder("near.cache.size", entries, Map::size).tag("cache", "near").register(registry);
+        this.invalidations = Counter.builder("near.cache.invalidations").tag("cache", "near").register(registry);
+        this.evictions = Counter.builder("near.cache.evictions").tag("cache", "near").register(registry);
+        this.staleness = Timer.builder("near.cache.staleness").tag("cache", "near").publishPercentiles(0.5, 0.99).register(registry);
+    }
+
+    /**
+     * 通知的频道前缀, 订阅模式为 前缀+键模式
+     */
+    public String getChannelPrefix() {
+        return channelPrefix;
+    }
+
+    /**
+     * 需要订阅的频道模式: 前缀 + 序列化后的键模式
+     * 订阅时频道按UTF-8编码, 这里按UTF-8解码序列化后的字节, 编码后与redis中的键一致
+     */
+    public List<String> getChannelPatterns() {
+        return rawPatterns.stream()
+                .map(raw -> channelPrefix + new String(raw.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8))
+                .toList();
+    }
+
+    /**
+     * 键是否会被缓存(匹配keyPatterns)
+     */
+    public boolean isCacheable(Object key) {
+        return isCacheableRaw(rawKey(key));
+    }
+
+    /**
+     * 设置旁路, 开启时清空本地缓存, 之后所有读取直接访问redis
+     */
+    public void setBypass(boolean bypass) {
+        this.bypass = bypass;
+        if (bypass) {
+            clear();
+        }
+    }
+
+    public boolean isBypass() {
+        return bypass;
+    }
+
+    /**
+     * 计算服务端notify-keyspace-events配置缺少的标志
+     *
+     * @param configured 服务端的配置(CONFIG GET notify-keyspace-events)
+     * @param required   需要的标志, 例如Kg$xe
+     * @return 缺少的标志, 为空时表示配置满足
+     * @author luminion
+     */
+    public static String missingKeyspaceEvents(String configured, String required) {
+        String current = configured == null ? "" : configured;
+        StringBuilder missing = new StringBuilder();
+        for (char flag : required.toCharArray()) {
+            // A为g$lshzxetd的别名, 不包含K,E
+            boolean covered = current.indexOf(flag) >= 0 || (current.indexOf('A') >= 0 && "g$lshzxetd".indexOf(flag) >= 0);
+            if (!covered) {
+                missing.append(flag);
+            }
+        }
+        return missing.toString();
+    }
+
+    /**
+     * 读取键的值, 本地未命中时读取redis并保存到本地(包括不存在的键); 不匹配keyPatterns的键直接读取redis
+     *
+     * @param key 键
+     * @return {@link Object }
+     * @author luminion
+     */
+    public Object get(Object key) {
+        String rawKey = rawKey(key);
+        if (bypass || !isCacheableRaw(rawKey)) {
+            return redisTemplate.opsForValue().get(key);
+        }
+        Entry entry = entries.get(rawKey);
+        if (entry != null && !entry.loading && System.nanoTime() - entry.loadedAt < timeToLiveNanos) {
+            entry.referenced = true;
+            hits.increment();
+            return entry.value;
+        }
+        misses.increment();
+        Entry loading = new Entry(null, 0, true);
+        boolean owner = entry == null ? entries.putIfAbsent(rawKey, loading) == null
+                : !entry.loading && entries.replace(rawKey, entry, loading);
+        Object value = redisTemplate.opsForValue().get(key);
+        // 加载期间收到失效通知时标记已被删除, replace失败, 不保存读到的可能已过时的值
+        if (owner && entries.replace(rawKey, loading, new Entry(value, System.nanoTime(), false))) {
+            clock.offer(rawKey);
+            clockSize.incrementAndGet();
+            evictIfNecessary();
+        }
+        return value;
+    }
+
+    /**
+     * 写入redis并删除本地的值
+     *
+     * @param key   键
+     * @param value 值
+     * @author luminion
+     */
+    public void set(Object key, Object value) {
+        String rawKey = rawKey(key);
+        pendingWrites.put(rawKey, System.nanoTime());
+        redisTemplate.opsForValue().set(key, value);
+        entries.remove(rawKey);
+    }
+
+    /**
+     * 删除redis中的键并删除本地的值
+     */
+    public void delete(Object key) {
+        String rawKey = rawKey(key);
+        pendingWrites.put(rawKey, System.nanoTime());
+        redisTemplate.delete(key);
+        entries.remove(rawKey);
+    }
+
+    /**
+     * 清空本地缓存(例如订阅重连后)
+     */
+    public void clear() {
+        entries.clear();
+        clock.clear();
+        clockSize.set(0);
+    }
+
+    /**
+     * 订阅建立(包括断开后重新订阅)时清空本地缓存: 订阅之前或断开期间的修改没有收到通知
+     */
+    @Override
+    public void onPatternSubscribed(byte[] pattern, long count) {
+        clear();
+        log.info("近端缓存已订阅{}, 清空本地缓存", new String(pattern, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 取消订阅后不再收到通知, 清空本地缓存
+     */
+    @Override
+    public void onPatternUnsubscribed(byte[] pattern, long count) {
+        clear();
+    }
+
+    /**
+     * 键空间通知: 频道为 __keyspace@db__:键, 内容为事件(set/del/expired等)
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.ISO_8859_1);
+        if (!channel.startsWith(channelPrefix)) {
+            return;
+        }
+        invalidate(channel.substring(channelPrefix.length()));
+    }
+
+    void invalidate(String rawKey) {
+        if (entries.remove(rawKey) != null) {
+            invalidations.increment();
+        }
+        Long written = pendingWrites.remove(rawKey);
+        if (written != null) {
+            staleness.record(System.nanoTime() - written, TimeUnit.NANOSECONDS);
+        }
+        if (log.isTraceEnabled()) {
+            log.trace("近端缓存失效: {}", rawKey);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public double hitRatio() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    private String rawKey(Object key) {
+        return new String(keySerializer.serialize(key), StandardCharsets.ISO_8859_1);
+    }
+
+    private boolean isCacheableRaw(String rawKey) {
+        for (Pattern matcher : matchers) {
+            if (matcher.matcher(rawKey).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * redis的glob模式(*, ?, [abc], [^a], [a-z], \转义)转换为正则
+     */
+    static Pattern globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder(glob.length() + 8);
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*' -> regex.append(".*");
+                case '?' -> regex.append('.');
+                case '\\' -> {
+                    if (i + 1 < glob.length()) {
+                        regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+                    }
+                }
+                case '[' -> {
+                    int end = glob.indexOf(']', i + 1);
+                    if (end < 0) {
+                        regex.append(Pattern.quote("["));
+                        break;
+                    }
+                    String set = glob.substring(i + 1, end);
+                    regex.append('[');
+                    if (set.startsWith("^")) {
+                        regex.append('^');
+                        set = set.substring(1);
+                    }
+                    for (int j = 0; j < set.length(); j++) {
+                        char s = set.charAt(j);
+                        if ((s == '-' && j > 0 && j < set.length() - 1) || Character.isLetterOrDigit(s)) {
+                            regex.append(s);
+                        } else {
+                            regex.append('\\').append(s);
+                        }
+                    }
+                    regex.append(']');
+                    i = end;
+                }
+                default -> regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    /**
+     * CLOCK淘汰: 从队头取出键, 最近被读取过的清除标记后放回队尾, 否则淘汰
+     */
+    private void evictIfNecessary() {
+        while (entries.size() > maximumSize) {
+            String rawKey = clock.poll();
+            if (rawKey == null) {
+                return;
+            }
+            clockSize.decrementAndGet();
+            Entry entry = entries.get(rawKey);
+            if (entry == null || entry.loading) {
+                continue;
+            }
+            if (entry.referenced) {
+                entry.referenced = false;
+                clock.offer(rawKey);
+                clockSize.incrementAndGet();
+            } else if (entries.remove(rawKey, entry)) {
+                evictions.increment();
+            }
+        }
+        // 失效的键留在队列中, 队列过长时清理
+        if (clockSize.get() > maximumSize * 2) {
+            clock.removeIf(rawKey -> !entries.containsKey(rawKey));
+            clockSize.set(clock.size());
+        }
+        // 没有开启键空间通知时pendingWrites不会被清理
+        if (pendingWrites.size() > maximumSize) {
+            pendingWrites.clear();
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+
+        private final long loadedAt;
+
+        /**
+         * 加载标记: 正在从redis读取
+         */
+        private final boolean loading;
+
+        private volatile boolean referenced;
+
+        Entry(Object value, long loadedAt, boolean loading) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+            this.loading = loading;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.redis.near;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.util.StringUtils;
+
+import java.util.Properties;
+
+/**
+ * 近端缓存配置
+ * luminion.near-cache.enabled=true时启用, TestController的读取改为经过近端缓存
+ *
+ * 失效使用键空间通知而不是redis6的客户端缓存(CLIENT TRACKING):
+ * CLIENT TRACKING需要RESP3或重定向到订阅连接, 当前使用的jedis版本在RESP2订阅连接上无法解析失效消息
+ *
+ * 启动时通过CONFIG GET检查服务端的notify-keyspace-events(默认为空, 即不发送通知),
+ * 缺少keyspace-events中的标志(或无法检查)时记录警告并将近端缓存设置为旁路, 避免其他节点的修改在time-to-live内读到旧值
+ *
+ * @author luminion
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(NearCacheProperties.class)
+@ConditionalOnProperty(prefix = "luminion.near-cache", name = "enabled", havingValue = "true")
+public class NearCacheConfig {
+
+    @Bean
+    public NearCache nearCache(RedisTemplate<Object, Object> redisTemplate, NearCacheProperties properties,
+                               RedisProperties redisProperties, ObjectProvider<MeterRegistry> registry) {
+        return new NearCache(redisTemplate, properties, redisProperties.getDatabase(),
+                registry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    /**
+     * 订阅键空间通知
+     */
+    @Bean
+    public RedisMessageListenerContainer nearCacheListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                    NearCache nearCache, NearCacheProperties properties) {
+        nearCache.setBypass(!checkKeyspaceEvents(connectionFactory, properties));
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        // 键模式已按redisTemplate的键序列化器转换, 与redis中实际存储的键一致
+        container.addMessageListener(nearCache, nearCache.getChannelPatterns().stream().map(PatternTopic::new).toList());
+        return container;
+    }
+
+    /**
+     * 检查服务端的键空间通知配置, 未开启时按配置通过CONFIG SET开启(与KeyspaceEventMessageListener相同, 已有配置时不覆盖)
+     *
+     * @return 是否能收到所需的失效通知
+     */
+    private static boolean checkKeyspaceEvents(RedisConnectionFactory connectionFactory, NearCacheProperties properties) {
+        String events = properties.getKeyspaceEvents();
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Properties config = connection.serverCommands().getConfig("notify-keyspace-events");
+            String current = config == null ? null : config.getProperty("notify-keyspace-events");
+            if (!StringUtils.hasText(current) && properties.isConfigureKeyspaceEvents()) {
+                connection.serverCommands().setConfig("notify-keyspace-events", events);
+                log.info("已开启redis键空间通知: {}", events);
+                return true;
+            }
+            String missing = NearCache.missingKeyspaceEvents(current, events);
+            if (!missing.isEmpty()) {
+                log.warn("redis键空间通知配置为[{}], 缺少[{}], 近端缓存无法收到失效通知, 已设置为旁路(直接读取redis); 请在服务端配置notify-keyspace-events={}",
+                        current, missing, events);
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("检查redis键空间通知配置失败, 近端缓存已设置为旁路(直接读取redis); 请确认服务端已配置notify-keyspace-events={}", events, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.redis.near;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 近端缓存配置
+ *
+ * @author luminion
+ */
+@Data
+@ConfigurationProperties(prefix = "luminion.near-cache")
+public class NearCacheProperties {
+
+    /**
+     * 是否启用近端缓存
+     */
+    private boolean enabled = false;
+
+    /**
+     * 本地最多缓存的键数
+     */
+    private int maximumSize = 10_000;
+
+    /**
+     * 本地缓存的最长存活时间, 键空间通知丢失(例如订阅连接断开重连期间)时数据最多旧这么久
+     */
+    private Duration timeToLive = Duration.ofMinutes(10);
+
+    /**
+     * 缓存的键模式(glob格式, 序列化前的键), 只有匹配的键会被缓存, 其他键直接读取redis
+     * 通过redisTemplate的键序列化器转换为redis中实际存储的键模式后订阅键空间通知(例如json序列化时number -> "number")
+     */
+    private List<String> keyPatterns = new ArrayList<>(List.of("*"));
+
+    /**
+     * 启动时若服务端未开启键空间通知(notify-keyspace-events为空), 是否通过CONFIG SET开启
+     * 会修改服务端的全局配置(影响共享该redis的其他应用), 默认关闭, 建议由运维在服务端配置; 云厂商的redis通常禁用CONFIG命令
+     */
+    private boolean configureKeyspaceEvents = false;
+
+    /**
+     * 需要的键空间通知标志, 也是CONFIG SET notify-keyspace-events的值: K键空间通知, g通用命令(DEL等), $字符串命令, x过期, e淘汰
+     * 启动时服务端的配置缺少其中的标志时, 近端缓存设置为旁路
+     */
+    private String keyspaceEvents = "Kg$xe";
+}
@@ -0,0 +1,140 @@
+package com.example.redis.reactive;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * lettuce事件循环线程的利用率
+ * 响应式命令的编解码和回调都在少量事件循环线程中执行, 事件循环线程忙碌时所有命令的延迟都会增加
+ * 每个采样间隔内, 利用率 = 线程消耗的CPU时间 / 间隔时长
+ *
+ * 指标:
+ * lettuce.event.loop.utilization(stat=avg/max): 所有事件循环线程的平均/最大利用率(0-1)
+ * lettuce.event.loop.threads: 事件循环线程数
+ *
+ * @author luminion
+ */
+@Slf4j
+public class EventLoopUtilization implements SmartLifecycle {
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private final Duration interval;
+
+    /**
+     * 线程id -> 上次采样时的CPU时间
+     */
+    private final Map<Long, Long> lastCpuTime = new HashMap<>();
+
+    private long lastSample;
+
+    private volatile double average;
+
+    private volatile double max;
+
+    private volatile int count;
+
+    private volatile boolean running;
+
+    private Thread sampler;
+
+    public EventLoopUtilization(Duration interval, MeterRegistry registry) {
+        this.interval = interval;
+        Gauge.builder("lettuce.event.loop.utilization", this, u -> u.average).tag("stat", "avg").register(registry);
+        Gauge.builder("lettuce.event.loop.utilization", this, u -> u.max).tag("stat", "max").register(registry);
+        Gauge.builder("lettuce.event.loop.threads", this, u -> u.count).register(registry);
+    }
+
+    /**
+     * lettuce的IO线程名为 lettuce-nioEventLoop-x-y / lettuce-epollEventLoop-x-y 等
+     */
+    static boolean isEventLoop(String threadName) {
+        return threadName.startsWith("lettuce-") && threadName.contains("EventLoop");
+    }
+
+    /**
+     * 采样一次, 返回本次间隔内的平均利用率
+     */
+    synchronized double sample() {
+        long now = System.nanoTime();
+        long elapsed = now - lastSample;
+        double sum = 0;
+        double busiest = 0;
+        int sampled = 0;
+        Map<Long, Long> current = new HashMap<>();
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info == null || !isEventLoop(info.getThreadName())) {
+                continue;
+            }
+            long cpu = threads.getThreadCpuTime(info.getThreadId());
+            if (cpu < 0) {
+                continue;
+            }
+            current.put(info.getThreadId(), cpu);
+            Long last = lastCpuTime.get(info.getThreadId());
+            if (last != null && lastSample > 0) {
+                double utilization = Math.min(1, (double) (cpu - last) / elapsed);
+                sum += utilization;
+                busiest = Math.max(busiest, utilization);
+                sampled++;
+            }
+        }
+        lastCpuTime.clear();
+        lastCpuTime.putAll(current);
+        lastSample = now;
+        count = current.size();
+        average = sampled == 0 ? 0 : sum / sampled;
+        max = busiest;
+        return average;
+    }
+
+    public double getAverage() {
+        return average;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    @Override
+    public void start() {
+        if (!threads.isThreadCpuTimeSupported()) {
+            log.warn("当前JVM不支持线程CPU时间, 不采集lettuce事件循环线程利用率");
+            return;
+        }
+        threads.setThreadCpuTimeEnabled(true);
+        running = true;
+        sampler = Thread.ofVirtual().name("lettuce-event-loop-sampler").start(() -> {
+            while (running) {
+                sample();
+                try {
+                    Thread.sleep(interval);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (sampler != null) {
+            sampler.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
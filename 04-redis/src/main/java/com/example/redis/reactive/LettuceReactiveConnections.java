@@ -0,0 +1,193 @@
+package com.example.redis.reactive;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.SslOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.metrics.MicrometerCommandLatencyRecorder;
+import io.lettuce.core.metrics.MicrometerOptions;
+import io.lettuce.core.resource.ClientResources;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.boot.ssl.SslBundle;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConfiguration;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisSentinelConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.LinkedHashSet;
+
+/**
+ * 响应式redis使用的lettuce连接
+ * 阻塞的redisTemplate使用jedis(spring.data.redis.client-type=jedis), 响应式需要lettuce;
+ * LettuceConnectionFactory若注册为bean, 会使springboot不再自动配置jedis的连接工厂, 因此由此类持有并管理其生命周期
+ * 连接配置与springboot自动配置的连接工厂一致, 读取spring.data.redis中的url, 哨兵, 集群, ssl, 超时等配置
+ *
+ * 命令延迟: lettuce的MicrometerCommandLatencyRecorder按命令类型记录
+ * lettuce.command.firstresponse(发出命令到收到第一个响应)和lettuce.command.completion(发出命令到完成)
+ *
+ * @author luminion
+ */
+@Slf4j
+public class LettuceReactiveConnections implements DisposableBean {
+
+    private final ClientResources clientResources;
+
+    private final LettuceConnectionFactory connectionFactory;
+
+    /**
+     * @param redisProperties spring.data.redis的配置(url, 单机/哨兵/集群, ssl, 超时, 客户端名称)
+     * @param properties      响应式redis配置(连接池, 指标)
+     * @param sslBundles      spring.data.redis.ssl.bundle引用的ssl配置, 可以为null
+     * @param registry        指标注册中心
+     */
+    public LettuceReactiveConnections(RedisProperties redisProperties, ReactiveRedisProperties properties,
+                                      SslBundles sslBundles, MeterRegistry registry) {
+        this.clientResources = ClientResources.builder()
+                .commandLatencyRecorder(new MicrometerCommandLatencyRecorder(registry,
+                        MicrometerOptions.builder().histogram(properties.isHistogram()).build()))
+                .build();
+        ReactiveRedisProperties.Pool pool = properties.getPool();
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder builder;
+        if (pool.isEnabled()) {
+            GenericObjectPoolConfig<?> poolConfig = new GenericObjectPoolConfig<>();
+            poolConfig.setMaxTotal(pool.getMaxActive());
+            poolConfig.setMaxIdle(pool.getMaxIdle());
+            poolConfig.setMinIdle(pool.getMinIdle());
+            poolConfig.setMaxWait(pool.getMaxWait());
+            builder = LettucePoolingClientConfiguration.builder().poolConfig(poolConfig);
+        } else {
+            builder = LettuceClientConfiguration.builder();
+        }
+        builder.clientResources(clientResources);
+        RedisConfiguration server = serverConfiguration(redisProperties);
+        configureClient(builder, redisProperties, server instanceof RedisClusterConfiguration, sslBundles);
+        this.connectionFactory = server instanceof RedisClusterConfiguration cluster
+                ? new LettuceConnectionFactory(cluster, builder.build())
+                : server instanceof RedisSentinelConfiguration sentinel
+                ? new LettuceConnectionFactory(sentinel, builder.build())
+                : new LettuceConnectionFactory((RedisStandaloneConfiguration) server, builder.build());
+        // 不使用连接池时所有命令共享一个连接, 使用连接池时每个命令借用独立的连接
+        this.connectionFactory.setShareNativeConnection(!pool.isEnabled());
+        this.connectionFactory.afterPropertiesSet();
+        this.connectionFactory.start();
+        log.info("响应式redis连接: {}, 连接池: {}", describe(server),
+                pool.isEnabled() ? "最大" + pool.getMaxActive() + "个连接" : "未启用(共享连接)");
+    }
+
+    /**
+     * 与springboot自动配置的连接工厂相同的优先级: 集群 > 哨兵 > url > host/port
+     */
+    private static RedisConfiguration serverConfiguration(RedisProperties redisProperties) {
+        RedisProperties.Cluster cluster = redisProperties.getCluster();
+        if (cluster != null && !CollectionUtils.isEmpty(cluster.getNodes())) {
+            RedisClusterConfiguration configuration = new RedisClusterConfiguration(cluster.getNodes());
+            if (cluster.getMaxRedirects() != null) {
+                configuration.setMaxRedirects(cluster.getMaxRedirects());
+            }
+            configuration.setUsername(redisProperties.getUsername());
+            configuration.setPassword(RedisPassword.of(redisProperties.getPassword()));
+            return configuration;
+        }
+        RedisProperties.Sentinel sentinel = redisProperties.getSentinel();
+        if (sentinel != null && sentinel.getMaster() != null) {
+            RedisSentinelConfiguration configuration = new RedisSentinelConfiguration(sentinel.getMaster(), new LinkedHashSet<>(sentinel.getNodes()));
+            configuration.setDatabase(redisProperties.getDatabase());
+            configuration.setUsername(redisProperties.getUsername());
+            configuration.setPassword(RedisPassword.of(redisProperties.getPassword()));
+            configuration.setSentinelUsername(sentinel.getUsername());
+            configuration.setSentinelPassword(RedisPassword.of(sentinel.getPassword()));
+            return configuration;
+        }
+        RedisStandaloneConfiguration configuration;
+        if (StringUtils.hasText(redisProperties.getUrl())) {
+            RedisURI uri = RedisURI.create(redisProperties.getUrl());
+            configuration = new RedisStandaloneConfiguration(uri.getHost(), uri.getPort());
+            configuration.setDatabase(uri.getDatabase());
+            configuration.setUsername(uri.getUsername());
+            configuration.setPassword(uri.getPassword() == null ? RedisPassword.none() : RedisPassword.of(uri.getPassword()));
+        } else {
+            configuration = new RedisStandaloneConfiguration(redisProperties.getHost(), redisProperties.getPort());
+            configuration.setDatabase(redisProperties.getDatabase());
+            configuration.setUsername(redisProperties.getUsername());
+            configuration.setPassword(RedisPassword.of(redisProperties.getPassword()));
+        }
+        return configuration;
+    }
+
+    /**
+     * ssl(spring.data.redis.ssl或rediss://), 命令超时, 连接超时, 关闭超时, 客户端名称
+     */
+    private static void configureClient(LettuceClientConfiguration.LettuceClientConfigurationBuilder builder,
+                                        RedisProperties redisProperties, boolean cluster, SslBundles sslBundles) {
+        String url = redisProperties.getUrl();
+        boolean ssl = redisProperties.getSsl().isEnabled() || (StringUtils.hasText(url) && url.startsWith("rediss://"));
+        if (ssl) {
+            builder.useSsl();
+        }
+        if (redisProperties.getTimeout() != null) {
+            builder.commandTimeout(redisProperties.getTimeout());
+        }
+        if (redisProperties.getLettuce().getShutdownTimeout() != null) {
+            builder.shutdownTimeout(redisProperties.getLettuce().getShutdownTimeout());
+        }
+        if (StringUtils.hasText(redisProperties.getClientName())) {
+            builder.clientName(redisProperties.getClientName());
+        }
+        ClientOptions.Builder options = cluster ? ClusterClientOptions.builder() : ClientOptions.builder();
+        if (redisProperties.getConnectTimeout() != null) {
+            options.socketOptions(SocketOptions.builder().connectTimeout(redisProperties.getConnectTimeout()).build());
+        }
+        String bundleName = redisProperties.getSsl().getBundle();
+        if (StringUtils.hasText(bundleName)) {
+            if (sslBundles == null) {
+                throw new IllegalStateException("spring.data.redis.ssl.bundle已配置, 但没有SslBundles: " + bundleName);
+            }
+            SslBundle bundle = sslBundles.getBundle(bundleName);
+            SslOptions.Builder sslOptions = SslOptions.builder()
+                    .keyManager(bundle.getManagers().getKeyManagerFactory())
+                    .trustManager(bundle.getManagers().getTrustManagerFactory());
+            if (bundle.getOptions().getCiphers() != null) {
+                sslOptions.cipherSuites(bundle.getOptions().getCiphers());
+            }
+            if (bundle.getOptions().getEnabledProtocols() != null) {
+                sslOptions.protocols(bundle.getOptions().getEnabledProtocols());
+            }
+            options.sslOptions(sslOptions.build());
+        }
+        builder.clientOptions(options.timeoutOptions(TimeoutOptions.enabled()).build());
+    }
+
+    private static String describe(RedisConfiguration server) {
+        if (server instanceof RedisClusterConfiguration cluster) {
+            return "集群" + cluster.getClusterNodes();
+        }
+        if (server instanceof RedisSentinelConfiguration sentinel) {
+            return "哨兵" + sentinel.getSentinels() + ", master: " + sentinel.getMaster().getName();
+        }
+        RedisStandaloneConfiguration standalone = (RedisStandaloneConfiguration) server;
+        return standalone.getHostName() + ":" + standalone.getPort();
+    }
+
+    public LettuceConnectionFactory getConnectionFactory() {
+        return connectionFactory;
+    }
+
+    @Override
+    public void destroy() {
+        connectionFactory.destroy();
+        clientResources.shutdown();
+    }
+}
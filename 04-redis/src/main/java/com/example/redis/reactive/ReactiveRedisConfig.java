@@ -0,0 +1,67 @@
+package com.example.redis.reactive;
+
+import com.example.redis.serializer.BinaryRedisSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * 响应式redis配置
+ * luminion.reactive-redis.enabled=true时启用, 提供与TestController相同的/reactive/**接口(返回Mono)
+ *
+ * @author luminion
+ */
+@Configuration
+@EnableConfigurationProperties(ReactiveRedisProperties.class)
+@ConditionalOnProperty(prefix = "luminion.reactive-redis", name = "enabled", havingValue = "true")
+public class ReactiveRedisConfig {
+
+    @Bean
+    public LettuceReactiveConnections lettuceReactiveConnections(RedisProperties redisProperties, ReactiveRedisProperties properties,
+                                                                 ObjectProvider<SslBundles> sslBundles, ObjectProvider<MeterRegistry> registry) {
+        return new LettuceReactiveConnections(redisProperties, properties, sslBundles.getIfAvailable(),
+                registry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    /**
+     * 与SerializeConfig中的redisTemplate使用相同的序列化器, 两者读写的数据互通
+     *
+     * @param connections           lettuce连接
+     * @param binaryRedisSerializer 二进制序列化器(luminion.redis-serializer.enabled=true时存在)
+     * @return {@link ReactiveRedisTemplate }<{@link Object }, {@link Object }>
+     * @author luminion
+     */
+    @Bean
+    public ReactiveRedisTemplate<Object, Object> reactiveRedisTemplate(LettuceReactiveConnections connections,
+                                                                       ObjectProvider<BinaryRedisSerializer> binaryRedisSerializer) {
+        BinaryRedisSerializer binary = binaryRedisSerializer.getIfAvailable();
+        RedisSerializationContext<Object, Object> context;
+        if (binary != null) {
+            //键使用字符串, 值使用二进制
+            @SuppressWarnings("unchecked")
+            RedisSerializer<Object> keySerializer = (RedisSerializer<Object>) (RedisSerializer<?>) RedisSerializer.string();
+            context = RedisSerializationContext.newSerializationContext(binary)
+                    .key(keySerializer)
+                    .hashKey(keySerializer)
+                    .build();
+        } else {
+            context = RedisSerializationContext.fromSerializer(new GenericJackson2JsonRedisSerializer());
+        }
+        return new ReactiveRedisTemplate<>(connections.getConnectionFactory(), context);
+    }
+
+    @Bean
+    public EventLoopUtilization lettuceEventLoopUtilization(ReactiveRedisProperties properties, ObjectProvider<MeterRegistry> registry) {
+        return new EventLoopUtilization(properties.getEventLoopSampleInterval(), registry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+}
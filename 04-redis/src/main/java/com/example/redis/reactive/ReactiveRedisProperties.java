@@ -0,0 +1,66 @@
+package com.example.redis.reactive;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 响应式redis配置
+ * 连接地址/密码/数据库使用spring.data.redis中的配置
+ *
+ * @author luminion
+ */
+@Data
+@ConfigurationProperties(prefix = "luminion.reactive-redis")
+public class ReactiveRedisProperties {
+
+    /**
+     * 是否启用响应式redis(/reactive/**接口)
+     */
+    private boolean enabled = false;
+
+    /**
+     * 连接池配置, 未启用时所有命令共享一个连接(lettuce的连接线程安全, 命令在连接上自动管道化)
+     */
+    private Pool pool = new Pool();
+
+    /**
+     * 命令延迟指标是否发布直方图(用于计算p99等百分位)
+     */
+    private boolean histogram = true;
+
+    /**
+     * 事件循环线程利用率的采样间隔
+     */
+    private Duration eventLoopSampleInterval = Duration.ofSeconds(5);
+
+    @Data
+    public static class Pool {
+
+        /**
+         * 是否使用连接池(每个命令从池中借用一个连接); 阻塞命令(BLPOP等)和事务需要独占连接时使用
+         */
+        private boolean enabled = false;
+
+        /**
+         * 最大连接数
+         */
+        private int maxActive = 8;
+
+        /**
+         * 最大空闲连接数
+         */
+        private int maxIdle = 8;
+
+        /**
+         * 最小空闲连接数
+         */
+        private int minIdle = 0;
+
+        /**
+         * 连接池耗尽时等待连接的最长时间
+         */
+        private Duration maxWait = Duration.ofSeconds(1);
+    }
+}
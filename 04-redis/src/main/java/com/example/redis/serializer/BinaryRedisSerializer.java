@@ -0,0 +1,357 @@
+package com.example.redis.serializer;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 紧凑的二进制序列化器, 可替代GenericJackson2JsonRedisSerializer
+ * GenericJackson2JsonRedisSerializer在每个对象中写入完整类名(@class), 且json中的属性名/数字都是文本, 占用空间大
+ *
+ * 格式: 头(1) + 类型id(变长) + [压缩前长度(变长)] + 内容
+ * 头: 高4位固定为1011, 最低位表示内容是否压缩; 0xB0-0xBF在utf8中不能作为首字节, 不会与文本值混淆
+ * 类型id: 内置类型(字符串/数字/布尔/字节数组/Map/List/Set)直接编码, 自定义类型在TypeRegistry中注册, 内容由PayloadCodec编码
+ *   (按类型的继承层次查找注册的类型, 子类使用父类/接口的注册)
+ * Map/List/Set: 内容为 元素个数(变长) + 每个元素的[长度(变长) + 元素(同样的格式, 不压缩)],
+ *   每个元素都带类型id, 读取后元素类型不变(List<User>读取后仍是List<User>); 元素的类型未注册时拒绝序列化
+ * 压缩: 内容超过阈值时使用deflate压缩(压缩后没有变小则不压缩)
+ *
+ * 读取时首字节不是上述头的数据按文本处理: 规范格式的整数(例如INCR写入的计数)返回Long,
+ * 其他(包括"007", "+1"这类不是规范格式的数字)返回String
+ *
+ * @author luminion
+ */
+public class BinaryRedisSerializer implements RedisSerializer<Object> {
+
+    private static final int MAGIC = 0xB0;
+
+    private static final int MAGIC_MASK = 0xF0;
+
+    private static final int FLAG_COMPRESSED = 0x01;
+
+    private static final int STRING = 1;
+
+    private static final int INTEGER = 2;
+
+    private static final int LONG = 3;
+
+    private static final int DOUBLE = 4;
+
+    private static final int BOOLEAN = 5;
+
+    private static final int BYTES = 6;
+
+    private static final int MAP = 7;
+
+    private static final int LIST = 8;
+
+    private static final int SET = 9;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final TypeRegistry registry;
+
+    private final PayloadCodec codec;
+
+    private final int compressionThreshold;
+
+    private final int compressionLevel;
+
+    /**
+     * @param registry             类型注册表
+     * @param codec                默认编解码器
+     * @param compressionThreshold 内容超过此字节数时压缩, 小于等于0表示不压缩
+     * @param compressionLevel     deflate压缩级别(1-9)
+     */
+    public BinaryRedisSerializer(TypeRegistry registry, PayloadCodec codec, int compressionThreshold, int compressionLevel) {
+        this.registry = registry;
+        this.codec = codec;
+        this.compressionThreshold = compressionThreshold;
+        this.compressionLevel = compressionLevel;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        return serialize(value, true);
+    }
+
+    private byte[] serialize(Object value, boolean compress) {
+        if (value == null) {
+            return EMPTY;
+        }
+        int id;
+        byte[] payload;
+        try {
+            switch (value) {
+                case String s -> {
+                    id = STRING;
+                    payload = s.getBytes(StandardCharsets.UTF_8);
+                }
+                case Integer i -> {
+                    id = INTEGER;
+                    payload = zigZag(i);
+                }
+                case Long l -> {
+                    id = LONG;
+                    payload = zigZag(l);
+                }
+                case Double d -> {
+                    id = DOUBLE;
+                    payload = ByteBuffer.allocate(8).putDouble(d).array();
+                }
+                case Boolean b -> {
+                    id = BOOLEAN;
+                    payload = new byte[]{(byte) (b ? 1 : 0)};
+                }
+                case byte[] bytes -> {
+                    id = BYTES;
+                    payload = bytes;
+                }
+                default -> {
+                    TypeRegistry.Entry entry = registry.get(value.getClass());
+                    if (entry != null) {
+                        id = entry.id();
+                        payload = (entry.codec() != null ? entry.codec() : codec).encode(value);
+                    } else if (value instanceof Map<?, ?> map) {
+                        id = MAP;
+                        List<Object> elements = new ArrayList<>(map.size() * 2);
+                        map.forEach((k, v) -> {
+                            elements.add(k);
+                            elements.add(v);
+                        });
+                        payload = elements(elements, map.size());
+                    } else if (value instanceof Collection<?> collection) {
+                        id = value instanceof Set<?> ? SET : LIST;
+                        payload = elements(collection, collection.size());
+                    } else {
+                        throw new SerializationException("类型未在TypeRegistry中注册: " + value.getClass().getName());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new SerializationException("序列化失败: " + value.getClass().getName(), e);
+        }
+        return frame(id, payload, compress);
+    }
+
+    /**
+     * Map/List/Set的内容: 个数 + 每个元素的[长度 + 元素]
+     */
+    private byte[] elements(Collection<?> elements, int count) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + elements.size() * 16);
+        writeVarInt(out, count);
+        for (Object element : elements) {
+            byte[] bytes = serialize(element, false);
+            writeVarInt(out, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] frame(int id, byte[] payload, boolean compress) {
+        byte[] compressed = compress && compressionThreshold > 0 && payload.length > compressionThreshold ? deflate(payload) : null;
+        if (compressed != null) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 + varIntSize(id) + varIntSize(payload.length) + compressed.length);
+            buffer.put((byte) (MAGIC | FLAG_COMPRESSED));
+            putVarInt(buffer, id);
+            putVarInt(buffer, payload.length);
+            return buffer.put(compressed).array();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 + varIntSize(id) + payload.length);
+        buffer.put((byte) MAGIC);
+        putVarInt(buffer, id);
+        return buffer.put(payload).array();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        int header = bytes[0] & 0xff;
+        if ((header & MAGIC_MASK) != MAGIC) {
+            return plainText(bytes);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+        int id = (int) getVarInt(buffer);
+        byte[] payload;
+        if ((header & FLAG_COMPRESSED) != 0) {
+            int length = (int) getVarInt(buffer);
+            payload = inflate(buffer, length);
+        } else {
+            payload = Arrays.copyOfRange(bytes, buffer.position(), bytes.length);
+        }
+        try {
+            return switch (id) {
+                case STRING -> new String(payload, StandardCharsets.UTF_8);
+                case INTEGER -> (int) unZigZag(payload);
+                case LONG -> unZigZag(payload);
+                case DOUBLE -> ByteBuffer.wrap(payload).getDouble();
+                case BOOLEAN -> payload[0] != 0;
+                case BYTES -> payload;
+                case MAP -> {
+                    ByteBuffer elements = ByteBuffer.wrap(payload);
+                    int count = (int) getVarInt(elements);
+                    Map<Object, Object> map = new LinkedHashMap<>(Math.max(16, count * 4 / 3 + 1));
+                    for (int i = 0; i < count; i++) {
+                        map.put(element(elements), element(elements));
+                    }
+                    yield map;
+                }
+                case LIST, SET -> {
+                    ByteBuffer elements = ByteBuffer.wrap(payload);
+                    int count = (int) getVarInt(elements);
+                    Collection<Object> collection = id == SET ? new LinkedHashSet<>(Math.max(16, count * 4 / 3 + 1)) : new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        collection.add(element(elements));
+                    }
+                    yield collection;
+                }
+                default -> {
+                    TypeRegistry.Entry entry = registry.get(id);
+                    if (entry == null) {
+                        throw new SerializationException("未知的类型id: " + id);
+                    }
+                    yield (entry.codec() != null ? entry.codec() : codec).decode(payload, entry.type());
+                }
+            };
+        } catch (IOException e) {
+            throw new SerializationException("反序列化失败, 类型id: " + id, e);
+        }
+    }
+
+    private Object element(ByteBuffer elements) {
+        byte[] bytes = new byte[(int) getVarInt(elements)];
+        elements.get(bytes);
+        return deserialize(bytes);
+    }
+
+    /**
+     * 非本序列化器写入的数据(例如INCR写入的数字, 其他客户端写入的字符串)
+     * 只有规范格式的整数(与Long.toString的结果相同)返回Long, 其他保持字符串
+     */
+    private static Object plainText(byte[] bytes) {
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        if (bytes.length <= 20) {
+            try {
+                long number = Long.parseLong(text);
+                if (Long.toString(number).equals(text)) {
+                    return number;
+                }
+            } catch (NumberFormatException ignored) {
+                // 不是数字
+            }
+        }
+        return text;
+    }
+
+    /**
+     * 压缩, 压缩后没有变小时返回null
+     */
+    private byte[] deflate(byte[] payload) {
+        Deflater deflater = new Deflater(compressionLevel, true);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2);
+            byte[] chunk = new byte[Math.min(payload.length, 8192)];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+                if (out.size() >= payload.length) {
+                    return null;
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(ByteBuffer buffer, int length) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(buffer);
+            byte[] payload = new byte[length];
+            int read = 0;
+            while (read < length) {
+                int n = inflater.inflate(payload, read, length - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new SerializationException("解压失败, 期望长度: " + length + ", 实际长度: " + read);
+            }
+            return payload;
+        } catch (DataFormatException e) {
+            throw new SerializationException("解压失败", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] zigZag(long value) {
+        long encoded = (value << 1) ^ (value >> 63);
+        ByteBuffer buffer = ByteBuffer.allocate(varIntSize(encoded));
+        putVarInt(buffer, encoded);
+        return buffer.array();
+    }
+
+    private static long unZigZag(byte[] payload) {
+        long encoded = getVarInt(ByteBuffer.wrap(payload));
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+
+    private static int varIntSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void putVarInt(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarInt(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("变长整数格式错误");
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.redis.serializer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 二进制序列化器配置
+ * luminion.redis-serializer.enabled=true时, SerializeConfig中的redisTemplate使用此序列化器
+ *
+ * @author luminion
+ */
+@Configuration
+@EnableConfigurationProperties(BinarySerializerProperties.class)
+@ConditionalOnProperty(prefix = "luminion.redis-serializer", name = "enabled", havingValue = "true")
+public class BinarySerializerConfig {
+
+    @Bean
+    public BinaryRedisSerializer binaryRedisSerializer(BinarySerializerProperties properties) {
+        TypeRegistry registry = new TypeRegistry();
+        properties.getTypes().forEach(registry::register);
+        PayloadCodec codec = switch (properties.getCodec()) {
+            case SMILE -> JacksonPayloadCodec.smile();
+            case JSON -> JacksonPayloadCodec.json();
+        };
+        return new BinaryRedisSerializer(registry, codec,
+                (int) properties.getCompressionThreshold().toBytes(), properties.getCompressionLevel());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.redis.serializer;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 二进制序列化器配置
+ *
+ * @author luminion
+ */
+@Data
+@ConfigurationProperties(prefix = "luminion.redis-serializer")
+public class BinarySerializerProperties {
+
+    /**
+     * 是否使用BinaryRedisSerializer代替GenericJackson2JsonRedisSerializer
+     * 两者的数据格式不兼容, 切换后已有的数据需要重新写入
+     */
+    private boolean enabled = false;
+
+    /**
+     * 默认编解码器
+     */
+    private Codec codec = Codec.SMILE;
+
+    /**
+     * 内容超过此大小时压缩, 0表示不压缩
+     */
+    private DataSize compressionThreshold = DataSize.ofKilobytes(1);
+
+    /**
+     * deflate压缩级别(1-9), 1最快
+     */
+    private int compressionLevel = 1;
+
+    /**
+     * 自定义类型, key: 类型id(>=16, 写入redis后不能修改), value: 类型
+     */
+    private Map<Integer, Class<?>> types = new LinkedHashMap<>();
+
+    public enum Codec {
+
+        /**
+         * jackson smile, 二进制json
+         */
+        SMILE,
+
+        /**
+         * 普通json(不含类名)
+         */
+        JSON
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.redis.serializer;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+
+/**
+ * 基于jackson的编解码器, 不写入类型信息(@class)
+ * smile: jackson的二进制json格式, 重复出现的属性名只写一次(后续使用引用), 数字使用变长编码
+ * json: 普通json, 便于用可视化工具查看
+ * 忽略未知属性, 类新增/删除属性后仍能读取旧数据
+ *
+ * @author luminion
+ */
+public class JacksonPayloadCodec implements PayloadCodec {
+
+    private final ObjectMapper objectMapper;
+
+    public JacksonPayloadCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper.copy().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    public static JacksonPayloadCodec smile() {
+        return new JacksonPayloadCodec(Jackson2ObjectMapperBuilder.smile().build());
+    }
+
+    public static JacksonPayloadCodec json() {
+        return new JacksonPayloadCodec(Jackson2ObjectMapperBuilder.json().build());
+    }
+
+    @Override
+    public byte[] encode(Object value) throws IOException {
+        return objectMapper.writeValueAsBytes(value);
+    }
+
+    @Override
+    public <T> T decode(byte[] bytes, Class<T> type) throws IOException {
+        return objectMapper.readValue(bytes, type);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.redis.serializer;
+
+import java.io.IOException;
+
+/**
+ * 对象内容的编解码器
+ * 类型由BinaryRedisSerializer写入的类型id确定, 编码结果中不需要包含类名
+ *
+ * @author luminion
+ */
+public interface PayloadCodec {
+
+    byte[] encode(Object value) throws IOException;
+
+    <T> T decode(byte[] bytes, Class<T> type) throws IOException;
+}
@@ -0,0 +1,100 @@
+package com.example.redis.serializer;
+
+import org.springframework.util.ClassUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 类型注册表: 类型id <-> 类型 <-> 编解码器
+ * 存储的数据中只写入类型id(变长编码, 通常1字节), 而不是完整类名
+ * 注意: 类型id写入了redis, 已使用的id不能再分配给其他类型
+ *
+ * 1-15为内置类型保留, 自定义类型从16开始
+ * 所有注册需要在序列化器使用前完成
+ * 按类型查找时依次查找类型本身, 父类, 接口, 子类(例如代理类)使用最近的注册; 查找结果会缓存
+ *
+ * @author luminion
+ */
+public class TypeRegistry {
+
+    /**
+     * 自定义类型的最小id
+     */
+    public static final int MIN_CUSTOM_ID = 16;
+
+    private final Map<Class<?>, Entry> byType = new HashMap<>();
+
+    private final Map<Integer, Entry> byId = new HashMap<>();
+
+    /**
+     * 按继承层次查找的结果(包括没有注册的类型)
+     */
+    private final Map<Class<?>, Optional<Entry>> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * 注册类型, 使用序列化器的默认编解码器
+     */
+    public TypeRegistry register(int id, Class<?> type) {
+        return register(id, type, null);
+    }
+
+    /**
+     * 注册类型, 使用指定的编解码器(例如手写的定长格式)
+     *
+     * @param id    类型id
+     * @param type  类型
+     * @param codec 编解码器, null表示使用序列化器的默认编解码器
+     * @return {@link TypeRegistry }
+     * @author luminion
+     */
+    public TypeRegistry register(int id, Class<?> type, PayloadCodec codec) {
+        if (id < MIN_CUSTOM_ID) {
+            throw new IllegalArgumentException("类型id必须大于等于" + MIN_CUSTOM_ID + ": " + type.getName());
+        }
+        Entry existing = byId.get(id);
+        if (existing != null && existing.type() != type) {
+            throw new IllegalArgumentException("类型id" + id + "已分配给" + existing.type().getName());
+        }
+        Entry entry = new Entry(id, type, codec);
+        byId.put(id, entry);
+        byType.put(type, entry);
+        resolved.clear();
+        return this;
+    }
+
+    Entry get(Class<?> type) {
+        Entry entry = byType.get(type);
+        if (entry != null) {
+            return entry;
+        }
+        return resolved.computeIfAbsent(type, this::resolve).orElse(null);
+    }
+
+    private Optional<Entry> resolve(Class<?> type) {
+        for (Class<?> current = type.getSuperclass(); current != null && current != Object.class; current = current.getSuperclass()) {
+            Entry entry = byType.get(current);
+            if (entry != null) {
+                return Optional.of(entry);
+            }
+        }
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Class<?> candidate : ClassUtils.getAllInterfacesForClassAsSet(current)) {
+                Entry entry = byType.get(candidate);
+                if (entry != null) {
+                    return Optional.of(entry);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    Entry get(int id) {
+        return byId.get(id);
+    }
+
+    record Entry(int id, Class<?> type, PayloadCodec codec) {
+    }
+}
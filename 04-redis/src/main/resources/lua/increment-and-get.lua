@@ -0,0 +1,7 @@
+-- 自增并返回自增后的值, 键第一次创建时设置过期时间
+-- KEYS[1]: 键  ARGV[1]: 增量  ARGV[2]: 过期时间(毫秒), 0表示不过期
+local value = redis.call('INCRBY', KEYS[1], ARGV[1])
+if value == tonumber(ARGV[1]) and tonumber(ARGV[2]) > 0 then
+    redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+return value
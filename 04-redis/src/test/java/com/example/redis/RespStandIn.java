@@ -0,0 +1,350 @@
+package com.example.redis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 本地的redis替身, 测试环境没有redis时使用
+ * 实现RESP2协议中测试用到的命令: GET/SET/MGET/MSET/INCR/INCRBY/DEL/PFADD/PFCOUNT/PING/CLIENT/SELECT/CONFIG/PSUBSCRIBE/PUNSUBSCRIBE,
+ * 不处理过期时间, PFCOUNT返回精确值
+ *
+ * 1.每次从网络读取到新的一批命令时延迟RTT后再返回结果, 模拟客户端与redis之间的网络往返
+ * 2.写入/删除键时向PSUBSCRIBE的连接发送键空间通知(__keyspace@0__:键, 内容为命令名)
+ * 3.统计收到的命令数
+ *
+ * @author luminion
+ */
+class RespStandIn implements Closeable {
+
+    private static final String KEYSPACE_PREFIX = "__keyspace@0__:";
+
+    private final Map<String, byte[]> data = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<String>> hyperLogLogs = new ConcurrentHashMap<>();
+
+    private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+
+    private final LongAdder commands = new LongAdder();
+
+    private final ServerSocket server;
+
+    private final long rttNanos;
+
+    RespStandIn(Duration rtt) throws IOException {
+        this.rttNanos = rtt.toNanos();
+        this.server = new ServerSocket(0, 1024, InetAddress.getLoopbackAddress());
+        Thread.ofVirtual().name("resp-stand-in").start(this::accept);
+    }
+
+    int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * 已收到的命令数(不含连接初始化的CLIENT/PING等)
+     */
+    long getCommands() {
+        return commands.sum();
+    }
+
+    /**
+     * 不经过客户端直接写入(模拟其他节点写入), 同样发送键空间通知
+     */
+    void put(String rawKey, byte[] value) {
+        data.put(rawKey, value);
+        notifyKeyspace(rawKey, "set");
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                Thread.ofVirtual().start(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        Subscriber subscriber = null;
+        try (socket; InputStream in = new BufferedInputStream(socket.getInputStream());
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+            while (true) {
+                if (in.available() == 0) {
+                    // 已读完客户端本次发送的命令: 返回这一批的结果
+                    synchronized (out) {
+                        out.flush();
+                    }
+                }
+                List<byte[]> command = readCommand(in);
+                if (command == null) {
+                    return;
+                }
+                if (in.available() == 0 && rttNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(rttNanos);
+                }
+                String name = new String(command.get(0), StandardCharsets.US_ASCII).toUpperCase();
+                synchronized (out) {
+                    switch (name) {
+                        case "PSUBSCRIBE" -> {
+                            if (subscriber == null) {
+                                subscriber = new Subscriber(out);
+                                subscribers.add(subscriber);
+                            }
+                            for (int i = 1; i < command.size(); i++) {
+                                String pattern = key(command, i);
+                                subscriber.patterns.put(pattern, glob(pattern));
+                                subscription(out, "psubscribe", pattern, subscriber.patterns.size());
+                            }
+                            out.flush();
+                        }
+                        case "PUNSUBSCRIBE" -> {
+                            List<String> patterns = command.size() > 1
+                                    ? command.subList(1, command.size()).stream().map(b -> new String(b, StandardCharsets.ISO_8859_1)).toList()
+                                    : subscriber == null ? List.of() : List.copyOf(subscriber.patterns.keySet());
+                            for (String pattern : patterns) {
+                                subscriber.patterns.remove(pattern);
+                                subscription(out, "punsubscribe", pattern, subscriber.patterns.size());
+                            }
+                            if (patterns.isEmpty()) {
+                                subscription(out, "punsubscribe", null, 0);
+                            }
+                            out.flush();
+                        }
+                        default -> execute(name, command, out);
+                    }
+                }
+            }
+        } catch (IOException | InterruptedException ignored) {
+            // 连接关闭
+        } finally {
+            if (subscriber != null) {
+                subscribers.remove(subscriber);
+            }
+        }
+    }
+
+    private void execute(String name, List<byte[]> command, OutputStream out) throws IOException {
+        switch (name) {
+            case "PING" -> simple(out, "PONG");
+            case "CLIENT", "SELECT" -> simple(out, "OK");
+            case "CONFIG" -> {
+                if ("GET".equalsIgnoreCase(key(command, 1))) {
+                    out.write("*2\r\n".getBytes(StandardCharsets.US_ASCII));
+                    bulk(out, command.get(2));
+                    bulk(out, "".getBytes(StandardCharsets.US_ASCII));
+                } else {
+                    simple(out, "OK");
+                }
+            }
+            case "GET" -> {
+                commands.increment();
+                bulk(out, data.get(key(command, 1)));
+            }
+            case "SET" -> {
+                commands.increment();
+                put(key(command, 1), command.get(2));
+                simple(out, "OK");
+            }
+            case "MSET" -> {
+                commands.increment();
+                for (int i = 1; i + 1 < command.size(); i += 2) {
+                    put(key(command, i), command.get(i + 1));
+                }
+                simple(out, "OK");
+            }
+            case "MGET" -> {
+                commands.increment();
+                out.write(("*" + (command.size() - 1) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                for (int i = 1; i < command.size(); i++) {
+                    bulk(out, data.get(key(command, i)));
+                }
+            }
+            case "INCR", "INCRBY" -> {
+                commands.increment();
+                long delta = command.size() > 2 ? Long.parseLong(key(command, 2)) : 1;
+                byte[] value;
+                try {
+                    value = data.compute(key(command, 1), (k, v) -> Long.toString(
+                            (v == null ? 0 : Long.parseLong(new String(v, StandardCharsets.US_ASCII))) + delta).getBytes(StandardCharsets.US_ASCII));
+                } catch (NumberFormatException e) {
+                    out.write("-ERR value is not an integer or out of range\r\n".getBytes(StandardCharsets.US_ASCII));
+                    return;
+                }
+                notifyKeyspace(key(command, 1), "incrby");
+                integer(out, Long.parseLong(new String(value, StandardCharsets.US_ASCII)));
+            }
+            case "DEL" -> {
+                commands.increment();
+                long removed = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    if (data.remove(key(command, i)) != null) {
+                        removed++;
+                        notifyKeyspace(key(command, i), "del");
+                    }
+                }
+                integer(out, removed);
+            }
+            case "PFADD" -> {
+                commands.increment();
+                Set<String> members = hyperLogLogs.computeIfAbsent(key(command, 1), k -> ConcurrentHashMap.newKeySet());
+                boolean changed = false;
+                for (int i = 2; i < command.size(); i++) {
+                    changed |= members.add(key(command, i));
+                }
+                integer(out, changed ? 1 : 0);
+            }
+            case "PFCOUNT" -> {
+                commands.increment();
+                Set<String> union = new HashSet<>();
+                for (int i = 1; i < command.size(); i++) {
+                    union.addAll(hyperLogLogs.getOrDefault(key(command, i), Set.of()));
+                }
+                integer(out, union.size());
+            }
+            default -> out.write(("-ERR unknown command '" + name + "'\r\n").getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    private void notifyKeyspace(String rawKey, String event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        String channel = KEYSPACE_PREFIX + rawKey;
+        for (Subscriber subscriber : subscribers) {
+            subscriber.patterns.forEach((pattern, regex) -> {
+                if (regex.matcher(channel).matches()) {
+                    subscriber.publish(pattern, channel, event);
+                }
+            });
+        }
+    }
+
+    private static Pattern glob(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        for (String part : pattern.split("\\*", -1)) {
+            if (!regex.isEmpty()) {
+                regex.append(".*");
+            }
+            regex.append(Pattern.quote(part));
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private static String key(List<byte[]> command, int index) {
+        return new String(command.get(index), StandardCharsets.ISO_8859_1);
+    }
+
+    private static List<byte[]> readCommand(InputStream in) throws IOException {
+        String header = readLine(in);
+        if (header == null) {
+            return null;
+        }
+        int count = Integer.parseInt(header.substring(1));
+        List<byte[]> args = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = Integer.parseInt(readLine(in).substring(1));
+            byte[] arg = in.readNBytes(length);
+            in.readNBytes(2);
+            args.add(arg);
+        }
+        return args;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b < 0) {
+                return null;
+            }
+            line.append((char) b);
+        }
+        in.read();
+        return line.toString();
+    }
+
+    private static void subscription(OutputStream out, String kind, String pattern, int count) throws IOException {
+        out.write("*3\r\n".getBytes(StandardCharsets.US_ASCII));
+        bulk(out, kind.getBytes(StandardCharsets.US_ASCII));
+        bulk(out, pattern == null ? null : pattern.getBytes(StandardCharsets.ISO_8859_1));
+        integer(out, count);
+    }
+
+    private static void simple(OutputStream out, String value) throws IOException {
+        out.write(("+" + value + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void integer(OutputStream out, long value) throws IOException {
+        out.write((":" + value + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void bulk(OutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        out.write(("$" + value.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(value);
+        out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public void close() {
+        try {
+            server.close();
+        } catch (IOException ignored) {
+            // 忽略
+        }
+    }
+
+    /**
+     * PSUBSCRIBE的连接
+     */
+    private static final class Subscriber {
+
+        private final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
+        private final OutputStream out;
+
+        Subscriber(OutputStream out) {
+            this.out = out;
+        }
+
+        void publish(String pattern, String channel, String message) {
+            synchronized (out) {
+                try {
+                    out.write("*4\r\n".getBytes(StandardCharsets.US_ASCII));
+                    bulk(out, "pmessage".getBytes(StandardCharsets.US_ASCII));
+                    bulk(out, pattern.getBytes(StandardCharsets.ISO_8859_1));
+                    bulk(out, channel.getBytes(StandardCharsets.ISO_8859_1));
+                    bulk(out, message.getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                } catch (IOException ignored) {
+                    // 订阅连接已关闭
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.redis;
+
+import com.example.redis.entitiy.User;
+import com.example.redis.serializer.BinaryRedisSerializer;
+import com.example.redis.serializer.JacksonPayloadCodec;
+import com.example.redis.serializer.PayloadCodec;
+import com.example.redis.serializer.TypeRegistry;
+import lombok.Data;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * BinaryRedisSerializer测试
+ * 基准: 对比GenericJackson2JsonRedisSerializer与BinaryRedisSerializer(json/smile/smile+压缩/手写格式)
+ * 编码/解码耗时(ns/op)和存储的字节数, 对象为User和包含500个User的Team
+ * 以及内置类型, 容器的元素类型, 文本值, 子类的读写结果
+ *
+ * @author luminion
+ */
+public class TestBinaryRedisSerializer {
+
+    private static final int USER_ITERATIONS = 500_000;
+
+    private static final int TEAM_ITERATIONS = 5_000;
+
+    private static long sink;
+
+    @Test
+    void userAndTeam() {
+        User user = user(18);
+        Team team = team(500);
+        Map<String, RedisSerializer<Object>> serializers = new LinkedHashMap<>();
+        serializers.put("GenericJackson2Json", new GenericJackson2JsonRedisSerializer());
+        serializers.put("Binary(json)", binary(JacksonPayloadCodec.json(), 0, null));
+        serializers.put("Binary(smile)", binary(JacksonPayloadCodec.smile(), 0, null));
+        serializers.put("Binary(smile+deflate)", binary(JacksonPayloadCodec.smile(), 1024, null));
+        serializers.put("Binary(手写User格式)", binary(JacksonPayloadCodec.smile(), 1024, new UserCodec()));
+
+        System.out.printf("%-24s %-6s %10s %12s %12s%n", "序列化器", "对象", "字节数", "编码ns/op", "解码ns/op");
+        Map<String, Integer> userBytes = new LinkedHashMap<>();
+        Map<String, Integer> teamBytes = new LinkedHashMap<>();
+        serializers.forEach((name, serializer) -> {
+            userBytes.put(name, report(name, "User", serializer, user, USER_ITERATIONS));
+            teamBytes.put(name, report(name, "Team", serializer, team, TEAM_ITERATIONS));
+        });
+        Assertions.assertTrue(userBytes.get("Binary(smile)") < userBytes.get("GenericJackson2Json"));
+        Assertions.assertTrue(teamBytes.get("Binary(smile)") < teamBytes.get("GenericJackson2Json"));
+        Assertions.assertTrue(teamBytes.get("Binary(smile+deflate)") < teamBytes.get("Binary(smile)"));
+    }
+
+    @Test
+    void builtinTypesAndPlainText() {
+        RedisSerializer<Object> serializer = binary(JacksonPayloadCodec.smile(), 16, null);
+        for (Object value : List.of("张三", "", 0, -1, Integer.MAX_VALUE, Long.MIN_VALUE, 3.14, true, "长字符串".repeat(100),
+                List.of(1, "a"), Map.of("k", "v"))) {
+            Assertions.assertEquals(value, serializer.deserialize(serializer.serialize(value)));
+        }
+        Assertions.assertNull(serializer.deserialize(serializer.serialize(null)));
+        // INCR写入的数字, 其他客户端写入的字符串(不是规范格式的数字保持字符串)
+        Assertions.assertEquals(42L, serializer.deserialize("42".getBytes()));
+        Assertions.assertEquals("hello", serializer.deserialize("hello".getBytes()));
+        Assertions.assertEquals("007", serializer.deserialize("007".getBytes()));
+        Assertions.assertThrows(RuntimeException.class, () -> serializer.serialize(new Object()));
+    }
+
+    @Test
+    void containerElementTypes() {
+        RedisSerializer<Object> serializer = binary(JacksonPayloadCodec.smile(), 16, null);
+        List<Object> users = new ArrayList<>(List.of(user(1), user(2)));
+        users.add(null);
+        Object list = serializer.deserialize(serializer.serialize(users));
+        Assertions.assertEquals(users, list);
+        Assertions.assertInstanceOf(User.class, ((List<?>) list).get(0));
+
+        Map<Object, Object> map = new LinkedHashMap<>();
+        map.put("team", team(2));
+        map.put(1L, Set.of("007"));
+        Assertions.assertEquals(map, serializer.deserialize(serializer.serialize(map)));
+        // 元素类型未注册时拒绝序列化, 不会读取为LinkedHashMap
+        Assertions.assertThrows(RuntimeException.class, () -> serializer.serialize(List.of(new Object())));
+
+        // 子类使用父类的注册
+        VipUser vip = new VipUser();
+        vip.setName("vip");
+        Object read = serializer.deserialize(serializer.serialize(vip));
+        Assertions.assertEquals(User.class, read.getClass());
+        Assertions.assertEquals("vip", ((User) read).getName());
+    }
+
+    private static int report(String name, String object, RedisSerializer<Object> serializer, Object value, int iterations) {
+        byte[] bytes = serializer.serialize(value);
+        Assertions.assertEquals(value, serializer.deserialize(bytes), name);
+        // 预热
+        run(serializer, value, bytes, iterations);
+        long[] nanos = run(serializer, value, bytes, iterations);
+        System.out.printf("%-24s %-6s %10d %12d %12d%n", name, object, bytes.length, nanos[0] / iterations, nanos[1] / iterations);
+        return bytes.length;
+    }
+
+    private static long[] run(RedisSerializer<Object> serializer, Object value, byte[] bytes, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += serializer.serialize(value).length;
+        }
+        long encode = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += serializer.deserialize(bytes).hashCode();
+        }
+        return new long[]{encode, System.nanoTime() - start};
+    }
+
+    private static BinaryRedisSerializer binary(PayloadCodec codec, int compressionThreshold, PayloadCodec userCodec) {
+        TypeRegistry registry = new TypeRegistry()
+                .register(16, User.class, userCodec)
+                .register(17, Team.class);
+        return new BinaryRedisSerializer(registry, codec, compressionThreshold, 1);
+    }
+
+    private static User user(int age) {
+        User user = new User();
+        user.setName("张三" + age);
+        user.setAge(age);
+        return user;
+    }
+
+    private static Team team(int size) {
+        Team team = new Team();
+        team.setName("研发部");
+        List<User> members = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            members.add(user(i));
+        }
+        team.setMembers(members);
+        team.setTags(Map.of("location", "上海", "level", "A"));
+        return team;
+    }
+
+    public static class VipUser extends User {
+    }
+
+    @Data
+    public static class Team {
+        private String name;
+        private List<User> members;
+        private Map<String, String> tags;
+    }
+
+    /**
+     * 手写的User格式: 姓名(utf8, 长度前缀) + 年龄(4字节, -1表示null)
+     */
+    static class UserCodec implements PayloadCodec {
+
+        @Override
+        public byte[] encode(Object value) throws IOException {
+            User user = (User) value;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeBoolean(user.getName() != null);
+            if (user.getName() != null) {
+                out.writeUTF(user.getName());
+            }
+            out.writeInt(user.getAge() == null ? -1 : user.getAge());
+            return bytes.toByteArray();
+        }
+
+        @Override
+        public <T> T decode(byte[] bytes, Class<T> type) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            User user = new User();
+            if (in.readBoolean()) {
+                user.setName(in.readUTF());
+            }
+            int age = in.readInt();
+            user.setAge(age < 0 ? null : age);
+            return type.cast(user);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.redis;
+
+import com.example.redis.counter.CounterProperties;
+import com.example.redis.counter.CounterService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.util.StopWatch;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * 计数器服务测试(使用本地的redis替身RespStandIn)
+ * 1.基准: 对比每次INCR与本地累计+批量写入的计数吞吐量和发送的redis命令数
+ * 2.精确/近似读取, 分片求和, 独立访客
+ *
+ * @author luminion
+ */
+public class TestCounterService {
+
+    private static final Duration RTT = Duration.ofMillis(1);
+
+    private static final int THREADS = 64;
+
+    private static RespStandIn redis;
+
+    private static JedisConnectionFactory connectionFactory;
+
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        redis = new RespStandIn(RTT);
+        connectionFactory = new JedisConnectionFactory(new RedisStandaloneConfiguration("localhost", redis.getPort()));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        connectionFactory.destroy();
+        redis.close();
+    }
+
+    @Test
+    void naiveVsSharded() throws Exception {
+        int naivePerThread = 100;
+        long commands = redis.getCommands();
+        StopWatch watch = new StopWatch();
+        watch.start("INCR");
+        concurrently(naivePerThread, () -> redisTemplate.opsForValue().increment("naive"));
+        watch.stop();
+        long naiveCommands = redis.getCommands() - commands;
+
+        int perThread = 100_000;
+        CounterService service = service(8, CounterProperties.ReadMode.EXACT);
+        service.start();
+        commands = redis.getCommands();
+        watch.start("sharded");
+        concurrently(perThread, () -> service.increment("sharded"));
+        service.stop();
+        watch.stop();
+        long shardedCommands = redis.getCommands() - commands;
+
+        System.out.println(watch.prettyPrint());
+        System.out.printf("INCR:    %10.0f increments/s, redis命令数: %d%n",
+                THREADS * naivePerThread / watch.getTaskInfo()[0].getTimeSeconds(), naiveCommands);
+        System.out.printf("sharded: %10.0f increments/s, redis命令数: %d, 网络往返: %d%n",
+                THREADS * perThread / watch.getTaskInfo()[1].getTimeSeconds(), shardedCommands, service.getRoundTrips());
+        Assertions.assertEquals((long) THREADS * perThread, service.get("sharded"));
+        Assertions.assertEquals(String.valueOf(THREADS * naivePerThread), redisTemplate.opsForValue().get("naive"));
+        long shardSum = IntStream.range(0, 8)
+                .mapToObj(i -> redisTemplate.opsForValue().get("counter:sharded:" + i))
+                .mapToLong(value -> value == null ? 0 : Long.parseLong(value))
+                .sum();
+        Assertions.assertEquals((long) THREADS * perThread, shardSum);
+    }
+
+    @Test
+    void readModes() {
+        CounterService exact = service(4, CounterProperties.ReadMode.EXACT);
+        CounterService approximate = service(4, CounterProperties.ReadMode.APPROXIMATE);
+        Assertions.assertEquals(0, approximate.get("modes"));
+        exact.add("modes", 10);
+        approximate.add("modes", 5);
+        // 精确读取写入本节点的增量后读取redis, 不包含其他节点未写入的增量
+        Assertions.assertEquals(10, exact.get("modes"));
+        // 近似读取: 上次读到的总数 + 本节点未写入的增量
+        Assertions.assertEquals(5, approximate.get("modes"));
+        approximate.flush();
+        Assertions.assertEquals(15, approximate.get("modes"));
+        Assertions.assertEquals(15, exact.get("modes"));
+    }
+
+    /**
+     * 近似读取在写入(取出增量 -> INCRBY -> MGET)期间不会变小, 第一次读取与定时写入并发时也不会用旧的总数覆盖
+     */
+    @Test
+    void approximateReadsNeverGoBackwards() throws Exception {
+        CounterService service = service(4, CounterProperties.ReadMode.APPROXIMATE);
+        service.start();
+        long[] last = new long[1];
+        CompletableFuture<Void> writers = CompletableFuture.runAsync(() -> {
+            try {
+                concurrently(20_000, () -> service.increment("monotonic"));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (!writers.isDone()) {
+            long value = service.get("monotonic");
+            Assertions.assertTrue(value >= last[0], value + " < " + last[0]);
+            last[0] = value;
+            service.flush();
+        }
+        writers.get();
+        service.stop();
+        Assertions.assertEquals((long) THREADS * 20_000, service.get("monotonic"));
+    }
+
+    @Test
+    void uniqueVisitors() throws Exception {
+        CounterService service = service(1, CounterProperties.ReadMode.APPROXIMATE);
+        service.start();
+        concurrently(10_000, () -> service.addVisitor("uv", "visitor-" + (int) (Math.random() * 1000)));
+        service.stop();
+        long commands = service.getRedisCommands();
+        Assertions.assertEquals(1000, service.uniqueVisitors("uv"));
+        System.out.printf("%d次访问, 独立访客: %d, redis命令数: %d%n", THREADS * 10_000, service.uniqueVisitors("uv"), commands);
+    }
+
+    private static CounterService service(int shards, CounterProperties.ReadMode readMode) {
+        CounterProperties properties = new CounterProperties();
+        properties.setShards(shards);
+        properties.setReadMode(readMode);
+        properties.setFlushInterval(Duration.ofMillis(100));
+        properties.setFlushThreshold(100_000);
+        return new CounterService(redisTemplate, properties, new SimpleMeterRegistry());
+    }
+
+    private static void concurrently(int perThread, Runnable operation) throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        operation.run();
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(2, TimeUnit.MINUTES);
+        }
+    }
+}
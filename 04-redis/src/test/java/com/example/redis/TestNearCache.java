@@ -0,0 +1,188 @@
+package com.example.redis;
+
+import com.example.redis.entitiy.User;
+import com.example.redis.near.NearCache;
+import com.example.redis.near.NearCacheProperties;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.util.StopWatch;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 近端缓存测试(使用本地的redis替身RespStandIn, 替身发送键空间通知)
+ * 1.一致性: 本节点/其他客户端/其他节点修改键后, 本地的值失效并读到新值
+ * 2.容量淘汰, 不匹配键模式的键不缓存, 订阅建立时清空本地缓存, 服务端未开启键空间通知时旁路
+ * 3.基准: 对比直接读取redis与经过近端缓存读取热点键的吞吐量, 输出命中率/失效数/staleness
+ *
+ * @author luminion
+ */
+public class TestNearCache {
+
+    private static final Duration RTT = Duration.ofMillis(1);
+
+    private static RespStandIn redis;
+
+    private static JedisConnectionFactory connectionFactory;
+
+    private static RedisTemplate<Object, Object> redisTemplate;
+
+    private static RedisMessageListenerContainer container;
+
+    private static SimpleMeterRegistry registry;
+
+    private static NearCache nearCache;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        redis = new RespStandIn(RTT);
+        connectionFactory = new JedisConnectionFactory(new RedisStandaloneConfiguration("localhost", redis.getPort()));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setDefaultSerializer(new GenericJackson2JsonRedisSerializer());
+        redisTemplate.afterPropertiesSet();
+        NearCacheProperties properties = new NearCacheProperties();
+        properties.setMaximumSize(100);
+        properties.setKeyPatterns(List.of("number", "user", "hot", "evict:*"));
+        registry = new SimpleMeterRegistry();
+        nearCache = new NearCache(redisTemplate, properties, 0, registry);
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(nearCache, nearCache.getChannelPatterns().stream().map(PatternTopic::new).toList());
+        container.afterPropertiesSet();
+        container.start();
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        container.stop();
+        container.destroy();
+        connectionFactory.destroy();
+        redis.close();
+    }
+
+    @Test
+    void invalidation() {
+        nearCache.set("number", 1);
+        Assertions.assertEquals(1, nearCache.get("number"));
+        Assertions.assertEquals(1, nearCache.get("number"));
+
+        // 其他客户端直接写入redis
+        redisTemplate.opsForValue().set("number", 2);
+        await(() -> nearCache.get("number"), 2);
+
+        // 其他节点写入(不经过本节点的连接)
+        redis.put("\"number\"", "3".getBytes(StandardCharsets.UTF_8));
+        await(() -> nearCache.get("number"), 3);
+
+        User user = new User();
+        user.setName("张三");
+        user.setAge(18);
+        nearCache.set("user", user);
+        Assertions.assertEquals(user, nearCache.get("user"));
+        nearCache.delete("user");
+        await(() -> nearCache.get("user"), null);
+    }
+
+    @Test
+    void eviction() {
+        for (int i = 0; i < 1000; i++) {
+            nearCache.get("evict:" + i);
+        }
+        Assertions.assertTrue(nearCache.size() <= 100, "size: " + nearCache.size());
+    }
+
+    @Test
+    void keyPatterns() {
+        // 键模式经过json键序列化器转换后订阅
+        Assertions.assertEquals(nearCache.getChannelPrefix() + "\"evict:*\"", nearCache.getChannelPatterns().get(3));
+        Assertions.assertTrue(nearCache.isCacheable("evict:1"));
+        Assertions.assertFalse(nearCache.isCacheable("other"));
+        int size = nearCache.size();
+        redisTemplate.opsForValue().set("other", 1);
+        Assertions.assertEquals(1, nearCache.get("other"));
+        Assertions.assertEquals(size, nearCache.size());
+        // 不缓存, 修改后立即读到新值
+        redis.put("\"other\"", "2".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals(2, nearCache.get("other"));
+
+        nearCache.get("number");
+        Assertions.assertTrue(nearCache.size() > 0);
+        nearCache.onPatternSubscribed(nearCache.getChannelPatterns().get(0).getBytes(StandardCharsets.UTF_8), 1);
+        Assertions.assertEquals(0, nearCache.size());
+    }
+
+    @Test
+    void bypass() {
+        // 服务端默认不发送键空间通知
+        Assertions.assertEquals("Kg$xe", NearCache.missingKeyspaceEvents("", "Kg$xe"));
+        Assertions.assertEquals("x", NearCache.missingKeyspaceEvents("Kg$e", "Kg$xe"));
+        Assertions.assertEquals("", NearCache.missingKeyspaceEvents("KA", "Kg$xe"));
+        Assertions.assertEquals("K", NearCache.missingKeyspaceEvents("EA", "Kg$xe"));
+
+        nearCache.set("number", 1);
+        nearCache.get("number");
+        nearCache.setBypass(true);
+        try {
+            Assertions.assertEquals(0, nearCache.size());
+            // 旁路时直接读取redis, 其他节点的修改立即可见
+            redis.put("\"number\"", "5".getBytes(StandardCharsets.UTF_8));
+            Assertions.assertEquals(5, nearCache.get("number"));
+            Assertions.assertEquals(0, nearCache.size());
+        } finally {
+            nearCache.setBypass(false);
+        }
+    }
+
+    @Test
+    void hotKeyReads() {
+        nearCache.set("hot", 42);
+        int direct = 1_000;
+        int near = 200_000;
+        StopWatch watch = new StopWatch();
+        watch.start("redis");
+        for (int i = 0; i < direct; i++) {
+            redisTemplate.opsForValue().get("hot");
+        }
+        watch.stop();
+        watch.start("near-cache");
+        for (int i = 0; i < near; i++) {
+            nearCache.get("hot");
+        }
+        watch.stop();
+        System.out.println(watch.prettyPrint());
+        System.out.printf("直接读取redis: %.0f ops/s, 近端缓存: %.0f ops/s%n",
+                direct / watch.getTaskInfo()[0].getTimeSeconds(), near / watch.getTaskInfo()[1].getTimeSeconds());
+        Timer staleness = registry.get("near.cache.staleness").timer();
+        System.out.printf("命中率: %.4f, 失效通知: %.0f, 淘汰: %.0f, staleness样本: %d, 最大: %.2f ms%n",
+                nearCache.hitRatio(), registry.get("near.cache.invalidations").counter().count(),
+                registry.get("near.cache.evictions").counter().count(), staleness.count(), staleness.max(TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(42, nearCache.get("hot"));
+    }
+
+    private static void await(Supplier<Object> read, Object expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!Objects.equals(read.get(), expected) && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        Assertions.assertEquals(expected, read.get());
+    }
+}
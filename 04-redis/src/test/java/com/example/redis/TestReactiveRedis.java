@@ -0,0 +1,154 @@
+package com.example.redis;
+
+import com.example.redis.reactive.EventLoopUtilization;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 阻塞(TestController, jedis) 与 响应式(ReactiveController, lettuce) 接口的负载对比
+ * 1000个并发连接分别请求/num和/reactive/num, 输出吞吐量和p50/p99延迟, 以及lettuce的命令延迟和事件循环线程利用率
+ * redis使用本地的替身RespStandIn(每次网络往返延迟1ms)
+ *
+ * @author luminion
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "luminion.near-cache.enabled=false",
+        "luminion.counter.enabled=false",
+        "luminion.reactive-redis.enabled=true",
+        "luminion.reactive-redis.event-loop-sample-interval=1h"
+})
+public class TestReactiveRedis {
+
+    private static final int CONNECTIONS = 1000;
+
+    private static final int REQUESTS_PER_CONNECTION = 20;
+
+    private static final RespStandIn REDIS = startRedis();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private EventLoopUtilization eventLoopUtilization;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    @DynamicPropertySource
+    static void redisProperties(DynamicPropertyRegistry properties) {
+        properties.add("spring.data.redis.host", () -> "localhost");
+        properties.add("spring.data.redis.port", REDIS::getPort);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        REDIS.close();
+    }
+
+    @Test
+    void blockingVsReactive() throws Exception {
+        Assertions.assertEquals("ok", send("/num/5").body());
+        Assertions.assertEquals("5", send("/num").body());
+        Assertions.assertEquals("5", send("/reactive/num").body());
+        // 预热
+        load("/num", 100, 5);
+        load("/reactive/num", 100, 5);
+
+        long[] blocking = load("/num", CONNECTIONS, REQUESTS_PER_CONNECTION);
+        eventLoopUtilization.sample();
+        long[] reactive = load("/reactive/num", CONNECTIONS, REQUESTS_PER_CONNECTION);
+        double utilization = eventLoopUtilization.sample();
+
+        report("阻塞(jedis)", blocking);
+        report("响应式(lettuce)", reactive);
+        Timer get = registry.find("lettuce.command.completion").tag("command", "GET").timer();
+        if (get != null) {
+            System.out.printf("lettuce GET命令: %d次, 平均: %.2f ms, 最大: %.2f ms%n",
+                    get.count(), get.mean(TimeUnit.MILLISECONDS), get.max(TimeUnit.MILLISECONDS));
+        }
+        System.out.printf("lettuce事件循环线程利用率: 平均 %.1f%%, 最大 %.1f%%%n", utilization * 100, eventLoopUtilization.getMax() * 100);
+    }
+
+    /**
+     * @return 耗时(ms), 请求数, 失败数, 延迟(us, 升序)...
+     */
+    private long[] load(String path, int connections, int requestsPerConnection) throws Exception {
+        int total = connections * requestsPerConnection;
+        long[] latencies = new long[total];
+        AtomicInteger index = new AtomicInteger();
+        LongAdder failures = new LongAdder();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(connections);
+            for (int c = 0; c < connections; c++) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < requestsPerConnection; i++) {
+                        long begin = System.nanoTime();
+                        try {
+                            if (send(path).statusCode() != 200) {
+                                failures.increment();
+                            }
+                        } catch (Exception e) {
+                            failures.increment();
+                        }
+                        latencies[index.getAndIncrement()] = (System.nanoTime() - begin) / 1000;
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.MINUTES);
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Arrays.sort(latencies);
+        return new long[]{elapsed, total, failures.sum(), latencies[total / 2], latencies[(int) (total * 0.99)]};
+    }
+
+    private HttpResponse<String> send(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void report(String name, long[] result) {
+        System.out.printf("%-16s %d个连接, %d个请求, 失败: %d, 耗时: %d ms, 吞吐量: %.0f req/s, p50: %.2f ms, p99: %.2f ms%n",
+                name, CONNECTIONS, result[1], result[2], result[0], result[1] * 1000.0 / Math.max(1, result[0]),
+                result[3] / 1000.0, result[4] / 1000.0);
+        Assertions.assertEquals(0, result[2], name + "存在失败的请求");
+    }
+
+    private static RespStandIn startRedis() {
+        try {
+            return new RespStandIn(Duration.ofMillis(1));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.redis;
+
+import com.example.redis.batch.RedisBatchProperties;
+import com.example.redis.batch.RedisBatcher;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.util.StopWatch;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * RedisBatcher测试
+ * 1.基准: 对比逐个访问(redisTemplate)与自动管道(RedisBatcher)/MGET的吞吐量
+ * 2.同一线程的命令按提交顺序执行, 批量写入/读取结果正确
+ * 3.管道中单条命令失败只影响该命令, 停止后提交的命令不会一直等待
+ *
+ * 没有真实的redis时, 使用本地的RESP协议替身(RespStandIn), 替身对每次网络往返延迟RTT
+ *
+ * @author luminion
+ */
+public class TestRedisBatcher {
+
+    /**
+     * 模拟的网络往返时间
+     */
+    private static final Duration RTT = Duration.ofMillis(1);
+
+    private static final int THREADS = 64;
+
+    private static final int OPS_PER_THREAD = 100;
+
+    private static final int PAGE_SIZE = 20;
+
+    private static RespStandIn redis;
+
+    private static JedisConnectionFactory connectionFactory;
+
+    private static RedisTemplate<Object, Object> redisTemplate;
+
+    private static RedisBatcher batcher;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        redis = new RespStandIn(RTT);
+        connectionFactory = new JedisConnectionFactory(new RedisStandaloneConfiguration("localhost", redis.getPort()));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        // 与SerializeConfig相同的redisTemplate
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setDefaultSerializer(new GenericJackson2JsonRedisSerializer());
+        redisTemplate.afterPropertiesSet();
+        batcher = new RedisBatcher(redisTemplate, new RedisBatchProperties());
+        batcher.start();
+        Map<String, Integer> items = new LinkedHashMap<>();
+        IntStream.range(0, PAGE_SIZE).forEach(i -> items.put("item:" + i, i));
+        batcher.multiSet(items);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        batcher.stop();
+        connectionFactory.destroy();
+        redis.close();
+    }
+
+    @Test
+    void naiveVsPipelined() throws Exception {
+        StopWatch watch = new StopWatch();
+        watch.start("naive");
+        concurrently(i -> redisTemplate.opsForValue().get("item:" + (i % PAGE_SIZE)));
+        watch.stop();
+        long batches = batcher.getBatches();
+        long commands = batcher.getCommands();
+        watch.start("pipelined");
+        concurrently(i -> batcher.get("item:" + (i % PAGE_SIZE)).join());
+        watch.stop();
+        report("并发读取(" + THREADS + "线程)", watch);
+        System.out.printf("自动管道平均每批命令数: %.1f%n",
+                (batcher.getCommands() - commands) / (double) Math.max(1, batcher.getBatches() - batches));
+    }
+
+    @Test
+    void pageRender() {
+        int pages = 50;
+        List<String> keys = IntStream.range(0, PAGE_SIZE).mapToObj(i -> "item:" + i).toList();
+        StopWatch watch = new StopWatch();
+        watch.start("naive");
+        for (int p = 0; p < pages; p++) {
+            for (String key : keys) {
+                redisTemplate.opsForValue().get(key);
+            }
+        }
+        watch.stop();
+        watch.start("pipelined");
+        for (int p = 0; p < pages; p++) {
+            List<CompletableFuture<Object>> futures = keys.stream().map(batcher::get).toList();
+            futures.forEach(CompletableFuture::join);
+        }
+        watch.stop();
+        watch.start("mget");
+        for (int p = 0; p < pages; p++) {
+            batcher.multiGet(keys);
+        }
+        watch.stop();
+        System.out.println(watch.prettyPrint());
+        System.out.printf("单线程渲染%d个页面(每页%d个键): naive %.0f pages/s, pipelined %.0f pages/s, mget %.0f pages/s%n",
+                pages, PAGE_SIZE, rate(pages, watch, 0), rate(pages, watch, 1), rate(pages, watch, 2));
+        Assertions.assertEquals(IntStream.range(0, PAGE_SIZE).boxed().toList(), batcher.multiGet(keys));
+    }
+
+    @Test
+    void orderedWithinThread() {
+        CompletableFuture<Boolean> set = batcher.set("order", 1);
+        CompletableFuture<Long> increment = batcher.increment("order", 41);
+        CompletableFuture<Object> get = batcher.get("order");
+        Assertions.assertTrue(set.join());
+        Assertions.assertEquals(42L, increment.join());
+        Assertions.assertEquals(42, get.join());
+        Assertions.assertEquals(1L, batcher.delete("order").join());
+        Assertions.assertNull(batcher.get("order").join());
+
+        batcher.multiSet(Map.of("ttl:a", "a", "ttl:b", "b"), Duration.ofMinutes(1));
+        Assertions.assertEquals(List.of("a", "b"), batcher.multiGet(List.of("ttl:a", "ttl:b")));
+        // 与redisTemplate写入的数据互通
+        Assertions.assertEquals("a", redisTemplate.opsForValue().get("ttl:a"));
+    }
+
+    @Test
+    void partialFailure() {
+        batcher.set("partial:text", "abc").join();
+        batcher.set("partial:number", 1).join();
+        // 对非数字的值INCR失败, 与它在同一管道中的其他命令不受影响
+        CompletableFuture<Object> before = batcher.get("partial:number");
+        CompletableFuture<Long> failed = batcher.increment("partial:text");
+        CompletableFuture<Long> increment = batcher.increment("partial:number", 2);
+        CompletableFuture<Object> after = batcher.get("partial:number");
+        Assertions.assertEquals(1, before.join());
+        Assertions.assertThrows(CompletionException.class, failed::join);
+        Assertions.assertEquals(3L, increment.join());
+        Assertions.assertEquals(3, after.join());
+    }
+
+    @Test
+    void submitRacingStop() throws Exception {
+        RedisBatcher stopping = new RedisBatcher(redisTemplate, new RedisBatchProperties());
+        stopping.start();
+        List<CompletableFuture<Object>> futures = new CopyOnWriteArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < THREADS; t++) {
+                executor.execute(() -> {
+                    for (int i = 0; i < OPS_PER_THREAD; i++) {
+                        try {
+                            futures.add(stopping.get("item:" + (i % PAGE_SIZE)));
+                        } catch (IllegalStateException e) {
+                            return;
+                        }
+                    }
+                });
+            }
+            TimeUnit.MILLISECONDS.sleep(5);
+            stopping.stop();
+        }
+        // 每个提交成功的命令都已完成(返回结果或异常)
+        for (CompletableFuture<Object> future : futures) {
+            Assertions.assertDoesNotThrow(() -> future.handle((value, e) -> value).get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private static void concurrently(IntConsumer operation) throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < OPS_PER_THREAD; i++) {
+                        operation.accept(i);
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(2, TimeUnit.MINUTES);
+        }
+    }
+
+    private static void report(String name, StopWatch watch) {
+        System.out.println(watch.prettyPrint());
+        int ops = THREADS * OPS_PER_THREAD;
+        for (StopWatch.TaskInfo task : watch.getTaskInfo()) {
+            System.out.printf("%s %-10s %8.0f ops/s%n", name, task.getTaskName(), ops / task.getTimeSeconds());
+        }
+    }
+
+    private static double rate(int count, StopWatch watch, int task) {
+        return count / watch.getTaskInfo()[task].getTimeSeconds();
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.doc.apidocs;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.models.GroupedOpenApi;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UriUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * OpenAPI文档缓存(过滤springdoc的api-docs路径)
+ * 1.第一次请求(或启动时预先生成)由springdoc生成文档, 之后直接返回缓存的字节(同时缓存gzip压缩后的字节), 不再经过springdoc
+ * 2.响应(包括第一次生成时的响应)带ETag(文档内容的hash), 请求的If-None-Match相同时返回304
+ * 3.重建: {@link #rebuild()}清除所有缓存的文档, 下次请求时重新生成;
+ *   分组的定义和请求映射在启动后不会变化, 无法在生成前判断哪些分组变化, 所以不做增量重建;
+ *   ETag按内容计算, 内容没有变化的文档重新生成后客户端仍然得到304
+ *
+ * DocConfig中的OpenAPI指定了服务器地址, 文档内容与请求的Host无关, 因此缓存只按路径区分;
+ * 只缓存已知的文档路径(默认文档, swagger-config, 每个分组及其yaml格式), 带查询参数的请求不缓存, 缓存的文档数不超过已知路径数
+ *
+ * @author luminion
+ */
+@Slf4j
+public class ApiDocsCache extends OncePerRequestFilter {
+
+    private final String apiDocsPath;
+
+    private final List<GroupedOpenApi> groups;
+
+    /**
+     * 可以缓存的文档路径(解码后, 不含上下文路径)
+     */
+    private final Set<String> cacheablePaths = new HashSet<>();
+
+    /**
+     * 路径(解码后, 不含上下文路径) -> 文档
+     */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 每次清除缓存后递增, 生成期间发生了清除的文档不放入缓存
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    public ApiDocsCache(String apiDocsPath, List<GroupedOpenApi> groups) {
+        this.apiDocsPath = apiDocsPath;
+        this.groups = groups;
+        for (String base : List.of(apiDocsPath, apiDocsPath + ".yaml")) {
+            cacheablePaths.add(base);
+            cacheablePaths.add(base + "/swagger-config");
+            for (GroupedOpenApi group : groups) {
+                cacheablePaths.add(base + "/" + group.getGroup());
+            }
+        }
+    }
+
+    /**
+     * 需要预先生成的文档路径(不含上下文路径, 已编码): 默认文档, swagger-config, 每个分组
+     */
+    public List<String> documentPaths() {
+        List<String> paths = new ArrayList<>();
+        paths.add(apiDocsPath);
+        paths.add(apiDocsPath + "/swagger-config");
+        for (GroupedOpenApi group : groups) {
+            paths.add(apiDocsPath + "/" + UriUtils.encodePathSegment(group.getGroup(), StandardCharsets.UTF_8));
+        }
+        return paths;
+    }
+
+    /**
+     * 清除所有缓存的文档, 下次请求时重新生成
+     *
+     * @return 清除的文档路径
+     */
+    public Set<String> rebuild() {
+        generation.incrementAndGet();
+        Set<String> cleared = new TreeSet<>(entries.keySet());
+        entries.keySet().removeAll(cleared);
+        log.info("api docs cache cleared: {}", cleared);
+        return cleared;
+    }
+
+    /**
+     * 已缓存的文档数
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = UriUtils.decode(request.getRequestURI().substring(request.getContextPath().length()), StandardCharsets.UTF_8);
+        if (request.getQueryString() != null || !cacheablePaths.contains(path)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Entry entry = entries.get(path);
+        if (entry == null) {
+            long current = generation.get();
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            chain.doFilter(request, wrapper);
+            if (wrapper.getStatus() == HttpServletResponse.SC_OK) {
+                Entry generated = Entry.of(wrapper.getContentAsByteArray(), wrapper.getContentType());
+                if (current == generation.get()) {
+                    entries.put(path, generated);
+                }
+                setCacheHeaders(response, generated);
+                // 重建后重新生成的文档内容没有变化时, 客户端缓存仍然有效
+                if (notModified(request, generated)) {
+                    wrapper.resetBuffer();
+                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
+            }
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        setCacheHeaders(response, entry);
+        if (notModified(request, entry)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        if (entry.contentType != null) {
+            response.setContentType(entry.contentType);
+        }
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        byte[] body = entry.body;
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = entry.gzip;
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static boolean notModified(HttpServletRequest request, Entry entry) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        return ifNoneMatch != null && (ifNoneMatch.contains(entry.etag) || ifNoneMatch.trim().equals("*"));
+    }
+
+    private static void setCacheHeaders(HttpServletResponse response, Entry entry) {
+        response.setHeader(HttpHeaders.ETAG, entry.etag);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        // 每次使用前向服务器确认(304), 文档变化后客户端可以立即取得新的文档
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+    }
+
+    /**
+     * 缓存的文档
+     */
+    private record Entry(byte[] body, byte[] gzip, String etag, String contentType) {
+
+        static Entry of(byte[] body, String contentType) {
+            try {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(compressed) {
+                    {
+                        def.setLevel(Deflater.BEST_COMPRESSION);
+                    }
+                }) {
+                    gzip.write(body);
+                }
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+                String etag = "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+                return new Entry(body, compressed.toByteArray(), etag, contentType);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.doc.apidocs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.models.GroupedOpenApi;
+import org.springdoc.core.properties.SpringDocConfigProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+/**
+ * OpenAPI文档缓存的配置
+ * luminion.api-docs-cache.enabled=true时启用
+ *
+ * @author luminion
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(ApiDocsCacheProperties.class)
+@ConditionalOnProperty(prefix = "luminion.api-docs-cache", name = "enabled", havingValue = "true")
+public class ApiDocsCacheConfig {
+
+    /**
+     * 启用时关闭springdoc自身的文档缓存(springdoc.cache.disabled), 由此缓存保存生成后的字节, 重建时可以取得新的文档;
+     * 未启用时保持springdoc的默认缓存, 不会每次请求都重新生成文档
+     *
+     * @param springDocConfigProperties springdoc的配置(api-docs路径)
+     * @param groups                    DocConfig中的分组
+     * @return {@link ApiDocsCache }
+     * @author luminion
+     */
+    @Bean
+    public ApiDocsCache apiDocsCache(SpringDocConfigProperties springDocConfigProperties, List<GroupedOpenApi> groups) {
+        springDocConfigProperties.getCache().setDisabled(true);
+        return new ApiDocsCache(springDocConfigProperties.getApiDocs().getPath(), groups);
+    }
+
+    /**
+     * 只过滤api-docs路径
+     *
+     * @param apiDocsCache              缓存
+     * @param springDocConfigProperties springdoc的配置
+     * @return {@link FilterRegistrationBean }<{@link ApiDocsCache }>
+     * @author luminion
+     */
+    @Bean
+    public FilterRegistrationBean<ApiDocsCache> apiDocsCacheRegistration(ApiDocsCache apiDocsCache, SpringDocConfigProperties springDocConfigProperties) {
+        String path = springDocConfigProperties.getApiDocs().getPath();
+        FilterRegistrationBean<ApiDocsCache> registration = new FilterRegistrationBean<>(apiDocsCache);
+        registration.addUrlPatterns(path, path + "/*", path + ".yaml", path + ".yaml/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * 启动完成时通过本机请求预先生成所有文档, 第一个用户请求即可命中缓存
+     *
+     * @param apiDocsCache 缓存
+     * @param properties   配置
+     * @return {@link ApplicationListener }<{@link ApplicationReadyEvent }>
+     * @author luminion
+     */
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> apiDocsPrecompute(ApiDocsCache apiDocsCache, ApiDocsCacheProperties properties) {
+        return event -> {
+            if (!properties.isPrecompute() || !(event.getApplicationContext() instanceof WebServerApplicationContext context)) {
+                return;
+            }
+            String base = "http://localhost:" + context.getWebServer().getPort() + context.getServletContext().getContextPath();
+            long start = System.nanoTime();
+            try (HttpClient client = HttpClient.newHttpClient()) {
+                for (String path : apiDocsCache.documentPaths()) {
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(base + path))
+                            .timeout(properties.getPrecomputeTimeout())
+                            .GET()
+                            .build();
+                    try {
+                        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        if (status != 200) {
+                            log.warn("precompute {} returned {}", path, status);
+                        }
+                    } catch (Exception e) {
+                        if (e instanceof InterruptedException) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        log.warn("precompute {} failed", path, e);
+                    }
+                }
+            }
+            log.info("{} api docs precomputed in {} ms", apiDocsCache.size(), (System.nanoTime() - start) / 1_000_000);
+        };
+    }
+}
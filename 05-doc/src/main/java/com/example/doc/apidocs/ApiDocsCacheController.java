@@ -0,0 +1,61 @@
+package com.example.doc.apidocs;
+
+import io.swagger.v3.oas.annotations.Hidden;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Set;
+
+/**
+ * OpenAPI文档缓存的管理接口(不出现在文档中)
+ * 配置了luminion.api-docs-cache.rebuild-token时需要通过请求头X-Rebuild-Token传入令牌, 否则只允许本机调用
+ *
+ * @author luminion
+ */
+@Hidden
+@RestController
+@ConditionalOnProperty(prefix = "luminion.api-docs-cache", name = "enabled", havingValue = "true")
+public class ApiDocsCacheController {
+
+    @Autowired
+    private ApiDocsCache apiDocsCache;
+
+    @Autowired
+    private ApiDocsCacheProperties properties;
+
+    /**
+     * 清除所有缓存的文档(下次请求时重新生成)
+     *
+     * @return 清除的文档路径
+     */
+    @PostMapping("/api-docs-cache/rebuild")
+    public Set<String> rebuild(HttpServletRequest request, @RequestHeader(name = "X-Rebuild-Token", required = false) String token) {
+        if (!authorized(request, token)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "rebuild not allowed");
+        }
+        return apiDocsCache.rebuild();
+    }
+
+    private boolean authorized(HttpServletRequest request, String token) {
+        String expected = properties.getRebuildToken();
+        if (StringUtils.hasText(expected)) {
+            return token != null && MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            return InetAddress.getByName(request.getRemoteAddr()).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+}
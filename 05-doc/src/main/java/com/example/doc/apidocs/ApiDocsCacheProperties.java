@@ -0,0 +1,36 @@
+package com.example.doc.apidocs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * OpenAPI文档缓存的配置
+ *
+ * @author luminion
+ */
+@Data
+@ConfigurationProperties(prefix = "luminion.api-docs-cache")
+public class ApiDocsCacheProperties {
+
+    /**
+     * 是否启用OpenAPI文档缓存
+     */
+    private boolean enabled = false;
+
+    /**
+     * 启动完成时是否预先生成所有分组的文档, 关闭时在第一次请求时生成
+     */
+    private boolean precompute = true;
+
+    /**
+     * 预先生成时每个文档的请求超时时间
+     */
+    private Duration precomputeTimeout = Duration.ofSeconds(30);
+
+    /**
+     * 重建接口(POST /api-docs-cache/rebuild)的令牌, 请求头X-Rebuild-Token必须与之相同; 未配置时只允许本机调用
+     */
+    private String rebuildToken;
+}
@@ -0,0 +1,28 @@
+package com.example.doc.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 批量导入导出的配置
+ * 员工和部门的/emp/import, /emp/export, /dept/import, /dept/export使用, 进度在/bulk/jobs查询
+ *
+ * @author luminion
+ */
+@Configuration
+@EnableConfigurationProperties(BulkProperties.class)
+public class BulkConfig {
+
+    /**
+     * @param properties   配置
+     * @param objectMapper spring mvc使用的ObjectMapper, NDJSON的格式与单条接口一致
+     * @return {@link BulkService }
+     * @author luminion
+     */
+    @Bean
+    public BulkService bulkService(BulkProperties properties, ObjectMapper objectMapper) {
+        return new BulkService(properties, objectMapper);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.doc.bulk;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * 批量导入导出任务的进度
+ *
+ * @author luminion
+ */
+@Tag(name = "批量导入导出", description = "导入导出任务的进度和速度")
+@RestController
+public class BulkController {
+
+    @Autowired
+    private BulkService bulkService;
+
+    @Operation(summary = "查询任务", description = "执行中的任务和最近结束的任务, 最新的在前")
+    @GetMapping("/bulk/jobs")
+    public List<BulkJob> getJobs() {
+        return bulkService.jobs();
+    }
+
+    @Operation(summary = "按照id查询任务")
+    @GetMapping("/bulk/jobs/{id}")
+    public BulkJob getJob(@PathVariable("id") @Parameter(description = "任务id") Long id) {
+        BulkJob job = bulkService.job(id);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "job not found: " + id);
+        }
+        return job;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.doc.bulk;
+
+import org.springframework.http.MediaType;
+
+/**
+ * 批量导入导出的格式
+ *
+ * @author luminion
+ */
+public enum BulkFormat {
+
+    /**
+     * 每行一个json对象
+     */
+    NDJSON("application/x-ndjson"),
+
+    /**
+     * 第一行为列名(实体的属性名), 之后每行一条数据, 不支持字段内换行
+     */
+    CSV("text/csv");
+
+    private final MediaType mediaType;
+
+    BulkFormat(String mediaType) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * 按请求的Content-Type或format参数(ndjson/csv)取得格式
+     *
+     * @return 格式, 不支持时为null
+     */
+    public static BulkFormat of(String value) {
+        if (value == null) {
+            return null;
+        }
+        for (BulkFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value.trim())) {
+                return format;
+            }
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(value);
+            for (BulkFormat format : values()) {
+                if (format.mediaType.isCompatibleWith(mediaType)) {
+                    return format;
+                }
+            }
+        } catch (IllegalArgumentException ignored) {
+            // 不是Content-Type
+        }
+        return null;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.doc.bulk;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 批量导入/导出任务的进度
+ * 计数由执行任务的请求线程更新, 查询进度的请求可以随时读取
+ *
+ * @author luminion
+ */
+@Schema(title = "批量导入导出任务")
+public class BulkJob {
+
+    public enum Direction {
+        IMPORT, EXPORT
+    }
+
+    public enum State {
+        RUNNING, DONE, FAILED
+    }
+
+    @Schema(title = "任务id")
+    @Getter
+    private final long id;
+
+    @Schema(title = "实体(emp/dept)")
+    @Getter
+    private final String entity;
+
+    @Schema(title = "导入/导出")
+    @Getter
+    private final Direction direction;
+
+    @Schema(title = "格式")
+    @Getter
+    private final BulkFormat format;
+
+    @Schema(title = "开始时间")
+    @Getter
+    private final Instant startedAt = Instant.now();
+
+    @Schema(title = "结束时间")
+    @Getter
+    private volatile Instant finishedAt;
+
+    @Schema(title = "状态")
+    @Getter
+    private volatile State state = State.RUNNING;
+
+    @Schema(title = "任务失败的原因")
+    @Getter
+    private volatile String message;
+
+    @Schema(title = "是否因请求数据无效而失败(如CSV列名不存在), 否则为服务端错误(写入仓库, 日志, IO等)")
+    @Getter
+    private volatile boolean invalidInput;
+
+    private final long startNanos = System.nanoTime();
+
+    private volatile long finishNanos;
+
+    private final AtomicLong records = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong batches = new AtomicLong();
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    private final int maxErrors;
+
+    private final List<String> errors = new ArrayList<>();
+
+    BulkJob(long id, String entity, Direction direction, BulkFormat format, int maxErrors) {
+        this.id = id;
+        this.entity = entity;
+        this.direction = direction;
+        this.format = format;
+        this.maxErrors = maxErrors;
+    }
+
+    @Schema(title = "已导入(写入仓库)/已导出的记录数")
+    public long getRecords() {
+        return records.get();
+    }
+
+    @Schema(title = "解析或校验失败而跳过的记录数")
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @Schema(title = "已写入仓库的批数(导出时为flush次数)")
+    public long getBatches() {
+        return batches.get();
+    }
+
+    @Schema(title = "已读取/已写出的字节数")
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    @Schema(title = "前maxErrors条错误(行号: 原因)")
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return List.copyOf(errors);
+        }
+    }
+
+    @Schema(title = "耗时(毫秒)")
+    public long getElapsedMillis() {
+        long end = state == State.RUNNING ? System.nanoTime() : finishNanos;
+        return (end - startNanos) / 1_000_000;
+    }
+
+    @Schema(title = "每秒记录数")
+    public long getRecordsPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0 : getRecords() * 1000 / elapsed;
+    }
+
+    void addRecords(int count) {
+        records.addAndGet(count);
+        batches.incrementAndGet();
+    }
+
+    void addBytes(long count) {
+        bytes.addAndGet(count);
+    }
+
+    void reject(long line, String reason) {
+        rejected.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < maxErrors) {
+                errors.add(line + ": " + reason);
+            }
+        }
+    }
+
+    void finish(String failure, boolean invalidInput) {
+        finishNanos = System.nanoTime();
+        finishedAt = Instant.now();
+        message = failure;
+        this.invalidInput = invalidInput;
+        state = failure == null ? State.DONE : State.FAILED;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.doc.bulk;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 批量导入导出的配置
+ *
+ * @author luminion
+ */
+@Data
+@ConfigurationProperties(prefix = "luminion.bulk")
+public class BulkProperties {
+
+    /**
+     * 导入时每批写入的记录数; 导出时每写出多少条记录flush一次
+     */
+    private int batchSize = 1000;
+
+    /**
+     * 每个导入任务最多记录的错误数(超过后只计数)
+     */
+    private int maxErrors = 100;
+
+    /**
+     * 保留的已结束任务数
+     */
+    private int history = 100;
+}
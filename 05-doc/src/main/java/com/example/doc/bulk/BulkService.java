@@ -0,0 +1,331 @@
+package com.example.doc.bulk;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 批量导入导出(NDJSON/CSV)
+ * 1.导入: 在请求线程上逐行读取请求体并解析, 校验通过的记录攒够batchSize后整批写入仓库;
+ *   写入完成前不读取后续数据, 客户端发送的速度受TCP窗口限制, 内存中最多只有一批数据
+ * 2.导出: 遍历仓库快照(不复制为列表), 逐条写入响应流, 每batchSize条flush一次;
+ *   客户端接收慢时写入阻塞, 服务端不会堆积数据
+ * 3.解析或校验失败的行跳过并记录行号和原因, 不影响其他行
+ * 4.每个任务的进度(记录数, 字节数, 速度)可以在执行中通过{@link #jobs()}查询
+ *
+ * @author luminion
+ */
+@Slf4j
+public class BulkService {
+
+    private static final int BUFFER_SIZE = 64 << 10;
+
+    private final BulkProperties properties;
+
+    private final ObjectMapper jsonMapper;
+
+    private final CsvMapper csvMapper = new CsvMapper();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Map<Long, BulkJob> running = new ConcurrentHashMap<>();
+
+    private final Deque<BulkJob> finished = new ConcurrentLinkedDeque<>();
+
+    public BulkService(BulkProperties properties, ObjectMapper jsonMapper) {
+        this.properties = properties;
+        this.jsonMapper = jsonMapper;
+        // 空单元格(导出时的null)读取为null
+        csvMapper.enable(CsvParser.Feature.EMPTY_STRING_AS_NULL);
+    }
+
+    /**
+     * 导入
+     *
+     * @param entity    实体名(任务显示用)
+     * @param type      实体类型
+     * @param format    格式
+     * @param in        请求体
+     * @param validator 校验, 返回错误信息, 通过时返回null
+     * @param sink      整批写入仓库
+     * @return 结束的任务, 格式错误(如CSV列名不存在, invalidInput为true), 读取或写入失败时状态为FAILED
+     */
+    public <T> BulkJob importFrom(String entity, Class<T> type, BulkFormat format, InputStream in,
+                                  Function<? super T, String> validator, Consumer<List<T>> sink) {
+        BulkJob job = start(entity, BulkJob.Direction.IMPORT, format);
+        String failure = null;
+        boolean invalidInput = false;
+        try {
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new CountingInputStream(in, job), StandardCharsets.UTF_8), BUFFER_SIZE);
+            long line = 0;
+            ObjectReader recordReader;
+            if (format == BulkFormat.CSV) {
+                String header = reader.readLine();
+                line++;
+                recordReader = header == null ? null : csvReader(type, stripBom(header));
+            } else {
+                recordReader = jsonMapper.readerFor(type);
+            }
+            int batchSize = Math.max(1, properties.getBatchSize());
+            List<T> batch = new ArrayList<>(batchSize);
+            String text;
+            while (recordReader != null && (text = reader.readLine()) != null) {
+                line++;
+                if (line == 1) {
+                    text = stripBom(text);
+                }
+                if (text.isBlank()) {
+                    continue;
+                }
+                T value;
+                try {
+                    value = recordReader.readValue(text);
+                } catch (JsonProcessingException e) {
+                    job.reject(line, e.getOriginalMessage());
+                    continue;
+                }
+                String error = validator.apply(value);
+                if (error != null) {
+                    job.reject(line, error);
+                    continue;
+                }
+                batch.add(value);
+                if (batch.size() >= batchSize) {
+                    sink.accept(batch);
+                    job.addRecords(batch.size());
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                sink.accept(batch);
+                job.addRecords(batch.size());
+            }
+        } catch (InvalidInputException e) {
+            failure = e.getMessage();
+            invalidInput = true;
+            log.debug("{} import {} rejected: {}", entity, job.getId(), failure);
+        } catch (IOException | RuntimeException e) {
+            failure = e.getMessage() == null ? e.getClass().getName() : e.getMessage();
+            log.warn("{} import {} failed after {} records: {}", entity, job.getId(), job.getRecords(), failure);
+        } finally {
+            finish(job, failure, invalidInput);
+        }
+        return job;
+    }
+
+    /**
+     * 导出, 写完后关闭输出流
+     *
+     * @param entity 实体名(任务显示用)
+     * @param type   实体类型
+     * @param format 格式
+     * @param rows   数据(快照视图)
+     * @param out    响应流
+     * @return 结束的任务, 客户端断开等写入失败时状态为FAILED
+     */
+    public <T> BulkJob exportTo(String entity, Class<T> type, BulkFormat format, Iterable<T> rows, OutputStream out) {
+        BulkJob job = start(entity, BulkJob.Direction.EXPORT, format);
+        String failure = null;
+        int batchSize = Math.max(1, properties.getBatchSize());
+        try (OutputStream buffered = new BufferedOutputStream(new CountingOutputStream(out, job), BUFFER_SIZE)) {
+            try (SequenceWriter writer = recordWriter(type, format).writeValues(buffered)) {
+                int pending = 0;
+                for (T row : rows) {
+                    writer.write(row);
+                    if (++pending >= batchSize) {
+                        writer.flush();
+                        job.addRecords(pending);
+                        pending = 0;
+                    }
+                }
+                writer.flush();
+                if (pending > 0) {
+                    job.addRecords(pending);
+                }
+            }
+            if (format == BulkFormat.NDJSON && job.getRecords() > 0) {
+                // 每行(包括最后一行)以换行结束
+                buffered.write('\n');
+            }
+        } catch (IOException | RuntimeException e) {
+            failure = e.getMessage() == null ? e.getClass().getName() : e.getMessage();
+            log.warn("{} export {} failed after {} records: {}", entity, job.getId(), job.getRecords(), failure);
+        } finally {
+            finish(job, failure, false);
+        }
+        return job;
+    }
+
+    /**
+     * 执行中的任务和最近结束的任务(最新的在前)
+     */
+    public List<BulkJob> jobs() {
+        List<BulkJob> jobs = new ArrayList<>(running.values());
+        jobs.sort((a, b) -> Long.compare(b.getId(), a.getId()));
+        jobs.addAll(finished);
+        return jobs;
+    }
+
+    /**
+     * @return 任务, 不存在(或已从历史中移除)时为null
+     */
+    public BulkJob job(long id) {
+        BulkJob job = running.get(id);
+        if (job != null) {
+            return job;
+        }
+        for (BulkJob candidate : finished) {
+            if (candidate.getId() == id) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private BulkJob start(String entity, BulkJob.Direction direction, BulkFormat format) {
+        BulkJob job = new BulkJob(sequence.incrementAndGet(), entity, direction, format, properties.getMaxErrors());
+        running.put(job.getId(), job);
+        return job;
+    }
+
+    private void finish(BulkJob job, String failure, boolean invalidInput) {
+        job.finish(failure, invalidInput);
+        finished.addFirst(job);
+        running.remove(job.getId());
+        while (finished.size() > properties.getHistory()) {
+            finished.pollLast();
+        }
+        log.info("{} {} {} finished: {} records, {} rejected, {} bytes, {} ms, {} records/s",
+                job.getEntity(), job.getDirection(), job.getId(), job.getRecords(), job.getRejected(),
+                job.getBytes(), job.getElapsedMillis(), job.getRecordsPerSecond());
+    }
+
+    /**
+     * 按CSV第一行的列名读取, 列名必须是实体的属性名(顺序任意, 可以只包含部分属性)
+     */
+    private ObjectReader csvReader(Class<?> type, String header) {
+        Set<String> properties = new HashSet<>();
+        csvMapper.schemaFor(type).forEach(column -> properties.add(column.getName()));
+        CsvSchema.Builder schema = CsvSchema.builder();
+        for (String column : header.split(",")) {
+            String name = column.trim();
+            if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\"")) {
+                name = name.substring(1, name.length() - 1);
+            }
+            if (!properties.contains(name)) {
+                throw new InvalidInputException("unknown column: " + name + ", expected " + properties);
+            }
+            schema.addColumn(name);
+        }
+        return csvMapper.readerFor(type).with(schema.build());
+    }
+
+    private ObjectWriter recordWriter(Class<?> type, BulkFormat format) {
+        ObjectWriter writer = format == BulkFormat.CSV
+                ? csvMapper.writerFor(type).with(csvMapper.schemaFor(type).withHeader())
+                : jsonMapper.writerFor(type).without(SerializationFeature.INDENT_OUTPUT).withRootValueSeparator("\n");
+        // 由导出按批flush; 输出流由导出关闭
+        return writer.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private static String stripBom(String text) {
+        return !text.isEmpty() && text.charAt(0) == '\uFEFF' ? text.substring(1) : text;
+    }
+
+    /**
+     * 请求数据无效(整个任务无法执行, 区别于单行解析/校验失败)
+     */
+    private static final class InvalidInputException extends RuntimeException {
+
+        InvalidInputException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 统计读取的字节数
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private final BulkJob job;
+
+        CountingInputStream(InputStream in, BulkJob job) {
+            super(in);
+            this.job = job;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                job.addBytes(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int count = super.read(bytes, offset, length);
+            if (count > 0) {
+                job.addBytes(count);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * 统计写出的字节数
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private final BulkJob job;
+
+        CountingOutputStream(OutputStream out, BulkJob job) {
+            super(out);
+            this.job = job;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            job.addBytes(1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            job.addBytes(length);
+        }
+    }
+}
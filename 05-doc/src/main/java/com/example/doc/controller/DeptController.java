@@ -5,10 +5,23 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import com.example.doc.entity.Dept;
 import com.example.doc.service.DeptService;
+import com.example.doc.store.InvalidCursorException;
+import com.example.doc.store.Page;
+import com.example.doc.bulk.BulkFormat;
+import com.example.doc.bulk.BulkJob;
+import com.example.doc.bulk.BulkService;
+import io.swagger.v3.oas.annotations.media.Content;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.List;
+import java.io.IOException;
+import java.util.Collection;
 
 /**
  * @author lfy
@@ -22,6 +35,9 @@ public class DeptController {
     @Autowired
     private DeptService deptService;
 
+    @Autowired
+    private BulkService bulkService;
+
 
     //Knife4j
     @Operation(summary = "查询",description = "按照id查询部门")
@@ -32,10 +48,46 @@ public class DeptController {
 
     @Operation(summary = "查询所有部门")
     @GetMapping("/deptList")
-    public List<Dept> getDept(){
+    public Collection<Dept> getDept(){
         return deptService.getDepts();
     }
 
+    @Operation(summary = "分页查询部门",description = "按照id升序, 使用上一页返回的next作为cursor查询下一页")
+    @GetMapping("/deptPage")
+    public Page<Dept> getDeptPage(@RequestParam(value = "cursor", required = false) @Parameter(description = "游标, 第一页不传") String cursor,
+                                  @RequestParam(value = "size", defaultValue = "20") @Parameter(description = "每页数量(1-1000)") int size){
+        try {
+            return deptService.getDeptPage(cursor, Math.max(1, Math.min(size, 1000)));
+        } catch (InvalidCursorException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @Operation(summary = "批量导入部门",description = "请求体为NDJSON(每行一个部门)或CSV(第一行为列名), 逐行解析校验后分批保存, 失败的行跳过并在errors中返回行号和原因")
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")})
+    @PostMapping(value = "/dept/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<BulkJob> importDepts(HttpServletRequest request) throws IOException {
+        BulkJob job = bulkService.importFrom("dept", Dept.class, BulkFormat.of(request.getContentType()), request.getInputStream(),
+                deptService::validateDept, deptService::saveDepts);
+        // 请求数据无效返回400, 写入仓库/日志等服务端错误返回500
+        HttpStatus status = job.getState() != BulkJob.State.FAILED ? HttpStatus.OK
+                : job.isInvalidInput() ? HttpStatus.BAD_REQUEST : HttpStatus.INTERNAL_SERVER_ERROR;
+        return ResponseEntity.status(status).body(job);
+    }
+
+    @Operation(summary = "批量导出部门",description = "按id升序流式输出当前版本的所有部门, 进度在/bulk/jobs查询")
+    @GetMapping("/dept/export")
+    public void exportDepts(@RequestParam(value = "format", defaultValue = "ndjson") @Parameter(description = "格式: ndjson或csv") String format,
+                            HttpServletResponse response) throws IOException {
+        BulkFormat bulkFormat = BulkFormat.of(format);
+        if (bulkFormat == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unsupported format: " + format);
+        }
+        response.setContentType(bulkFormat.getMediaType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=dept." + bulkFormat.name().toLowerCase());
+        bulkService.exportTo("dept", Dept.class, bulkFormat, deptService.getDepts(), response.getOutputStream());
+    }
+
 
     @Operation(summary = "保存部门",description = "必须提交json")
     @PostMapping("/dept")
@@ -1,12 +1,27 @@
 package com.example.doc.controller;
 
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import com.example.doc.entity.Employee;
 import com.example.doc.service.EmployeeService;
+import com.example.doc.store.InvalidCursorException;
+import com.example.doc.store.Page;
+import com.example.doc.bulk.BulkFormat;
+import com.example.doc.bulk.BulkJob;
+import com.example.doc.bulk.BulkService;
+import io.swagger.v3.oas.annotations.media.Content;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.List;
+import java.io.IOException;
+import java.util.Collection;
 
 
 /**
@@ -19,16 +34,57 @@ public class EmployeeController {
     @Autowired
     private EmployeeService employeeService;
 
+    @Autowired
+    private BulkService bulkService;
+
     @GetMapping("/emp/{id}")
     public Employee getEmployee(@PathVariable("id") Long id){
         return employeeService.getEmployeeById(id);
     }
 
     @GetMapping("/empList")
-    public List<Employee> getEmployee(){
+    public Collection<Employee> getEmployee(){
         return employeeService.getEmployees();
     }
 
+    @Operation(summary = "分页查询员工",description = "可按部门id或姓名前缀查询, 使用上一页返回的next作为cursor查询下一页")
+    @GetMapping("/empPage")
+    public Page<Employee> getEmployeePage(@RequestParam(value = "deptId", required = false) @Parameter(description = "部门id") Long deptId,
+                                          @RequestParam(value = "namePrefix", required = false) @Parameter(description = "姓名前缀") String namePrefix,
+                                          @RequestParam(value = "cursor", required = false) @Parameter(description = "游标, 第一页不传") String cursor,
+                                          @RequestParam(value = "size", defaultValue = "20") @Parameter(description = "每页数量(1-1000)") int size){
+        try {
+            return employeeService.getEmployeePage(deptId, namePrefix, cursor, Math.max(1, Math.min(size, 1000)));
+        } catch (InvalidCursorException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @Operation(summary = "批量导入员工",description = "请求体为NDJSON(每行一个员工)或CSV(第一行为列名), 逐行解析校验后分批保存, 失败的行跳过并在errors中返回行号和原因")
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")})
+    @PostMapping(value = "/emp/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<BulkJob> importEmployees(HttpServletRequest request) throws IOException {
+        BulkJob job = bulkService.importFrom("emp", Employee.class, BulkFormat.of(request.getContentType()), request.getInputStream(),
+                employeeService::validateEmployee, employeeService::saveEmployees);
+        // 请求数据无效返回400, 写入仓库/日志等服务端错误返回500
+        HttpStatus status = job.getState() != BulkJob.State.FAILED ? HttpStatus.OK
+                : job.isInvalidInput() ? HttpStatus.BAD_REQUEST : HttpStatus.INTERNAL_SERVER_ERROR;
+        return ResponseEntity.status(status).body(job);
+    }
+
+    @Operation(summary = "批量导出员工",description = "按id升序流式输出当前版本的所有员工, 进度在/bulk/jobs查询")
+    @GetMapping("/emp/export")
+    public void exportEmployees(@RequestParam(value = "format", defaultValue = "ndjson") @Parameter(description = "格式: ndjson或csv") String format,
+                                HttpServletResponse response) throws IOException {
+        BulkFormat bulkFormat = BulkFormat.of(format);
+        if (bulkFormat == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unsupported format: " + format);
+        }
+        response.setContentType(bulkFormat.getMediaType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=emp." + bulkFormat.name().toLowerCase());
+        bulkService.exportTo("emp", Employee.class, bulkFormat, employeeService.getEmployees(), response.getOutputStream());
+    }
+
     @PostMapping("/emp")
     public String saveEmployee(@RequestBody Employee employee){
         employeeService.saveEmployee(employee);
@@ -13,4 +13,5 @@ public class Employee {
     private String empName;
     private Integer age;
     private String email;
+    private Long deptId;
 }
@@ -0,0 +1,35 @@
+package com.example.doc.service;
+
+import com.example.doc.entity.Dept;
+import com.example.doc.store.EntityCodec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 部门的二进制编码: id(long) 名字是否非空(boolean) 名字
+ *
+ * @author luminion
+ */
+public class DeptCodec implements EntityCodec<Dept> {
+
+    @Override
+    public void write(Dept dept, DataOutput out) throws IOException {
+        out.writeLong(dept.getId());
+        out.writeBoolean(dept.getDeptName() != null);
+        if (dept.getDeptName() != null) {
+            out.writeUTF(dept.getDeptName());
+        }
+    }
+
+    @Override
+    public Dept read(DataInput in) throws IOException {
+        Dept dept = new Dept();
+        dept.setId(in.readLong());
+        if (in.readBoolean()) {
+            dept.setDeptName(in.readUTF());
+        }
+        return dept;
+    }
+}
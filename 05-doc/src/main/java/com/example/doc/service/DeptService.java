@@ -1,28 +1,103 @@
 package com.example.doc.service;
 
 import com.example.doc.entity.Dept;
+import com.example.doc.store.DocStore;
+import com.example.doc.store.MemoryRepository;
+import com.example.doc.store.Page;
+import com.example.doc.store.RepositoryJournal;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author luminion
  */
 @Service
 public class DeptService {
-    Map<Long, Dept> data = new ConcurrentHashMap<Long, Dept>();
+    MemoryRepository<Dept> data = new MemoryRepository<>(Dept::getId, DeptService::copy);
+
+    /**
+     * 启用持久化(luminion.doc-store.enabled=true)时存在
+     */
+    @Autowired(required = false)
+    private DocStore docStore;
+
+    /**
+     * 持久化的写入, 未启用持久化时为null
+     */
+    private RepositoryJournal<Dept> journal;
+
+    @PostConstruct
+    void recover() {
+        if (docStore != null) {
+            journal = docStore.open("dept", data, new DeptCodec());
+        }
+    }
+
+    /**
+     * 仓库保存的副本, 调用方之后修改传入的对象不影响仓库
+     */
+    public static Dept copy(Dept dept) {
+        Dept copy = new Dept();
+        copy.setId(dept.getId());
+        copy.setDeptName(dept.getDeptName());
+        return copy;
+    }
+
     public void deleteDept(Long id) {
-        data.remove(id);
+        if (journal != null) {
+            journal.remove(id);
+        } else {
+            data.remove(id);
+        }
     }
 
     public void saveDept(Dept dept) {
-        data.put(dept.getId(), dept);
+        if (journal != null) {
+            journal.put(dept);
+        } else {
+            data.put(dept);
+        }
+    }
+
+    /**
+     * 批量保存(批量导入), 启用持久化时整批写入日志后返回
+     */
+    public void saveDepts(List<Dept> depts) {
+        if (journal != null) {
+            journal.putAll(depts);
+        } else {
+            data.putAll(depts);
+        }
+    }
+
+    /**
+     * 校验部门
+     *
+     * @return 错误信息, 校验通过时为null
+     */
+    public String validateDept(Dept dept) {
+        if (dept.getId() == null) {
+            return "id is required";
+        }
+        if (dept.getDeptName() == null || dept.getDeptName().isBlank()) {
+            return "deptName is required";
+        }
+        return null;
+    }
+
+    /**
+     * 当前版本的所有部门(快照视图, 遍历时逐条复制)
+     */
+    public Collection<Dept> getDepts() {
+        return data.snapshot().values();
     }
 
-    public List<Dept> getDepts() {
-        return data.values().stream().toList();
+    public Page<Dept> getDeptPage(String cursor, int size) {
+        return data.snapshot().page(cursor, size);
     }
 
     public Dept getDeptById(Long id) {
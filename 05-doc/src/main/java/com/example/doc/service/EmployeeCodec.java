@@ -0,0 +1,66 @@
+package com.example.doc.service;
+
+import com.example.doc.entity.Employee;
+import com.example.doc.store.EntityCodec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 员工的二进制编码: id(long) 非空字段标记(byte) 姓名 年龄 邮箱 部门id(只写入非空的字段)
+ *
+ * @author luminion
+ */
+public class EmployeeCodec implements EntityCodec<Employee> {
+
+    private static final int NAME = 1;
+
+    private static final int AGE = 2;
+
+    private static final int EMAIL = 4;
+
+    private static final int DEPT = 8;
+
+    @Override
+    public void write(Employee employee, DataOutput out) throws IOException {
+        out.writeLong(employee.getId());
+        int flags = (employee.getEmpName() != null ? NAME : 0)
+                | (employee.getAge() != null ? AGE : 0)
+                | (employee.getEmail() != null ? EMAIL : 0)
+                | (employee.getDeptId() != null ? DEPT : 0);
+        out.writeByte(flags);
+        if (employee.getEmpName() != null) {
+            out.writeUTF(employee.getEmpName());
+        }
+        if (employee.getAge() != null) {
+            out.writeInt(employee.getAge());
+        }
+        if (employee.getEmail() != null) {
+            out.writeUTF(employee.getEmail());
+        }
+        if (employee.getDeptId() != null) {
+            out.writeLong(employee.getDeptId());
+        }
+    }
+
+    @Override
+    public Employee read(DataInput in) throws IOException {
+        Employee employee = new Employee();
+        employee.setId(in.readLong());
+        int flags = in.readByte();
+        if ((flags & NAME) != 0) {
+            employee.setEmpName(in.readUTF());
+        }
+        if ((flags & AGE) != 0) {
+            employee.setAge(in.readInt());
+        }
+        if ((flags & EMAIL) != 0) {
+            employee.setEmail(in.readUTF());
+        }
+        if ((flags & DEPT) != 0) {
+            employee.setDeptId(in.readLong());
+        }
+        return employee;
+    }
+}
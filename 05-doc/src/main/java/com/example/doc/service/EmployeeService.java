@@ -1,11 +1,16 @@
 package com.example.doc.service;
 
 import com.example.doc.entity.Employee;
+import com.example.doc.store.DocStore;
+import com.example.doc.store.MemoryRepository;
+import com.example.doc.store.Page;
+import com.example.doc.store.RepositoryJournal;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -14,21 +19,123 @@ import java.util.concurrent.ConcurrentHashMap;
 @Service
 public class EmployeeService {
 
-    Map<Long, Employee> data = new ConcurrentHashMap<>();
+    /**
+     * 按部门id索引
+     */
+    public static final String DEPT_INDEX = "dept";
+
+    /**
+     * 按员工姓名索引(前缀查询)
+     */
+    public static final String NAME_INDEX = "name";
+
+    MemoryRepository<Employee> data = new MemoryRepository<>(Employee::getId, EmployeeService::copy)
+            .index(DEPT_INDEX, Employee::getDeptId)
+            .index(NAME_INDEX, Employee::getEmpName);
+
+    /**
+     * 启用持久化(luminion.doc-store.enabled=true)时存在
+     */
+    @Autowired(required = false)
+    private DocStore docStore;
+
+    /**
+     * 持久化的写入, 未启用持久化时为null
+     */
+    private RepositoryJournal<Employee> journal;
+
+    @PostConstruct
+    void recover() {
+        if (docStore != null) {
+            journal = docStore.open("employee", data, new EmployeeCodec());
+        }
+    }
+
+    /**
+     * 仓库保存的副本, 调用方之后修改传入的对象不影响仓库和索引
+     */
+    public static Employee copy(Employee employee) {
+        Employee copy = new Employee();
+        copy.setId(employee.getId());
+        copy.setEmpName(employee.getEmpName());
+        copy.setAge(employee.getAge());
+        copy.setEmail(employee.getEmail());
+        copy.setDeptId(employee.getDeptId());
+        return copy;
+    }
 
     public Employee getEmployeeById(Long id) {
         return data.get(id);
     }
 
-    public List<Employee> getEmployees() {
-        return data.values().stream().toList();
+    /**
+     * 当前版本的所有员工(快照视图, 遍历时逐条复制)
+     */
+    public Collection<Employee> getEmployees() {
+        return data.snapshot().values();
+    }
+
+    /**
+     * 分页查询员工, 指定部门id时按部门查询, 否则指定姓名前缀时按前缀查询, 都未指定时按id分页
+     *
+     * @param deptId     部门id
+     * @param namePrefix 姓名前缀
+     * @param cursor     上一页返回的游标
+     * @param size       每页数量
+     */
+    public Page<Employee> getEmployeePage(Long deptId, String namePrefix, String cursor, int size) {
+        MemoryRepository.Snapshot<Employee> snapshot = data.snapshot();
+        if (deptId != null) {
+            return snapshot.pageByIndex(DEPT_INDEX, deptId, cursor, size);
+        }
+        if (namePrefix != null) {
+            return snapshot.pageByPrefix(NAME_INDEX, namePrefix, cursor, size);
+        }
+        return snapshot.page(cursor, size);
     }
 
     public void saveEmployee(Employee employee) {
-        data.put(employee.getId(),employee);
+        if (journal != null) {
+            journal.put(employee);
+        } else {
+            data.put(employee);
+        }
+    }
+
+    /**
+     * 批量保存(批量导入), 启用持久化时整批写入日志后返回
+     */
+    public void saveEmployees(List<Employee> employees) {
+        if (journal != null) {
+            journal.putAll(employees);
+        } else {
+            data.putAll(employees);
+        }
+    }
+
+    /**
+     * 校验员工
+     *
+     * @return 错误信息, 校验通过时为null
+     */
+    public String validateEmployee(Employee employee) {
+        if (employee.getId() == null) {
+            return "id is required";
+        }
+        if (employee.getAge() != null && (employee.getAge() < 0 || employee.getAge() > 200)) {
+            return "age out of range: " + employee.getAge();
+        }
+        if (employee.getEmail() != null && !employee.getEmail().isEmpty() && employee.getEmail().indexOf('@') < 0) {
+            return "invalid email: " + employee.getEmail();
+        }
+        return null;
     }
 
     public void deleteEmployee(Long id) {
-        data.remove(id);
+        if (journal != null) {
+            journal.remove(id);
+        } else {
+            data.remove(id);
+        }
     }
 }
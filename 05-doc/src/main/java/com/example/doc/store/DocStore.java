@@ -0,0 +1,112 @@
+package com.example.doc.store;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内存数据仓库的持久化管理
+ * 1.{@link #open}在启动时为仓库恢复数据并返回写入用的{@link RepositoryJournal}
+ * 2.后台每秒检查一次, 距上次快照超过snapshotInterval或日志超过snapshotLogSize时生成快照
+ * 3.关闭时生成最后一次快照(下次启动不需要重放日志)并关闭日志
+ *
+ * @author luminion
+ */
+@Slf4j
+public class DocStore implements SmartLifecycle {
+
+    private final DocStoreProperties properties;
+
+    private final List<RepositoryJournal<?>> journals = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile long lastSnapshot = System.nanoTime();
+
+    private volatile boolean running;
+
+    public DocStore(DocStoreProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 恢复仓库的数据, 需要在仓库写入数据前调用
+     *
+     * @param name       仓库名(文件名前缀)
+     * @param repository 仓库
+     * @param codec      实体的编码
+     */
+    public <T> RepositoryJournal<T> open(String name, MemoryRepository<T> repository, EntityCodec<T> codec) {
+        try {
+            RepositoryJournal<T> journal = new RepositoryJournal<>(name, repository, codec, properties);
+            journal.recover();
+            journals.add(journal);
+            return journal;
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to recover " + name, e);
+        }
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("doc-store-snapshot").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::snapshotIfNeeded, 1, 1, TimeUnit.SECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (RepositoryJournal<?> journal : journals) {
+            // 先关闭日志(写完队列中的记录), 再生成快照
+            journal.close();
+            snapshot(journal);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 在web服务器停止(不再有写入的请求)之后停止
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 4096;
+    }
+
+    private void snapshotIfNeeded() {
+        boolean due = System.nanoTime() - lastSnapshot >= properties.getSnapshotInterval().toNanos();
+        for (RepositoryJournal<?> journal : journals) {
+            if (due || journal.getLogBytesSinceSnapshot() >= properties.getSnapshotLogSize().toBytes()) {
+                snapshot(journal);
+            }
+        }
+        if (due) {
+            lastSnapshot = System.nanoTime();
+        }
+    }
+
+    private void snapshot(RepositoryJournal<?> journal) {
+        try {
+            journal.snapshot();
+        } catch (IOException e) {
+            log.error("snapshot failed", e);
+        }
+    }
+}
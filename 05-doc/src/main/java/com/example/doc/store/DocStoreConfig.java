@@ -0,0 +1,28 @@
+package com.example.doc.store;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 内存数据仓库持久化的配置
+ * luminion.doc-store.enabled=true时启用, DeptService/EmployeeService启动时从快照和日志恢复数据, 写操作写入日志
+ *
+ * @author luminion
+ */
+@Configuration
+@EnableConfigurationProperties(DocStoreProperties.class)
+@ConditionalOnProperty(prefix = "luminion.doc-store", name = "enabled", havingValue = "true")
+public class DocStoreConfig {
+
+    /**
+     * @param properties 配置
+     * @return {@link DocStore }
+     * @author luminion
+     */
+    @Bean
+    public DocStore docStore(DocStoreProperties properties) {
+        return new DocStore(properties);
+    }
+}
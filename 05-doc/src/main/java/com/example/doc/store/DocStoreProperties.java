@@ -0,0 +1,63 @@
+package com.example.doc.store;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * 内存数据仓库持久化(预写日志 + 快照)的配置
+ *
+ * @author luminion
+ */
+@Data
+@ConfigurationProperties(prefix = "luminion.doc-store")
+public class DocStoreProperties {
+
+    /**
+     * 是否启用持久化, 未启用时数据只在内存中
+     */
+    private boolean enabled = false;
+
+    /**
+     * 数据目录, 每个仓库一个快照文件和若干预写日志分段
+     */
+    private Path directory = Path.of("data");
+
+    /**
+     * 每次组提交后是否fsync, 关闭时只写入操作系统缓存(进程崩溃不丢数据, 机器掉电可能丢失最近的写入)
+     */
+    private boolean fsync = true;
+
+    /**
+     * 一次组提交最多写入的记录数
+     */
+    private int maxBatchSize = 4096;
+
+    /**
+     * 等待写入日志的记录队列容量, 满时写入的线程阻塞等待
+     */
+    private int queueCapacity = 65_536;
+
+    /**
+     * 日志分段大小, 超过后写入新的分段; 快照完成后删除快照已包含的分段
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 快照间隔(期间有写入时才生成快照)
+     */
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+
+    /**
+     * 上次快照后写入的日志超过此大小时提前生成快照
+     */
+    private DataSize snapshotLogSize = DataSize.ofMegabytes(256);
+
+    /**
+     * 启动恢复时解码快照和日志的并行度
+     */
+    private int replayThreads = Runtime.getRuntime().availableProcessors();
+}
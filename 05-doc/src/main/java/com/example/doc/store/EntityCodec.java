@@ -0,0 +1,18 @@
+package com.example.doc.store;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 实体的二进制编码, 用于预写日志和快照
+ * 按字段顺序直接写入, 不写字段名, 格式变化时需要同时修改读写
+ *
+ * @author luminion
+ */
+public interface EntityCodec<T> {
+
+    void write(T entity, DataOutput out) throws IOException;
+
+    T read(DataInput in) throws IOException;
+}
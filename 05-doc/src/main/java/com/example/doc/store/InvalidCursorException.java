@@ -0,0 +1,13 @@
+package com.example.doc.store;
+
+/**
+ * 游标格式错误(不是上一页返回的游标), 调用方应作为请求参数错误处理
+ *
+ * @author luminion
+ */
+public class InvalidCursorException extends IllegalArgumentException {
+
+    public InvalidCursorException(String cursor, Throwable cause) {
+        super("invalid cursor: " + cursor, cause);
+    }
+}
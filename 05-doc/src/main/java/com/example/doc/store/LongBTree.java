@@ -0,0 +1,367 @@
+package com.example.doc.store;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 不可变(持久化)的B+树, 键为long(不装箱), 按键升序
+ * 修改返回新的树, 只复制从根到被修改叶子路径上的节点(每层最多MAX_ENTRIES个元素), 其余节点与旧树共享,
+ * 因此旧树就是修改前的快照, 遍历旧树不受之后修改的影响, 也不需要复制数据
+ *
+ * 删除时不合并未满的节点, 只移除空节点
+ *
+ * @author luminion
+ */
+final class LongBTree<V> {
+
+    /**
+     * 每个节点的最大元素数(叶子的键数/分支的子节点数)
+     */
+    static final int MAX_ENTRIES = 64;
+
+    private static final LongBTree<?> EMPTY = new LongBTree<>(new Leaf(new long[0], new Object[0]), 0);
+
+    private final Node root;
+
+    private final int size;
+
+    private LongBTree(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> LongBTree<V> empty() {
+        return (LongBTree<V>) EMPTY;
+    }
+
+    /**
+     * 由按键严格升序的数据直接构建(自底向上填满节点), 用于从快照恢复, 比逐个写入快得多
+     */
+    static <V> LongBTree<V> ofSorted(long[] keys, Object[] values) {
+        if (keys.length == 0) {
+            return empty();
+        }
+        int count = (keys.length + MAX_ENTRIES - 1) / MAX_ENTRIES;
+        Node[] nodes = new Node[count];
+        long[] minKeys = new long[count];
+        for (int i = 0; i < count; i++) {
+            int from = i * MAX_ENTRIES;
+            int to = Math.min(keys.length, from + MAX_ENTRIES);
+            nodes[i] = new Leaf(Arrays.copyOfRange(keys, from, to), Arrays.copyOfRange(values, from, to));
+            minKeys[i] = keys[from];
+        }
+        while (nodes.length > 1) {
+            int parents = (nodes.length + MAX_ENTRIES - 1) / MAX_ENTRIES;
+            Node[] parentNodes = new Node[parents];
+            long[] parentMinKeys = new long[parents];
+            for (int i = 0; i < parents; i++) {
+                int from = i * MAX_ENTRIES;
+                int to = Math.min(nodes.length, from + MAX_ENTRIES);
+                parentNodes[i] = new Branch(Arrays.copyOfRange(minKeys, from + 1, to), Arrays.copyOfRange(nodes, from, to));
+                parentMinKeys[i] = minKeys[from];
+            }
+            nodes = parentNodes;
+            minKeys = parentMinKeys;
+        }
+        return new LongBTree<>(nodes[0], keys.length);
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        Node node = root;
+        while (node instanceof Branch branch) {
+            node = branch.children[branch.childIndex(key)];
+        }
+        Leaf leaf = (Leaf) node;
+        int index = Arrays.binarySearch(leaf.keys, key);
+        return index >= 0 ? (V) leaf.values[index] : null;
+    }
+
+    /**
+     * 写入键值, 返回新的树
+     */
+    LongBTree<V> put(long key, V value) {
+        Result result = insert(root, key, value);
+        Node newRoot = result.right == null ? result.left
+                : new Branch(new long[]{result.separator}, new Node[]{result.left, result.right});
+        return new LongBTree<>(newRoot, result.added ? size + 1 : size);
+    }
+
+    /**
+     * 删除键, 返回新的树(键不存在时返回自身)
+     */
+    LongBTree<V> remove(long key) {
+        Node newRoot = delete(root, key);
+        if (newRoot == root) {
+            return this;
+        }
+        if (newRoot == null) {
+            return empty();
+        }
+        // 根节点只剩一个子节点时降低高度
+        while (newRoot instanceof Branch branch && branch.children.length == 1) {
+            newRoot = branch.children[0];
+        }
+        return new LongBTree<>(newRoot, size - 1);
+    }
+
+    /**
+     * 按键升序遍历
+     *
+     * @param from      起始键
+     * @param inclusive 是否包含起始键
+     * @param visitor   访问者, 返回false时停止
+     */
+    @SuppressWarnings("unchecked")
+    void scan(long from, boolean inclusive, Visitor<? super V> visitor) {
+        Cursor cursor = new Cursor(root, from, inclusive);
+        while (cursor.hasNext()) {
+            if (!visitor.visit(cursor.key(), (V) cursor.value())) {
+                return;
+            }
+            cursor.advance();
+        }
+    }
+
+    /**
+     * 按键升序遍历所有值
+     */
+    Iterator<V> values() {
+        Cursor cursor = new Cursor(root, Long.MIN_VALUE, true);
+        return new Iterator<>() {
+
+            @Override
+            public boolean hasNext() {
+                return cursor.hasNext();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V next() {
+                if (!cursor.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                V value = (V) cursor.value();
+                cursor.advance();
+                return value;
+            }
+        };
+    }
+
+    private static Result insert(Node node, long key, Object value) {
+        if (node instanceof Leaf leaf) {
+            int index = Arrays.binarySearch(leaf.keys, key);
+            if (index >= 0) {
+                // 键已存在: 只复制值数组, 键数组共享
+                Object[] values = leaf.values.clone();
+                values[index] = value;
+                return new Result(new Leaf(leaf.keys, values), false);
+            }
+            int position = -index - 1;
+            long[] keys = insertAt(leaf.keys, position, key);
+            Object[] values = insertAt(leaf.values, position, value);
+            if (keys.length <= MAX_ENTRIES) {
+                return new Result(new Leaf(keys, values), true);
+            }
+            int mid = keys.length / 2;
+            Leaf left = new Leaf(Arrays.copyOfRange(keys, 0, mid), Arrays.copyOfRange(values, 0, mid));
+            Leaf right = new Leaf(Arrays.copyOfRange(keys, mid, keys.length), Arrays.copyOfRange(values, mid, values.length));
+            return new Result(left, right.keys[0], right, true);
+        }
+        Branch branch = (Branch) node;
+        int childIndex = branch.childIndex(key);
+        Result child = insert(branch.children[childIndex], key, value);
+        if (child.right == null) {
+            Node[] children = branch.children.clone();
+            children[childIndex] = child.left;
+            return new Result(new Branch(branch.keys, children), child.added);
+        }
+        long[] keys = insertAt(branch.keys, childIndex, child.separator);
+        Node[] children = insertAt(branch.children, childIndex + 1, child.right);
+        children[childIndex] = child.left;
+        if (children.length <= MAX_ENTRIES) {
+            return new Result(new Branch(keys, children), child.added);
+        }
+        // 分支节点分裂: 左边mid个子节点, 中间的分隔键上移
+        int mid = children.length / 2;
+        Branch left = new Branch(Arrays.copyOfRange(keys, 0, mid - 1), Arrays.copyOfRange(children, 0, mid));
+        Branch right = new Branch(Arrays.copyOfRange(keys, mid, keys.length), Arrays.copyOfRange(children, mid, children.length));
+        return new Result(left, keys[mid - 1], right, child.added);
+    }
+
+    /**
+     * 删除键, 返回新节点; 键不存在时返回原节点, 节点变为空时返回null
+     */
+    private static Node delete(Node node, long key) {
+        if (node instanceof Leaf leaf) {
+            int index = Arrays.binarySearch(leaf.keys, key);
+            if (index < 0) {
+                return leaf;
+            }
+            if (leaf.keys.length == 1) {
+                return null;
+            }
+            return new Leaf(removeAt(leaf.keys, index), removeAt(leaf.values, index));
+        }
+        Branch branch = (Branch) node;
+        int childIndex = branch.childIndex(key);
+        Node child = branch.children[childIndex];
+        Node newChild = delete(child, key);
+        if (newChild == child) {
+            return branch;
+        }
+        if (newChild != null) {
+            Node[] children = branch.children.clone();
+            children[childIndex] = newChild;
+            return new Branch(branch.keys, children);
+        }
+        if (branch.children.length == 1) {
+            return null;
+        }
+        // 移除空的子节点及其左侧(第一个子节点为右侧)的分隔键
+        return new Branch(removeAt(branch.keys, Math.max(0, childIndex - 1)), removeAt(branch.children, childIndex));
+    }
+
+    private static long[] insertAt(long[] array, int index, long value) {
+        long[] result = new long[array.length + 1];
+        System.arraycopy(array, 0, result, 0, index);
+        result[index] = value;
+        System.arraycopy(array, index, result, index + 1, array.length - index);
+        return result;
+    }
+
+    private static <T> T[] insertAt(T[] array, int index, T value) {
+        T[] result = Arrays.copyOf(array, array.length + 1);
+        System.arraycopy(array, index, result, index + 1, array.length - index);
+        result[index] = value;
+        return result;
+    }
+
+    private static long[] removeAt(long[] array, int index) {
+        long[] result = new long[array.length - 1];
+        System.arraycopy(array, 0, result, 0, index);
+        System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+        return result;
+    }
+
+    private static <T> T[] removeAt(T[] array, int index) {
+        T[] result = Arrays.copyOf(array, array.length - 1);
+        System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+        return result;
+    }
+
+    /**
+     * 遍历访问者
+     */
+    @FunctionalInterface
+    interface Visitor<V> {
+
+        boolean visit(long key, V value);
+    }
+
+    private sealed interface Node permits Leaf, Branch {
+    }
+
+    private record Leaf(long[] keys, Object[] values) implements Node {
+    }
+
+    /**
+     * 分支节点: children[i]中的键 >= keys[i-1] 且 < keys[i]
+     */
+    private record Branch(long[] keys, Node[] children) implements Node {
+
+        int childIndex(long key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+    }
+
+    /**
+     * 插入结果: 节点未分裂时right为null, 分裂时separator为right中的最小键
+     */
+    private record Result(Node left, long separator, Node right, boolean added) {
+
+        Result(Node node, boolean added) {
+            this(node, 0, null, added);
+        }
+    }
+
+    /**
+     * 从指定键开始按升序遍历叶子, 通过保存的路径(每层的分支节点和位置)移动到下一个叶子
+     */
+    private static final class Cursor {
+
+        private final Branch[] path = new Branch[16];
+
+        private final int[] positions = new int[16];
+
+        private int depth;
+
+        private Leaf leaf;
+
+        private int index;
+
+        Cursor(Node root, long from, boolean inclusive) {
+            Node node = root;
+            while (node instanceof Branch branch) {
+                int childIndex = branch.childIndex(from);
+                path[depth] = branch;
+                positions[depth++] = childIndex;
+                node = branch.children[childIndex];
+            }
+            leaf = (Leaf) node;
+            int found = Arrays.binarySearch(leaf.keys, from);
+            index = found >= 0 ? (inclusive ? found : found + 1) : -found - 1;
+            skipExhausted();
+        }
+
+        boolean hasNext() {
+            return leaf != null;
+        }
+
+        long key() {
+            return leaf.keys[index];
+        }
+
+        Object value() {
+            return leaf.values[index];
+        }
+
+        void advance() {
+            index++;
+            skipExhausted();
+        }
+
+        /**
+         * 当前叶子遍历完时移动到下一个叶子
+         */
+        private void skipExhausted() {
+            while (leaf != null && index >= leaf.keys.length) {
+                int level = depth - 1;
+                while (level >= 0 && positions[level] + 1 >= path[level].children.length) {
+                    level--;
+                }
+                if (level < 0) {
+                    leaf = null;
+                    return;
+                }
+                positions[level]++;
+                Node node = path[level].children[positions[level]];
+                depth = level + 1;
+                while (node instanceof Branch branch) {
+                    path[depth] = branch;
+                    positions[depth++] = 0;
+                    node = branch.children[0];
+                }
+                leaf = (Leaf) node;
+                index = 0;
+            }
+        }
+    }
+}
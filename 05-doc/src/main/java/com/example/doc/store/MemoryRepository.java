@@ -0,0 +1,496 @@
+package com.example.doc.store;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * 内存数据仓库
+ * 1.主键为long, 数据存放在不可变的B+树中(键不装箱), 按主键有序
+ * 2.二级索引: 索引值 -> (主键 -> 数据), 支持等值查询和字符串前缀查询, 索引值为null的数据不进入索引
+ * 3.写操作串行(加锁)生成新的树后替换根, 读操作不加锁;
+ *   {@link #snapshot()}取得某一时刻的快照, 遍历/分页读到的是同一个版本, 不复制数据
+ * 4.游标分页(keyset): 游标记录上一页最后一条数据的位置, 翻页的代价与页码无关
+ * 5.写入时保存数据的副本(copier), 读取(get, 快照的get/values/分页)时也返回副本,
+ *   调用方修改自己的对象或读到的对象都不影响仓库和索引;
+ *   每条数据写入时的索引值单独保存, 覆盖/删除时按保存的索引值移除旧索引, 不重新从数据中读取
+ *
+ * @author luminion
+ */
+public class MemoryRepository<T> {
+
+    /**
+     * 索引值的顺序(自然顺序)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final Comparator<Object> INDEX_ORDER = (a, b) -> ((Comparable) a).compareTo(b);
+
+    private final ToLongFunction<? super T> idGetter;
+
+    private final UnaryOperator<T> copier;
+
+    private final Map<String, Function<? super T, ? extends Comparable<?>>> indexes = new LinkedHashMap<>();
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile State<T> state = new State<>(LongBTree.empty(), LongBTree.empty(), Map.of());
+
+    /**
+     * 数据不可变时使用, 读写时不复制
+     *
+     * @param idGetter 主键
+     */
+    public MemoryRepository(ToLongFunction<? super T> idGetter) {
+        this(idGetter, UnaryOperator.identity());
+    }
+
+    /**
+     * @param idGetter 主键
+     * @param copier   复制数据, 仓库只保存副本, 读取时也返回副本
+     */
+    public MemoryRepository(ToLongFunction<? super T> idGetter, UnaryOperator<T> copier) {
+        this.idGetter = idGetter;
+        this.copier = copier;
+    }
+
+    /**
+     * 添加二级索引, 需要在写入数据前调用
+     *
+     * @param name      索引名
+     * @param extractor 索引值
+     */
+    public MemoryRepository<T> index(String name, Function<? super T, ? extends Comparable<?>> extractor) {
+        writeLock.lock();
+        try {
+            if (state.rows.size() > 0) {
+                throw new IllegalStateException("index must be added before data: " + name);
+            }
+            indexes.put(name, extractor);
+            Map<String, SortedBTree<Object, LongBTree<T>>> trees = new HashMap<>(state.indexes);
+            trees.put(name, SortedBTree.empty(INDEX_ORDER));
+            state = new State<>(state.rows, state.keys, Map.copyOf(trees));
+            return this;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public T get(long id) {
+        return copy(state.rows.get(id));
+    }
+
+    public int size() {
+        return state.rows.size();
+    }
+
+    /**
+     * 写入(新增或覆盖)
+     *
+     * @return 覆盖前的数据
+     */
+    public T put(T entity) {
+        T row = copier.apply(entity);
+        long id = idGetter.applyAsLong(row);
+        writeLock.lock();
+        try {
+            State<T> current = state;
+            T previous = current.rows.get(id);
+            Map<String, SortedBTree<Object, LongBTree<T>>> trees = current.indexes;
+            LongBTree<Object[]> keys = current.keys;
+            if (!indexes.isEmpty()) {
+                Object[] previousKeys = previous == null ? null : current.keys.get(id);
+                Object[] rowKeys = indexKeys(row);
+                trees = new HashMap<>(trees);
+                int i = 0;
+                for (String name : indexes.keySet()) {
+                    SortedBTree<Object, LongBTree<T>> tree = trees.get(name);
+                    if (previousKeys != null) {
+                        tree = unindex(tree, previousKeys[i], id);
+                    }
+                    Object value = rowKeys[i++];
+                    if (value != null) {
+                        LongBTree<T> bucket = tree.get(value);
+                        tree = tree.put(value, (bucket == null ? LongBTree.<T>empty() : bucket).put(id, row));
+                    }
+                    trees.put(name, tree);
+                }
+                trees = Map.copyOf(trees);
+                keys = keys.put(id, rowKeys);
+            }
+            state = new State<>(current.rows.put(id, row), keys, trees);
+            return copy(previous);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 批量写入(一次加锁)
+     * 仓库为空且数据按主键严格升序(如从快照恢复)时直接构建树和索引, 否则逐个写入
+     */
+    public void putAll(Collection<? extends T> entities) {
+        writeLock.lock();
+        try {
+            long[] ids = new long[entities.size()];
+            Object[] rows = entities.toArray();
+            boolean sorted = true;
+            for (int i = 0; i < rows.length; i++) {
+                @SuppressWarnings("unchecked")
+                T entity = (T) rows[i];
+                ids[i] = idGetter.applyAsLong(entity);
+                sorted &= i == 0 || ids[i] > ids[i - 1];
+            }
+            if (!sorted || state.rows.size() > 0) {
+                for (Object row : rows) {
+                    @SuppressWarnings("unchecked")
+                    T entity = (T) row;
+                    put(entity);
+                }
+                return;
+            }
+            Object[] keys = new Object[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                @SuppressWarnings("unchecked")
+                T row = copier.apply((T) rows[i]);
+                rows[i] = row;
+                keys[i] = indexKeys(row);
+            }
+            Map<String, SortedBTree<Object, LongBTree<T>>> trees = new HashMap<>();
+            int position = 0;
+            for (String name : indexes.keySet()) {
+                trees.put(name, buildIndex(position++, ids, rows, keys));
+            }
+            state = new State<>(LongBTree.ofSorted(ids, rows),
+                    indexes.isEmpty() ? LongBTree.empty() : LongBTree.ofSorted(ids, keys), Map.copyOf(trees));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 删除
+     *
+     * @return 删除的数据, 不存在时为null
+     */
+    public T remove(long id) {
+        writeLock.lock();
+        try {
+            State<T> current = state;
+            T previous = current.rows.get(id);
+            if (previous == null) {
+                return null;
+            }
+            Map<String, SortedBTree<Object, LongBTree<T>>> trees = current.indexes;
+            LongBTree<Object[]> keys = current.keys;
+            if (!indexes.isEmpty()) {
+                Object[] previousKeys = keys.get(id);
+                trees = new HashMap<>(trees);
+                int i = 0;
+                for (String name : indexes.keySet()) {
+                    trees.put(name, unindex(trees.get(name), previousKeys[i++], id));
+                }
+                trees = Map.copyOf(trees);
+                keys = keys.remove(id);
+            }
+            state = new State<>(current.rows.remove(id), keys, trees);
+            return copy(previous);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 当前版本的快照, 之后的写入不影响快照
+     */
+    public Snapshot<T> snapshot() {
+        return new Snapshot<>(state, copier);
+    }
+
+    private T copy(T row) {
+        return row == null ? null : copier.apply(row);
+    }
+
+    long idOf(T entity) {
+        return idGetter.applyAsLong(entity);
+    }
+
+    /**
+     * 数据的各索引值(按索引添加顺序)
+     */
+    private Object[] indexKeys(T row) {
+        Object[] keys = new Object[indexes.size()];
+        int i = 0;
+        for (Function<? super T, ? extends Comparable<?>> extractor : indexes.values()) {
+            keys[i++] = extractor.apply(row);
+        }
+        return keys;
+    }
+
+    /**
+     * 按(索引值, 位置)并行排序后分组构建索引, 数据按主键升序, 所以组内也是主键升序
+     *
+     * @param index   索引的位置(indexKeys中的下标)
+     * @param rowKeys 每条数据的索引值
+     */
+    private static <T> SortedBTree<Object, LongBTree<T>> buildIndex(int index, long[] ids, Object[] rows, Object[] rowKeys) {
+        IndexEntry[] entries = new IndexEntry[rows.length];
+        int count = 0;
+        for (int i = 0; i < rows.length; i++) {
+            Object value = ((Object[]) rowKeys[i])[index];
+            if (value != null) {
+                entries[count++] = new IndexEntry(value, i);
+            }
+        }
+        Arrays.parallelSort(entries, 0, count, Comparator.comparing(IndexEntry::value, INDEX_ORDER).thenComparingInt(IndexEntry::position));
+        List<Object> keys = new ArrayList<>();
+        List<Object> buckets = new ArrayList<>();
+        for (int from = 0; from < count; ) {
+            int to = from + 1;
+            while (to < count && INDEX_ORDER.compare(entries[to].value, entries[from].value) == 0) {
+                to++;
+            }
+            long[] bucketIds = new long[to - from];
+            Object[] bucketRows = new Object[to - from];
+            for (int i = from; i < to; i++) {
+                bucketIds[i - from] = ids[entries[i].position];
+                bucketRows[i - from] = rows[entries[i].position];
+            }
+            keys.add(entries[from].value);
+            buckets.add(LongBTree.ofSorted(bucketIds, bucketRows));
+            from = to;
+        }
+        return SortedBTree.ofSorted(INDEX_ORDER, keys.toArray(), buckets.toArray());
+    }
+
+    private static <T> SortedBTree<Object, LongBTree<T>> unindex(SortedBTree<Object, LongBTree<T>> tree, Object value, long id) {
+        if (value == null) {
+            return tree;
+        }
+        LongBTree<T> bucket = tree.get(value);
+        if (bucket == null) {
+            return tree;
+        }
+        bucket = bucket.remove(id);
+        return bucket.size() == 0 ? tree.remove(value) : tree.put(value, bucket);
+    }
+
+    private record IndexEntry(Object value, int position) {
+    }
+
+    /**
+     * @param keys 主键 -> 写入时的索引值(没有索引时为空)
+     */
+    private record State<T>(LongBTree<T> rows, LongBTree<Object[]> keys, Map<String, SortedBTree<Object, LongBTree<T>>> indexes) {
+    }
+
+    /**
+     * 某一版本的只读视图, 读到的数据为副本
+     */
+    public static final class Snapshot<T> {
+
+        private final State<T> state;
+
+        private final UnaryOperator<T> copier;
+
+        private Snapshot(State<T> state, UnaryOperator<T> copier) {
+            this.state = state;
+            this.copier = copier;
+        }
+
+        public T get(long id) {
+            T row = state.rows.get(id);
+            return row == null ? null : copier.apply(row);
+        }
+
+        public int size() {
+            return state.rows.size();
+        }
+
+        /**
+         * 按主键升序的所有数据(视图, 遍历时逐条复制)
+         */
+        public Collection<T> values() {
+            Collection<T> rows = storedValues();
+            return new AbstractCollection<>() {
+
+                @Override
+                public Iterator<T> iterator() {
+                    Iterator<T> iterator = rows.iterator();
+                    return new Iterator<>() {
+
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public T next() {
+                            return copier.apply(iterator.next());
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return rows.size();
+                }
+            };
+        }
+
+        /**
+         * 按主键升序的所有数据(仓库中保存的对象, 不复制), 只用于只读的场景(例如写入快照文件)
+         */
+        Collection<T> storedValues() {
+            LongBTree<T> rows = state.rows;
+            return new AbstractCollection<>() {
+
+                @Override
+                public Iterator<T> iterator() {
+                    return rows.values();
+                }
+
+                @Override
+                public int size() {
+                    return rows.size();
+                }
+            };
+        }
+
+        /**
+         * 按主键分页
+         *
+         * @param cursor 上一页返回的游标, 第一页为null
+         * @param limit  每页数量
+         * @throws InvalidCursorException 游标格式错误
+         */
+        public Page<T> page(String cursor, int limit) {
+            List<T> items = new ArrayList<>(limit);
+            long[] last = new long[1];
+            boolean first = cursor == null;
+            state.rows.scan(first ? Long.MIN_VALUE : parseId(cursor), first, (id, value) -> collect(items, limit, value, last, id));
+            return page(items, limit, () -> Long.toString(last[0]));
+        }
+
+        /**
+         * 按索引值等值查询并分页(同一索引值内按主键升序)
+         *
+         * @param index  索引名
+         * @param value  索引值
+         * @param cursor 上一页返回的游标, 第一页为null
+         * @param limit  每页数量
+         * @throws InvalidCursorException 游标格式错误
+         */
+        public Page<T> pageByIndex(String index, Object value, String cursor, int limit) {
+            LongBTree<T> bucket = value == null ? null : tree(index).get(value);
+            if (bucket == null) {
+                return new Page<>(List.of(), null);
+            }
+            List<T> items = new ArrayList<>(limit);
+            long[] last = new long[1];
+            boolean first = cursor == null;
+            bucket.scan(first ? Long.MIN_VALUE : parseId(cursor), first, (id, v) -> collect(items, limit, v, last, id));
+            return page(items, limit, () -> Long.toString(last[0]));
+        }
+
+        /**
+         * 按字符串索引的前缀查询并分页(按索引值, 主键升序)
+         *
+         * @param index  索引名
+         * @param prefix 前缀
+         * @param cursor 上一页返回的游标, 第一页为null
+         * @param limit  每页数量
+         * @throws InvalidCursorException 游标格式错误
+         */
+        public Page<T> pageByPrefix(String index, String prefix, String cursor, int limit) {
+            SortedBTree<Object, LongBTree<T>> tree = tree(index);
+            List<T> items = new ArrayList<>(limit);
+            long[] last = new long[1];
+            String[] lastValue = new String[1];
+            String from = prefix;
+            long afterId = Long.MIN_VALUE;
+            boolean inclusiveId = true;
+            if (cursor != null) {
+                int separator = cursor.lastIndexOf('.');
+                if (separator < 0) {
+                    throw new InvalidCursorException(cursor, null);
+                }
+                try {
+                    from = new String(Base64.getUrlDecoder().decode(cursor.substring(0, separator)), StandardCharsets.UTF_8);
+                } catch (IllegalArgumentException e) {
+                    throw new InvalidCursorException(cursor, e);
+                }
+                afterId = parseId(cursor.substring(separator + 1));
+                inclusiveId = false;
+            }
+            String start = from;
+            long startId = afterId;
+            boolean startInclusive = inclusiveId;
+            tree.scan(start, true, (key, bucket) -> {
+                String value = (String) key;
+                if (!value.startsWith(prefix)) {
+                    return false;
+                }
+                boolean resume = value.equals(start);
+                bucket.scan(resume ? startId : Long.MIN_VALUE, !resume || startInclusive, (id, v) -> {
+                    if (items.size() < limit) {
+                        lastValue[0] = value;
+                    }
+                    return collect(items, limit, v, last, id);
+                });
+                return items.size() <= limit;
+            });
+            return page(items, limit, () -> Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(lastValue[0].getBytes(StandardCharsets.UTF_8)) + "." + last[0]);
+        }
+
+        private SortedBTree<Object, LongBTree<T>> tree(String index) {
+            SortedBTree<Object, LongBTree<T>> tree = state.indexes.get(index);
+            if (tree == null) {
+                throw new IllegalArgumentException("unknown index: " + index);
+            }
+            return tree;
+        }
+
+        /**
+         * 多取一条用于判断是否有下一页
+         */
+        private static <T> boolean collect(List<T> items, int limit, T value, long[] last, long id) {
+            items.add(value);
+            if (items.size() <= limit) {
+                last[0] = id;
+            }
+            return items.size() <= limit;
+        }
+
+        private Page<T> page(List<T> items, int limit, Supplier<String> next) {
+            boolean more = items.size() > limit;
+            if (more) {
+                items.remove(limit);
+            }
+            items.replaceAll(copier);
+            return new Page<>(items, more ? next.get() : null);
+        }
+
+        private static long parseId(String cursor) {
+            try {
+                return Long.parseLong(cursor);
+            } catch (NumberFormatException e) {
+                throw new InvalidCursorException(cursor, e);
+            }
+        }
+    }
+}
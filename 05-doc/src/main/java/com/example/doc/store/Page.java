@@ -0,0 +1,18 @@
+package com.example.doc.store;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * 分页结果(游标分页)
+ *
+ * @param items 本页数据
+ * @param next  下一页的游标, 没有下一页时为null
+ * @author luminion
+ */
+@Schema(description = "分页结果")
+public record Page<T>(
+        @Schema(description = "本页数据") List<T> items,
+        @Schema(description = "下一页的游标, 作为cursor参数传入, 没有下一页时为null") String next) {
+}
@@ -0,0 +1,318 @@
+package com.example.doc.store;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+/**
+ * 内存数据仓库的持久化: 写操作先写入预写日志再修改内存, 读操作仍然直接读内存
+ * 1.写入: 编码后加锁分配序号并放入日志队列, 解锁后等待组提交完成再返回;
+ *   日志写入(且fsync)成功后由日志的写线程按序号顺序修改内存, 读操作看不到未落盘的写入; 日志写入失败时内存不变, 调用方收到异常
+ * 2.快照: 取得仓库快照(不复制)和已应用到内存的日志序号后写入快照文件, 然后删除快照已包含的日志分段
+ * 3.恢复: 加载快照(并行解码, 直接构建树), 再读取快照之后的日志, 按主键分区并行解码并合并为每个主键的最后一次操作后应用
+ *
+ * @author luminion
+ */
+@Slf4j
+public class RepositoryJournal<T> implements Closeable {
+
+    private final String name;
+
+    private final MemoryRepository<T> repository;
+
+    private final EntityCodec<T> codec;
+
+    private final Path snapshotPath;
+
+    private final WriteAheadLog wal;
+
+    private final int replayThreads;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 写线程修改内存时持有, 快照时持有以取得一致的(仓库快照, 序号)
+     */
+    private final ReentrantLock applyLock = new ReentrantLock();
+
+    private long lastLsn;
+
+    /**
+     * 已应用到内存的最大序号
+     */
+    private long appliedLsn;
+
+    private volatile long snapshotLsn;
+
+    private volatile long snapshotLogBytes;
+
+    RepositoryJournal(String name, MemoryRepository<T> repository, EntityCodec<T> codec, DocStoreProperties properties) throws IOException {
+        this.name = name;
+        this.repository = repository;
+        this.codec = codec;
+        this.snapshotPath = properties.getDirectory().resolve(name + ".snapshot");
+        this.wal = new WriteAheadLog(properties.getDirectory(), name, properties);
+        this.replayThreads = properties.getReplayThreads();
+    }
+
+    /**
+     * 从快照和日志恢复仓库的数据, 然后开始接收写入
+     */
+    void recover() throws IOException {
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, replayThreads));
+        try {
+            SnapshotFile.Loaded<T> snapshot = SnapshotFile.read(snapshotPath, codec, pool);
+            if (snapshot != null) {
+                repository.putAll(snapshot.rows());
+                snapshotLsn = snapshot.lsn();
+                lastLsn = snapshot.lsn();
+            }
+            List<WriteAheadLog.Record> records = new ArrayList<>();
+            wal.read(snapshotLsn, records::add);
+            replay(records, pool);
+            log.info("{} recovered in {} ms: {} rows from snapshot, {} log records replayed",
+                    name, (System.nanoTime() - start) / 1_000_000, snapshot == null ? 0 : snapshot.rows().size(), records.size());
+        } finally {
+            pool.shutdown();
+        }
+        appliedLsn = lastLsn;
+        wal.start(lastLsn);
+    }
+
+    /**
+     * 按主键分区, 每个分区内按序号顺序合并为每个主键的最后一次操作并解码, 分区之间并行
+     */
+    private void replay(List<WriteAheadLog.Record> records, ForkJoinPool pool) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        lastLsn = Math.max(lastLsn, records.get(records.size() - 1).lsn());
+        int partitions = Math.max(1, replayThreads);
+        List<List<WriteAheadLog.Record>> partitioned = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            partitioned.add(new ArrayList<>(records.size() / partitions + 1));
+        }
+        for (WriteAheadLog.Record record : records) {
+            partitioned.get((int) Math.floorMod(record.id(), (long) partitions)).add(record);
+        }
+        List<Map<Long, T>> results;
+        try {
+            results = pool.submit(() -> IntStream.range(0, partitions).parallel()
+                    .mapToObj(i -> merge(partitioned.get(i)))
+                    .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("log replay interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("invalid log record in " + name, e.getCause());
+        }
+        List<T> puts = new ArrayList<>();
+        for (Map<Long, T> result : results) {
+            for (Map.Entry<Long, T> entry : result.entrySet()) {
+                if (entry.getValue() == null) {
+                    repository.remove(entry.getKey());
+                } else {
+                    puts.add(entry.getValue());
+                }
+            }
+        }
+        // 按主键排序后批量写入, 没有快照时可以直接构建树
+        puts.sort(Comparator.comparingLong(repository::idOf));
+        repository.putAll(puts);
+    }
+
+    /**
+     * @return 主键 -> 最后一次写入的实体, 最后一次操作为删除时值为null
+     */
+    private Map<Long, T> merge(List<WriteAheadLog.Record> records) {
+        Map<Long, WriteAheadLog.Record> last = new HashMap<>();
+        for (WriteAheadLog.Record record : records) {
+            last.put(record.id(), record);
+        }
+        Map<Long, T> result = new HashMap<>(last.size() * 2);
+        for (WriteAheadLog.Record record : last.values()) {
+            result.put(record.id(), record.op() == WriteAheadLog.PUT ? decode(record.payload()) : null);
+        }
+        return result;
+    }
+
+    /**
+     * 写入(新增或覆盖), 日志写入且应用到内存后返回
+     */
+    public void put(T entity) {
+        long id = repository.idOf(entity);
+        byte[] payload = encode(entity);
+        append(List.of(new WriteAheadLog.Record(0, WriteAheadLog.PUT, id, payload)), () -> repository.put(entity));
+    }
+
+    /**
+     * 批量写入: 只加锁一次, 所有记录在同一批中组提交并一起应用到内存, 全部写入后返回
+     */
+    public void putAll(List<? extends T> entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        List<WriteAheadLog.Record> records = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            records.add(new WriteAheadLog.Record(0, WriteAheadLog.PUT, repository.idOf(entity), encode(entity)));
+        }
+        List<T> copy = List.copyOf(entities);
+        append(records, () -> repository.putAll(copy));
+    }
+
+    /**
+     * 删除, 日志写入且应用到内存后返回
+     */
+    public void remove(long id) {
+        append(List.of(new WriteAheadLog.Record(0, WriteAheadLog.REMOVE, id, new byte[0])), () -> repository.remove(id));
+    }
+
+    /**
+     * 加锁分配序号并放入日志队列, 等待日志写入后由写线程执行apply
+     *
+     * @param records 序号为0的记录, 加锁后按顺序分配序号
+     */
+    private void append(List<WriteAheadLog.Record> records, Runnable apply) {
+        CompletableFuture<Void> written;
+        lock.lock();
+        try {
+            List<WriteAheadLog.Record> numbered = new ArrayList<>(records.size());
+            long lsn = lastLsn;
+            for (WriteAheadLog.Record record : records) {
+                numbered.add(new WriteAheadLog.Record(++lsn, record.op(), record.id(), record.payload()));
+            }
+            long last = lsn;
+            written = wal.append(numbered, () -> {
+                applyLock.lock();
+                try {
+                    apply.run();
+                    appliedLsn = last;
+                } finally {
+                    applyLock.unlock();
+                }
+            });
+            // 放入队列后才占用序号, 写入失败的序号不会再使用(恢复时序号可以不连续)
+            lastLsn = last;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while writing " + name, e);
+        } finally {
+            lock.unlock();
+        }
+        await(written);
+    }
+
+    /**
+     * 生成快照并删除快照已包含的日志分段, 上次快照后没有写入时跳过
+     *
+     * @return 快照文件大小, 跳过时为0
+     */
+    public synchronized long snapshot() throws IOException {
+        MemoryRepository.Snapshot<T> snapshot;
+        long lsn;
+        long logBytes;
+        applyLock.lock();
+        try {
+            if (appliedLsn == snapshotLsn) {
+                return 0;
+            }
+            snapshot = repository.snapshot();
+            lsn = appliedLsn;
+            logBytes = wal.getBytes();
+        } finally {
+            applyLock.unlock();
+        }
+        long start = System.nanoTime();
+        long size = SnapshotFile.write(snapshotPath, lsn, snapshot.storedValues(), codec);
+        snapshotLsn = lsn;
+        snapshotLogBytes = logBytes;
+        wal.deleteUpTo(lsn);
+        log.info("{} snapshot written in {} ms: {} rows, {} bytes, lsn {}",
+                name, (System.nanoTime() - start) / 1_000_000, snapshot.size(), size, lsn);
+        return size;
+    }
+
+    /**
+     * 上次快照后写入的日志大小
+     */
+    public long getLogBytesSinceSnapshot() {
+        return wal.getBytes() - snapshotLogBytes;
+    }
+
+    /**
+     * 快照和日志占用的磁盘空间
+     */
+    public long getDiskBytes() {
+        return snapshotPath.toFile().length() + wal.diskBytes();
+    }
+
+    /**
+     * 日志写入的记录数
+     */
+    public long getLogRecords() {
+        return wal.getRecords();
+    }
+
+    /**
+     * 日志组提交次数
+     */
+    public long getLogBatches() {
+        return wal.getBatches();
+    }
+
+    /**
+     * 写入剩余的日志后关闭
+     */
+    @Override
+    public void close() {
+        wal.close();
+    }
+
+    private byte[] encode(T entity) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try {
+            codec.write(entity, new DataOutputStream(buffer));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private T decode(byte[] payload) {
+        try {
+            return codec.read(new DataInputStream(new ByteArrayInputStream(payload)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void await(CompletableFuture<Void> written) {
+        try {
+            written.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw new UncheckedIOException(io);
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.doc.store;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * 快照文件, 通过内存映射读写
+ * 格式: 魔数(int) 版本(int) 快照包含的最后一条日志序号(long) 记录数(long) | 长度(int) 实体(EntityCodec编码) ...
+ * 写入临时文件后原子重命名, 因此快照文件要么是完整的旧快照, 要么是完整的新快照
+ *
+ * @author luminion
+ */
+final class SnapshotFile {
+
+    private static final int MAGIC = 0x444F4353;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER = 24;
+
+    /**
+     * 每次映射的大小, 写满后从当前位置重新映射
+     */
+    private static final int WINDOW = 64 << 20;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * 写入快照
+     *
+     * @return 文件大小
+     */
+    static <T> long write(Path path, long lsn, Collection<T> rows, EntityCodec<T> codec) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        long size;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_WRITE, position, WINDOW);
+            window.putInt(MAGIC).putInt(VERSION).putLong(lsn).putLong(rows.size());
+            Buffer buffer = new Buffer();
+            DataOutputStream out = new DataOutputStream(buffer);
+            for (T row : rows) {
+                buffer.reset();
+                codec.write(row, out);
+                int length = buffer.size();
+                if (window.remaining() < 4 + length) {
+                    window.force();
+                    position += window.position();
+                    window = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max(WINDOW, 4 + length));
+                }
+                window.putInt(length).put(buffer.array(), 0, length);
+            }
+            window.force();
+            size = position + window.position();
+            // 映射的区域可能超过实际写入的大小
+            channel.truncate(size);
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        // 重命名落盘后才能删除快照已包含的日志分段
+        syncDirectory(path.toAbsolutePath().getParent());
+        return size;
+    }
+
+    /**
+     * fsync目录(使文件的创建/重命名落盘); windows不支持打开目录, 跳过
+     */
+    static void syncDirectory(Path directory) throws IOException {
+        if (System.getProperty("os.name", "").toLowerCase().startsWith("windows")) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * 读取快照, 记录的解码在pool中并行执行
+     *
+     * @return 快照, 文件不存在时为null
+     */
+    static <T> Loaded<T> read(Path path, EntityCodec<T> codec, ForkJoinPool pool) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        ByteBuffer[] records;
+        long lsn;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size, Integer.MAX_VALUE));
+            if (size < HEADER || window.getInt() != MAGIC || window.getInt() != VERSION) {
+                throw new IOException("invalid snapshot: " + path);
+            }
+            lsn = window.getLong();
+            records = new ByteBuffer[Math.toIntExact(window.getLong())];
+            // 顺序找出每条记录的位置(映射的缓冲区在通道关闭后仍然有效), 解码交给并行任务
+            for (int i = 0; i < records.length; i++) {
+                if (window.remaining() < 4 || window.remaining() < 4 + window.getInt(window.position())) {
+                    position += window.position();
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, Integer.MAX_VALUE));
+                }
+                int length = window.getInt();
+                records[i] = window.slice(window.position(), length);
+                window.position(window.position() + length);
+            }
+        }
+        Object[] rows = new Object[records.length];
+        try {
+            pool.submit(() -> IntStream.range(0, records.length).parallel().forEach(i -> {
+                try {
+                    rows[i] = codec.read(new DataInputStream(new BufferInput(records[i])));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("snapshot loading interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("invalid snapshot: " + path, e.getCause());
+        }
+        @SuppressWarnings("unchecked")
+        List<T> list = (List<T>) Arrays.asList(rows);
+        return new Loaded<>(lsn, list);
+    }
+
+    /**
+     * 读取到的快照
+     *
+     * @param lsn  快照包含的最后一条日志序号
+     * @param rows 按主键升序的数据
+     */
+    record Loaded<T>(long lsn, List<T> rows) {
+    }
+
+    /**
+     * 可以直接取得内部数组的ByteArrayOutputStream
+     */
+    static final class Buffer extends ByteArrayOutputStream {
+
+        byte[] array() {
+            return buf;
+        }
+    }
+
+    /**
+     * 从ByteBuffer读取的InputStream
+     */
+    private static final class BufferInput extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        BufferInput(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.doc.store;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * 不可变(持久化)的B+树, 键为任意可比较的对象, 用于二级索引(索引值 -> 该值下的数据)
+ * 结构与{@link LongBTree}相同: 修改只复制根到叶子的路径, 旧树即快照
+ *
+ * @author luminion
+ */
+final class SortedBTree<K, V> {
+
+    private final Comparator<? super K> comparator;
+
+    private final Node root;
+
+    private final int size;
+
+    private SortedBTree(Comparator<? super K> comparator, Node root, int size) {
+        this.comparator = comparator;
+        this.root = root;
+        this.size = size;
+    }
+
+    static <K, V> SortedBTree<K, V> empty(Comparator<? super K> comparator) {
+        return new SortedBTree<>(comparator, new Leaf(new Object[0], new Object[0]), 0);
+    }
+
+    /**
+     * 由按键严格升序的数据直接构建, 见{@link LongBTree#ofSorted}
+     */
+    static <K, V> SortedBTree<K, V> ofSorted(Comparator<? super K> comparator, Object[] keys, Object[] values) {
+        if (keys.length == 0) {
+            return empty(comparator);
+        }
+        int max = LongBTree.MAX_ENTRIES;
+        int count = (keys.length + max - 1) / max;
+        Node[] nodes = new Node[count];
+        Object[] minKeys = new Object[count];
+        for (int i = 0; i < count; i++) {
+            int from = i * max;
+            int to = Math.min(keys.length, from + max);
+            nodes[i] = new Leaf(Arrays.copyOfRange(keys, from, to), Arrays.copyOfRange(values, from, to));
+            minKeys[i] = keys[from];
+        }
+        while (nodes.length > 1) {
+            int parents = (nodes.length + max - 1) / max;
+            Node[] parentNodes = new Node[parents];
+            Object[] parentMinKeys = new Object[parents];
+            for (int i = 0; i < parents; i++) {
+                int from = i * max;
+                int to = Math.min(nodes.length, from + max);
+                parentNodes[i] = new Branch(Arrays.copyOfRange(minKeys, from + 1, to), Arrays.copyOfRange(nodes, from, to));
+                parentMinKeys[i] = minKeys[from];
+            }
+            nodes = parentNodes;
+            minKeys = parentMinKeys;
+        }
+        return new SortedBTree<>(comparator, nodes[0], keys.length);
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(K key) {
+        Node node = root;
+        while (node instanceof Branch branch) {
+            node = branch.children[childIndex(branch, key)];
+        }
+        Leaf leaf = (Leaf) node;
+        int index = search(leaf.keys, key);
+        return index >= 0 ? (V) leaf.values[index] : null;
+    }
+
+    /**
+     * 写入键值, 返回新的树
+     */
+    SortedBTree<K, V> put(K key, V value) {
+        Result result = insert(root, key, value);
+        Node newRoot = result.right == null ? result.left
+                : new Branch(new Object[]{result.separator}, new Node[]{result.left, result.right});
+        return new SortedBTree<>(comparator, newRoot, result.added ? size + 1 : size);
+    }
+
+    /**
+     * 删除键, 返回新的树(键不存在时返回自身)
+     */
+    SortedBTree<K, V> remove(K key) {
+        Node newRoot = delete(root, key);
+        if (newRoot == root) {
+            return this;
+        }
+        if (newRoot == null) {
+            return empty(comparator);
+        }
+        while (newRoot instanceof Branch branch && branch.children.length == 1) {
+            newRoot = branch.children[0];
+        }
+        return new SortedBTree<>(comparator, newRoot, size - 1);
+    }
+
+    /**
+     * 按键升序遍历
+     *
+     * @param from      起始键, null表示从头开始
+     * @param inclusive 是否包含起始键
+     * @param visitor   访问者, 返回false时停止
+     */
+    @SuppressWarnings("unchecked")
+    void scan(K from, boolean inclusive, Visitor<? super K, ? super V> visitor) {
+        Branch[] path = new Branch[16];
+        int[] positions = new int[16];
+        int depth = 0;
+        Node node = root;
+        while (node instanceof Branch branch) {
+            int childIndex = from == null ? 0 : childIndex(branch, from);
+            path[depth] = branch;
+            positions[depth++] = childIndex;
+            node = branch.children[childIndex];
+        }
+        Leaf leaf = (Leaf) node;
+        int index = 0;
+        if (from != null) {
+            int found = search(leaf.keys, from);
+            index = found >= 0 ? (inclusive ? found : found + 1) : -found - 1;
+        }
+        while (true) {
+            for (; index < leaf.keys.length; index++) {
+                if (!visitor.visit((K) leaf.keys[index], (V) leaf.values[index])) {
+                    return;
+                }
+            }
+            // 当前叶子遍历完, 移动到下一个叶子
+            int level = depth - 1;
+            while (level >= 0 && positions[level] + 1 >= path[level].children.length) {
+                level--;
+            }
+            if (level < 0) {
+                return;
+            }
+            positions[level]++;
+            node = path[level].children[positions[level]];
+            depth = level + 1;
+            while (node instanceof Branch branch) {
+                path[depth] = branch;
+                positions[depth++] = 0;
+                node = branch.children[0];
+            }
+            leaf = (Leaf) node;
+            index = 0;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int search(Object[] keys, K key) {
+        return Arrays.binarySearch(keys, key, (Comparator<Object>) comparator);
+    }
+
+    private int childIndex(Branch branch, K key) {
+        int index = search(branch.keys, key);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private Result insert(Node node, K key, Object value) {
+        if (node instanceof Leaf leaf) {
+            int index = search(leaf.keys, key);
+            if (index >= 0) {
+                Object[] values = leaf.values.clone();
+                values[index] = value;
+                return new Result(new Leaf(leaf.keys, values), false);
+            }
+            int position = -index - 1;
+            Object[] keys = insertAt(leaf.keys, position, key);
+            Object[] values = insertAt(leaf.values, position, value);
+            if (keys.length <= LongBTree.MAX_ENTRIES) {
+                return new Result(new Leaf(keys, values), true);
+            }
+            int mid = keys.length / 2;
+            Leaf left = new Leaf(Arrays.copyOfRange(keys, 0, mid), Arrays.copyOfRange(values, 0, mid));
+            Leaf right = new Leaf(Arrays.copyOfRange(keys, mid, keys.length), Arrays.copyOfRange(values, mid, values.length));
+            return new Result(left, right.keys[0], right, true);
+        }
+        Branch branch = (Branch) node;
+        int childIndex = childIndex(branch, key);
+        Result child = insert(branch.children[childIndex], key, value);
+        if (child.right == null) {
+            Node[] children = branch.children.clone();
+            children[childIndex] = child.left;
+            return new Result(new Branch(branch.keys, children), child.added);
+        }
+        Object[] keys = insertAt(branch.keys, childIndex, child.separator);
+        Node[] children = insertAt(branch.children, childIndex + 1, child.right);
+        children[childIndex] = child.left;
+        if (children.length <= LongBTree.MAX_ENTRIES) {
+            return new Result(new Branch(keys, children), child.added);
+        }
+        int mid = children.length / 2;
+        Branch left = new Branch(Arrays.copyOfRange(keys, 0, mid - 1), Arrays.copyOfRange(children, 0, mid));
+        Branch right = new Branch(Arrays.copyOfRange(keys, mid, keys.length), Arrays.copyOfRange(children, mid, children.length));
+        return new Result(left, keys[mid - 1], right, child.added);
+    }
+
+    private Node delete(Node node, K key) {
+        if (node instanceof Leaf leaf) {
+            int index = search(leaf.keys, key);
+            if (index < 0) {
+                return leaf;
+            }
+            if (leaf.keys.length == 1) {
+                return null;
+            }
+            return new Leaf(removeAt(leaf.keys, index), removeAt(leaf.values, index));
+        }
+        Branch branch = (Branch) node;
+        int childIndex = childIndex(branch, key);
+        Node child = branch.children[childIndex];
+        Node newChild = delete(child, key);
+        if (newChild == child) {
+            return branch;
+        }
+        if (newChild != null) {
+            Node[] children = branch.children.clone();
+            children[childIndex] = newChild;
+            return new Branch(branch.keys, children);
+        }
+        if (branch.children.length == 1) {
+            return null;
+        }
+        return new Branch(removeAt(branch.keys, Math.max(0, childIndex - 1)), removeAt(branch.children, childIndex));
+    }
+
+    private static <T> T[] insertAt(T[] array, int index, T value) {
+        T[] result = Arrays.copyOf(array, array.length + 1);
+        System.arraycopy(array, index, result, index + 1, array.length - index);
+        result[index] = value;
+        return result;
+    }
+
+    private static <T> T[] removeAt(T[] array, int index) {
+        T[] result = Arrays.copyOf(array, array.length - 1);
+        System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+        return result;
+    }
+
+    /**
+     * 遍历访问者
+     */
+    @FunctionalInterface
+    interface Visitor<K, V> {
+
+        boolean visit(K key, V value);
+    }
+
+    private sealed interface Node permits Leaf, Branch {
+    }
+
+    private record Leaf(Object[] keys, Object[] values) implements Node {
+    }
+
+    private record Branch(Object[] keys, Node[] children) implements Node {
+    }
+
+    /**
+     * 插入结果: 节点未分裂时right为null, 分裂时separator为right中的最小键
+     */
+    private record Result(Node left, Object separator, Node right, boolean added) {
+
+        Result(Node node, boolean added) {
+            this(node, null, null, added);
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package com.example.doc.store;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * 预写日志(组提交)
+ * 1.写入的线程把记录放入队列后等待, 一个写线程每次取出队列中积累的所有记录, 一次write + 一次fsync后通知这一批的所有线程,
+ *   并发写入越多每次fsync合并的记录越多
+ * 2.日志按大小分段, 文件名为 仓库名-分段第一条记录的序号.wal, 快照完成后删除快照已包含的分段
+ * 3.记录格式: 长度(int) crc32(int) | 序号(long) 操作(byte) 主键(long) 实体(EntityCodec编码);
+ *   读取时遇到长度/crc不正确的记录(崩溃时未写完)则忽略该分段剩余的部分
+ * 4.一次append的所有记录在同一批中写入; 写入(且fsync)成功后才在写线程中按序号顺序执行其apply(修改内存), 然后通知等待的线程
+ * 5.写入失败时把分段截断回这一批之前的位置(这一批的记录都不会被恢复), 截断也失败时日志进入失败状态, 拒绝之后的所有写入
+ *
+ * @author luminion
+ */
+@Slf4j
+final class WriteAheadLog implements Closeable {
+
+    static final byte PUT = 1;
+
+    static final byte REMOVE = 2;
+
+    /**
+     * 长度 + crc32
+     */
+    private static final int FRAME_HEADER = 8;
+
+    /**
+     * 序号 + 操作 + 主键
+     */
+    private static final int BODY_HEADER = 17;
+
+    private static final String SUFFIX = ".wal";
+
+    private final Path directory;
+
+    private final String name;
+
+    private final long segmentSize;
+
+    private final boolean fsync;
+
+    private final int maxBatchSize;
+
+    private final BlockingQueue<Entry> queue;
+
+    /**
+     * 分段: 第一条记录的序号 -> 文件
+     */
+    private final NavigableMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+
+    private final LongAdder records = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder bytes = new LongAdder();
+
+    private volatile boolean running;
+
+    /**
+     * 写入失败且无法截断时的异常, 之后拒绝所有写入
+     */
+    private volatile IOException failure;
+
+    private Thread writer;
+
+    /**
+     * 当前分段(只在写线程中访问)
+     */
+    private FileChannel channel;
+
+    private long channelSize;
+
+    WriteAheadLog(Path directory, String name, DocStoreProperties properties) throws IOException {
+        this.directory = directory;
+        this.name = name;
+        // 读取时整个分段映射到内存, 不能超过MappedByteBuffer的上限
+        this.segmentSize = Math.min(properties.getSegmentSize().toBytes(), 1L << 30);
+        this.fsync = properties.isFsync();
+        this.maxBatchSize = properties.getMaxBatchSize();
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, name + "-*" + SUFFIX)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String lsn = fileName.substring(name.length() + 1, fileName.length() - SUFFIX.length());
+                if (lsn.chars().allMatch(Character::isDigit)) {
+                    segments.put(Long.parseLong(lsn), file);
+                }
+            }
+        }
+    }
+
+    /**
+     * 按序号顺序读取序号大于afterLsn的记录, 在start之前调用
+     */
+    void read(long afterLsn, Consumer<Record> consumer) throws IOException {
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            Long next = segments.higherKey(segment.getKey());
+            if (next != null && next <= afterLsn + 1) {
+                // 整个分段都已包含在快照中
+                continue;
+            }
+            try (FileChannel file = FileChannel.open(segment.getValue(), StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+                CRC32 crc = new CRC32();
+                while (buffer.remaining() >= FRAME_HEADER) {
+                    int length = buffer.getInt();
+                    int checksum = buffer.getInt();
+                    if (length < BODY_HEADER || length > buffer.remaining()) {
+                        break;
+                    }
+                    ByteBuffer body = buffer.slice(buffer.position(), length);
+                    crc.reset();
+                    crc.update(body.duplicate());
+                    if ((int) crc.getValue() != checksum) {
+                        log.warn("wal {} corrupted at {}, ignoring the rest of the segment", segment.getValue(), buffer.position() - FRAME_HEADER);
+                        break;
+                    }
+                    buffer.position(buffer.position() + length);
+                    long lsn = body.getLong();
+                    if (lsn <= afterLsn) {
+                        continue;
+                    }
+                    byte op = body.get();
+                    long id = body.getLong();
+                    byte[] payload = new byte[body.remaining()];
+                    body.get(payload);
+                    consumer.accept(new Record(lsn, op, id, payload));
+                }
+            }
+        }
+    }
+
+    /**
+     * 开始接收写入
+     *
+     * @param lastLsn 恢复到的最后一条记录的序号, 之后的分段中没有有效的记录(第一条记录就未写完), 删除以免与新的分段混淆
+     */
+    void start(long lastLsn) throws IOException {
+        for (Path segment : segments.tailMap(lastLsn, false).values()) {
+            Files.deleteIfExists(segment);
+        }
+        segments.tailMap(lastLsn, false).clear();
+        running = true;
+        writer = Thread.ofPlatform().name("wal-" + name).daemon().start(this::run);
+    }
+
+    /**
+     * 添加一组记录(序号递增, 且大于之前添加的记录), 队列满时阻塞
+     *
+     * @param records 记录, 在同一批中写入
+     * @param apply   写入(且fsync)成功后在写线程中执行, 所有append的apply按添加的顺序执行; 写入失败时不执行
+     * @return apply执行后完成, 写入失败时异常完成
+     */
+    CompletableFuture<Void> append(List<Record> records, Runnable apply) throws InterruptedException {
+        if (!running) {
+            throw new IllegalStateException("wal " + name + " is closed");
+        }
+        if (failure != null) {
+            throw new IllegalStateException("wal " + name + " failed", failure);
+        }
+        Entry entry = new Entry(records, apply, new CompletableFuture<>());
+        queue.put(entry);
+        return entry.written;
+    }
+
+    /**
+     * 删除所有记录的序号都不大于lsn的分段(当前写入的分段除外)
+     */
+    void deleteUpTo(long lsn) throws IOException {
+        Iterator<Map.Entry<Long, Path>> iterator = segments.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Path> segment = iterator.next();
+            Long next = segments.higherKey(segment.getKey());
+            if (next == null || next > lsn + 1) {
+                return;
+            }
+            Files.deleteIfExists(segment.getValue());
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 所有分段的大小
+     */
+    long diskBytes() {
+        long size = 0;
+        for (Path segment : segments.values()) {
+            size += segment.toFile().length();
+        }
+        return size;
+    }
+
+    long getRecords() {
+        return records.sum();
+    }
+
+    /**
+     * 组提交次数(write + fsync次数)
+     */
+    long getBatches() {
+        return batches.sum();
+    }
+
+    long getBytes() {
+        return bytes.sum();
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>(maxBatchSize);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        CRC32 crc = new CRC32();
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (failure != null) {
+                IllegalStateException rejected = new IllegalStateException("wal " + name + " failed", failure);
+                batch.forEach(entry -> entry.written.completeExceptionally(rejected));
+                batch.clear();
+                continue;
+            }
+            try {
+                buffer = write(batch, buffer, crc);
+            } catch (IOException e) {
+                log.error("wal {} write failed", name, e);
+                buffer.clear();
+                discard();
+                batch.forEach(entry -> entry.written.completeExceptionally(e));
+                batch.clear();
+                continue;
+            }
+            for (Entry entry : batch) {
+                try {
+                    entry.apply.run();
+                    entry.written.complete(null);
+                } catch (RuntimeException e) {
+                    entry.written.completeExceptionally(e);
+                }
+            }
+            batch.clear();
+        }
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            log.warn("wal {} close failed", name, e);
+        }
+    }
+
+    private ByteBuffer write(List<Entry> batch, ByteBuffer buffer, CRC32 crc) throws IOException {
+        if (channel == null || channelSize >= segmentSize) {
+            roll(batch.get(0).records.get(0).lsn());
+        }
+        long written = 0;
+        int count = 0;
+        for (Entry entry : batch) {
+            for (Record record : entry.records) {
+                int frame = FRAME_HEADER + BODY_HEADER + record.payload().length;
+                if (buffer.remaining() < frame) {
+                    written += flush(buffer);
+                    if (buffer.capacity() < frame) {
+                        buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(frame) << 1);
+                    }
+                }
+                int start = buffer.position();
+                buffer.putInt(BODY_HEADER + record.payload().length).putInt(0)
+                        .putLong(record.lsn()).put(record.op()).putLong(record.id()).put(record.payload());
+                crc.reset();
+                crc.update(buffer.slice(start + FRAME_HEADER, frame - FRAME_HEADER));
+                buffer.putInt(start + 4, (int) crc.getValue());
+                count++;
+            }
+        }
+        written += flush(buffer);
+        if (fsync) {
+            channel.force(false);
+        }
+        channelSize += written;
+        records.add(count);
+        batches.increment();
+        bytes.add(written);
+        return buffer;
+    }
+
+    private long flush(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        buffer.clear();
+        return written;
+    }
+
+    /**
+     * 写入失败后截断这一批已写入的部分, 之后的批次接着最后一条完整的记录写入;
+     * 截断失败时进入失败状态(恢复时读到不完整的记录会忽略分段剩余的部分, 不能再在其后追加)
+     */
+    private void discard() {
+        try {
+            if (channel != null) {
+                channel.truncate(channelSize);
+                channel.position(channelSize);
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            log.error("wal {} truncate failed, rejecting further writes", name, e);
+            failure = e;
+        }
+    }
+
+    private void roll(long firstLsn) throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+            channel = null;
+        }
+        Path segment = directory.resolve(String.format("%s-%020d%s", name, firstLsn, SUFFIX));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        channelSize = 0;
+        segments.put(firstLsn, segment);
+        if (fsync) {
+            // 新分段的目录项也要落盘, 否则掉电后整个分段可能消失
+            SnapshotFile.syncDirectory(directory);
+        }
+    }
+
+    /**
+     * 写入剩余的记录后关闭
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<Entry> rejected = new ArrayList<>();
+        queue.drainTo(rejected);
+        rejected.forEach(entry -> entry.written.completeExceptionally(new IllegalStateException("wal " + name + " is closed")));
+    }
+
+    /**
+     * 日志中的一条记录
+     */
+    record Record(long lsn, byte op, long id, byte[] payload) {
+    }
+
+    private record Entry(List<Record> records, Runnable apply, CompletableFuture<Void> written) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.doc;
+
+import com.example.doc.apidocs.ApiDocsCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * OpenAPI文档缓存测试
+ * 分别启动按需生成(springdoc默认)和缓存(启动时预先生成)两种模式的应用, 对比第一次请求的延迟和每次请求的CPU时间,
+ * 并验证两种模式返回的文档相同, gzip, ETag/304(包括第一次生成时的响应), 带查询参数的请求不缓存, 重建
+ *
+ * @author luminion
+ */
+public class TestApiDocsCache {
+
+    private static final int REQUESTS = 500;
+
+    private static final String GROUP_PATH = "/springdoc/api-docs/" + UriUtils.encodePathSegment("员工管理", StandardCharsets.UTF_8);
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void onDemandVsCached() throws Exception {
+        Result onDemand = measure(false);
+        Result cached = measure(true);
+        System.out.printf("按需生成: 第一次请求 %.2f ms, 之后每次请求CPU %.1f us, %d字节%n",
+                onDemand.firstMillis, onDemand.cpuMicros, onDemand.body.length());
+        System.out.printf("缓存:     第一次请求 %.2f ms, 之后每次请求CPU %.1f us, %d字节, gzip %d字节%n",
+                cached.firstMillis, cached.cpuMicros, cached.body.length(), cached.gzipBytes);
+        Assertions.assertEquals(onDemand.body, cached.body);
+    }
+
+    private Result measure(boolean cache) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DocApp.class).run(
+                "--server.port=0",
+                "--luminion.doc-store.enabled=false",
+                "--luminion.api-docs-cache.enabled=" + cache)) {
+            String base = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            long start = System.nanoTime();
+            HttpResponse<String> first = get(base + GROUP_PATH, null);
+            double firstMillis = (System.nanoTime() - start) / 1e6;
+            Assertions.assertEquals(200, first.statusCode());
+
+            long cpu = processCpuTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                Assertions.assertEquals(200, get(base + GROUP_PATH, null).statusCode());
+            }
+            double cpuMicros = (processCpuTime() - cpu) / 1000.0 / REQUESTS;
+
+            long gzipBytes = 0;
+            if (cache) {
+                String etag = first.headers().firstValue("ETag").orElseThrow();
+                Assertions.assertEquals(304, get(base + GROUP_PATH, etag).statusCode());
+                HttpResponse<byte[]> gzip = client.send(HttpRequest.newBuilder(URI.create(base + GROUP_PATH))
+                        .header("Accept-Encoding", "gzip").build(), HttpResponse.BodyHandlers.ofByteArray());
+                Assertions.assertEquals("gzip", gzip.headers().firstValue("Content-Encoding").orElse(null));
+                gzipBytes = gzip.body().length;
+                // 重建清除所有文档, 重新生成的文档内容没有变化, 仍然返回304
+                ApiDocsCache apiDocsCache = context.getBean(ApiDocsCache.class);
+                Assertions.assertTrue(apiDocsCache.rebuild().contains(UriUtils.decode(GROUP_PATH, StandardCharsets.UTF_8)));
+                Assertions.assertEquals(0, apiDocsCache.size());
+                Assertions.assertEquals(304, get(base + GROUP_PATH, etag).statusCode());
+                Assertions.assertEquals(1, apiDocsCache.size());
+                HttpResponse<String> rebuild = client.send(HttpRequest.newBuilder(URI.create(base + "/api-docs-cache/rebuild"))
+                        .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+                Assertions.assertEquals(200, rebuild.statusCode());
+
+                // 带查询参数的请求不缓存
+                int size = apiDocsCache.size();
+                for (int i = 0; i < 10; i++) {
+                    Assertions.assertEquals(200, get(base + GROUP_PATH + "?x=" + i, null).statusCode());
+                }
+                Assertions.assertEquals(size, apiDocsCache.size());
+
+                // yaml格式没有预先生成, 第一次(生成时)的响应也带ETag
+                HttpResponse<String> yaml = get(base + "/springdoc/api-docs.yaml", null);
+                Assertions.assertEquals(200, yaml.statusCode());
+                String yamlEtag = yaml.headers().firstValue("ETag").orElseThrow();
+                Assertions.assertEquals(304, get(base + "/springdoc/api-docs.yaml", yamlEtag).statusCode());
+                Assertions.assertEquals(size + 1, apiDocsCache.size());
+            }
+            return new Result(firstMillis, cpuMicros, first.body(), gzipBytes);
+        }
+    }
+
+    private HttpResponse<String> get(String url, String ifNoneMatch) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url)).GET();
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static long processCpuTime() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    private record Result(double firstMillis, double cpuMicros, String body, long gzipBytes) {
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.doc;
+
+import com.example.doc.bulk.BulkFormat;
+import com.example.doc.bulk.BulkJob;
+import com.example.doc.bulk.BulkProperties;
+import com.example.doc.bulk.BulkService;
+import com.example.doc.entity.Employee;
+import com.example.doc.service.EmployeeCodec;
+import com.example.doc.service.EmployeeService;
+import com.example.doc.store.DocStore;
+import com.example.doc.store.DocStoreProperties;
+import com.example.doc.store.MemoryRepository;
+import com.example.doc.store.RepositoryJournal;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量导入导出测试
+ * 1.正确性: NDJSON/CSV导出后再导入数据不变, 解析或校验失败的行被跳过并返回行号, CSV列名错误时任务失败
+ * 2.基准: 导入/导出每秒记录数(NDJSON/CSV), 以及启用持久化时的导入速度(每批一次加锁和组提交)
+ * 行数默认100万, 可以通过-Dbenchmark.rows修改
+ *
+ * @author luminion
+ */
+public class TestBulkService {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 1_000_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTrip() {
+        BulkService bulk = bulkService();
+        EmployeeService source = new EmployeeService();
+        String ndjson = """
+                {"id":1,"empName":"张三","age":30,"email":"zs@example.com","deptId":1}
+                {"id":2,"empName":"李四, \\"小李\\"","deptId":2}
+                {"id":3,"empName":
+                {"empName":"no id"}
+
+                {"id":4,"empName":"王五","age":-1}
+                {"id":5,"empName":"赵六","email":"zl"}
+                {"id":6,"empName":"孙七","age":40,"email":"sq@example.com","deptId":1}
+                """;
+        BulkJob imported = importNdjson(bulk, source, ndjson.getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals(BulkJob.State.DONE, imported.getState());
+        Assertions.assertEquals(3, imported.getRecords());
+        Assertions.assertEquals(4, imported.getRejected());
+        Assertions.assertEquals(List.of(3, 4, 6, 7), imported.getErrors().stream()
+                .map(error -> Integer.parseInt(error.substring(0, error.indexOf(':')))).toList());
+        Assertions.assertEquals(List.of(1L, 2L, 6L), source.getEmployees().stream().map(Employee::getId).toList());
+
+        for (BulkFormat format : BulkFormat.values()) {
+            byte[] exported = export(bulk, source, format);
+            EmployeeService target = new EmployeeService();
+            BulkJob job = bulk.importFrom("emp", Employee.class, format, new ByteArrayInputStream(exported),
+                    target::validateEmployee, target::saveEmployees);
+            Assertions.assertEquals(BulkJob.State.DONE, job.getState(), job.getMessage());
+            Assertions.assertEquals(0, job.getRejected(), String.valueOf(job.getErrors()));
+            Assertions.assertEquals(new ArrayList<>(source.getEmployees()), new ArrayList<>(target.getEmployees()), format.name());
+        }
+
+        String csv = "id,name\n1,x\n";
+        BulkJob failed = bulk.importFrom("emp", Employee.class, BulkFormat.CSV, new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                source::validateEmployee, source::saveEmployees);
+        Assertions.assertEquals(BulkJob.State.FAILED, failed.getState());
+        Assertions.assertTrue(failed.isInvalidInput());
+        Assertions.assertEquals(failed, bulk.job(failed.getId()));
+
+        // 写入仓库失败是服务端错误
+        BulkJob sinkFailed = bulk.importFrom("emp", Employee.class, BulkFormat.NDJSON,
+                new ByteArrayInputStream("{\"id\":9,\"empName\":\"x\"}\n".getBytes(StandardCharsets.UTF_8)),
+                source::validateEmployee, batch -> {
+                    throw new IllegalStateException("journal unavailable");
+                });
+        Assertions.assertEquals(BulkJob.State.FAILED, sinkFailed.getState());
+        Assertions.assertFalse(sinkFailed.isInvalidInput());
+    }
+
+    @Test
+    void throughput() throws Exception {
+        BulkService bulk = bulkService();
+        EmployeeService source = new EmployeeService();
+        List<Employee> employees = new ArrayList<>(ROWS);
+        for (long i = 1; i <= ROWS; i++) {
+            employees.add(employee(i));
+        }
+        source.saveEmployees(employees);
+        for (BulkFormat format : BulkFormat.values()) {
+            // 预热
+            export(bulk, source, format);
+            long start = System.nanoTime();
+            byte[] exported = export(bulk, source, format);
+            long exportNanos = System.nanoTime() - start;
+
+            EmployeeService target = new EmployeeService();
+            start = System.nanoTime();
+            BulkJob job = bulk.importFrom("emp", Employee.class, format, new ByteArrayInputStream(exported),
+                    target::validateEmployee, target::saveEmployees);
+            long importNanos = System.nanoTime() - start;
+            Assertions.assertEquals(ROWS, job.getRecords());
+            Assertions.assertEquals(ROWS, target.getEmployees().size());
+            System.out.printf("%-6s %d条(%d字节, %.0f字节/条): 导出 %.0f 条/s, 导入 %.0f 条/s, %d批%n",
+                    format, ROWS, exported.length, exported.length / (double) ROWS,
+                    ROWS / (exportNanos / 1e9), ROWS / (importNanos / 1e9), job.getBatches());
+        }
+
+        // 启用持久化(不fsync)时导入, 每批只加锁一次, 日志按批组提交
+        byte[] ndjson = export(bulk, source, BulkFormat.NDJSON);
+        DocStoreProperties properties = new DocStoreProperties();
+        properties.setDirectory(directory);
+        properties.setFsync(false);
+        MemoryRepository<Employee> repository = new MemoryRepository<>(Employee::getId, EmployeeService::copy)
+                .index(EmployeeService.DEPT_INDEX, Employee::getDeptId)
+                .index(EmployeeService.NAME_INDEX, Employee::getEmpName);
+        RepositoryJournal<Employee> journal = new DocStore(properties).open("employee", repository, new EmployeeCodec());
+        long start = System.nanoTime();
+        BulkJob job = bulk.importFrom("emp", Employee.class, BulkFormat.NDJSON, new ByteArrayInputStream(ndjson),
+                source::validateEmployee, journal::putAll);
+        long importNanos = System.nanoTime() - start;
+        journal.close();
+        Assertions.assertEquals(ROWS, repository.size());
+        System.out.printf("NDJSON %d条写入日志: 导入 %.0f 条/s, 组提交%d次%n",
+                job.getRecords(), ROWS / (importNanos / 1e9), journal.getLogBatches());
+    }
+
+    private static BulkService bulkService() {
+        return new BulkService(new BulkProperties(), new ObjectMapper());
+    }
+
+    private static BulkJob importNdjson(BulkService bulk, EmployeeService service, byte[] body) {
+        return bulk.importFrom("emp", Employee.class, BulkFormat.NDJSON, new ByteArrayInputStream(body),
+                service::validateEmployee, service::saveEmployees);
+    }
+
+    private static byte[] export(BulkService bulk, EmployeeService service, BulkFormat format) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BulkJob job = bulk.exportTo("emp", Employee.class, format, service.getEmployees(), out);
+        Assertions.assertEquals(BulkJob.State.DONE, job.getState(), job.getMessage());
+        Assertions.assertEquals(service.getEmployees().size(), job.getRecords());
+        Assertions.assertEquals(out.size(), job.getBytes());
+        return out.toByteArray();
+    }
+
+    private static Employee employee(long id) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setEmpName("emp-" + id);
+        employee.setAge((int) (id % 60));
+        employee.setEmail("emp-" + id + "@example.com");
+        employee.setDeptId(id % 10);
+        return employee;
+    }
+}
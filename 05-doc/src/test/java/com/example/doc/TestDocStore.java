@@ -0,0 +1,172 @@
+package com.example.doc;
+
+import com.example.doc.entity.Employee;
+import com.example.doc.service.EmployeeCodec;
+import com.example.doc.service.EmployeeService;
+import com.example.doc.store.DocStore;
+import com.example.doc.store.DocStoreProperties;
+import com.example.doc.store.MemoryRepository;
+import com.example.doc.store.RepositoryJournal;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 内存数据仓库持久化测试
+ * 1.恢复: 快照 + 日志恢复后与写入的数据一致, 日志末尾未写完的记录被忽略
+ * 2.基准: 并发写入吞吐量(fsync开/关, 每次组提交合并的记录数), 每百万条数据的恢复耗时(只有日志/快照), 磁盘占用
+ *
+ * @author luminion
+ */
+public class TestDocStore {
+
+    private static final int THREADS = 64;
+
+    private static final int RECOVERY_ROWS = 1_000_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recovery() throws IOException {
+        DocStore store = store(true);
+        MemoryRepository<Employee> repository = repository();
+        RepositoryJournal<Employee> journal = store.open("employee", repository, new EmployeeCodec());
+        for (long i = 1; i <= 1000; i++) {
+            journal.put(employee(i));
+        }
+        journal.snapshot();
+        for (long i = 1; i <= 1000; i += 2) {
+            journal.remove(i);
+        }
+        journal.put(employee(2000));
+        journal.close();
+        List<Employee> expected = new ArrayList<>(repository.snapshot().values());
+
+        // 日志末尾写入一半的记录(模拟崩溃)
+        try (Stream<Path> files = Files.list(directory)) {
+            Path last = files.filter(file -> file.toString().endsWith(".wal")).sorted().reduce((a, b) -> b).orElseThrow();
+            Files.write(last, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+        }
+        MemoryRepository<Employee> recovered = repository();
+        RepositoryJournal<Employee> reopened = store(true).open("employee", recovered, new EmployeeCodec());
+        Assertions.assertEquals(expected, new ArrayList<>(recovered.snapshot().values()));
+        Assertions.assertEquals(1, recovered.snapshot().pageByIndex(EmployeeService.DEPT_INDEX, 2000L % 10, null, 1000).items().stream()
+                .filter(e -> e.getId() == 2000).count());
+        reopened.put(employee(3000));
+        reopened.close();
+        MemoryRepository<Employee> again = repository();
+        store(true).open("employee", again, new EmployeeCodec()).close();
+        Assertions.assertNotNull(again.get(3000));
+    }
+
+    @Test
+    void writeThroughput() throws Exception {
+        for (boolean fsync : new boolean[]{true, false}) {
+            Path dir = directory.resolve("fsync-" + fsync);
+            DocStoreProperties properties = properties(dir, fsync);
+            RepositoryJournal<Employee> journal = new DocStore(properties).open("employee", repository(), new EmployeeCodec());
+            int perThread = fsync ? 500 : 5_000;
+            long start = System.nanoTime();
+            concurrently(perThread, (thread, i) -> journal.put(employee((long) thread * perThread + i)));
+            long elapsed = System.nanoTime() - start;
+            journal.close();
+            long records = journal.getLogRecords();
+            System.out.printf("fsync=%-5s %d个线程写入%d条: %.0f 条/s, 组提交%d次(平均每次%.1f条), 日志%d字节(%.1f字节/条)%n",
+                    fsync, THREADS, records, records / (elapsed / 1e9), journal.getLogBatches(),
+                    records / (double) journal.getLogBatches(), journal.getDiskBytes(), journal.getDiskBytes() / (double) records);
+            Assertions.assertEquals((long) THREADS * perThread, records);
+        }
+    }
+
+    @Test
+    void recoveryTime() throws Exception {
+        DocStoreProperties properties = properties(directory, false);
+        RepositoryJournal<Employee> journal = new DocStore(properties).open("employee", repository(), new EmployeeCodec());
+        int perThread = RECOVERY_ROWS / THREADS;
+        concurrently(perThread, (thread, i) -> journal.put(employee((long) thread * perThread + i)));
+        journal.close();
+        long logBytes = journal.getDiskBytes();
+
+        long start = System.nanoTime();
+        MemoryRepository<Employee> fromLog = repository();
+        RepositoryJournal<Employee> replayed = new DocStore(properties).open("employee", fromLog, new EmployeeCodec());
+        long logMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assertions.assertEquals(THREADS * perThread, fromLog.size());
+
+        start = System.nanoTime();
+        long snapshotBytes = replayed.snapshot();
+        long snapshotMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        replayed.close();
+
+        start = System.nanoTime();
+        MemoryRepository<Employee> fromSnapshot = repository();
+        new DocStore(properties).open("employee", fromSnapshot, new EmployeeCodec()).close();
+        long loadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assertions.assertEquals(THREADS * perThread, fromSnapshot.size());
+
+        double millions = THREADS * perThread / 1e6;
+        System.out.printf("%d条数据: 日志%d字节, 重放日志恢复 %.0f ms/百万条; 快照%d字节, 写入快照 %d ms, 加载快照恢复 %.0f ms/百万条%n",
+                THREADS * perThread, logBytes, logMillis / millions, snapshotBytes, snapshotMillis, loadMillis / millions);
+    }
+
+    private DocStore store(boolean fsync) {
+        return new DocStore(properties(directory, fsync));
+    }
+
+    private static DocStoreProperties properties(Path directory, boolean fsync) {
+        DocStoreProperties properties = new DocStoreProperties();
+        properties.setDirectory(directory);
+        properties.setFsync(fsync);
+        return properties;
+    }
+
+    private static MemoryRepository<Employee> repository() {
+        return new MemoryRepository<>(Employee::getId, EmployeeService::copy)
+                .index(EmployeeService.DEPT_INDEX, Employee::getDeptId)
+                .index(EmployeeService.NAME_INDEX, Employee::getEmpName);
+    }
+
+    private static Employee employee(long id) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setEmpName("emp-" + id);
+        employee.setAge((int) (id % 60));
+        employee.setEmail("emp-" + id + "@example.com");
+        employee.setDeptId(id % 10);
+        return employee;
+    }
+
+    private static void concurrently(int perThread, Operation operation) throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        operation.run(thread, i);
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.MINUTES);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+
+        void run(int thread, int index);
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.doc;
+
+import com.example.doc.entity.Employee;
+import com.example.doc.service.EmployeeService;
+import com.example.doc.store.InvalidCursorException;
+import com.example.doc.store.MemoryRepository;
+import com.example.doc.store.Page;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.StopWatch;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 内存数据仓库测试
+ * 1.分页/索引/快照的正确性, 修改已写入的对象后重新写入时索引正确, 读到的是副本, 游标格式错误时抛出InvalidCursorException
+ * 2.基准: 对比ConcurrentHashMap(原实现, 每次列表都复制)与MemoryRepository在1万/10万/100万数据量下的写入/读取/列表耗时,
+ *   运行时指定-Dbenchmark.max=10000000可以测到1000万
+ *
+ * @author luminion
+ */
+public class TestMemoryRepository {
+
+    private static final int GETS = 1_000_000;
+
+    private static final int LISTS = 20;
+
+    @Test
+    void pagination() {
+        MemoryRepository<Employee> repository = repository();
+        for (long i = 1; i <= 1000; i++) {
+            repository.put(employee(i));
+        }
+        MemoryRepository.Snapshot<Employee> snapshot = repository.snapshot();
+        // 快照不受之后写入的影响
+        repository.remove(1L);
+        repository.put(employee(1001));
+        Assertions.assertEquals(1000, snapshot.size());
+        Assertions.assertNotNull(snapshot.get(1L));
+        Assertions.assertNull(snapshot.get(1001L));
+
+        List<Employee> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            Page<Employee> page = snapshot.page(cursor, 64);
+            all.addAll(page.items());
+            cursor = page.next();
+        } while (cursor != null);
+        Assertions.assertEquals(new ArrayList<>(snapshot.values()), all);
+
+        all.clear();
+        do {
+            Page<Employee> page = snapshot.pageByIndex(EmployeeService.DEPT_INDEX, 3L, cursor, 7);
+            all.addAll(page.items());
+            cursor = page.next();
+        } while (cursor != null);
+        Assertions.assertEquals(100, all.size());
+        Assertions.assertTrue(all.stream().allMatch(e -> e.getDeptId() == 3L));
+
+        all.clear();
+        do {
+            Page<Employee> page = snapshot.pageByPrefix(EmployeeService.NAME_INDEX, "emp-12", cursor, 3);
+            all.addAll(page.items());
+            cursor = page.next();
+        } while (cursor != null);
+        // emp-12, emp-120 ~ emp-129
+        Assertions.assertEquals(11, all.size());
+        Assertions.assertTrue(all.stream().allMatch(e -> e.getEmpName().startsWith("emp-12")));
+
+        // 游标格式错误
+        Assertions.assertThrows(InvalidCursorException.class, () -> snapshot.page("abc", 10));
+        Assertions.assertThrows(InvalidCursorException.class, () -> snapshot.pageByPrefix(EmployeeService.NAME_INDEX, "emp", "abc", 10));
+        Assertions.assertThrows(InvalidCursorException.class, () -> snapshot.pageByPrefix(EmployeeService.NAME_INDEX, "emp", "@@.1", 10));
+    }
+
+    @Test
+    void mutatedEntity() {
+        MemoryRepository<Employee> repository = repository();
+        Employee employee = employee(3);
+        repository.put(employee);
+        // 写入的是副本, 修改原对象不影响仓库
+        employee.setDeptId(4L);
+        Assertions.assertEquals(3L, repository.get(3L).getDeptId());
+        Assertions.assertEquals(1, repository.snapshot().pageByIndex(EmployeeService.DEPT_INDEX, 3L, null, 10).items().size());
+
+        // 重新写入: 按写入时的索引值移除旧索引
+        repository.put(employee);
+        Assertions.assertTrue(repository.snapshot().pageByIndex(EmployeeService.DEPT_INDEX, 3L, null, 10).items().isEmpty());
+        Assertions.assertEquals(1, repository.snapshot().pageByIndex(EmployeeService.DEPT_INDEX, 4L, null, 10).items().size());
+
+        // 读到的是副本, 修改后不写入不影响仓库和索引
+        Employee stored = repository.get(3L);
+        stored.setDeptId(5L);
+        Assertions.assertEquals(4L, repository.get(3L).getDeptId());
+        repository.snapshot().get(3L).setDeptId(5L);
+        repository.snapshot().values().forEach(e -> e.setDeptId(5L));
+        repository.snapshot().pageByIndex(EmployeeService.DEPT_INDEX, 4L, null, 10).items().forEach(e -> e.setDeptId(5L));
+        Assertions.assertEquals(4L, repository.get(3L).getDeptId());
+        Assertions.assertEquals(1, repository.snapshot().pageByIndex(EmployeeService.DEPT_INDEX, 4L, null, 10).items().size());
+
+        // 修改读到的对象后写入
+        repository.put(stored);
+        Assertions.assertTrue(repository.snapshot().pageByIndex(EmployeeService.DEPT_INDEX, 4L, null, 10).items().isEmpty());
+        Assertions.assertEquals(1, repository.snapshot().pageByIndex(EmployeeService.DEPT_INDEX, 5L, null, 10).items().size());
+
+        repository.remove(3L);
+        Assertions.assertTrue(repository.snapshot().pageByIndex(EmployeeService.DEPT_INDEX, 5L, null, 10).items().isEmpty());
+    }
+
+    @Test
+    void benchmark() {
+        int max = Integer.getInteger("benchmark.max", 1_000_000);
+        for (int size = 10_000; size <= max; size *= 10) {
+            benchmark(size);
+        }
+    }
+
+    private void benchmark(int size) {
+        Map<Long, Employee> map = new ConcurrentHashMap<>();
+        MemoryRepository<Employee> repository = repository();
+        StopWatch watch = new StopWatch(size + "条数据");
+
+        watch.start("map put");
+        for (long i = 1; i <= size; i++) {
+            map.put(i, employee(i));
+        }
+        watch.stop();
+        watch.start("repository put");
+        for (long i = 1; i <= size; i++) {
+            repository.put(employee(i));
+        }
+        watch.stop();
+
+        long sum = 0;
+        watch.start("map get");
+        for (int i = 0; i < GETS; i++) {
+            sum += map.get(ThreadLocalRandom.current().nextLong(1, size + 1)).getAge();
+        }
+        watch.stop();
+        watch.start("repository get");
+        for (int i = 0; i < GETS; i++) {
+            sum += repository.get(ThreadLocalRandom.current().nextLong(1, size + 1)).getAge();
+        }
+        watch.stop();
+
+        // 列表: 原实现每次复制为列表; 快照视图遍历时逐条复制, 遍历一次模拟序列化
+        watch.start("map list");
+        for (int i = 0; i < LISTS; i++) {
+            sum += iterate(map.values().stream().toList());
+        }
+        watch.stop();
+        watch.start("repository list");
+        for (int i = 0; i < LISTS; i++) {
+            sum += iterate(repository.snapshot().values());
+        }
+        watch.stop();
+        watch.start("repository page");
+        for (int i = 0; i < GETS / 100; i++) {
+            String cursor = Long.toString(ThreadLocalRandom.current().nextLong(1, size));
+            sum += repository.snapshot().page(cursor, 20).items().size();
+        }
+        watch.stop();
+
+        System.out.println(watch.prettyPrint());
+        StopWatch.TaskInfo[] tasks = watch.getTaskInfo();
+        System.out.printf("%d条数据: put %.0f/%.0f ns, get %.0f/%.0f ns, list %.2f/%.2f ms (map/repository), page %.0f ns, %d%n",
+                size,
+                tasks[0].getTimeNanos() / (double) size, tasks[1].getTimeNanos() / (double) size,
+                tasks[2].getTimeNanos() / (double) GETS, tasks[3].getTimeNanos() / (double) GETS,
+                tasks[4].getTimeMillis() / (double) LISTS, tasks[5].getTimeMillis() / (double) LISTS,
+                tasks[6].getTimeNanos() / (GETS / 100.0), sum);
+        Assertions.assertEquals(size, repository.size());
+    }
+
+    private static long iterate(Collection<Employee> employees) {
+        long sum = 0;
+        for (Employee employee : employees) {
+            sum += employee.getId();
+        }
+        return sum;
+    }
+
+    private static MemoryRepository<Employee> repository() {
+        return new MemoryRepository<>(Employee::getId, EmployeeService::copy)
+                .index(EmployeeService.DEPT_INDEX, Employee::getDeptId)
+                .index(EmployeeService.NAME_INDEX, Employee::getEmpName);
+    }
+
+    private static Employee employee(long id) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setEmpName("emp-" + id);
+        employee.setAge((int) (id % 60));
+        employee.setEmail("emp-" + id + "@example.com");
+        employee.setDeptId(id % 10);
+        return employee;
+    }
+}
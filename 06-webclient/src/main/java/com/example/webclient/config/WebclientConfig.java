@@ -2,6 +2,7 @@ package com.example.webclient.config;
 
 import com.example.webclient.service.ExpressApi;
 import com.example.webclient.service.WeatherApi;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,16 +19,17 @@ import org.springframework.web.service.invoker.HttpServiceProxyFactory;
 public class WebclientConfig {
 
     /**
-     * http服务代理工厂
+     * 阿里云接口使用的客户端
+     * 由共享的WebClient派生, 与其他客户端使用同一个连接池(见HttpClientConfig)
      *
-     * @param appCode 阿里云查询服务的code
-     * @return {@code HttpServiceProxyFactory }
+     * @param sharedWebClient 共享的WebClient
+     * @param appCode         阿里云查询服务的code
+     * @return {@code WebClient }
      * @author luminion
      */
     @Bean
-    public HttpServiceProxyFactory httpServiceProxyFactory(@Value("${aliyun.appcode}") String appCode){
-        //1、创建客户端
-        WebClient client = WebClient.builder()
+    public WebClient aliyunWebClient(@Qualifier("sharedWebClient") WebClient sharedWebClient, @Value("${aliyun.appcode}") String appCode){
+        return sharedWebClient.mutate()
                 .defaultHeader("Authorization","APPCODE "+appCode) //添加默认请求头
                 .codecs(clientCodecConfigurer -> {
                     clientCodecConfigurer
@@ -36,9 +38,20 @@ public class WebclientConfig {
                     //响应数据量太大有可能会超出BufferSize，所以这里设置的大一点
                 }) // 编码格式
                 .build();
-        //2、创建代理工厂
+    }
+
+    /**
+     * http服务代理工厂
+     *
+     * @param aliyunWebClient 阿里云接口使用的客户端
+     * @return {@code HttpServiceProxyFactory }
+     * @author luminion
+     */
+    @Bean
+    public HttpServiceProxyFactory httpServiceProxyFactory(@Qualifier("aliyunWebClient") WebClient aliyunWebClient){
+        //创建代理工厂
         HttpServiceProxyFactory factory = HttpServiceProxyFactory.builder()
-                .exchangeAdapter(WebClientAdapter.create(client))
+                .exchangeAdapter(WebClientAdapter.create(aliyunWebClient))
                 .build();
         return factory;
     }
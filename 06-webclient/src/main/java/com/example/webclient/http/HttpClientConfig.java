@@ -0,0 +1,139 @@
+package com.example.webclient.http;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 共享http客户端配置
+ * 所有WebClient共用一个reactor netty的连接池(ConnectionProvider), 连接池内按上游主机(host:port)分别维护连接,
+ * 每个主机的最大连接数/排队数/空闲和存活时间可以在luminion.http-client.hosts中单独配置
+ *
+ * 1.注册的ReactorClientHttpConnector使springboot不再创建默认的连接器, springboot提供的WebClient.Builder都使用此连接池
+ * 2.https连接通过ALPN协商HTTP/2(上游支持时多个请求复用一个连接), 否则使用HTTP/1.1
+ * 3.使用netty的异步dns解析并缓存解析结果, 不占用事件循环线程
+ * 4.指标(/actuator/metrics):
+ *   reactor.netty.connection.provider.total.connections/active.connections/idle.connections/pending.connections/max.connections 连接池使用情况(按remote.address)
+ *   reactor.netty.connection.provider.pending.connections.time 等待取得连接的时间
+ *   reactor.netty.http.client.response.time/connect.time/address.resolver 每个主机的响应/建立连接/dns解析耗时
+ *   http.client.requests 按client.name(主机)和uri统计的请求耗时(springboot的WebClient观测)
+ *
+ * @author luminion
+ */
+@Configuration
+@EnableConfigurationProperties(HttpClientProperties.class)
+public class HttpClientConfig {
+
+    /**
+     * 连接池, 容器关闭时关闭所有连接
+     *
+     * @param properties 配置
+     * @return {@link ConnectionProvider }
+     * @author luminion
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider httpConnectionProvider(HttpClientProperties properties) {
+        HttpClientProperties.Pool defaults = properties.getPool();
+        ConnectionProvider.Builder builder = ConnectionProvider.builder(properties.getName());
+        configure(builder, defaults, defaults, properties.isMetrics());
+        for (Map.Entry<String, HttpClientProperties.Pool> host : properties.getHosts().entrySet()) {
+            for (InetSocketAddress address : addresses(host.getKey())) {
+                builder.forRemoteHost(address, spec -> configure(spec, host.getValue(), defaults, properties.isMetrics()));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * reactor netty客户端
+     *
+     * @param connectionProvider 连接池
+     * @param properties         配置
+     * @return {@link HttpClient }
+     * @author luminion
+     */
+    @Bean
+    public HttpClient reactorHttpClient(ConnectionProvider connectionProvider, HttpClientProperties properties) {
+        HttpClientProperties.Dns dns = properties.getDns();
+        HttpClient client = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .responseTimeout(properties.getResponseTimeout())
+                .resolver(spec -> spec
+                        .cacheMinTimeToLive(dns.getCacheMinTimeToLive())
+                        .cacheMaxTimeToLive(dns.getCacheMaxTimeToLive())
+                        .cacheNegativeTimeToLive(dns.getCacheNegativeTimeToLive())
+                        .queryTimeout(dns.getQueryTimeout()))
+                // uri标签去掉查询参数, 避免每个参数值产生一个指标
+                .metrics(properties.isMetrics(), uri -> {
+                    int query = uri.indexOf('?');
+                    return query < 0 ? uri : uri.substring(0, query);
+                });
+        if (properties.isHttp2()) {
+            client = client.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        return client;
+    }
+
+    /**
+     * springboot的WebClient.Builder使用的连接器
+     *
+     * @param reactorHttpClient reactor netty客户端
+     * @return {@link ReactorClientHttpConnector }
+     * @author luminion
+     */
+    @Bean
+    public ReactorClientHttpConnector reactorClientHttpConnector(HttpClient reactorHttpClient) {
+        return new ReactorClientHttpConnector(reactorHttpClient);
+    }
+
+    /**
+     * 共享的WebClient, 需要默认请求头等设置时通过mutate()派生(派生的客户端仍使用同一个连接池)
+     *
+     * @param builder springboot提供的WebClient.Builder(带编解码器和请求观测)
+     * @return {@link WebClient }
+     * @author luminion
+     */
+    @Bean
+    public WebClient sharedWebClient(WebClient.Builder builder) {
+        return builder.build();
+    }
+
+    private static <S extends ConnectionProvider.ConnectionPoolSpec<S>> void configure(S spec, HttpClientProperties.Pool pool,
+                                                                                       HttpClientProperties.Pool defaults, boolean metrics) {
+        spec.maxConnections(value(pool, defaults, HttpClientProperties.Pool::getMaxConnections))
+                .pendingAcquireMaxCount(value(pool, defaults, HttpClientProperties.Pool::getPendingAcquireMaxCount))
+                .pendingAcquireTimeout(value(pool, defaults, HttpClientProperties.Pool::getPendingAcquireTimeout))
+                .maxIdleTime(value(pool, defaults, HttpClientProperties.Pool::getMaxIdleTime))
+                .maxLifeTime(value(pool, defaults, HttpClientProperties.Pool::getMaxLifeTime))
+                .evictInBackground(value(pool, defaults, HttpClientProperties.Pool::getEvictInBackground))
+                .metrics(metrics);
+    }
+
+    private static <T> T value(HttpClientProperties.Pool pool, HttpClientProperties.Pool defaults,
+                               Function<HttpClientProperties.Pool, T> getter) {
+        T value = getter.apply(pool);
+        return value != null ? value : getter.apply(defaults);
+    }
+
+    /**
+     * host:port或host(同时用于80和443端口)
+     */
+    private static InetSocketAddress[] addresses(String host) {
+        int colon = host.lastIndexOf(':');
+        if (colon > 0 && host.indexOf(':') == colon) {
+            return new InetSocketAddress[]{
+                    InetSocketAddress.createUnresolved(host.substring(0, colon), Integer.parseInt(host.substring(colon + 1)))};
+        }
+        return new InetSocketAddress[]{InetSocketAddress.createUnresolved(host, 80), InetSocketAddress.createUnresolved(host, 443)};
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.webclient.http;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 共享http客户端配置
+ *
+ * @author luminion
+ */
+@Data
+@ConfigurationProperties(prefix = "luminion.http-client")
+public class HttpClientProperties {
+
+    /**
+     * 连接池名称, 指标中的name标签
+     */
+    private String name = "shared";
+
+    /**
+     * 建立连接超时时间
+     */
+    private Duration connectTimeout = Duration.ofSeconds(3);
+
+    /**
+     * 响应超时时间(发送请求后等待响应的最长时间)
+     */
+    private Duration responseTimeout = Duration.ofSeconds(10);
+
+    /**
+     * 是否在https连接上协商HTTP/2(ALPN), 上游不支持时使用HTTP/1.1
+     */
+    private boolean http2 = true;
+
+    /**
+     * 是否记录reactor netty的连接池和请求指标(reactor.netty.*)
+     */
+    private boolean metrics = true;
+
+    /**
+     * dns解析配置
+     */
+    private Dns dns = new Dns();
+
+    /**
+     * 每个上游主机的默认连接池配置
+     */
+    private Pool pool = Pool.defaults();
+
+    /**
+     * 单独配置的上游主机(host或host:port, 只写host时同时用于80和443端口), 未配置的项使用pool中的配置
+     */
+    private Map<String, Pool> hosts = new LinkedHashMap<>();
+
+    @Data
+    public static class Dns {
+
+        /**
+         * 解析结果的最短缓存时间
+         */
+        private Duration cacheMinTimeToLive = Duration.ZERO;
+
+        /**
+         * 解析结果的最长缓存时间(dns记录的ttl更长时使用此值)
+         */
+        private Duration cacheMaxTimeToLive = Duration.ofMinutes(5);
+
+        /**
+         * 解析失败的缓存时间
+         */
+        private Duration cacheNegativeTimeToLive = Duration.ofSeconds(5);
+
+        /**
+         * 单次查询超时时间
+         */
+        private Duration queryTimeout = Duration.ofSeconds(3);
+    }
+
+    @Data
+    public static class Pool {
+
+        /**
+         * 最大连接数
+         */
+        private Integer maxConnections;
+
+        /**
+         * 连接全部被占用时最多排队等待的请求数, 超过后立即失败
+         */
+        private Integer pendingAcquireMaxCount;
+
+        /**
+         * 排队等待连接的最长时间
+         */
+        private Duration pendingAcquireTimeout;
+
+        /**
+         * 连接空闲超过此时间后关闭
+         */
+        private Duration maxIdleTime;
+
+        /**
+         * 连接存活超过此时间后关闭(使上游的扩缩容/dns变化生效)
+         */
+        private Duration maxLifeTime;
+
+        /**
+         * 后台检查并关闭空闲/过期连接的间隔, 0表示只在取用连接时检查
+         */
+        private Duration evictInBackground;
+
+        static Pool defaults() {
+            Pool pool = new Pool();
+            pool.setMaxConnections(100);
+            pool.setPendingAcquireMaxCount(1000);
+            pool.setPendingAcquireTimeout(Duration.ofSeconds(5));
+            pool.setMaxIdleTime(Duration.ofSeconds(30));
+            pool.setMaxLifeTime(Duration.ofMinutes(5));
+            pool.setEvictInBackground(Duration.ofSeconds(30));
+            return pool;
+        }
+    }
+}
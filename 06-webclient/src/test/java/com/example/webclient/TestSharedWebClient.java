@@ -0,0 +1,195 @@
+package com.example.webclient;
+
+import com.example.webclient.service.WeatherService;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 共享连接池的WebClient 与 每次调用创建WebClient(改造前的WeatherService) 的负载对比
+ * 200个并发分别发送20000个请求到本地的模拟上游(每个请求延迟5ms), 输出吞吐量, p50/p99延迟, 上游收到的连接数, 失败数,
+ * 以及共享连接池的指标(连接数, 等待连接的时间, 按主机统计的请求耗时)
+ *
+ * @author luminion
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "aliyun.appcode=test",
+        "luminion.http-client.pool.max-connections=200"
+})
+public class TestSharedWebClient {
+
+    private static final int CONCURRENCY = 200;
+
+    private static final int REQUESTS = 20_000;
+
+    private static final Duration UPSTREAM_DELAY = Duration.ofMillis(5);
+
+    private static final byte[] BODY = ("{\"showapi_res_code\":0,\"showapi_res_body\":{\"now\":{\"weather\":\"晴\",\"temperature\":\"20\"},"
+            + "\"f1\":{\"day_weather\":\"多云\",\"night_weather\":\"晴\"}}}").getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 上游收到请求的客户端地址(ip:port), 不同的地址即不同的连接
+     */
+    private static final Set<InetSocketAddress> CONNECTIONS = ConcurrentHashMap.newKeySet();
+
+    private static final HttpServer UPSTREAM = startUpstream();
+
+    @Autowired
+    private WeatherService weatherService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry properties) {
+        properties.add("aliyun.weather-url", TestSharedWebClient::weatherUrl);
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        UPSTREAM.stop(0);
+    }
+
+    @Test
+    void sharedVsPerCall() {
+        Assertions.assertEquals(new String(BODY, StandardCharsets.UTF_8), weatherService.weather("北京").block());
+        // 预热
+        load(() -> weatherService.weather("北京"), REQUESTS / 10);
+        load(() -> perCallWeather("北京"), REQUESTS / 10);
+
+        Result perCall = load(() -> perCallWeather("北京"), REQUESTS);
+        Result shared = load(() -> weatherService.weather("北京"), REQUESTS);
+        System.out.println("每次调用创建WebClient: " + perCall);
+        System.out.println("共享连接池的WebClient: " + shared);
+
+        String remote = "localhost:" + UPSTREAM.getAddress().getPort();
+        double maxConnections = gauge("reactor.netty.connection.provider.max.connections");
+        double totalConnections = gauge("reactor.netty.connection.provider.total.connections");
+        Timer acquire = Metrics.globalRegistry.find("reactor.netty.connection.provider.pending.connections.time")
+                .tag("name", "shared").timer();
+        Timer requests = registry.find("http.client.requests").tag("client.name", "localhost").timer();
+        Assertions.assertNotNull(requests);
+        System.out.printf("连接池: 最大连接数 %.0f, 当前连接数 %.0f, 等待连接 %d次 平均 %.3f ms 最长 %.3f ms%n",
+                maxConnections, totalConnections, acquire == null ? 0 : acquire.count(),
+                acquire == null ? 0 : acquire.mean(TimeUnit.MILLISECONDS), acquire == null ? 0 : acquire.max(TimeUnit.MILLISECONDS));
+        System.out.printf("http.client.requests{client.name=localhost}: %d次 平均 %.3f ms 最长 %.3f ms (%s)%n",
+                requests.count(), requests.mean(TimeUnit.MILLISECONDS), requests.max(TimeUnit.MILLISECONDS), remote);
+
+        // 每次调用创建的WebClient使用reactor netty的全局连接池(默认最大连接数和排队数较小), 并发高时可能排队失败, 只输出不断言
+        Assertions.assertEquals(0, shared.errors);
+        Assertions.assertTrue(shared.connections <= 200, "connections: " + shared.connections);
+    }
+
+    /**
+     * 改造前的WeatherService: 每次调用创建WebClient
+     */
+    private static Mono<String> perCallWeather(String city) {
+        WebClient client = WebClient.create();
+        Map<String, String> params = new HashMap<>();
+        params.put("area", city);
+        return client.get()
+                .uri(weatherUrl() + "?area={area}", params)
+                .accept(MediaType.APPLICATION_JSON)
+                .header("Authorization", "APPCODE test")
+                .retrieve()
+                .bodyToMono(String.class);
+    }
+
+    private static Result load(Supplier<Mono<String>> request, int count) {
+        CONNECTIONS.clear();
+        long[] latencies = new long[count];
+        int[] errors = new int[1];
+        long start = System.nanoTime();
+        Flux.range(0, count)
+                .flatMap(i -> Mono.defer(() -> {
+                    long begin = System.nanoTime();
+                    return request.get()
+                            .doOnSuccess(body -> latencies[i] = System.nanoTime() - begin)
+                            .onErrorResume(e -> {
+                                synchronized (errors) {
+                                    errors[0]++;
+                                }
+                                return Mono.empty();
+                            });
+                }), CONCURRENCY)
+                .blockLast(Duration.ofMinutes(5));
+        long elapsed = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        return new Result(count / (elapsed / 1e9), latencies[count / 2] / 1e6, latencies[count * 99 / 100] / 1e6,
+                CONNECTIONS.size(), errors[0]);
+    }
+
+    private static double gauge(String name) {
+        return Metrics.globalRegistry.find(name).tag("name", "shared").gauges().stream()
+                .mapToDouble(Gauge::value)
+                .max().orElse(0);
+    }
+
+    private static String weatherUrl() {
+        return "http://localhost:" + UPSTREAM.getAddress().getPort() + "/area-to-weather-date";
+    }
+
+    /**
+     * 模拟上游: 每个请求延迟UPSTREAM_DELAY后返回固定的json
+     */
+    private static HttpServer startUpstream() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+            server.createContext("/area-to-weather-date", exchange -> {
+                CONNECTIONS.add(exchange.getRemoteAddress());
+                try {
+                    Thread.sleep(UPSTREAM_DELAY);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.getResponseHeaders().add("Content-Type", "application/json;charset=UTF-8");
+                exchange.sendResponseHeaders(200, BODY.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(BODY);
+                }
+            });
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Result(double throughput, double p50, double p99, int connections, int errors) {
+
+        @Override
+        public String toString() {
+            return String.format("%.0f 请求/s, p50 %.2f ms, p99 %.2f ms, 上游收到%d个连接, %d个错误",
+                    throughput, p50, p99, connections, errors);
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package com.example.kafka.listener;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.annotation.PartitionOffset;
 import org.springframework.kafka.annotation.TopicPartition;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 /**
  * 注解方式的监听器
  * 注解@KafkaListener注释用于将bean方法指定为侦听器容器的侦听器。
@@ -57,4 +61,20 @@ public class AnnoListener {
         System.out.println("收到partition-0消息："+record);
     }
 
+    /**
+     * 监听02-event发件箱(luminion.outbox)发送的事件
+     * 发件箱至少发送一次, 重试时可能收到重复的事件, 可按请求头outbox-offset去重
+     *
+     * @param record 记录
+     * @author luminion
+     */
+    @KafkaListener(topics = "event-outbox", groupId = "event-outbox-service")
+    public void listenOutbox(ConsumerRecord<String, Object> record) {
+        Header type = record.headers().lastHeader("event-type");
+        Header offset = record.headers().lastHeader("outbox-offset");
+        System.out.println("收到发件箱事件：type=" + (type == null ? null : new String(type.value(), StandardCharsets.UTF_8))
+                + ", offset=" + (offset == null ? null : ByteBuffer.wrap(offset.value()).getLong())
+                + ", partition=" + record.partition());
+    }
+
 }